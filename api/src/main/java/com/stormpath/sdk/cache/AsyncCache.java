@@ -0,0 +1,51 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.cache;
+
+import java.util.concurrent.Future;
+
+/**
+ * A {@link Cache} whose operations can also be performed without blocking the calling thread, e.g. because they
+ * require a network round trip to a distributed cache.
+ * <p/>
+ * The SDK uses the asynchronous variants where waiting for the outcome is not necessary, like when caching resources
+ * after they have been written to Stormpath, so request threads are not blocked by cache replication.
+ *
+ * @param <K> cache key type
+ * @param <V> cache value type
+ * @since 2.0.5
+ */
+public interface AsyncCache<K, V> extends Cache<K, V> {
+
+    /**
+     * Asynchronously returns the cached value stored under the specified {@code key}.
+     *
+     * @param key the key that the value was previous added with
+     * @return a future completed with the cached object, or {@code null} if there is no entry for the specified
+     * {@code key}.
+     */
+    Future<V> getAsync(K key);
+
+    /**
+     * Asynchronously adds a cache entry.
+     *
+     * @param key   the key used to identify the object being stored.
+     * @param value the value to be stored in the cache.
+     * @return a future completed with the previous value associated with the given {@code key} or {@code null} if
+     * there was no previous value.
+     */
+    Future<V> putAsync(K key, V value);
+}
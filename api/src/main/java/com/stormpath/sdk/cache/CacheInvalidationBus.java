@@ -0,0 +1,68 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.cache;
+
+import java.util.Collection;
+
+/**
+ * Propagates cache evictions between the application nodes that each run their own, in-memory {@code CacheManager}.
+ * <p/>
+ * When a resource is saved or deleted on one node, that node updates its own cache and
+ * {@link #publish(String, String) publishes} the evicted key.  Every other node connected to the bus is notified and
+ * removes the key from its local region, so it reads the new state of the resource on its next access instead of
+ * serving the outdated one until its Time to Live elapses.
+ * <p/>
+ * Implementations are expected to batch publications and to coalesce repeated publications of the same key, and must
+ * not notify the publishing node of its own publications.  Delivery is best-effort: Time to Live settings remain the
+ * upper bound of how long an outdated entry can be served if a notification is lost.
+ * <p/>
+ * A bus is configured on the SDK's default {@code CacheManager} implementation with the {@code withInvalidationBus}
+ * method of its builder.
+ *
+ * @since 2.0.5
+ */
+public interface CacheInvalidationBus {
+
+    /**
+     * Notifies the other nodes that the entry with the specified key must be removed from the specified cache region.
+     * This method does not block on network I/O.
+     *
+     * @param region the name of the cache region
+     * @param key    the key of the entry to remove
+     */
+    void publish(String region, String key);
+
+    /**
+     * Registers a listener notified of the evictions published by the other nodes.
+     *
+     * @param listener the listener to notify of the evictions published by the other nodes
+     */
+    void subscribe(Listener listener);
+
+    /**
+     * Callback notified of the evictions published by other nodes.
+     */
+    interface Listener {
+
+        /**
+         * Invoked when another node published evictions for the specified cache region.
+         *
+         * @param region the name of the cache region
+         * @param keys   the keys of the entries to remove
+         */
+        void onInvalidation(String region, Collection<String> keys);
+    }
+}
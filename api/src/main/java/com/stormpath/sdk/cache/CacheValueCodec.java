@@ -0,0 +1,50 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.cache;
+
+import java.io.IOException;
+
+/**
+ * Converts cached values to bytes and back, for cache implementations that store values outside of the JVM heap, for
+ * example distributed caches that send them across the network.
+ * <p/>
+ * Values cached by the SDK are resource data maps: {@code Map<String, ?>} graphs of strings, numbers, booleans, dates,
+ * nested maps and collections.  A codec dedicated to these shapes can be considerably faster and more compact than
+ * default Java serialization.  Implementations must be thread-safe.
+ *
+ * @see Caches#newBinaryValueCodec()
+ * @since 2.0.5
+ */
+public interface CacheValueCodec {
+
+    /**
+     * Encodes the specified cached value.
+     *
+     * @param value the value to encode, may be {@code null}
+     * @return the encoded value
+     * @throws IOException if the value can not be encoded
+     */
+    byte[] encode(Object value) throws IOException;
+
+    /**
+     * Decodes a value previously {@link #encode(Object) encoded} by this codec.
+     *
+     * @param bytes the encoded value
+     * @return the decoded value
+     * @throws IOException if the bytes can not be decoded
+     */
+    Object decode(byte[] bytes) throws IOException;
+}
@@ -91,6 +91,18 @@ public class Caches {
         return (CacheManager) Classes.newInstance("com.stormpath.sdk.impl.cache.DisabledCacheManager");
     }
 
+    /**
+     * Instantiates the SDK's compact binary {@link CacheValueCodec}, which writes resource data maps in a tagged binary
+     * format with interned map keys.  It is typically configured on a distributed {@code CacheManager} to avoid the
+     * cost and payload size of default Java serialization.
+     *
+     * @return a new binary {@code CacheValueCodec} instance.
+     * @since 2.0.5
+     */
+    public static CacheValueCodec newBinaryValueCodec() {
+        return (CacheValueCodec) Classes.newInstance("com.stormpath.sdk.impl.cache.BinaryCacheValueCodec");
+    }
+
     /**
      * Returns a new {@link CacheConfigurationBuilder} to configure a cache region that will store data for instances
      * of type {@code clazz}.
@@ -218,6 +218,7 @@ public interface ClientBuilder {
     String DEFAULT_CLIENT_BASE_URL_PROPERTY_NAME = "stormpath.client.baseUrl";
     String DEFAULT_CLIENT_CONNECTION_TIMEOUT_PROPERTY_NAME = "stormpath.client.connectionTimeout";
     String DEFAULT_CLIENT_AUTHENTICATION_SCHEME_PROPERTY_NAME = "stormpath.client.authenticationScheme";
+    String DEFAULT_CLIENT_HTTP_PROTOCOL_PROPERTY_NAME = "stormpath.client.httpProtocol"; //@since 2.0.5
     String DEFAULT_CLIENT_PROXY_PORT_PROPERTY_NAME = "stormpath.client.proxy.port";
     String DEFAULT_CLIENT_PROXY_HOST_PROPERTY_NAME = "stormpath.client.proxy.host";
     String DEFAULT_CLIENT_PROXY_USERNAME_PROPERTY_NAME = "stormpath.client.proxy.username";
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.client;
+
+/**
+ * Enumeration that defines the HTTP protocol versions the SDK may use when communicating with the Stormpath API server.
+ * <p>
+ * The protocol determines which {@code RequestExecutor} implementation the client uses:
+ * <ul>
+ * <li>{@link #HTTP_1_1} uses the Apache HttpClient based executor from the {@code stormpath-sdk-httpclient} module,
+ * which opens one connection per concurrent request.</li>
+ * <li>{@link #HTTP_2} uses the {@code java.net.http.HttpClient} based executor from the
+ * {@code stormpath-sdk-httpclient-jdk} module (Java 11 or later), which multiplexes concurrent requests as streams
+ * over a small number of connections.  Servers that do not support HTTP/2 are transparently spoken to using
+ * HTTP/1.1.</li>
+ * </ul>
+ * When no protocol is configured, the Apache HttpClient executor is used if available, and the
+ * {@code java.net.http.HttpClient} executor otherwise.  The protocol is configured with the
+ * {@code stormpath.client.httpProtocol} property ({@link ClientBuilder#DEFAULT_CLIENT_HTTP_PROTOCOL_PROPERTY_NAME}).
+ *
+ * @since 2.0.5
+ */
+public enum HttpProtocol {
+
+    HTTP_1_1,
+    HTTP_2
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.ds;
+
+import com.stormpath.sdk.resource.Resource;
+
+/**
+ * The outcome of retrieving a single resource as part of a bulk lookup, for example via the {@code getResources}
+ * method of the SDK's default {@link DataStore} implementation.  Each result either holds the
+ * retrieved {@link #getResource() resource} or the {@link #getError() error} that prevented its retrieval, so that a
+ * single failed lookup does not fail the entire bulk operation.
+ *
+ * @param <T> the type of the retrieved resource
+ * @since 2.0.5
+ */
+public interface ResourceResult<T extends Resource> {
+
+    /**
+     * Returns the href that was requested.
+     *
+     * @return the href that was requested.
+     */
+    String getHref();
+
+    /**
+     * Returns {@code true} if the resource was retrieved successfully, {@code false} if the lookup failed.
+     *
+     * @return {@code true} if the resource was retrieved successfully, {@code false} if the lookup failed.
+     */
+    boolean isSuccess();
+
+    /**
+     * Returns the retrieved resource or {@code null} if the lookup {@link #isSuccess() failed}.
+     *
+     * @return the retrieved resource or {@code null} if the lookup failed.
+     */
+    T getResource();
+
+    /**
+     * Returns the exception that caused the lookup to fail (typically a
+     * {@link com.stormpath.sdk.resource.ResourceException ResourceException}), or {@code null} if the lookup
+     * {@link #isSuccess() succeeded}.
+     *
+     * @return the exception that caused the lookup to fail or {@code null} if the lookup succeeded.
+     */
+    RuntimeException getError();
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.cache;
+
+import com.stormpath.sdk.cache.CacheValueCodec;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the encoding and decoding throughput of the {@link BinaryCacheValueCodec} and of plain Java serialization
+ * (what Hazelcast uses for the SDK's resource maps by default) on the shapes of cached Account, Group, CustomData and
+ * Account collection page data.  The encoded size of each combination is reported as the {@code payloadBytes}
+ * secondary result.
+ *
+ * @since 2.0.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CacheValueCodecBenchmark {
+
+    private static final String BASE_URL = "https://api.stormpath.com/v1";
+
+    @Param({"java", "binary"})
+    public String codec;
+
+    @Param({"account", "group", "customData", "accountCollection"})
+    public String shape;
+
+    private CacheValueCodec valueCodec;
+    private Map<String, Object> value;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        this.valueCodec = "java".equals(codec) ? new JavaSerializationCodec() : new BinaryCacheValueCodec();
+        if ("account".equals(shape)) {
+            this.value = account(1);
+        } else if ("group".equals(shape)) {
+            this.value = group(1);
+        } else if ("customData".equals(shape)) {
+            this.value = customData(1);
+        } else {
+            this.value = accountCollection(25);
+        }
+        this.encoded = valueCodec.encode(value);
+    }
+
+    /**
+     * Reports the encoded payload size next to the throughput, without printing in the middle of the JMH output.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Payload {
+
+        public long payloadBytes;
+    }
+
+    @Benchmark
+    public byte[] encode(Payload payload) throws IOException {
+        payload.payloadBytes = encoded.length;
+        return valueCodec.encode(value);
+    }
+
+    @Benchmark
+    public Object decode(Payload payload) throws IOException {
+        payload.payloadBytes = encoded.length;
+        return valueCodec.decode(encoded);
+    }
+
+    private static Map<String, Object> href(String path) {
+        Map<String, Object> m = new LinkedHashMap<String, Object>();
+        m.put("href", BASE_URL + path);
+        return m;
+    }
+
+    private static Map<String, Object> account(int i) {
+        String href = "/accounts/5vK8Mg3GEuZCqLzEwFJ" + i;
+        Map<String, Object> m = new LinkedHashMap<String, Object>();
+        m.put("href", BASE_URL + href);
+        m.put("username", "jlpicard" + i);
+        m.put("email", "capt" + i + "@enterprise.com");
+        m.put("givenName", "Jean-Luc");
+        m.put("middleName", null);
+        m.put("surname", "Picard");
+        m.put("fullName", "Jean-Luc Picard");
+        m.put("status", "ENABLED");
+        m.put("createdAt", "2017-03-22T18:54:41.624Z");
+        m.put("modifiedAt", "2017-03-22T18:54:41.624Z");
+        m.put("passwordModifiedAt", "2017-03-22T18:54:41.000Z");
+        m.put("emailVerificationStatus", "VERIFIED");
+        m.put("emailVerificationToken", null);
+        m.put("customData", href(href + "/customData"));
+        m.put("providerData", href(href + "/providerData"));
+        m.put("directory", href("/directories/2SKhstu8Plaekcai8lghrp"));
+        m.put("tenant", href("/tenants/1gBTncWsp2ObQGgDn9R91R"));
+        m.put("groups", href(href + "/groups"));
+        m.put("applications", href(href + "/applications"));
+        m.put("groupMemberships", href(href + "/groupMemberships"));
+        m.put("apiKeys", href(href + "/apiKeys"));
+        m.put("accessTokens", href(href + "/accessTokens"));
+        m.put("refreshTokens", href(href + "/refreshTokens"));
+        m.put("linkedAccounts", href(href + "/linkedAccounts"));
+        m.put("accountLinks", href(href + "/accountLinks"));
+        m.put("phones", href(href + "/phones"));
+        m.put("factors", href(href + "/factors"));
+        return m;
+    }
+
+    private static Map<String, Object> group(int i) {
+        String href = "/groups/1ORBsz2iCNpV8yJKqFWhDc" + i;
+        Map<String, Object> m = new LinkedHashMap<String, Object>();
+        m.put("href", BASE_URL + href);
+        m.put("name", "Starfleet Officers " + i);
+        m.put("description", "Commissioned officers of Starfleet");
+        m.put("status", "ENABLED");
+        m.put("createdAt", "2017-03-22T18:54:41.624Z");
+        m.put("modifiedAt", "2017-03-22T18:54:41.624Z");
+        m.put("customData", href(href + "/customData"));
+        m.put("directory", href("/directories/2SKhstu8Plaekcai8lghrp"));
+        m.put("tenant", href("/tenants/1gBTncWsp2ObQGgDn9R91R"));
+        m.put("accounts", href(href + "/accounts"));
+        m.put("accountMemberships", href(href + "/accountMemberships"));
+        m.put("applications", href(href + "/applications"));
+        return m;
+    }
+
+    private static Map<String, Object> customData(int i) {
+        Map<String, Object> m = new LinkedHashMap<String, Object>();
+        m.put("href", BASE_URL + "/accounts/5vK8Mg3GEuZCqLzEwFJ" + i + "/customData");
+        m.put("createdAt", "2017-03-22T18:54:41.624Z");
+        m.put("modifiedAt", "2017-03-22T18:54:41.624Z");
+        m.put("rank", "Captain");
+        m.put("birthDate", "2305-07-13");
+        m.put("favoriteDrink", "Earl Grey, hot");
+        m.put("serviceNumber", "SP-937-215");
+        m.put("loginCount", 1701);
+        m.put("marketingOptIn", Boolean.FALSE);
+        List<Object> ships = new ArrayList<Object>();
+        ships.add("USS Stargazer");
+        ships.add("USS Enterprise-D");
+        ships.add("USS Enterprise-E");
+        m.put("ships", ships);
+        Map<String, Object> preferences = new LinkedHashMap<String, Object>();
+        preferences.put("locale", "en_US");
+        preferences.put("timeZone", "Europe/Paris");
+        preferences.put("theme", "dark");
+        m.put("preferences", preferences);
+        return m;
+    }
+
+    private static Map<String, Object> accountCollection(int size) {
+        Map<String, Object> m = new LinkedHashMap<String, Object>();
+        m.put("href", BASE_URL + "/directories/2SKhstu8Plaekcai8lghrp/accounts");
+        m.put("offset", 0);
+        m.put("limit", size);
+        m.put("size", 1234);
+        List<Object> items = new ArrayList<Object>(size);
+        for (int i = 0; i < size; i++) {
+            items.add(account(i));
+        }
+        m.put("items", items);
+        return m;
+    }
+
+    /**
+     * Java serialization, as used by Hazelcast for the SDK's resource maps when no codec is configured.
+     */
+    private static class JavaSerializationCodec implements CacheValueCodec {
+
+        @Override
+        public byte[] encode(Object value) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            ObjectOutputStream out = new ObjectOutputStream(bytes);
+            out.writeObject(value);
+            out.close();
+            return bytes.toByteArray();
+        }
+
+        @Override
+        public Object decode(byte[] bytes) throws IOException {
+            ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes));
+            try {
+                return in.readObject();
+            } catch (ClassNotFoundException e) {
+                throw new IOException(e);
+            } finally {
+                in.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.ds;
+
+import com.stormpath.sdk.account.Account;
+import com.stormpath.sdk.impl.account.DefaultAccountList;
+import com.stormpath.sdk.impl.api.ClientApiKey;
+import com.stormpath.sdk.impl.api.DefaultApiKeyResolver;
+import com.stormpath.sdk.impl.authc.credentials.ApiKeyCredentials;
+import com.stormpath.sdk.impl.http.Request;
+import com.stormpath.sdk.impl.http.RequestExecutor;
+import com.stormpath.sdk.impl.http.Response;
+import com.stormpath.sdk.lang.Classes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures materializing a 100-item {@code AccountList} page, comparing the cached constructor registry in
+ * {@link DefaultResourceFactory} with the previous per-item class name conversion and constructor lookup.
+ *
+ * @since 2.0.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ResourceFactoryBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+
+    private DefaultDataStore dataStore;
+    private DefaultResourceFactory resourceFactory;
+    private List<Map<String, Object>> items;
+
+    @Setup
+    public void setUp() {
+        RequestExecutor requestExecutor = new RequestExecutor() {
+            @Override
+            public Response executeRequest(Request request) {
+                throw new UnsupportedOperationException("The benchmark does not execute requests.");
+            }
+        };
+        ClientApiKey apiKey = new ClientApiKey("id", "secret");
+        this.dataStore = new DefaultDataStore(requestExecutor, "https://api.stormpath.com/v1",
+            new ApiKeyCredentials(apiKey), new DefaultApiKeyResolver(apiKey));
+        this.resourceFactory = new DefaultResourceFactory(this.dataStore);
+
+        this.items = new ArrayList<Map<String, Object>>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            Map<String, Object> item = new LinkedHashMap<String, Object>();
+            item.put("href", "https://api.stormpath.com/v1/accounts/" + i);
+            item.put("username", "user" + i);
+            item.put("email", "user" + i + "@example.com");
+            item.put("givenName", "Given" + i);
+            item.put("surname", "Surname" + i);
+            item.put("status", "ENABLED");
+            this.items.add(item);
+        }
+    }
+
+    /**
+     * Materializes a full page exactly like {@code PaginatedIterator} does: the list resource is instantiated and its
+     * items are converted to {@code Account} instances.
+     */
+    @Benchmark
+    public void accountListPage(Blackhole bh) {
+        Map<String, Object> props = new LinkedHashMap<String, Object>();
+        props.put("href", "https://api.stormpath.com/v1/directories/foo/accounts");
+        props.put("offset", 0);
+        props.put("limit", PAGE_SIZE);
+        props.put("size", PAGE_SIZE);
+        props.put("items", new ArrayList<Map<String, Object>>(this.items));
+
+        DefaultAccountList list = new DefaultAccountList(this.dataStore, props, Collections.<String, Object>emptyMap());
+        for (Account account : list.getCurrentPage().getItems()) {
+            bh.consume(account);
+        }
+    }
+
+    @Benchmark
+    public void cachedConstructors(Blackhole bh) {
+        for (Map<String, Object> item : this.items) {
+            bh.consume(this.resourceFactory.instantiate(Account.class, item));
+        }
+    }
+
+    /**
+     * The instantiation path prior to 2.0.5: the implementation class and constructor were looked up for every
+     * single resource.
+     */
+    @Benchmark
+    public void uncachedReflection(Blackhole bh) {
+        for (Map<String, Object> item : this.items) {
+            Class<Account> implClass = DefaultResourceFactory.convertToImplClass(Account.class);
+            List<Object> args = new ArrayList<Object>(2);
+            args.add(this.dataStore);
+            Collections.addAll(args, item);
+            Constructor<Account> ctor = Classes.getConstructor(implClass, InternalDataStore.class, Map.class);
+            bh.consume(Classes.instantiate(ctor, args.toArray()));
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of a read-mostly cache workload (90% reads, 10% writes over 1,000 keys) on the
+ * {@link SoftHashMap}, whose reads all contend on a single lock, and on the lock-free {@link ConcurrentSoftHashMap}
+ * at 1, 8, 32 and 64 threads.
+ *
+ * @since 2.0.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SoftHashMapBenchmark {
+
+    private static final int KEY_COUNT = 1000;
+
+    @Param({"SoftHashMap", "ConcurrentSoftHashMap"})
+    public String implementation;
+
+    private Map<String, Object> map;
+    private String[] keys;
+
+    @Setup
+    public void setUp() {
+        this.map = "SoftHashMap".equals(implementation) ?
+            new SoftHashMap<String, Object>() : new ConcurrentSoftHashMap<String, Object>();
+        this.keys = new String[KEY_COUNT];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            this.keys[i] = "https://api.stormpath.com/v1/accounts/" + i;
+            this.map.put(this.keys[i], new Object());
+        }
+    }
+
+    /**
+     * Per-thread position in the key space, so threads do not share (and contend on) a counter.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int next;
+
+        @Setup
+        public void setUp() {
+            //start each thread at a different, pseudo-random position:
+            this.next = (int) (System.nanoTime() & 0xffff);
+        }
+
+        int next() {
+            return next++;
+        }
+    }
+
+    private Object access(Cursor cursor) {
+        int i = cursor.next();
+        String key = keys[((i * 31) & Integer.MAX_VALUE) % KEY_COUNT];
+        if (i % 10 == 0) {
+            return map.put(key, new Object());
+        }
+        return map.get(key);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object threads1(Cursor cursor) {
+        return access(cursor);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object threads8(Cursor cursor) {
+        return access(cursor);
+    }
+
+    @Benchmark
+    @Threads(32)
+    public Object threads32(Cursor cursor) {
+        return access(cursor);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public Object threads64(Cursor cursor) {
+        return access(cursor);
+    }
+}
@@ -15,45 +15,238 @@
  */
 package com.stormpath.sdk.hazelcast;
 
-import com.stormpath.sdk.cache.Cache;
+import com.hazelcast.core.IMap;
+import com.stormpath.sdk.cache.AsyncCache;
+import com.stormpath.sdk.cache.CacheValueCodec;
 import com.stormpath.sdk.lang.Assert;
 
+import java.io.IOException;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * A simple {@code Cache} implementation that merely wraps a {@link ConcurrentMap} obtained from a
  * {@link com.hazelcast.core.HazelcastInstance HazelcastInstance}.  The backing Hazelcast-based map is used for all
  * caching operations.
+ * <p/>
+ * As of 2.0.5, entries are written with the region's Time to Live, if any, and the map's asynchronous operations are
+ * exposed via the {@link AsyncCache} interface when the backing map is an {@link IMap}.  If a {@link CacheValueCodec}
+ * is configured, values are stored in the map in their encoded {@code byte[]} form instead of being serialized by
+ * Hazelcast.
  *
  * @param <K> cache key type
  * @param <V> cache value type
  */
-public class HazelcastCache<K, V> implements Cache<K, V> {
+public class HazelcastCache<K, V> implements AsyncCache<K, V> {
 
     private final ConcurrentMap<K, V> HAZELCAST_MAP;
 
+    /**
+     * The Time to Live of written entries, or {@code 0} to use the map's configuration.
+     *
+     * @since 2.0.5
+     */
+    private final long timeToLiveMillis;
+
+    /**
+     * The codec used to encode values stored in the map, or {@code null} to let Hazelcast serialize them.
+     *
+     * @since 2.0.5
+     */
+    private final CacheValueCodec codec;
+
     /**
      * Creates a new instance, delegating all caching operations to the specified {@code hazelcastMap}.
      *
      * @param hazelcastMap the backing map instance that will be used to satisfy caching operations.
      */
     public HazelcastCache(ConcurrentMap<K, V> hazelcastMap) {
+        this(hazelcastMap, 0);
+    }
+
+    /**
+     * Creates a new instance, delegating all caching operations to the specified {@code hazelcastMap} and writing
+     * entries with the specified Time to Live if the map is an {@link IMap}.
+     *
+     * @param hazelcastMap     the backing map instance that will be used to satisfy caching operations.
+     * @param timeToLiveMillis the Time to Live of written entries in milliseconds, or {@code 0} to use the map's
+     *                         configuration.
+     * @since 2.0.5
+     */
+    public HazelcastCache(ConcurrentMap<K, V> hazelcastMap, long timeToLiveMillis) {
+        this(hazelcastMap, timeToLiveMillis, null);
+    }
+
+    /**
+     * Creates a new instance, delegating all caching operations to the specified {@code hazelcastMap} and storing
+     * values in the form produced by the specified codec.
+     *
+     * @param hazelcastMap     the backing map instance that will be used to satisfy caching operations.
+     * @param timeToLiveMillis the Time to Live of written entries in milliseconds, or {@code 0} to use the map's
+     *                         configuration.
+     * @param codec            the codec used to encode values stored in the map, or {@code null} to let Hazelcast
+     *                         serialize them.
+     * @since 2.0.5
+     */
+    public HazelcastCache(ConcurrentMap<K, V> hazelcastMap, long timeToLiveMillis, CacheValueCodec codec) {
         Assert.notNull(hazelcastMap, "hazelcastMap argument cannot be null.");
+        Assert.isTrue(timeToLiveMillis >= 0, "timeToLiveMillis cannot be negative.");
         this.HAZELCAST_MAP = hazelcastMap;
+        this.timeToLiveMillis = timeToLiveMillis;
+        this.codec = codec;
     }
 
     @Override
     public V get(K key) {
-        return HAZELCAST_MAP.get(key);
+        return decode(codec, HAZELCAST_MAP.get(key));
     }
 
     @Override
     public V put(K key, V value) {
-        return HAZELCAST_MAP.put(key, value);
+        V stored = encode(codec, value);
+        if (timeToLiveMillis > 0 && HAZELCAST_MAP instanceof IMap) {
+            return decode(codec, ((IMap<K, V>) HAZELCAST_MAP).put(key, stored, timeToLiveMillis, TimeUnit.MILLISECONDS));
+        }
+        return decode(codec, HAZELCAST_MAP.put(key, stored));
     }
 
     @Override
     public V remove(K key) {
-        return HAZELCAST_MAP.remove(key);
+        return decode(codec, HAZELCAST_MAP.remove(key));
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Override
+    public Future<V> getAsync(final K key) {
+        if (HAZELCAST_MAP instanceof IMap) {
+            return decoding(codec, ((IMap<K, V>) HAZELCAST_MAP).getAsync(key));
+        }
+        return completed(new Callable<V>() {
+            @Override
+            public V call() {
+                return get(key);
+            }
+        });
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Override
+    public Future<V> putAsync(final K key, final V value) {
+        if (HAZELCAST_MAP instanceof IMap) {
+            IMap<K, V> map = (IMap<K, V>) HAZELCAST_MAP;
+            V stored = encode(codec, value);
+            if (timeToLiveMillis > 0) {
+                return decoding(codec, map.putAsync(key, stored, timeToLiveMillis, TimeUnit.MILLISECONDS));
+            }
+            return decoding(codec, map.putAsync(key, stored));
+        }
+        return completed(new Callable<V>() {
+            @Override
+            public V call() {
+                return put(key, value);
+            }
+        });
+    }
+
+    /**
+     * Runs the operation in the calling thread and returns its outcome as a completed future.
+     */
+    static <V> Future<V> completed(Callable<V> operation) {
+        FutureTask<V> future = new FutureTask<V>(operation);
+        future.run();
+        return future;
+    }
+
+    /**
+     * Returns the value to store in the map: its encoded {@code byte[]} form if a codec is configured.  The cast only
+     * affects the static type, the map is not aware of the value type.
+     */
+    @SuppressWarnings("unchecked")
+    static <V> V encode(CacheValueCodec codec, V value) {
+        if (codec == null || value == null) {
+            return value;
+        }
+        try {
+            return (V) codec.encode(value);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to encode cache value of type " + value.getClass().getName() +
+                    ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the value read from the map, decoded if a codec is configured.  Values that were not encoded, e.g.
+     * written before the codec was configured, are returned as they are.
+     */
+    @SuppressWarnings("unchecked")
+    static <V> V decode(CacheValueCodec codec, Object stored) {
+        if (codec == null || !(stored instanceof byte[])) {
+            return (V) stored;
+        }
+        try {
+            return (V) codec.decode((byte[]) stored);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to decode cache value: " + e.getMessage(), e);
+        }
+    }
+
+    static <V> Future<V> decoding(CacheValueCodec codec, Future<V> future) {
+        return codec != null ? new DecodingFuture<V>(codec, future) : future;
+    }
+
+    /**
+     * Decodes the result of a future returned by the map.
+     */
+    private static final class DecodingFuture<V> implements Future<V> {
+
+        private final CacheValueCodec codec;
+        private final Future<V> delegate;
+
+        private DecodingFuture(CacheValueCodec codec, Future<V> delegate) {
+            this.codec = codec;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return delegate.cancel(mayInterruptIfRunning);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return delegate.isCancelled();
+        }
+
+        @Override
+        public boolean isDone() {
+            return delegate.isDone();
+        }
+
+        @Override
+        public V get() throws InterruptedException, ExecutionException {
+            return decode(delegate.get());
+        }
+
+        @Override
+        public V get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            return decode(delegate.get(timeout, unit));
+        }
+
+        private V decode(Object stored) throws ExecutionException {
+            try {
+                return HazelcastCache.decode(codec, stored);
+            } catch (IllegalStateException e) {
+                throw new ExecutionException(e.getCause());
+            }
+        }
     }
 }
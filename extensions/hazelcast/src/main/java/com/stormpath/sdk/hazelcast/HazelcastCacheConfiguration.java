@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.hazelcast;
+
+import com.stormpath.sdk.lang.Assert;
+import com.stormpath.sdk.lang.Duration;
+
+/**
+ * Time to Live and Time to Idle settings of a Hazelcast cache region managed by the {@link HazelcastCacheManager}.
+ *
+ * @see HazelcastCacheManager#setCacheConfigurations(java.util.Collection)
+ * @since 2.0.5
+ */
+public class HazelcastCacheConfiguration {
+
+    private final String name;
+    private final Duration timeToLive;
+    private final Duration timeToIdle;
+
+    /**
+     * Creates a new configuration for the specified region.
+     *
+     * @param name       the name of the cache region
+     * @param timeToLive the amount of time an entry may exist after being written, or {@code null} to use the
+     *                   cache manager's default
+     * @param timeToIdle the amount of time an entry may remain unused, or {@code null} to use the cache manager's
+     *                   default
+     */
+    public HazelcastCacheConfiguration(String name, Duration timeToLive, Duration timeToIdle) {
+        Assert.hasText(name, "Cache Region name cannot be null or empty.");
+        this.name = name;
+        this.timeToLive = timeToLive;
+        this.timeToIdle = timeToIdle;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Duration getTimeToLive() {
+        return timeToLive;
+    }
+
+    public Duration getTimeToIdle() {
+        return timeToIdle;
+    }
+
+    @Override
+    public String toString() {
+        return "HazelcastCacheConfiguration{" +
+                "name='" + name + '\'' +
+                ", timeToLive=" + timeToLive +
+                ", timeToIdle=" + timeToIdle +
+                '}';
+    }
+}
@@ -15,12 +15,27 @@
  */
 package com.stormpath.sdk.hazelcast;
 
+import com.hazelcast.config.Config;
+import com.hazelcast.config.MapConfig;
 import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
 import com.stormpath.sdk.cache.Cache;
 import com.stormpath.sdk.cache.CacheManager;
+import com.stormpath.sdk.cache.CacheValueCodec;
 import com.stormpath.sdk.lang.Assert;
+import com.stormpath.sdk.lang.Duration;
+import com.stormpath.sdk.lang.Strings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A {@code CacheManager} implementation that manages and returns {@link Cache} instances backed by
@@ -79,12 +94,97 @@ import java.util.concurrent.ConcurrentMap;
  * Client stormpathClient = {@link com.stormpath.sdk.client.Clients Clients}.builder()<b>.setCacheManager(cacheManager)</b>.build();
  * </pre>
  *
+ * <h3>Time to Live and Time to Idle</h3>
+ *
+ * <p>As of 2.0.5, default and per-region Time to Live and Time to Idle values may be configured via
+ * {@link #setDefaultTimeToLive(Duration) setDefaultTimeToLive}, {@link #setDefaultTimeToIdle(Duration)
+ * setDefaultTimeToIdle} and {@link #setCacheConfigurations(Collection) setCacheConfigurations}, or from the same
+ * {@code stormpath.client.cacheManager.*} properties used to configure the SDK's default cache manager via
+ * {@link #configure(Map) configure}.  Entries are written with their region's Time to Live.  Because Hazelcast does
+ * not support a per-entry Time to Idle, regions without an explicit Hazelcast map configuration are configured with
+ * both values before their map is first used.  This is only possible on a cluster member: when using a
+ * {@code HazelcastClient}, the Time to Idle must be configured for the maps on the cluster itself.</p>
+ *
+ * <h3>Near-cache</h3>
+ *
+ * <p>Every read of a Hazelcast map is a network round trip, even for entries read thousands of times per second. As of
+ * 2.0.5, regions may be configured with a {@link HazelcastNearCache near-cache} via
+ * {@link #setNearCacheConfigurations(Collection) setNearCacheConfigurations}: a bounded local copy of the most
+ * recently used entries, invalidated by cluster-wide entry listeners whenever an entry changes.  For example:</p>
+ *
+ * <pre>
+ * HazelcastCacheManager cacheManager = new HazelcastCacheManager(hazelcast);
+ * cacheManager.setNearCacheConfigurations(Arrays.asList(
+ *     new NearCacheConfiguration(Application.class.getName(), 100, new Duration(1, TimeUnit.MINUTES))));
+ * </pre>
+ *
+ * <h3>Value encoding</h3>
+ *
+ * <p>By default, cached values are serialized by Hazelcast, i.e. with Java serialization for the SDK's resource maps.
+ * As of 2.0.5, a {@link CacheValueCodec} may be configured via {@link #setValueCodec(CacheValueCodec) setValueCodec}
+ * to store values in a more compact form, for example:</p>
+ *
+ * <pre>
+ * cacheManager.setValueCodec({@link com.stormpath.sdk.cache.Caches#newBinaryValueCodec() Caches.newBinaryValueCodec()});
+ * </pre>
+ *
+ * <p>All members and clients of the cluster sharing the maps must use the same codec.</p>
+ *
  * @since 1.0.RC3
  */
 public class HazelcastCacheManager implements CacheManager {
 
+    private static final Logger log = LoggerFactory.getLogger(HazelcastCacheManager.class);
+
+    /**
+     * The properties read by {@link #configure(Map)}, the same as the ones used to configure the SDK's default cache
+     * manager.  All values are in milliseconds.
+     *
+     * @since 2.0.5
+     */
+    public static final String CACHE_MANAGER_PROPERTY_PREFIX = "stormpath.client.cacheManager.";
+    public static final String DEFAULT_TTL_PROPERTY = CACHE_MANAGER_PROPERTY_PREFIX + "defaultTtl";
+    public static final String DEFAULT_TTI_PROPERTY = CACHE_MANAGER_PROPERTY_PREFIX + "defaultTti";
+    public static final String CACHE_PROPERTY_PREFIX = CACHE_MANAGER_PROPERTY_PREFIX + "caches.";
+    public static final String TTL_PROPERTY_SUFFIX = ".ttl";
+    public static final String TTI_PROPERTY_SUFFIX = ".tti";
+
     private HazelcastInstance hazelcastInstance;
 
+    /**
+     * @since 2.0.5
+     */
+    private volatile Duration defaultTimeToLive;
+    private volatile Duration defaultTimeToIdle;
+    private final ConcurrentMap<String, HazelcastCacheConfiguration> configs =
+            new ConcurrentHashMap<String, HazelcastCacheConfiguration>();
+
+    /**
+     * The regions whose Hazelcast map configuration has already been checked.
+     *
+     * @since 2.0.5
+     */
+    private final Set<String> configuredMaps = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    /**
+     * @since 2.0.5
+     */
+    private final ConcurrentMap<String, NearCacheConfiguration> nearCacheConfigs =
+            new ConcurrentHashMap<String, NearCacheConfiguration>();
+
+    /**
+     * The near-caches created so far: unlike plain regions, they hold local state and a listener registration, so
+     * there must be exactly one per region.
+     *
+     * @since 2.0.5
+     */
+    private final ConcurrentMap<String, HazelcastNearCache> nearCaches = new ConcurrentHashMap<String, HazelcastNearCache>();
+
+    /**
+     * @since 2.0.5
+     */
+    private volatile CacheValueCodec valueCodec;
+
     /**
      * Creates a new {@code HazelcastCacheManager} that, after creation, must be configured with a
      * {@link HazelcastInstance} via the
@@ -119,10 +219,227 @@ public class HazelcastCacheManager implements CacheManager {
         this.hazelcastInstance = hazelcastInstance;
     }
 
+    /**
+     * Sets the default Time to Live of entries of regions without a specific
+     * {@link #setCacheConfigurations(Collection) configuration}.  This setting does not affect regions already used.
+     *
+     * @param defaultTimeToLive the default Time to Live, or {@code null} to use the Hazelcast map configuration.
+     * @since 2.0.5
+     */
+    public void setDefaultTimeToLive(Duration defaultTimeToLive) {
+        this.defaultTimeToLive = defaultTimeToLive;
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    public Duration getDefaultTimeToLive() {
+        return defaultTimeToLive;
+    }
+
+    /**
+     * Sets the default Time to Idle of entries of regions without a specific
+     * {@link #setCacheConfigurations(Collection) configuration}.  This setting does not affect regions already used.
+     *
+     * @param defaultTimeToIdle the default Time to Idle, or {@code null} to use the Hazelcast map configuration.
+     * @since 2.0.5
+     */
+    public void setDefaultTimeToIdle(Duration defaultTimeToIdle) {
+        this.defaultTimeToIdle = defaultTimeToIdle;
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    public Duration getDefaultTimeToIdle() {
+        return defaultTimeToIdle;
+    }
+
+    /**
+     * Sets region-specific Time to Live and Time to Idle settings.  This does not affect regions already used.
+     *
+     * @param configs region-specific configuration entries.
+     * @since 2.0.5
+     */
+    public void setCacheConfigurations(Collection<HazelcastCacheConfiguration> configs) {
+        Assert.notNull(configs, "Argument cannot be null.  To remove all configuration, set an empty collection.");
+        this.configs.clear();
+        for (HazelcastCacheConfiguration config : configs) {
+            this.configs.put(config.getName(), config);
+        }
+    }
+
+    /**
+     * Applies the {@code stormpath.client.cacheManager.defaultTtl}, {@code stormpath.client.cacheManager.defaultTti}
+     * and {@code stormpath.client.cacheManager.caches.<region>.ttl|tti} properties (in milliseconds), the same ones
+     * used to configure the SDK's default cache manager.  Other properties are ignored.
+     *
+     * @param properties the configuration properties, e.g. the Stormpath servlet plugin's {@code Config}.
+     * @throws IllegalArgumentException if a value is not a number.
+     * @since 2.0.5
+     */
+    public void configure(Map<String, ?> properties) throws IllegalArgumentException {
+        Assert.notNull(properties, "properties cannot be null.");
+        Map<String, Duration[]> regions = new LinkedHashMap<String, Duration[]>();
+
+        for (Map.Entry<String, ?> entry : properties.entrySet()) {
+            String key = entry.getKey();
+            if (DEFAULT_TTL_PROPERTY.equals(key)) {
+                setDefaultTimeToLive(toDuration(key, entry.getValue()));
+            } else if (DEFAULT_TTI_PROPERTY.equals(key)) {
+                setDefaultTimeToIdle(toDuration(key, entry.getValue()));
+            } else if (key.startsWith(CACHE_PROPERTY_PREFIX)) {
+                String suffix = key.substring(CACHE_PROPERTY_PREFIX.length());
+                int index;
+                String region;
+                if (suffix.endsWith(TTL_PROPERTY_SUFFIX)) {
+                    index = 0;
+                    region = suffix.substring(0, suffix.length() - TTL_PROPERTY_SUFFIX.length());
+                } else if (suffix.endsWith(TTI_PROPERTY_SUFFIX)) {
+                    index = 1;
+                    region = suffix.substring(0, suffix.length() - TTI_PROPERTY_SUFFIX.length());
+                } else {
+                    continue;
+                }
+                Duration[] durations = regions.get(region);
+                if (durations == null) {
+                    durations = new Duration[2];
+                    regions.put(region, durations);
+                }
+                durations[index] = toDuration(key, entry.getValue());
+            }
+        }
+
+        for (Map.Entry<String, Duration[]> region : regions.entrySet()) {
+            Duration[] durations = region.getValue();
+            this.configs.put(region.getKey(), new HazelcastCacheConfiguration(region.getKey(), durations[0], durations[1]));
+        }
+    }
+
+    private static Duration toDuration(String key, Object value) {
+        String s = value != null ? value.toString().trim() : null;
+        if (!Strings.hasText(s)) {
+            return null;
+        }
+        long millis;
+        try {
+            millis = Long.parseLong(s);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Unable to parse " + key + " value to a long (milliseconds).", e);
+        }
+        return millis > 0 ? new Duration(millis, TimeUnit.MILLISECONDS) : null;
+    }
+
+    /**
+     * Sets the regions that keep a {@link HazelcastNearCache near-cache} in front of their Hazelcast map.  This does
+     * not affect near-caches already created.
+     *
+     * @param configs the near-cache configuration of each region that should have a near-cache.
+     * @since 2.0.5
+     */
+    public void setNearCacheConfigurations(Collection<NearCacheConfiguration> configs) {
+        Assert.notNull(configs, "Argument cannot be null.  To remove all configuration, set an empty collection.");
+        this.nearCacheConfigs.clear();
+        for (NearCacheConfiguration config : configs) {
+            this.nearCacheConfigs.put(config.getName(), config);
+        }
+    }
+
+    /**
+     * Sets the codec used to encode cached values before they are stored in Hazelcast, or {@code null} (the default)
+     * to let Hazelcast serialize them.  This must be set before the first cache is obtained.
+     *
+     * @param valueCodec the codec used to encode cached values, or {@code null} to let Hazelcast serialize them.
+     * @since 2.0.5
+     */
+    public void setValueCodec(CacheValueCodec valueCodec) {
+        this.valueCodec = valueCodec;
+    }
+
+    /**
+     * Returns the codec used to encode cached values, or {@code null} if values are serialized by Hazelcast.
+     *
+     * @return the codec used to encode cached values, or {@code null} if values are serialized by Hazelcast.
+     * @since 2.0.5
+     */
+    public CacheValueCodec getValueCodec() {
+        return valueCodec;
+    }
+
     @Override
+    @SuppressWarnings("unchecked")
     public <K, V> Cache<K, V> getCache(String name) {
         Assert.hasText(name, "name argument cannot be null or empty.");
+
+        //@since 2.0.5
+        Duration ttl = this.defaultTimeToLive;
+        Duration tti = this.defaultTimeToIdle;
+        HazelcastCacheConfiguration config = this.configs.get(name);
+        if (config != null) {
+            ttl = config.getTimeToLive() != null ? config.getTimeToLive() : ttl;
+            tti = config.getTimeToIdle() != null ? config.getTimeToIdle() : tti;
+        }
+        if ((ttl != null || tti != null) && this.configuredMaps.add(name)) {
+            configureMap(name, ttl, tti);
+        }
+        long ttlMillis = ttl != null ? ttl.getTimeUnit().toMillis(ttl.getValue()) : 0;
+
+        NearCacheConfiguration nearCacheConfig = this.nearCacheConfigs.get(name);
+        if (nearCacheConfig != null) {
+            HazelcastNearCache<K, V> nearCache = this.nearCaches.get(name);
+            if (nearCache == null) {
+                IMap<K, V> map = hazelcastInstance.getMap(name);
+                nearCache = new HazelcastNearCache<K, V>(map, nearCacheConfig, ttlMillis, this.valueCodec);
+                HazelcastNearCache<K, V> existing = this.nearCaches.putIfAbsent(name, nearCache);
+                if (existing != null) {
+                    nearCache = existing;
+                }
+            }
+            //no-op once the listener is registered:
+            nearCache.start();
+            return nearCache;
+        }
+
         ConcurrentMap<K, V> hazelcastMap = hazelcastInstance.getMap(name);
-        return new HazelcastCache<K, V>(hazelcastMap);
+        return new HazelcastCache<K, V>(hazelcastMap, ttlMillis, this.valueCodec);
+    }
+
+    /**
+     * Adds a Hazelcast map configuration with the specified Time to Live and Time to Idle for the region, unless the
+     * Hazelcast configuration explicitly configures a map with that name already.  The map configuration is what
+     * enforces the Time to Idle and also applies the Time to Live to entries written by other clients.
+     */
+    private void configureMap(String name, Duration ttl, Duration tti) {
+        Config config;
+        try {
+            config = hazelcastInstance.getConfig();
+        } catch (UnsupportedOperationException e) {
+            //HazelcastClient instances can not change the cluster's configuration:
+            if (tti != null) {
+                log.warn("Unable to apply the Time to Idle of cache region '{}' from a Hazelcast client. Please configure " +
+                         "maxIdleSeconds for the '{}' map on the Hazelcast cluster.", name, name);
+            }
+            return;
+        }
+        if (config == null || config.getMapConfigs().containsKey(name)) {
+            return;
+        }
+
+        MapConfig defaults = config.getMapConfigs().get("default");
+        MapConfig mapConfig = defaults != null ? new MapConfig(defaults) : new MapConfig();
+        mapConfig.setName(name);
+        if (ttl != null) {
+            mapConfig.setTimeToLiveSeconds(toSeconds(ttl));
+        }
+        if (tti != null) {
+            mapConfig.setMaxIdleSeconds(toSeconds(tti));
+        }
+        config.addMapConfig(mapConfig);
+    }
+
+    private static int toSeconds(Duration d) {
+        //Hazelcast map configuration is in seconds, round up so short durations are not disabled (0):
+        long seconds = (d.getTimeUnit().toMillis(d.getValue()) + 999) / 1000;
+        return (int) Math.min(Math.max(seconds, 1), Integer.MAX_VALUE);
     }
 }
@@ -0,0 +1,401 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.hazelcast;
+
+import com.hazelcast.core.EntryEvent;
+import com.hazelcast.core.ExecutionCallback;
+import com.hazelcast.core.ICompletableFuture;
+import com.hazelcast.core.IMap;
+import com.hazelcast.core.MapEvent;
+import com.hazelcast.map.listener.EntryAddedListener;
+import com.hazelcast.map.listener.EntryEvictedListener;
+import com.hazelcast.map.listener.EntryExpiredListener;
+import com.hazelcast.map.listener.EntryRemovedListener;
+import com.hazelcast.map.listener.EntryUpdatedListener;
+import com.hazelcast.map.listener.MapClearedListener;
+import com.hazelcast.map.listener.MapEvictedListener;
+import com.stormpath.sdk.cache.AsyncCache;
+import com.stormpath.sdk.cache.CacheValueCodec;
+import com.stormpath.sdk.lang.Assert;
+import com.stormpath.sdk.lang.Duration;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@code Cache} that keeps a bounded local copy of the most recently used entries of a Hazelcast {@link IMap}, so
+ * repeated reads of the same entries do not need a network round trip to the cluster.
+ * <p/>
+ * Local copies are kept coherent by an entry listener registered on the map: when an entry is updated, removed,
+ * evicted or expired anywhere in the cluster, its local copy is invalidated.  Invalidation events are delivered
+ * asynchronously, so a local copy may be served for a short moment after another cluster member changed the entry.
+ * A value read from the cluster is only stored locally if its key was not invalidated while it was being read, so an
+ * outdated value can not overwrite a newer invalidation.  Invalidations of other keys do not prevent local caching.
+ * <p/>
+ * The local copies are evicted in least recently used order once the configured
+ * {@link NearCacheConfiguration#getMaximumSize() maximum size} is reached, and after the optional
+ * {@link NearCacheConfiguration#getTimeToLive() time to live}.
+ * <p/>
+ * Entries are written to the cluster with the region's Time to Live, if any, and encoded with the optional
+ * {@link CacheValueCodec}, like the {@link HazelcastCache} does.  Local copies are held decoded.
+ *
+ * @param <K> cache key type
+ * @param <V> cache value type
+ * @since 2.0.5
+ */
+public class HazelcastNearCache<K, V> implements AsyncCache<K, V> {
+
+    private final IMap<K, V> map;
+    private final String name;
+    private final long timeToLiveMillis;
+    private final long clusterTimeToLiveMillis;
+    private final CacheValueCodec codec;
+    private final Map<K, LocalEntry<V>> local;
+
+    /**
+     * The reads from the cluster in progress, by key, guarded by {@code local}.  Invalidating a key removes its read
+     * marker: a value read from the cluster is only stored locally if the marker of its read is still registered.
+     */
+    private final Map<Object, Object> pendingReads = new HashMap<Object, Object>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    private volatile String listenerId;
+
+    /**
+     * Creates a new near-cache in front of the specified map.  The invalidation listener is registered by
+     * {@link #start()}.
+     *
+     * @param map    the Hazelcast map holding the cluster-wide entries
+     * @param config the near-cache configuration of the region
+     */
+    public HazelcastNearCache(IMap<K, V> map, NearCacheConfiguration config) {
+        this(map, config, 0);
+    }
+
+    /**
+     * Creates a new near-cache in front of the specified map, writing entries to the cluster with the specified Time to
+     * Live.  The invalidation listener is registered by {@link #start()}.
+     *
+     * @param map                     the Hazelcast map holding the cluster-wide entries
+     * @param config                  the near-cache configuration of the region
+     * @param clusterTimeToLiveMillis the Time to Live of entries written to the cluster in milliseconds, or {@code 0}
+     *                                to use the map's configuration
+     */
+    public HazelcastNearCache(IMap<K, V> map, NearCacheConfiguration config, long clusterTimeToLiveMillis) {
+        this(map, config, clusterTimeToLiveMillis, null);
+    }
+
+    /**
+     * Creates a new near-cache in front of the specified map, writing entries to the cluster with the specified Time to
+     * Live and in the form produced by the specified codec.  The invalidation listener is registered by
+     * {@link #start()}.
+     *
+     * @param map                     the Hazelcast map holding the cluster-wide entries
+     * @param config                  the near-cache configuration of the region
+     * @param clusterTimeToLiveMillis the Time to Live of entries written to the cluster in milliseconds, or {@code 0}
+     *                                to use the map's configuration
+     * @param codec                   the codec used to encode values stored in the cluster, or {@code null} to let
+     *                                Hazelcast serialize them
+     */
+    public HazelcastNearCache(IMap<K, V> map, NearCacheConfiguration config, long clusterTimeToLiveMillis,
+                              CacheValueCodec codec) {
+        Assert.notNull(map, "map argument cannot be null.");
+        Assert.notNull(config, "config argument cannot be null.");
+        Assert.isTrue(clusterTimeToLiveMillis >= 0, "clusterTimeToLiveMillis cannot be negative.");
+        this.map = map;
+        this.clusterTimeToLiveMillis = clusterTimeToLiveMillis;
+        this.codec = codec;
+        this.name = config.getName();
+        Duration ttl = config.getTimeToLive();
+        this.timeToLiveMillis = ttl != null ? ttl.getTimeUnit().toMillis(ttl.getValue()) : -1;
+
+        final int maximumSize = config.getMaximumSize();
+        this.local = new LinkedHashMap<K, LocalEntry<V>>(Math.min(maximumSize, 1024), .75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, LocalEntry<V>> eldest) {
+                return size() > maximumSize;
+            }
+        };
+    }
+
+    /**
+     * Registers the listener invalidating local copies when entries change in the cluster, unless it is already
+     * registered.
+     */
+    public synchronized void start() {
+        if (listenerId == null) {
+            listenerId = map.addEntryListener(new InvalidationListener(), false);
+        }
+    }
+
+    /**
+     * Removes the invalidation listener and all local copies.
+     */
+    public synchronized void stop() {
+        String id = listenerId;
+        if (id != null) {
+            map.removeEntryListener(id);
+            listenerId = null;
+        }
+        clearLocal();
+    }
+
+    @Override
+    public V get(K key) {
+        LocalEntry<V> entry = getLocal(key);
+        if (entry != null) {
+            return entry.value;
+        }
+
+        Object read = beginRead(key);
+        V value = null;
+        try {
+            value = HazelcastCache.decode(codec, map.get(key));
+        } finally {
+            putLocal(key, value, read);
+        }
+        return value;
+    }
+
+    /**
+     * Returns the local copy of the specified key, counting the hit or miss.
+     */
+    private LocalEntry<V> getLocal(K key) {
+        LocalEntry<V> entry;
+        synchronized (local) {
+            entry = local.get(key);
+        }
+        if (entry != null) {
+            if (!entry.isExpired(timeToLiveMillis)) {
+                hitCount.incrementAndGet();
+                return entry;
+            }
+            invalidate(key);
+        }
+        missCount.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Registers a read of the specified key from the cluster, returning its marker.  A later read of the same key
+     * replaces the marker, so only the latest read stores its value.
+     */
+    private Object beginRead(K key) {
+        Object read = new Object();
+        synchronized (local) {
+            pendingReads.put(key, read);
+        }
+        return read;
+    }
+
+    /**
+     * Completes a read from the cluster, storing its value locally unless the key was invalidated while it was being
+     * read.
+     */
+    private void putLocal(K key, V value, Object read) {
+        synchronized (local) {
+            if (pendingReads.get(key) == read) {
+                pendingReads.remove(key);
+                if (value != null) {
+                    local.put(key, new LocalEntry<V>(value));
+                }
+            }
+        }
+    }
+
+    @Override
+    public V put(K key, V value) {
+        //the local copy is refreshed on the next read, after the cluster has the new value:
+        V stored = HazelcastCache.encode(codec, value);
+        V previous = clusterTimeToLiveMillis > 0 ?
+                map.put(key, stored, clusterTimeToLiveMillis, TimeUnit.MILLISECONDS) : map.put(key, stored);
+        invalidate(key);
+        return HazelcastCache.decode(codec, previous);
+    }
+
+    @Override
+    public Future<V> getAsync(final K key) {
+        final LocalEntry<V> entry = getLocal(key);
+        if (entry != null) {
+            return HazelcastCache.completed(new Callable<V>() {
+                @Override
+                public V call() {
+                    return entry.value;
+                }
+            });
+        }
+
+        final Object read = beginRead(key);
+        ICompletableFuture<V> future = map.getAsync(key);
+        future.andThen(new ExecutionCallback<V>() {
+            @Override
+            public void onResponse(V value) {
+                putLocal(key, HazelcastCache.<V>decode(codec, value), read);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                //nothing to store, the caller sees the failure
+                putLocal(key, null, read);
+            }
+        });
+        return HazelcastCache.decoding(codec, future);
+    }
+
+    @Override
+    public Future<V> putAsync(K key, V value) {
+        V stored = HazelcastCache.encode(codec, value);
+        invalidate(key);
+        return HazelcastCache.decoding(codec, clusterTimeToLiveMillis > 0 ?
+                map.putAsync(key, stored, clusterTimeToLiveMillis, TimeUnit.MILLISECONDS) : map.putAsync(key, stored));
+    }
+
+    @Override
+    public V remove(K key) {
+        V previous = map.remove(key);
+        invalidate(key);
+        return HazelcastCache.decode(codec, previous);
+    }
+
+    private void invalidate(Object key) {
+        synchronized (local) {
+            pendingReads.remove(key);
+            local.remove(key);
+        }
+    }
+
+    private void clearLocal() {
+        synchronized (local) {
+            pendingReads.clear();
+            local.clear();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the number of entries currently held locally.
+     *
+     * @return the number of entries currently held locally.
+     */
+    public int getLocalSize() {
+        synchronized (local) {
+            return local.size();
+        }
+    }
+
+    /**
+     * Returns the number of reads served from the local copies.
+     *
+     * @return the number of reads served from the local copies.
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns the number of reads that required a round trip to the cluster.
+     *
+     * @return the number of reads that required a round trip to the cluster.
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Returns the ratio of reads served from the local copies, a value between {@code 0} and {@code 1}.
+     *
+     * @return the ratio of reads served from the local copies.
+     */
+    public double getHitRatio() {
+        long hits = getHitCount();
+        long total = hits + getMissCount();
+        return total > 0 ? (double) hits / total : 0;
+    }
+
+    public String toString() {
+        return new StringBuilder("    {\n      \"name\": \"").append(name).append("\",\n")
+                .append("      \"localSize\": ").append(getLocalSize()).append(",\n")
+                .append("      \"hitCount\": ").append(getHitCount()).append(",\n")
+                .append("      \"missCount\": ").append(getMissCount()).append(",\n")
+                .append("      \"hitRatio\": ").append(getHitRatio()).append("\n")
+                .append("    }")
+                .toString();
+    }
+
+    private static final class LocalEntry<V> {
+
+        private final V value;
+        private final long creationTimeMillis = System.currentTimeMillis();
+
+        private LocalEntry(V value) {
+            this.value = value;
+        }
+
+        private boolean isExpired(long timeToLiveMillis) {
+            return timeToLiveMillis >= 0 && System.currentTimeMillis() - creationTimeMillis > timeToLiveMillis;
+        }
+    }
+
+    private class InvalidationListener implements EntryAddedListener<K, V>, EntryUpdatedListener<K, V>,
+            EntryRemovedListener<K, V>, EntryEvictedListener<K, V>, EntryExpiredListener<K, V>, MapClearedListener,
+            MapEvictedListener {
+
+        @Override
+        public void entryAdded(EntryEvent<K, V> event) {
+            invalidate(event.getKey());
+        }
+
+        @Override
+        public void entryUpdated(EntryEvent<K, V> event) {
+            invalidate(event.getKey());
+        }
+
+        @Override
+        public void entryRemoved(EntryEvent<K, V> event) {
+            invalidate(event.getKey());
+        }
+
+        @Override
+        public void entryEvicted(EntryEvent<K, V> event) {
+            invalidate(event.getKey());
+        }
+
+        @Override
+        public void entryExpired(EntryEvent<K, V> event) {
+            invalidate(event.getKey());
+        }
+
+        @Override
+        public void mapCleared(MapEvent event) {
+            clearLocal();
+        }
+
+        @Override
+        public void mapEvicted(MapEvent event) {
+            clearLocal();
+        }
+    }
+}
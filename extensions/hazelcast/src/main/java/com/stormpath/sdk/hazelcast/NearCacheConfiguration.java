@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.hazelcast;
+
+import com.stormpath.sdk.lang.Assert;
+import com.stormpath.sdk.lang.Duration;
+
+/**
+ * Configuration of the local near-cache kept in front of a Hazelcast cache region by the
+ * {@link HazelcastCacheManager}.
+ *
+ * @see HazelcastCacheManager#setNearCacheConfigurations(java.util.Collection)
+ * @see HazelcastNearCache
+ * @since 2.0.5
+ */
+public class NearCacheConfiguration {
+
+    private final String name;
+    private final int maximumSize;
+    private final Duration timeToLive;
+
+    /**
+     * Creates a new near-cache configuration for the specified region.
+     *
+     * @param name        the name of the cache region
+     * @param maximumSize the maximum number of entries retained locally
+     * @param timeToLive  the maximum amount of time an entry is served locally before it is read from the cluster again,
+     *                    or {@code null} to rely on invalidation events only.  This bounds how long a local copy may be
+     *                    stale if invalidation events are lost, e.g. while a client reconnects to the cluster.
+     */
+    public NearCacheConfiguration(String name, int maximumSize, Duration timeToLive) {
+        Assert.hasText(name, "Cache Region name cannot be null or empty.");
+        Assert.isTrue(maximumSize > 0, "maximumSize must be greater than zero.");
+        if (timeToLive != null) {
+            Assert.isTrue(timeToLive.getValue() > 0, "timeToLive duration must be greater than zero");
+        }
+        this.name = name;
+        this.maximumSize = maximumSize;
+        this.timeToLive = timeToLive;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public Duration getTimeToLive() {
+        return timeToLive;
+    }
+
+    @Override
+    public String toString() {
+        return "NearCacheConfiguration{" +
+                "name='" + name + '\'' +
+                ", maximumSize=" + maximumSize +
+                ", timeToLive=" + timeToLive +
+                '}';
+    }
+}
@@ -15,10 +15,14 @@
  */
 package com.stormpath.sdk.hazelcast
 
+import com.hazelcast.config.Config
 import com.hazelcast.core.HazelcastInstance
 import com.hazelcast.core.IMap
+import com.stormpath.sdk.lang.Duration
 import org.testng.annotations.Test
 
+import java.util.concurrent.TimeUnit
+
 import static org.easymock.EasyMock.*
 import static org.testng.Assert.*
 
@@ -85,4 +89,60 @@ class HazelcastCacheManagerTest {
 
         verify hz, imap
     }
+
+    /**
+     * @since 2.0.5
+     */
+    @Test
+    void testConfigureFromProperties() {
+        def cm = new HazelcastCacheManager()
+        cm.configure([
+                'stormpath.client.cacheManager.defaultTtl'                                : '300000',
+                'stormpath.client.cacheManager.caches.com.stormpath.sdk.account.Account.ttl': '1000',
+                'stormpath.client.cacheManager.caches.com.stormpath.sdk.account.Account.tti': '2000',
+                'stormpath.client.cacheManager.enabled'                                   : 'true'
+        ])
+
+        assertEquals cm.defaultTimeToLive, new Duration(300000, TimeUnit.MILLISECONDS)
+        assertNull cm.defaultTimeToIdle
+        def config = cm.configs['com.stormpath.sdk.account.Account']
+        assertEquals config.timeToLive, new Duration(1000, TimeUnit.MILLISECONDS)
+        assertEquals config.timeToIdle, new Duration(2000, TimeUnit.MILLISECONDS)
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Test(expectedExceptions = IllegalArgumentException)
+    void testConfigureWithInvalidValue() {
+        new HazelcastCacheManager().configure(['stormpath.client.cacheManager.defaultTti': 'foo'])
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Test
+    void testGetCacheAppliesTtlAndTti() {
+        def hz = createStrictMock(HazelcastInstance)
+        def imap = createStrictMock(IMap)
+        def hzConfig = new Config()
+        def cm = new HazelcastCacheManager(hz)
+        cm.setDefaultTimeToIdle(new Duration(90, TimeUnit.SECONDS))
+        cm.setCacheConfigurations([new HazelcastCacheConfiguration('foo', new Duration(1, TimeUnit.MINUTES), null)])
+
+        expect(hz.getConfig()).andReturn(hzConfig)
+        expect(hz.getMap(eq('foo'))).andReturn(imap)
+        expect(imap.put('key', 'value', 60000L, TimeUnit.MILLISECONDS)).andReturn(null)
+
+        replay hz, imap
+
+        def cache = cm.getCache('foo')
+        cache.put('key', 'value')
+
+        def mapConfig = hzConfig.mapConfigs['foo']
+        assertEquals mapConfig.timeToLiveSeconds, 60
+        assertEquals mapConfig.maxIdleSeconds, 90
+
+        verify hz, imap
+    }
 }
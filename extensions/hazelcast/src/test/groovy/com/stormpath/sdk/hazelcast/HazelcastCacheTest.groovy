@@ -15,12 +15,19 @@
  */
 package com.stormpath.sdk.hazelcast
 
+import com.hazelcast.core.ICompletableFuture
+import com.hazelcast.core.IMap
+import com.stormpath.sdk.cache.CacheValueCodec
 import org.testng.annotations.Test
 
 import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
 
+import static org.easymock.EasyMock.*
 import static org.testng.Assert.assertEquals
 import static org.testng.Assert.assertNull
+import static org.testng.Assert.assertTrue
+import static org.testng.Assert.assertSame
 
 class HazelcastCacheTest {
 
@@ -47,4 +54,71 @@ class HazelcastCacheTest {
 
         assertNull cache.get('foo')
     }
+
+    /**
+     * @since 2.0.5
+     */
+    @Test
+    void testAsyncWithPlainConcurrentMap() {
+        def cache = new HazelcastCache(new ConcurrentHashMap())
+
+        assertNull cache.putAsync('foo', 'bar').get()
+        assertEquals cache.getAsync('foo').get(), 'bar'
+        assertEquals cache.putAsync('foo', 'baz').get(), 'bar'
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Test
+    void testTimeToLiveAndAsyncWithIMap() {
+        def imap = createStrictMock(IMap)
+        def future = createStrictMock(ICompletableFuture)
+        def cache = new HazelcastCache(imap, 1000)
+
+        expect(imap.put('foo', 'bar', 1000L, TimeUnit.MILLISECONDS)).andReturn(null)
+        expect(imap.putAsync('foo', 'baz', 1000L, TimeUnit.MILLISECONDS)).andReturn(future)
+        expect(imap.getAsync('foo')).andReturn(future)
+
+        replay imap, future
+
+        assertNull cache.put('foo', 'bar')
+        assertSame cache.putAsync('foo', 'baz'), future
+        assertSame cache.getAsync('foo'), future
+
+        verify imap, future
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Test
+    void testValueCodec() {
+        def codec = new CacheValueCodec() {
+            @Override
+            byte[] encode(Object value) throws IOException {
+                return value.toString().getBytes('UTF-8')
+            }
+
+            @Override
+            Object decode(byte[] bytes) throws IOException {
+                return new String(bytes, 'UTF-8')
+            }
+        }
+        def map = new ConcurrentHashMap()
+        def cache = new HazelcastCache(map, 0, codec)
+
+        assertNull cache.put('foo', 'bar')
+        assertTrue map.get('foo') instanceof byte[]
+        assertEquals cache.get('foo'), 'bar'
+        assertEquals cache.getAsync('foo').get(), 'bar'
+        assertEquals cache.putAsync('foo', 'baz').get(), 'bar'
+
+        //values written without the codec are returned as they are:
+        map.put('legacy', 'value')
+        assertEquals cache.get('legacy'), 'value'
+
+        assertEquals cache.remove('foo'), 'baz'
+        assertNull cache.get('foo')
+    }
 }
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.hazelcast
+
+import com.hazelcast.core.EntryEvent
+import com.hazelcast.core.IMap
+import com.hazelcast.map.listener.EntryUpdatedListener
+import com.hazelcast.map.listener.MapClearedListener
+import com.hazelcast.map.listener.MapListener
+import com.stormpath.sdk.lang.Duration
+import org.easymock.Capture
+import org.testng.annotations.Test
+
+import java.util.concurrent.TimeUnit
+
+import static org.easymock.EasyMock.*
+import static org.testng.Assert.*
+
+/**
+ * @since 2.0.5
+ */
+class HazelcastNearCacheTest {
+
+    private static HazelcastNearCache newNearCache(IMap map, Capture<MapListener> listener, Duration ttl = null) {
+        expect(map.addEntryListener(capture(listener), eq(false))).andReturn('listenerId')
+        replay map
+        def cache = new HazelcastNearCache(map, new NearCacheConfiguration('foo', 2, ttl))
+        cache.start()
+        return cache
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException)
+    void testInvalidMaximumSize() {
+        new NearCacheConfiguration('foo', 0, null)
+    }
+
+    @Test
+    void testRepeatedReadsServedLocally() {
+        def map = createMock(IMap)
+        expect(map.get('a')).andReturn('A').once()
+        def cache = newNearCache(map, new Capture<MapListener>())
+
+        assertEquals cache.get('a'), 'A'
+        assertEquals cache.get('a'), 'A'
+        assertEquals cache.get('a'), 'A'
+
+        assertEquals cache.hitCount, 2
+        assertEquals cache.missCount, 1
+        assertEquals cache.hitRatio, 2 / 3d, 0.0001d
+        verify map
+    }
+
+    @Test
+    void testLocalCopyInvalidatedByClusterEvents() {
+        def map = createMock(IMap)
+        expect(map.get('a')).andReturn('A')
+        expect(map.get('a')).andReturn('A2')
+        expect(map.get('a')).andReturn('A3')
+        def listener = new Capture<MapListener>()
+        def cache = newNearCache(map, listener)
+
+        assertEquals cache.get('a'), 'A'
+
+        def event = createMock(EntryEvent)
+        expect(event.getKey()).andReturn('a')
+        replay event
+        ((EntryUpdatedListener) listener.value).entryUpdated(event)
+
+        assertEquals cache.get('a'), 'A2'
+
+        ((MapClearedListener) listener.value).mapCleared(null)
+        assertEquals cache.localSize, 0
+        assertEquals cache.get('a'), 'A3'
+
+        verify map, event
+    }
+
+    @Test
+    void testLocalWritesInvalidateLocalCopy() {
+        def map = createMock(IMap)
+        expect(map.get('a')).andReturn('A')
+        expect(map.put('a', 'B')).andReturn('A')
+        expect(map.get('a')).andReturn('B')
+        expect(map.remove('a')).andReturn('B')
+        expect(map.get('a')).andReturn(null)
+        def cache = newNearCache(map, new Capture<MapListener>())
+
+        assertEquals cache.get('a'), 'A'
+        assertEquals cache.put('a', 'B'), 'A'
+        assertEquals cache.get('a'), 'B'
+        assertEquals cache.remove('a'), 'B'
+        assertNull cache.get('a')
+
+        verify map
+    }
+
+    @Test
+    void testLocalSizeBounded() {
+        def map = createMock(IMap)
+        expect(map.get(anyObject())).andAnswer({ getCurrentArguments()[0].toUpperCase() }).times(4)
+        def cache = newNearCache(map, new Capture<MapListener>())
+
+        cache.get('a')
+        cache.get('b')
+        cache.get('c')
+        assertEquals cache.localSize, 2
+        cache.get('a') //least recently used, evicted locally
+
+        verify map
+    }
+
+    @Test
+    void testLocalCopyExpires() {
+        def map = createMock(IMap)
+        expect(map.get('a')).andReturn('A').times(2)
+        def cache = newNearCache(map, new Capture<MapListener>(), new Duration(10, TimeUnit.MILLISECONDS))
+
+        cache.get('a')
+        Thread.sleep(30)
+        cache.get('a')
+
+        verify map
+    }
+
+    @Test
+    void testOnlyInvalidationsOfTheReadKeyPreventLocalCopy() {
+        def map = createMock(IMap)
+        def listener = new Capture<MapListener>()
+        def invalidate = { String key ->
+            def event = createMock(EntryEvent)
+            expect(event.getKey()).andReturn(key)
+            replay event
+            ((EntryUpdatedListener) listener.value).entryUpdated(event)
+        }
+        //another key changes while 'a' is read, the key itself changes while 'b' is read:
+        expect(map.get('a')).andAnswer({ invalidate('x'); 'A' }).once()
+        expect(map.get('b')).andAnswer({ invalidate('b'); 'B' }).times(2)
+        def cache = newNearCache(map, listener)
+
+        assertEquals cache.get('a'), 'A'
+        assertEquals cache.get('a'), 'A'
+        assertEquals cache.get('b'), 'B'
+        assertEquals cache.get('b'), 'B'
+
+        assertEquals cache.localSize, 1
+        verify map
+    }
+}
@@ -0,0 +1,581 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.http.jdk;
+
+import com.stormpath.sdk.client.AuthenticationScheme;
+import com.stormpath.sdk.client.Proxy;
+import com.stormpath.sdk.http.HttpMethod;
+import com.stormpath.sdk.impl.authc.credentials.ClientCredentials;
+import com.stormpath.sdk.impl.http.AsyncRequestExecutor;
+import com.stormpath.sdk.impl.http.HttpHeaders;
+import com.stormpath.sdk.impl.http.MediaType;
+import com.stormpath.sdk.impl.http.QueryString;
+import com.stormpath.sdk.impl.http.Request;
+import com.stormpath.sdk.impl.http.Response;
+import com.stormpath.sdk.impl.http.RestException;
+import com.stormpath.sdk.impl.http.authc.DefaultRequestAuthenticatorFactory;
+import com.stormpath.sdk.impl.http.authc.RequestAuthenticator;
+import com.stormpath.sdk.impl.http.authc.RequestAuthenticatorFactory;
+import com.stormpath.sdk.impl.http.support.BackoffStrategy;
+import com.stormpath.sdk.impl.http.support.DefaultRequest;
+import com.stormpath.sdk.impl.http.support.DefaultResponse;
+import com.stormpath.sdk.impl.util.ResultFuture;
+import com.stormpath.sdk.lang.Assert;
+import com.stormpath.sdk.lang.Strings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Authenticator;
+import java.net.InetSocketAddress;
+import java.net.PasswordAuthentication;
+import java.net.ProxySelector;
+import java.net.SocketException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * {@code RequestExecutor} implementation that uses the Java 11 {@link HttpClient java.net.http.HttpClient} to
+ * execute http requests, both blocking ({@link #executeRequest(Request)}) and non-blocking ({@link #sendAsync(Request)}
+ * and {@link #executeRequestAsync(Request)}).
+ * <p>
+ * Requests are sent using HTTP/2 when the server supports it (negotiated with ALPN over TLS), in which case concurrent
+ * requests are multiplexed as streams over a single connection per host instead of each request holding a pooled
+ * connection of its own.  Servers that do not support HTTP/2 are spoken to using HTTP/1.1.  As such, there are no
+ * connection pool limits to configure.
+ * <p>
+ * Retry, redirect and back-off semantics mirror the Apache HttpClient based executors, except that back-off pauses
+ * are scheduled instead of sleeping a request thread.  Request bodies are buffered so they can be re-sent on retries.
+ * The configured connection timeout (in seconds) is used both as the connect timeout and as the maximum amount of
+ * time to wait for the response headers of each attempt.
+ * <p>
+ * This implementation is used by the {@code DefaultClient} when the client is configured with
+ * {@link com.stormpath.sdk.client.HttpProtocol#HTTP_2 HttpProtocol.HTTP_2}, or when it is the only
+ * {@code RequestExecutor} implementation on the runtime classpath.  Note that, by default, the JDK disables
+ * {@code Basic} proxy authentication for HTTPS tunnels (see the {@code jdk.http.auth.tunneling.disabledSchemes}
+ * system property).
+ *
+ * @since 2.0.5
+ */
+public class JdkHttpClientRequestExecutor implements AsyncRequestExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(JdkHttpClientRequestExecutor.class);
+
+    /**
+     * Maximum exponential back-off time before retrying a request
+     */
+    private static final int MAX_BACKOFF_IN_MILLISECONDS = 20 * 1000;
+
+    private static final int DEFAULT_MAX_RETRIES = 4;
+
+    /**
+     * Response headers identifying the returned representation of a resource, used to revalidate cached resources.
+     */
+    private static final String[] VALIDATOR_HEADERS = {"ETag", "Last-Modified"};
+
+    /**
+     * Request headers that are computed by the {@code HttpClient} itself and that it refuses to accept.
+     */
+    private static final Set<String> RESTRICTED_HEADERS = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+    static {
+        RESTRICTED_HEADERS.addAll(List.of("Connection", "Content-Length", "Date", "Expect", "From", "Host", "Origin",
+                                          "Referer", "Upgrade", "Via", "Warning"));
+    }
+
+    private int numRetries = DEFAULT_MAX_RETRIES;
+
+    private final RequestAuthenticator requestAuthenticator;
+
+    private final HttpClient httpClient;
+
+    private final Duration timeout;
+
+    private BackoffStrategy backoffStrategy;
+
+    //doesn't need to be SecureRandom: only used in backoff strategy, not for crypto:
+    private final Random random = new Random();
+
+    /**
+     * Creates a new {@code JdkHttpClientRequestExecutor} using the specified {@code ClientCredentials} and optional
+     * {@code Proxy} configuration.
+     *
+     * @param clientCredentials           the Stormpath account API Key that will be used to authenticate the client
+     *                                    with Stormpath's API sever
+     * @param proxy                       the HTTP proxy to be used when communicating with the Stormpath API server
+     *                                    (can be null)
+     * @param authenticationScheme        the HTTP authentication scheme to be used when communicating with the
+     *                                    Stormpath API server. If null, then Sauthc1 will be used.
+     * @param requestAuthenticatorFactory the factory of the request authenticator (can be null)
+     * @param connectionTimeout           the connection timeout in seconds, zero meaning no timeout
+     */
+    public JdkHttpClientRequestExecutor(ClientCredentials clientCredentials, Proxy proxy, AuthenticationScheme authenticationScheme, RequestAuthenticatorFactory requestAuthenticatorFactory, Integer connectionTimeout) {
+        Assert.notNull(clientCredentials, "clientCredentials argument is required.");
+        Assert.isTrue(connectionTimeout >= 0, "Timeout cannot be a negative number.");
+
+        RequestAuthenticatorFactory factory = (requestAuthenticatorFactory != null)
+                ? requestAuthenticatorFactory
+                : new DefaultRequestAuthenticatorFactory();
+
+        this.requestAuthenticator = factory.create(authenticationScheme, clientCredentials);
+        this.timeout = connectionTimeout > 0 ? Duration.ofSeconds(connectionTimeout) : null;
+
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NEVER);
+
+        if (this.timeout != null) {
+            builder.connectTimeout(this.timeout);
+        }
+
+        if (proxy != null) {
+            //We have some proxy setting to use!
+            builder.proxy(ProxySelector.of(new InetSocketAddress(proxy.getHost(), proxy.getPort())));
+
+            if (proxy.isAuthenticationRequired()) {
+                final PasswordAuthentication credentials =
+                        new PasswordAuthentication(proxy.getUsername(), proxy.getPassword().toCharArray());
+                builder.authenticator(new Authenticator() {
+                    @Override
+                    protected PasswordAuthentication getPasswordAuthentication() {
+                        return getRequestorType() == RequestorType.PROXY ? credentials : null;
+                    }
+                });
+            }
+        }
+
+        this.httpClient = builder.build();
+    }
+
+    public int getNumRetries() {
+        return numRetries;
+    }
+
+    public void setNumRetries(int numRetries) {
+        this.numRetries = numRetries;
+    }
+
+    public BackoffStrategy getBackoffStrategy() {
+        return this.backoffStrategy;
+    }
+
+    public void setBackoffStrategy(BackoffStrategy backoffStrategy) {
+        this.backoffStrategy = backoffStrategy;
+    }
+
+    /**
+     * Returns the underlying {@code HttpClient}.
+     *
+     * @return the underlying {@code HttpClient}.
+     */
+    public HttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    @Override
+    public Response executeRequest(Request request) throws RestException {
+        try {
+            return sendAsync(request).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RestException(e.getMessage(), e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RestException) {
+                throw (RestException) cause;
+            }
+            throw new RestException("Unable to execute HTTP request: " + cause.getMessage(), cause);
+        }
+    }
+
+    @Override
+    public ResultFuture<Response> executeRequestAsync(Request request) {
+        final ResultFuture<Response> future = new ResultFuture<>();
+        sendAsync(request).whenComplete((response, t) -> {
+            if (t != null) {
+                future.fail(unwrap(t));
+            } else {
+                future.complete(response);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Executes the specified request without blocking the calling thread.  The returned future is completed
+     * exceptionally with a {@link RestException} if the request could not be executed.
+     *
+     * @param request the request to execute
+     * @return a future completed with the response to the request.
+     */
+    public CompletableFuture<Response> sendAsync(Request request) {
+        Assert.notNull(request, "Request argument cannot be null.");
+        CompletableFuture<Response> future = new CompletableFuture<>();
+        try {
+            new Execution(request, future).execute();
+        } catch (IOException e) {
+            future.completeExceptionally(new RestException("Unable to read HTTP request body: " + e.getMessage(), e));
+        }
+        return future;
+    }
+
+    /**
+     * Holds the state of a single logical request across redirects and retries.
+     */
+    private class Execution {
+
+        private final CompletableFuture<Response> future;
+        private final QueryString originalQuery;
+        private final HttpHeaders originalHeaders;
+        private final byte[] body;
+
+        private Request request;
+        private RestException exception;
+        private int retryCount;
+
+        Execution(Request request, CompletableFuture<Response> future) throws IOException {
+            this.request = request;
+            this.future = future;
+
+            // Make a copy of the original request params and headers so that we can
+            // permute them and start over with the original every time.
+            this.originalQuery = new QueryString();
+            this.originalQuery.putAll(request.getQueryString());
+
+            this.originalHeaders = new HttpHeaders();
+            this.originalHeaders.putAll(request.getHeaders());
+
+            InputStream content = request.getBody();
+            this.body = content != null ? content.readAllBytes() : null;
+        }
+
+        void execute() {
+            try {
+                if (retryCount > 0) {
+                    QueryString query = new QueryString();
+                    query.putAll(originalQuery);
+                    request.setQueryString(query);
+
+                    HttpHeaders headers = new HttpHeaders();
+                    headers.putAll(originalHeaders);
+                    request.setHeaders(headers);
+                }
+                if (body != null) {
+                    request.setBody(new ByteArrayInputStream(body), body.length);
+                }
+
+                // Sign the request
+                requestAuthenticator.authenticate(request);
+
+                HttpRequest httpRequest = createHttpRequest(request, body);
+
+                exception = null;
+                retryCount++;
+
+                httpClient.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofByteArray())
+                        .whenComplete((httpResponse, t) -> {
+                            if (t != null) {
+                                failed(unwrap(t));
+                            } else {
+                                completed(httpResponse);
+                            }
+                        });
+
+            } catch (Throwable t) {
+                future.completeExceptionally(new RestException("Unable to execute HTTP request: " + t.getMessage(), t));
+            }
+        }
+
+        private void completed(HttpResponse<byte[]> httpResponse) {
+            try {
+                if (isRedirect(httpResponse)) {
+                    String location = httpResponse.headers().firstValue("Location").get();
+                    log.debug("Redirecting to: {}", location);
+                    // We don't want to treat a redirect like a retry, so we re-submit without pausing:
+                    request = new DefaultRequest(request.getMethod(), location, null, null, request.getBody(),
+                                                 request.getHeaders().getContentLength());
+                    execute();
+                    return;
+                }
+
+                Response response = toSdkResponse(httpResponse);
+
+                int httpStatus = response.getHttpStatus();
+
+                if (httpStatus == 429) {
+                    throw new RestException("HTTP 429: Too Many Requests.  Exceeded request rate limit in the allotted amount of time.");
+                }
+                if ((httpStatus == 503 || httpStatus == 504) && retryCount <= numRetries) {
+                    retryLater();
+                    return;
+                }
+
+                future.complete(response);
+
+            } catch (Throwable t) {
+                failed(t);
+            }
+        }
+
+        private void failed(Throwable t) {
+            log.warn("Unable to execute HTTP request: {}", t.getMessage(), t);
+
+            if (t instanceof RestException) {
+                exception = (RestException) t;
+            }
+
+            if (shouldRetry(t, retryCount)) {
+                retryLater();
+            } else {
+                //the JDK's connection failures do not always have a message:
+                String msg = t.getMessage() != null ? t.getMessage() : t.getClass().getName();
+                future.completeExceptionally(new RestException("Unable to execute HTTP request: " + msg, t));
+            }
+        }
+
+        private void retryLater() {
+            long delay = getBackoffDelay(retryCount, exception);
+            log.debug("Retryable condition detected, will retry in {}ms, attempt number: {}", delay, retryCount);
+            CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(this::execute);
+        }
+    }
+
+    private static Throwable unwrap(Throwable t) {
+        while (t instanceof CompletionException && t.getCause() != null) {
+            t = t.getCause();
+        }
+        return t;
+    }
+
+    /**
+     * Creates a {@code java.net.http} request from the specified (signed) request.
+     *
+     * @param request the request to convert
+     * @param body    the buffered request body, or {@code null} if the request does not have a body
+     * @return the {@code java.net.http} request
+     */
+    HttpRequest createHttpRequest(Request request, byte[] body) {
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(getFullyQualifiedUri(request));
+
+        if (this.timeout != null) {
+            builder.timeout(this.timeout);
+        }
+
+        HttpMethod method = request.getMethod();
+        switch (method) {
+            case DELETE:
+                builder.DELETE();
+                break;
+            case GET:
+                builder.GET();
+                break;
+            case HEAD:
+                builder.method("HEAD", HttpRequest.BodyPublishers.noBody());
+                break;
+            case POST:
+                builder.POST(toBodyPublisher(body));
+                break;
+            case PUT:
+                builder.PUT(toBodyPublisher(body));
+                break;
+            default:
+                throw new IllegalArgumentException("Unrecognized HttpMethod: " + method);
+        }
+
+        builder.header("Accept-Encoding", "gzip");
+
+        // Copy over any other headers already in our request
+        for (Map.Entry<String, List<String>> entry : request.getHeaders().entrySet()) {
+            String key = entry.getKey();
+            /*
+             * The HttpClient computes the Content-Length and Host headers (among others) itself and rejects them.
+             * The Host header it sends omits the port number if it's the default port for the protocol in use,
+             * just like the RequestAuthenticator does when signing the request.
+             */
+            if (!RESTRICTED_HEADERS.contains(key) && !"Accept-Encoding".equalsIgnoreCase(key)) {
+                builder.header(key, Strings.collectionToCommaDelimitedString(entry.getValue()));
+            }
+        }
+
+        return builder.build();
+    }
+
+    private HttpRequest.BodyPublisher toBodyPublisher(byte[] body) {
+        return body != null ? HttpRequest.BodyPublishers.ofByteArray(body) : HttpRequest.BodyPublishers.noBody();
+    }
+
+    private URI getFullyQualifiedUri(Request request) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(request.getResourceUrl().normalize());
+        QueryString query = request.getQueryString();
+        if (query != null && !query.isEmpty()) {
+            sb.append("?").append(query.toString());
+        }
+
+        return URI.create(sb.toString());
+    }
+
+    boolean isRedirect(HttpResponse<?> response) {
+        int status = response.statusCode();
+        return (status == 301 || status == 302 || status == 307) &&
+                response.headers().firstValue("Location").isPresent();
+    }
+
+    /**
+     * Returns the number of milliseconds to wait before retrying a failed request.
+     *
+     * @param retries           Current retry count.
+     * @param previousException Exception information for the previous attempt, if any.
+     * @return the number of milliseconds to wait before the next attempt.
+     */
+    long getBackoffDelay(int retries, RestException previousException) {
+        long delay;
+        if (backoffStrategy != null) {
+            delay = this.backoffStrategy.getDelayMillis(retries);
+        } else {
+            long scaleFactor = 300;
+            if (previousException != null && isThrottlingException(previousException)) {
+                scaleFactor = 500 + random.nextInt(100);
+            }
+            delay = (long) (Math.pow(2, retries) * scaleFactor);
+        }
+
+        return Math.min(delay, MAX_BACKOFF_IN_MILLISECONDS);
+    }
+
+    /**
+     * Returns true if a failed request should be retried.
+     *
+     * @param t       The throwable from the failed request.
+     * @param retries The number of times the current request has been attempted.
+     * @return True if the failed request should be retried.
+     */
+    boolean shouldRetry(Throwable t, int retries) {
+        if (retries > this.numRetries) {
+            return false;
+        }
+
+        if (t instanceof HttpTimeoutException ||
+                t instanceof SocketException ||
+                t instanceof EOFException ||
+                (t instanceof IOException && t.getCause() instanceof EOFException)) {
+            log.debug("Retrying on {}: {}", t.getClass().getName(), t.getMessage());
+            return true;
+        }
+
+        if (t instanceof RestException) {
+            RestException re = (RestException) t;
+
+            /*
+             * Throttling is reported as a 429 error. To try
+             * and smooth out an occasional throttling error, we'll pause and
+             * retry, hoping that the pause is long enough for the request to
+             * get through the next time.
+             */
+            if (isThrottlingException(re)) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns {@code true} if the exception resulted from a throttling error, {@code false} otherwise.
+     *
+     * @param re The exception to test.
+     * @return {@code true} if the exception resulted from a throttling error, {@code false} otherwise.
+     */
+    private boolean isThrottlingException(RestException re) {
+        String msg = re.getMessage();
+        return msg != null && msg.contains("HTTP 429");
+    }
+
+    protected Response toSdkResponse(HttpResponse<byte[]> httpResponse) throws IOException {
+
+        int httpStatus = httpResponse.statusCode();
+
+        HttpHeaders headers = getHeaders(httpResponse);
+        MediaType mediaType = headers.getContentType();
+
+        byte[] bytes = httpResponse.body();
+        if (bytes != null && bytes.length > 0 && isGzipped(headers)) {
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+                bytes = in.readAllBytes();
+            }
+        }
+
+        InputStream body = bytes != null ? new ByteArrayInputStream(bytes) : null;
+        long contentLength = bytes != null ? bytes.length : -1;
+
+        Response response = new DefaultResponse(httpStatus, mediaType, body, contentLength);
+
+        response.getHeaders().add(HttpHeaders.STORMPATH_REQUEST_ID, headers.getStormpathRequestId());
+
+        //validators allow cached resources to be revalidated with conditional requests:
+        for (String validatorHeader : VALIDATOR_HEADERS) {
+            String value = headers.getFirst(validatorHeader);
+            if (value != null) {
+                response.getHeaders().set(validatorHeader, value);
+            }
+        }
+
+        return response;
+    }
+
+    private boolean isGzipped(HttpHeaders headers) {
+        List<String> encodings = headers.get("Content-Encoding");
+        if (encodings != null) {
+            for (String encoding : encodings) {
+                for (String element : encoding.split(",")) {
+                    if (element.trim().equalsIgnoreCase("gzip")) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private HttpHeaders getHeaders(HttpResponse<?> response) {
+
+        HttpHeaders headers = new HttpHeaders();
+
+        for (Map.Entry<String, List<String>> entry : response.headers().map().entrySet()) {
+            for (String value : entry.getValue()) {
+                headers.add(entry.getKey(), value);
+            }
+        }
+
+        return headers;
+    }
+}
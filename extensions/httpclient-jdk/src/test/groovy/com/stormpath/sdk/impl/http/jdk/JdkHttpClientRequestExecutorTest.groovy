@@ -0,0 +1,224 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.http.jdk
+
+import com.stormpath.sdk.client.AuthenticationScheme
+import com.stormpath.sdk.http.HttpMethod
+import com.stormpath.sdk.impl.api.ClientApiKey
+import com.stormpath.sdk.impl.authc.credentials.ApiKeyCredentials
+import com.stormpath.sdk.impl.http.HttpHeaders
+import com.stormpath.sdk.impl.http.MediaType
+import com.stormpath.sdk.impl.http.QueryString
+import com.stormpath.sdk.impl.http.RestException
+import com.stormpath.sdk.impl.http.support.BackoffStrategy
+import com.stormpath.sdk.impl.http.support.DefaultRequest
+import com.sun.net.httpserver.HttpExchange
+import com.sun.net.httpserver.HttpHandler
+import com.sun.net.httpserver.HttpServer
+import org.testng.annotations.AfterMethod
+import org.testng.annotations.BeforeMethod
+import org.testng.annotations.Test
+
+import java.net.http.HttpResponse
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.zip.GZIPOutputStream
+
+import static org.easymock.EasyMock.*
+import static org.testng.Assert.*
+
+/**
+ * @since 2.0.5
+ */
+class JdkHttpClientRequestExecutorTest {
+
+    HttpServer server
+    String baseUrl
+    JdkHttpClientRequestExecutor executor
+
+    @BeforeMethod
+    void setUp() {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0)
+        server.start()
+        baseUrl = "http://127.0.0.1:${server.address.port}".toString()
+
+        def credentials = new ApiKeyCredentials(new ClientApiKey('id', 'secret'))
+        executor = new JdkHttpClientRequestExecutor(credentials, null, AuthenticationScheme.BASIC, null, 10)
+        executor.backoffStrategy = new BackoffStrategy() {
+            @Override
+            long getDelayMillis(int retryCount) {
+                return 10
+            }
+        }
+    }
+
+    @AfterMethod
+    void tearDown() {
+        server.stop(0)
+    }
+
+    private void handle(String path, Closure closure) {
+        server.createContext(path, new HttpHandler() {
+            @Override
+            void handle(HttpExchange exchange) throws IOException {
+                closure.call(exchange)
+                exchange.close()
+            }
+        })
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) {
+        exchange.sendResponseHeaders(status, body != null ? body.length : -1)
+        if (body != null) {
+            exchange.responseBody.write(body)
+        }
+    }
+
+    @Test
+    void testCreateHttpRequest() {
+        def query = new QueryString()
+        query.put('expand', 'groups')
+        def headers = new HttpHeaders()
+        headers.set('Host', 'api.stormpath.com')
+        headers.set('X-Stormpath-Date', '20170101T000000Z')
+        headers.setContentType(MediaType.APPLICATION_JSON)
+        byte[] body = '{"name":"foo"}'.bytes
+        def request = new DefaultRequest(HttpMethod.POST, 'https://api.stormpath.com/v1/accounts', query, headers,
+                                         new ByteArrayInputStream(body), body.length)
+
+        def httpRequest = executor.createHttpRequest(request, body)
+
+        assertEquals httpRequest.method(), 'POST'
+        assertEquals httpRequest.uri().toString(), 'https://api.stormpath.com/v1/accounts?expand=groups'
+        assertEquals httpRequest.bodyPublisher().get().contentLength(), (long) body.length
+        assertEquals httpRequest.headers().firstValue('Accept-Encoding').get(), 'gzip'
+        assertEquals httpRequest.headers().firstValue('X-Stormpath-Date').get(), '20170101T000000Z'
+        assertEquals httpRequest.headers().firstValue('Content-Type').get(), 'application/json'
+        //computed by the HttpClient itself:
+        assertFalse httpRequest.headers().firstValue('Host').isPresent()
+        assertFalse httpRequest.headers().firstValue('Content-Length').isPresent()
+        assertEquals httpRequest.timeout().get().seconds, 10L
+    }
+
+    @Test
+    void testToSdkResponseDecompressesGzip() {
+        def bytes = new ByteArrayOutputStream()
+        new GZIPOutputStream(bytes).withStream { it.write('{"href":"foo"}'.bytes) }
+
+        def headers = java.net.http.HttpHeaders.of([
+                'content-type'         : ['application/json'],
+                'content-encoding'     : ['gzip'],
+                'stormpath-request-id' : ['abc'],
+                'etag'                 : ['"v1"']
+        ], { name, value -> true } as java.util.function.BiPredicate)
+
+        HttpResponse<byte[]> httpResponse = createMock(HttpResponse)
+        expect(httpResponse.statusCode()).andStubReturn(200)
+        expect(httpResponse.headers()).andStubReturn(headers)
+        expect(httpResponse.body()).andStubReturn(bytes.toByteArray())
+        replay httpResponse
+
+        def response = executor.toSdkResponse(httpResponse)
+
+        assertEquals response.httpStatus, 200
+        assertEquals response.body.text, '{"href":"foo"}'
+        assertEquals response.headers.contentType, MediaType.APPLICATION_JSON
+        assertEquals response.headers.stormpathRequestId, 'abc'
+        assertEquals response.headers.getFirst('ETag'), '"v1"'
+
+        verify httpResponse
+    }
+
+    @Test
+    void testExecuteRequest() {
+        handle('/accounts') { HttpExchange exchange ->
+            assertNotNull exchange.requestHeaders.getFirst('Authorization')
+            def body = exchange.requestBody.text
+            exchange.responseHeaders.add('Content-Type', 'application/json')
+            send(exchange, 201, "{\"query\":\"${exchange.requestURI.query}\",\"body\":${body}}".toString().bytes)
+        }
+
+        def query = new QueryString()
+        query.put('expand', 'groups')
+        def headers = new HttpHeaders()
+        headers.setContentType(MediaType.APPLICATION_JSON)
+        byte[] body = '{"name":"foo"}'.bytes
+
+        def response = executor.executeRequest(new DefaultRequest(HttpMethod.POST, "$baseUrl/accounts".toString(), query,
+                                                                  headers, new ByteArrayInputStream(body), body.length))
+
+        assertEquals response.httpStatus, 201
+        assertEquals response.body.text, '{"query":"expand=groups","body":{"name":"foo"}}'
+    }
+
+    @Test
+    void testRetryOnServiceUnavailable() {
+        def attempts = new AtomicInteger()
+        handle('/flaky') { HttpExchange exchange ->
+            if (attempts.incrementAndGet() < 3) {
+                send(exchange, 503, null)
+            } else {
+                send(exchange, 200, exchange.requestBody.bytes)
+            }
+        }
+
+        byte[] body = '{"name":"foo"}'.bytes
+        def headers = new HttpHeaders()
+        headers.setContentType(MediaType.APPLICATION_JSON)
+
+        def response = executor.executeRequestAsync(new DefaultRequest(HttpMethod.PUT, "$baseUrl/flaky".toString(),
+                                                                       null, headers, new ByteArrayInputStream(body),
+                                                                       body.length)).join()
+
+        assertEquals attempts.get(), 3
+        assertEquals response.httpStatus, 200
+        //the body is re-sent with every attempt:
+        assertEquals response.body.text, '{"name":"foo"}'
+    }
+
+    @Test
+    void testRedirect() {
+        handle('/old') { HttpExchange exchange ->
+            exchange.responseHeaders.add('Location', "$baseUrl/new".toString())
+            send(exchange, 302, null)
+        }
+        handle('/new') { HttpExchange exchange ->
+            send(exchange, 200, 'moved'.bytes)
+        }
+
+        def response = executor.sendAsync(new DefaultRequest(HttpMethod.GET, "$baseUrl/old".toString())).get()
+
+        assertEquals response.httpStatus, 200
+        assertEquals response.body.text, 'moved'
+    }
+
+    @Test
+    void testTooManyRequests() {
+        def attempts = new AtomicInteger()
+        handle('/throttled') { HttpExchange exchange ->
+            attempts.incrementAndGet()
+            send(exchange, 429, null)
+        }
+        executor.numRetries = 1
+
+        try {
+            executor.executeRequest(new DefaultRequest(HttpMethod.GET, "$baseUrl/throttled".toString()))
+            fail()
+        } catch (RestException e) {
+            assertTrue e.message.contains('HTTP 429')
+        }
+        assertEquals attempts.get(), 2
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.http.httpclient;
+
+import com.stormpath.sdk.client.AuthenticationScheme;
+import com.stormpath.sdk.client.Proxy;
+import com.stormpath.sdk.impl.authc.credentials.ClientCredentials;
+import com.stormpath.sdk.impl.http.AsyncRequestExecutor;
+import com.stormpath.sdk.impl.http.HttpHeaders;
+import com.stormpath.sdk.impl.http.QueryString;
+import com.stormpath.sdk.impl.http.Request;
+import com.stormpath.sdk.impl.http.Response;
+import com.stormpath.sdk.impl.http.RestException;
+import com.stormpath.sdk.impl.http.authc.RequestAuthenticatorFactory;
+import com.stormpath.sdk.impl.http.support.DefaultRequest;
+import com.stormpath.sdk.impl.http.support.DefaultResponse;
+import com.stormpath.sdk.impl.http.support.RequestRejectedException;
+import com.stormpath.sdk.impl.util.DaemonThreadFactory;
+import com.stormpath.sdk.impl.util.ResultFuture;
+import com.stormpath.sdk.lang.Assert;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.CredentialsProvider;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code RequestExecutor} implementation that, in addition to the blocking behavior inherited from
+ * {@link HttpClientRequestExecutor}, executes requests without blocking the calling thread using the
+ * <a href="http://hc.apache.org/httpcomponents-asyncclient-4.1.x/">Apache HttpAsyncClient</a> non-blocking I/O
+ * engine.
+ * <p>
+ * Retry, redirect and back-off semantics mirror the blocking implementation, except that back-off pauses are
+ * scheduled on a timer instead of sleeping a request thread.
+ * <p>
+ * This implementation requires the optional {@code org.apache.httpcomponents:httpasyncclient} dependency.  The
+ * {@code DefaultClient} only selects it when the
+ * {@code com.stormpath.sdk.impl.http.httpclient.HttpAsyncClientRequestExecutor.enabled} system property is
+ * {@code true}.  Its I/O reactor and connection pool are released by {@link #close()}.
+ *
+ * @since 2.0.5
+ */
+public class HttpAsyncClientRequestExecutor extends HttpClientRequestExecutor implements AsyncRequestExecutor, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(HttpAsyncClientRequestExecutor.class);
+
+    private static final ScheduledExecutorService RETRY_SCHEDULER =
+        Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("stormpath-async-retry"));
+
+    private final CloseableHttpAsyncClient asyncClient;
+
+    public HttpAsyncClientRequestExecutor(ClientCredentials clientCredentials, Proxy proxy, AuthenticationScheme authenticationScheme, RequestAuthenticatorFactory requestAuthenticatorFactory, Integer connectionTimeout) {
+        super(clientCredentials, proxy, authenticationScheme, requestAuthenticatorFactory, connectionTimeout);
+
+        HttpAsyncClientBuilder builder = HttpAsyncClients.custom()
+            .setDefaultRequestConfig(this.httpClientRequestFactory.getDefaultRequestConfig())
+            .disableCookieManagement()
+            .setMaxConnPerRoute(Math.min(MAX_CONNECTIONS_PER_ROUTE, MAX_CONNECTIONS_TOTAL))
+            .setMaxConnTotal(MAX_CONNECTIONS_TOTAL)
+            //the I/O reactor threads must never prevent the JVM from shutting down:
+            .setThreadFactory(new DaemonThreadFactory("stormpath-async-io"));
+
+        if (proxy != null) {
+            builder.setProxy(new HttpHost(proxy.getHost(), proxy.getPort()));
+
+            if (proxy.isAuthenticationRequired()) {
+                AuthScope authScope = new AuthScope(proxy.getHost(), proxy.getPort());
+                CredentialsProvider credentialsProvider = new BasicCredentialsProvider();
+                credentialsProvider.setCredentials(authScope, new UsernamePasswordCredentials(proxy.getUsername(), proxy.getPassword()));
+                builder.setDefaultCredentialsProvider(credentialsProvider);
+            }
+        }
+
+        this.asyncClient = builder.build();
+        this.asyncClient.start();
+    }
+
+    /**
+     * Shuts down the I/O reactor and closes its connections.  Requests executed afterwards fail.
+     *
+     * @throws IOException if the I/O reactor could not be shut down cleanly
+     */
+    @Override
+    public void close() throws IOException {
+        asyncClient.close();
+    }
+
+    @Override
+    public ResultFuture<Response> executeRequestAsync(Request request) {
+        Assert.notNull(request, "Request argument cannot be null.");
+        ResultFuture<Response> future = new ResultFuture<Response>();
+        new Execution(request, future).execute();
+        return future;
+    }
+
+    /**
+     * Holds the state of a single logical request across redirects and retries.  Each attempt is executed by the
+     * I/O reactor and completes this callback; retries are re-submitted from the callback (or from the retry
+     * scheduler when a back-off pause is required), so no thread ever blocks waiting for a response.
+     */
+    private class Execution implements FutureCallback<HttpResponse> {
+
+        private final ResultFuture<Response> future;
+        private final QueryString originalQuery;
+        private final HttpHeaders originalHeaders;
+
+        private Request request;
+        private HttpRequestBase httpRequest;
+        private HttpEntity entity;
+        private String resourceType;
+        private boolean compressed;
+        private RestException exception;
+        private int retryCount;
+        private long sentNanos;
+
+        Execution(Request request, ResultFuture<Response> future) {
+            this.request = request;
+            this.future = future;
+
+            // Make a copy of the original request params and headers so that we can
+            // permute them and start over with the original every time.
+            this.originalQuery = new QueryString();
+            this.originalQuery.putAll(request.getQueryString());
+
+            this.originalHeaders = new HttpHeaders();
+            this.originalHeaders.putAll(request.getHeaders());
+        }
+
+        void execute() {
+            try {
+                if (retryCount > 0) {
+                    QueryString query = new QueryString();
+                    query.putAll(originalQuery);
+                    request.setQueryString(query);
+
+                    HttpHeaders headers = new HttpHeaders();
+                    headers.putAll(originalHeaders);
+                    request.setHeaders(headers);
+                }
+
+                // Sign the request
+                requestAuthenticator.authenticate(request);
+
+                httpRequest = httpClientRequestFactory.createHttpClientRequest(request, entity);
+
+                resourceType = WireMetrics.getResourceType(request.getResourceUrl());
+                compressed = compressEntity(httpRequest, resourceType);
+
+                if (httpRequest instanceof HttpEntityEnclosingRequest) {
+                    entity = ((HttpEntityEnclosingRequest) httpRequest).getEntity();
+                    if (retryCount > 0 && entity != null) {
+                        InputStream content = entity.getContent();
+                        if (content.markSupported()) {
+                            content.reset();
+                        }
+                    }
+                }
+
+                exception = null;
+                retryCount++;
+
+                long delay = getRateLimiter() != null ? getRateLimiter().acquire(httpRequest.getURI()) : 0;
+                if (delay > 0) {
+                    log.debug("Rate limit of {} reached, will send request in {}ms", httpRequest.getURI(), delay);
+                    RETRY_SCHEDULER.schedule(new Runnable() {
+                        @Override
+                        public void run() {
+                            send();
+                        }
+                    }, delay, TimeUnit.MILLISECONDS);
+                } else {
+                    send();
+                }
+
+            } catch (RequestRejectedException e) {
+                future.fail(e);
+            } catch (Throwable t) {
+                future.fail(new RestException("Unable to execute HTTP request: " + t.getMessage(), t));
+            }
+        }
+
+        private void send() {
+            sentNanos = System.nanoTime();
+            try {
+                asyncClient.execute(httpRequest, this);
+            } catch (Throwable t) {
+                future.fail(new RestException("Unable to execute HTTP request: " + t.getMessage(), t));
+            }
+        }
+
+        @Override
+        public void completed(HttpResponse httpResponse) {
+            long latencyNanos = System.nanoTime() - sentNanos;
+            try {
+                if (getRateLimiter() != null) {
+                    getRateLimiter().update(httpRequest.getURI(), getHeaders(httpResponse));
+                }
+
+                if (isRedirect(httpResponse)) {
+                    String location = httpResponse.getHeaders("Location")[0].getValue();
+                    log.debug("Redirecting to: {}", location);
+                    // We don't want to treat a redirect like a retry, so we re-submit without pausing:
+                    request = new DefaultRequest(request.getMethod(), location, null, null, request.getBody(),
+                                                 request.getHeaders().getContentLength());
+                    execute();
+                    return;
+                }
+
+                Response response = toSdkResponse(httpResponse, false, resourceType);
+                if (response instanceof DefaultResponse) {
+                    ((DefaultResponse) response).setLatencyNanos(latencyNanos);
+                }
+
+                int httpStatus = response.getHttpStatus();
+
+                if (compressed && isCompressionRejected(httpRequest, httpStatus)) {
+                    //re-send the same request uncompressed, without pausing:
+                    entity = null;
+                    execute();
+                    return;
+                }
+
+                if (httpStatus == 429) {
+                    throw new RestException("HTTP 429: Too Many Requests.  Exceeded request rate limit in the allotted amount of time.");
+                }
+                if ((httpStatus == 503 || httpStatus == 504) && retryCount <= getNumRetries()) {
+                    retryLater();
+                    return;
+                }
+
+                future.complete(response);
+
+            } catch (Throwable t) {
+                failed(t);
+            } finally {
+                try {
+                    httpResponse.getEntity().getContent().close();
+                } catch (Throwable ignored) {
+                }
+            }
+        }
+
+        @Override
+        public void failed(Exception e) {
+            failed((Throwable) e);
+        }
+
+        private void failed(Throwable t) {
+            log.warn("Unable to execute HTTP request: {}", t.getMessage(), t);
+
+            if (t instanceof RestException) {
+                exception = (RestException) t;
+            }
+
+            if (shouldRetry(httpRequest, t, retryCount)) {
+                retryLater();
+            } else {
+                future.fail(new RestException("Unable to execute HTTP request: " + t.getMessage(), t));
+            }
+        }
+
+        @Override
+        public void cancelled() {
+            future.cancel(false);
+        }
+
+        private void retryLater() {
+            long delay = getBackoffDelay(retryCount, exception);
+            log.debug("Retryable condition detected, will retry in {}ms, attempt number: {}", delay, retryCount);
+            RETRY_SCHEDULER.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    execute();
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -31,6 +31,8 @@ import com.stormpath.sdk.impl.http.authc.RequestAuthenticatorFactory;
 import com.stormpath.sdk.impl.http.support.BackoffStrategy;
 import com.stormpath.sdk.impl.http.support.DefaultRequest;
 import com.stormpath.sdk.impl.http.support.DefaultResponse;
+import com.stormpath.sdk.impl.http.support.RateLimiter;
+import com.stormpath.sdk.impl.http.support.RequestRejectedException;
 import com.stormpath.sdk.lang.Assert;
 import org.apache.http.Consts;
 import org.apache.http.Header;
@@ -50,6 +52,8 @@ import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.entity.GzipDecompressingEntity;
 import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.config.ConnectionConfig;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.InputStreamEntity;
 import org.apache.http.conn.ConnectTimeoutException;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.HttpClientBuilder;
@@ -59,12 +63,17 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
 import java.net.URI;
+import java.util.Collections;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * {@code RequestExecutor} implementation that uses the
@@ -84,23 +93,53 @@ public class HttpClientRequestExecutor implements RequestExecutor {
 
     private static final int DEFAULT_MAX_RETRIES = 4;
 
+    /**
+     * Response headers identifying the returned representation of a resource, used to revalidate cached resources.
+     *
+     * @since 2.0.5
+     */
+    private static final String[] VALIDATOR_HEADERS = {"ETag", "Last-Modified"};
+
     private static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = Integer.MAX_VALUE/2;
     private static final String MAX_CONNECTIONS_PER_ROUTE_PROPERTY_KEY = "com.stormpath.sdk.impl.http.httpclient.HttpClientRequestExecutor.connPoolControl.maxPerRoute";
-    private static final int MAX_CONNECTIONS_PER_ROUTE;
+    static final int MAX_CONNECTIONS_PER_ROUTE;
 
     private static final int DEFAULT_MAX_CONNECTIONS_TOTAL = Integer.MAX_VALUE;
     private static final String MAX_CONNECTIONS_TOTAL_PROPERTY_KEY = "com.stormpath.sdk.impl.http.httpclient.HttpClientRequestExecutor.connPoolControl.maxTotal";
-    private static final int MAX_CONNECTIONS_TOTAL;
+    static final int MAX_CONNECTIONS_TOTAL;
+
+    private static final String STREAMING_PROPERTY_KEY = "com.stormpath.sdk.impl.http.httpclient.HttpClientRequestExecutor.streaming";
+    private static final boolean DEFAULT_STREAMING = Boolean.getBoolean(STREAMING_PROPERTY_KEY); //@since 2.0.5
+
+    private static final String REQUEST_COMPRESSION_THRESHOLD_PROPERTY_KEY = "com.stormpath.sdk.impl.http.httpclient.HttpClientRequestExecutor.requestCompression.threshold";
+    private static final int DEFAULT_REQUEST_COMPRESSION_THRESHOLD = Integer.getInteger(REQUEST_COMPRESSION_THRESHOLD_PROPERTY_KEY, -1); //@since 2.0.5
+
+    private static final String RATE_LIMIT_POLICY_PROPERTY_KEY = "com.stormpath.sdk.impl.http.httpclient.HttpClientRequestExecutor.rateLimitPolicy";
+
+    private boolean streaming = DEFAULT_STREAMING; //@since 2.0.5
+
+    private int requestCompressionThreshold = DEFAULT_REQUEST_COMPRESSION_THRESHOLD; //@since 2.0.5
+
+    /**
+     * The hosts that rejected a compressed request body.
+     *
+     * @since 2.0.5
+     */
+    private final Set<String> uncompressedHosts = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private final WireMetrics wireMetrics = new WireMetrics(); //@since 2.0.5
+
+    private RateLimiter rateLimiter = createDefaultRateLimiter(); //@since 2.0.5
 
     private int numRetries = DEFAULT_MAX_RETRIES;
 
-    private final RequestAuthenticator requestAuthenticator;
+    final RequestAuthenticator requestAuthenticator;
 
     private HttpClient httpClient;
 
     private BackoffStrategy backoffStrategy;
 
-    private HttpClientRequestFactory httpClientRequestFactory;
+    HttpClientRequestFactory httpClientRequestFactory;
 
     //doesn't need to be SecureRandom: only used in backoff strategy, not for crypto:
     private final Random random = new Random();
@@ -181,7 +220,9 @@ public class HttpClientRequestExecutor implements RequestExecutor {
         ConnectionConfig connectionConfig = ConnectionConfig.custom().setCharset(Consts.UTF_8).build();
 
         HttpClientBuilder httpClientBuilder = HttpClientBuilder.create().setDefaultRequestConfig(requestConfig)
-                .disableCookieManagement().setDefaultConnectionConfig(connectionConfig).setConnectionManager(connMgr);
+                .disableCookieManagement().setDefaultConnectionConfig(connectionConfig).setConnectionManager(connMgr)
+                //@since 2.0.5: responses are decompressed while they are read, so that wire bytes can be counted:
+                .disableContentCompression();
 
         this.httpClientRequestFactory = new HttpClientRequestFactory(requestConfig);
 
@@ -221,6 +262,118 @@ public class HttpClientRequestExecutor implements RequestExecutor {
         this.backoffStrategy = backoffStrategy;
     }
 
+    /**
+     * Returns {@code true} if the bodies of successful responses to blocking requests are streamed from the
+     * connection instead of being buffered in memory, {@code false} otherwise.
+     *
+     * @return {@code true} if response bodies are streamed, {@code false} otherwise.
+     * @see #setStreaming(boolean)
+     * @since 2.0.5
+     */
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    /**
+     * Sets whether the bodies of successful responses to blocking requests are streamed from the connection instead
+     * of being buffered in memory.  When enabled, the body of a returned {@code Response} is the connection's
+     * content stream, which can be handed straight to the JSON parser, and the connection is only released back to
+     * the pool once that stream has been fully read or closed: callers must always close the response body.
+     * <p>
+     * Error responses are always buffered as their body is decoded into an error, as are all response bodies when
+     * trace logging is enabled for this class (so they can be logged).
+     * <p>
+     * Defaults to the value of the {@code com.stormpath.sdk.impl.http.httpclient.HttpClientRequestExecutor.streaming}
+     * system property, or {@code false} if it is not set.
+     *
+     * @param streaming whether response bodies are streamed
+     * @since 2.0.5
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    /**
+     * Returns the size, in bytes, from which request bodies are sent gzip compressed, or a negative number if request
+     * bodies are never compressed.
+     *
+     * @return the size from which request bodies are compressed, or a negative number if they are never compressed.
+     * @see #setRequestCompressionThreshold(int)
+     * @since 2.0.5
+     */
+    public int getRequestCompressionThreshold() {
+        return requestCompressionThreshold;
+    }
+
+    /**
+     * Sets the size, in bytes, from which request bodies are sent gzip compressed ({@code Content-Encoding: gzip}),
+     * or a negative number to never compress them.  A body is still sent as is if compressing it does not make it
+     * smaller, and all bodies sent to a host that rejected a compressed body with a {@code 415 Unsupported Media Type}
+     * response are sent uncompressed (the rejected request is re-sent uncompressed immediately).
+     * <p>
+     * Defaults to the value of the
+     * {@code com.stormpath.sdk.impl.http.httpclient.HttpClientRequestExecutor.requestCompression.threshold} system
+     * property, or {@code -1} if it is not set.
+     *
+     * @param requestCompressionThreshold the size from which request bodies are compressed, or a negative number to
+     *                                    never compress them
+     * @since 2.0.5
+     */
+    public void setRequestCompressionThreshold(int requestCompressionThreshold) {
+        this.requestCompressionThreshold = requestCompressionThreshold;
+    }
+
+    /**
+     * Returns the counts of wire and logical bytes of the request and response bodies exchanged by this executor.
+     *
+     * @return the counts of wire and logical bytes exchanged by this executor.
+     * @since 2.0.5
+     */
+    public WireMetrics getWireMetrics() {
+        return wireMetrics;
+    }
+
+    /**
+     * Returns the rate limiter pacing the requests of this executor, or {@code null} if requests are not paced.
+     *
+     * @return the rate limiter pacing the requests of this executor, or {@code null} if requests are not paced.
+     * @see #setRateLimiter(RateLimiter)
+     * @since 2.0.5
+     */
+    public RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * Sets the rate limiter pacing the requests of this executor according to the {@code X-Rate-Limit-*} headers of
+     * their responses, or {@code null} to send requests without pacing (and only back off after a
+     * {@code 429 Too Many Requests} response).  A request rejected by the rate limiter fails with a
+     * {@link com.stormpath.sdk.impl.http.support.RateLimitExceededException RateLimitExceededException}.
+     * <p>
+     * By default, a rate limiter is only used if the
+     * {@code com.stormpath.sdk.impl.http.httpclient.HttpClientRequestExecutor.rateLimitPolicy} system property is set
+     * to a {@link RateLimiter.Policy} name ({@code QUEUE} or {@code REJECT}).
+     *
+     * @param rateLimiter the rate limiter pacing the requests of this executor, or {@code null}
+     * @since 2.0.5
+     */
+    public void setRateLimiter(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    private static RateLimiter createDefaultRateLimiter() {
+        String policy = System.getProperty(RATE_LIMIT_POLICY_PROPERTY_KEY);
+        if (policy == null) {
+            return null;
+        }
+        try {
+            return new RateLimiter(RateLimiter.Policy.valueOf(policy.trim().toUpperCase()));
+        } catch (IllegalArgumentException e) {
+            log.warn("Bad rate limit policy value: {}. Requests will not be rate limited.", policy);
+            return null;
+        }
+    }
+
     public void setHttpClient(HttpClient httpClient) {
         this.httpClient = httpClient;
     }
@@ -234,6 +387,7 @@ public class HttpClientRequestExecutor implements RequestExecutor {
         URI redirectUri = null;
         HttpEntity entity = null;
         RestException exception = null;
+        boolean resend = false;
 
         // Make a copy of the original request params and headers so that we can
         // permute them in the loop and start over with the original every time.
@@ -267,17 +421,24 @@ public class HttpClientRequestExecutor implements RequestExecutor {
 
             HttpRequestBase httpRequest = this.httpClientRequestFactory.createHttpClientRequest(request, entity);
 
+            String resourceType = WireMetrics.getResourceType(request.getResourceUrl());
+            boolean compressed = compressEntity(httpRequest, resourceType);
+
             if (httpRequest instanceof HttpEntityEnclosingRequest) {
                 entity = ((HttpEntityEnclosingRequest) httpRequest).getEntity();
             }
 
+            if (this.rateLimiter != null) {
+                pace(httpRequest);
+            }
 
             HttpResponse httpResponse = null;
+            boolean streamed = false; //@since 2.0.5: the content of a streamed response is closed by its consumer
             try {
                 // We don't want to treat a redirect like a retry,
                 // so if redirectUri is not null, we won't pause
                 // before executing the request below.
-                if (retryCount > 0 && redirectUri == null) {
+                if (retryCount > 0 && redirectUri == null && !resend) {
                     pauseExponentially(retryCount, exception);
                     if (entity != null) {
                         InputStream content = entity.getContent();
@@ -289,10 +450,17 @@ public class HttpClientRequestExecutor implements RequestExecutor {
 
                 // reset redirectUri so that if there is an exception, we will pause on retry
                 redirectUri = null;
+                resend = false;
                 exception = null;
                 retryCount++;
 
+                long sentNanos = System.nanoTime();
                 httpResponse = httpClient.execute(httpRequest);
+                long latencyNanos = System.nanoTime() - sentNanos;
+
+                if (this.rateLimiter != null) {
+                    this.rateLimiter.update(httpRequest.getURI(), getHeaders(httpResponse));
+                }
 
                 if (isRedirect(httpResponse)) {
                     Header[] locationHeaders = httpResponse.getHeaders("Location");
@@ -302,10 +470,19 @@ public class HttpClientRequestExecutor implements RequestExecutor {
                     httpRequest.setURI(redirectUri);
                 } else {
 
-                    Response response = toSdkResponse(httpResponse);
+                    Response response = toSdkResponse(httpResponse, this.streaming, resourceType);
+                    if (response instanceof DefaultResponse) {
+                        ((DefaultResponse) response).setLatencyNanos(latencyNanos);
+                    }
 
                     int httpStatus = response.getHttpStatus();
 
+                    if (compressed && isCompressionRejected(httpRequest, httpStatus)) {
+                        //re-send the same request uncompressed, without pausing:
+                        entity = null;
+                        resend = true;
+                        continue;
+                    }
                     if (httpStatus == 429) {
                         throw new RestException("HTTP 429: Too Many Requests.  Exceeded request rate limit in the allotted amount of time.");
                     }
@@ -314,6 +491,7 @@ public class HttpClientRequestExecutor implements RequestExecutor {
                         continue;
                     }
 
+                    streamed = this.streaming;
                     return response;
                 }
             } catch (Throwable t) {
@@ -327,15 +505,118 @@ public class HttpClientRequestExecutor implements RequestExecutor {
                     throw new RestException("Unable to execute HTTP request: " + t.getMessage(), t);
                 }
             } finally {
+                if (!streamed) {
+                    try {
+                        httpResponse.getEntity().getContent().close();
+                    } catch (Throwable ignored) {
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces the body of the specified request by its gzip compressed form if it is at least
+     * {@link #getRequestCompressionThreshold() requestCompressionThreshold} bytes long, compression makes it smaller,
+     * and its host did not reject compressed bodies, and records it in the {@link #getWireMetrics() wire metrics}.
+     *
+     * @param httpRequest  the request to send
+     * @param resourceType the resource type of the request
+     * @return {@code true} if the request body is sent compressed, {@code false} otherwise.
+     * @since 2.0.5
+     */
+    boolean compressEntity(HttpRequestBase httpRequest, String resourceType) {
+        if (!(httpRequest instanceof HttpEntityEnclosingRequest)) {
+            return false;
+        }
+        HttpEntityEnclosingRequest enclosingRequest = (HttpEntityEnclosingRequest) httpRequest;
+        HttpEntity entity = enclosingRequest.getEntity();
+        if (entity == null) {
+            return false;
+        }
+        if (entity instanceof GzipRequestEntity) { //reused by a PUT retry
+            wireMetrics.record(WireMetrics.Direction.REQUEST, resourceType,
+                               ((GzipRequestEntity) entity).logicalLength, entity.getContentLength(), true);
+            return true;
+        }
+
+        long length = entity.getContentLength();
+        if (requestCompressionThreshold >= 0 && length >= requestCompressionThreshold && entity.isRepeatable() &&
+            entity.getContentEncoding() == null && !uncompressedHosts.contains(httpRequest.getURI().getHost())) {
+            try {
+                //a repeatable entity either returns a new stream, or rewinds its content to the start on reset:
+                InputStream content = entity.getContent();
+                if (content.markSupported()) {
+                    content.reset();
+                }
+                byte[] bytes;
                 try {
-                    httpResponse.getEntity().getContent().close();
-                } catch (Throwable ignored) {
+                    bytes = readFully(content);
+                } finally {
+                    if (content.markSupported()) {
+                        content.reset();
+                    }
                 }
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4 + 32);
+                GZIPOutputStream out = new GZIPOutputStream(compressed);
+                out.write(bytes);
+                out.close();
+                if (compressed.size() < bytes.length) {
+                    GzipRequestEntity gzipEntity = new GzipRequestEntity(compressed.toByteArray(), bytes.length);
+                    gzipEntity.setContentType(entity.getContentType());
+                    enclosingRequest.setEntity(gzipEntity);
+                    wireMetrics.record(WireMetrics.Direction.REQUEST, resourceType,
+                                       bytes.length, gzipEntity.getContentLength(), true);
+                    return true;
+                }
+            } catch (IOException e) {
+                log.debug("Unable to compress request body, sending it uncompressed: {}", e.getMessage(), e);
+            }
+        }
+
+        if (length >= 0) {
+            wireMetrics.record(WireMetrics.Direction.REQUEST, resourceType, length, length, false);
+        }
+        return false;
+    }
+
+    /**
+     * Returns {@code true} if the server rejected the compressed body of the specified request, in which case
+     * bodies sent to its host are not compressed anymore.
+     *
+     * @since 2.0.5
+     */
+    boolean isCompressionRejected(HttpRequestBase httpRequest, int httpStatus) {
+        if (httpStatus != HttpStatus.SC_UNSUPPORTED_MEDIA_TYPE) {
+            return false;
+        }
+        String host = httpRequest.getURI().getHost();
+        if (uncompressedHosts.add(host)) {
+            log.info("{} rejected a compressed request body, request bodies sent to it will not be compressed.", host);
+        }
+        return true;
+    }
+
+    /**
+     * Waits until the rate limiter lets the specified request be sent.
+     *
+     * @throws RequestRejectedException if the rate limiter rejects the request
+     * @since 2.0.5
+     */
+    private void pace(HttpRequestBase httpRequest) throws RequestRejectedException {
+        long delay = this.rateLimiter.acquire(httpRequest.getURI());
+        if (delay > 0) {
+            log.debug("Rate limit of {} reached, will send request in {}ms", httpRequest.getURI(), delay);
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RestException(e.getMessage(), e);
             }
         }
     }
 
-    private boolean isRedirect(org.apache.http.HttpResponse response) {
+    boolean isRedirect(org.apache.http.HttpResponse response) {
         int status = response.getStatusLine().getStatusCode();
         return (status == HttpStatus.SC_MOVED_PERMANENTLY ||
                 status == HttpStatus.SC_MOVED_TEMPORARILY ||
@@ -352,6 +633,26 @@ public class HttpClientRequestExecutor implements RequestExecutor {
      * @param previousException Exception information for the previous attempt, if any.
      */
     private void pauseExponentially(int retries, RestException previousException) {
+        long delay = getBackoffDelay(retries, previousException);
+        log.debug("Retryable condition detected, will retry in {}ms, attempt number: {}", delay, retries);
+
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RestException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the number of milliseconds to wait before retrying a failed request.
+     *
+     * @param retries           Current retry count.
+     * @param previousException Exception information for the previous attempt, if any.
+     * @return the number of milliseconds to wait before the next attempt.
+     * @since 2.0.5
+     */
+    long getBackoffDelay(int retries, RestException previousException) {
         long delay;
         if (backoffStrategy != null) {
             delay = this.backoffStrategy.getDelayMillis(retries);
@@ -363,15 +664,7 @@ public class HttpClientRequestExecutor implements RequestExecutor {
             delay = (long) (Math.pow(2, retries) * scaleFactor);
         }
 
-        delay = Math.min(delay, MAX_BACKOFF_IN_MILLISECONDS);
-        log.debug("Retryable condition detected, will retry in {}ms, attempt number: {}", delay, retries);
-
-        try {
-            Thread.sleep(delay);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new RestException(e.getMessage(), e);
-        }
+        return Math.min(delay, MAX_BACKOFF_IN_MILLISECONDS);
     }
 
     /**
@@ -382,7 +675,7 @@ public class HttpClientRequestExecutor implements RequestExecutor {
      * @param retries The number of times the current request has been attempted.
      * @return True if the failed request should be retried.
      */
-    private boolean shouldRetry(HttpRequestBase method, Throwable t, int retries) {
+    boolean shouldRetry(HttpRequestBase method, Throwable t, int retries) {
         if (retries > this.numRetries) {
             return false;
         }
@@ -433,25 +726,64 @@ public class HttpClientRequestExecutor implements RequestExecutor {
     }
 
     protected Response toSdkResponse(HttpResponse httpResponse) throws IOException {
+        return toSdkResponse(httpResponse, false, null);
+    }
+
+    /**
+     * Converts the specified response, either buffering its body or, if {@code stream} is {@code true}, handing the
+     * connection's content stream to the returned response.  Bodies that might have to be re-read (error responses,
+     * or any response when trace logging is enabled) are buffered regardless.
+     * <p>
+     * Gzip encoded bodies are decompressed as they are read, so a buffered body only holds the compressed bytes.  The
+     * wire and logical sizes of the body are recorded in the {@link #getWireMetrics() wire metrics} once it has been
+     * read or closed.
+     *
+     * @param httpResponse the response to convert
+     * @param stream       whether the response body may be streamed from the connection
+     * @param resourceType the resource type of the response, as returned by {@link WireMetrics#getResourceType}
+     * @return the converted response
+     * @throws IOException if the response body cannot be read
+     * @since 2.0.5
+     */
+    protected Response toSdkResponse(HttpResponse httpResponse, boolean stream, String resourceType)
+        throws IOException {
 
         int httpStatus = httpResponse.getStatusLine().getStatusCode();
 
         HttpHeaders headers = getHeaders(httpResponse);
         MediaType mediaType = headers.getContentType();
 
-        HttpEntity entity = getHttpEntity(httpResponse);
-
-        InputStream body = entity != null ? entity.getContent() : null;
-        long contentLength = entity != null ? entity.getContentLength() : -1;
-
-        //ensure that the content has been fully acquired before closing the http stream
-        if (body != null) {
-            byte[] bytes = toBytes(entity);
+        HttpEntity entity = httpResponse.getEntity();
+        boolean gzipped = isGzipped(entity);
+
+        InputStream content = entity != null ? entity.getContent() : null;
+        long contentLength = entity != null && !gzipped ? entity.getContentLength() : -1;
+
+        CountingInputStream wire = null;
+        if (content != null) {
+            if (stream && httpStatus < 400 && !log.isTraceEnabled()) {
+                wire = new CountingInputStream(content);
+            } else {
+                //ensure that the content has been fully acquired before closing the http stream
+                byte[] bytes = toBytes(entity);
+                if (bytes != null) {
+                    wire = new CountingInputStream(new ByteArrayInputStream(bytes));
+                }
+            }
+        }
 
-            if(bytes != null) {
+        InputStream body = null;
+        if (wire != null) {
+            InputStream decoded = gzipped ? new GzipDecompressingEntity(new InputStreamEntity(wire)).getContent() : wire;
+            if (httpStatus >= 400 || log.isTraceEnabled()) {
+                byte[] bytes = readFully(decoded);
+                wireMetrics.record(WireMetrics.Direction.RESPONSE, resourceType, bytes.length, wire.getCount(), gzipped);
+                if (log.isTraceEnabled()) {
+                    log.trace("Response body ({}): {}", httpStatus, new String(bytes, Consts.UTF_8));
+                }
                 body = new ByteArrayInputStream(bytes);
-            }  else {
-                body = null;
+            } else {
+                body = new MeteredInputStream(decoded, gzipped ? wire : null, wireMetrics, resourceType);
             }
         }
 
@@ -459,26 +791,42 @@ public class HttpClientRequestExecutor implements RequestExecutor {
 
         response.getHeaders().add(HttpHeaders.STORMPATH_REQUEST_ID, headers.getStormpathRequestId());
 
+        //@since 2.0.5: validators allow cached resources to be revalidated with conditional requests:
+        for (String validatorHeader : VALIDATOR_HEADERS) {
+            String value = headers.getFirst(validatorHeader);
+            if (value != null) {
+                response.getHeaders().set(validatorHeader, value);
+            }
+        }
+
         return response;
     }
 
-    private HttpEntity getHttpEntity(HttpResponse response) {
-
-        HttpEntity entity = response.getEntity();
+    private boolean isGzipped(HttpEntity entity) {
         if (entity != null) {
             Header contentEncodingHeader = entity.getContentEncoding();
             if (contentEncodingHeader != null) {
                 for (HeaderElement element : contentEncodingHeader.getElements()) {
                     if (element.getName().equalsIgnoreCase("gzip")) {
-                        return new GzipDecompressingEntity(response.getEntity());
+                        return true;
                     }
                 }
             }
         }
-        return entity;
+        return false;
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
     }
 
-    private HttpHeaders getHeaders(HttpResponse response) {
+    HttpHeaders getHeaders(HttpResponse response) {
 
         HttpHeaders headers = new HttpHeaders();
 
@@ -492,4 +840,20 @@ public class HttpClientRequestExecutor implements RequestExecutor {
 
         return headers;
     }
+
+    /**
+     * A gzip compressed request body.
+     *
+     * @since 2.0.5
+     */
+    private static final class GzipRequestEntity extends ByteArrayEntity {
+
+        private final long logicalLength;
+
+        private GzipRequestEntity(byte[] compressed, long logicalLength) {
+            super(compressed);
+            this.logicalLength = logicalLength;
+            setContentEncoding("gzip");
+        }
+    }
 }
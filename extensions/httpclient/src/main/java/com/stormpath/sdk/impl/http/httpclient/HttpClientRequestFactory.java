@@ -54,6 +54,13 @@ class HttpClientRequestFactory {
         this.defaultRequestConfig = defaultRequestConfig;
     }
 
+    /**
+     * @since 2.0.5
+     */
+    RequestConfig getDefaultRequestConfig() {
+        return defaultRequestConfig;
+    }
+
     /**
      * Creates an HttpClient method object based on the specified request and
      * populates any parameters, headers, etc. from the original request.
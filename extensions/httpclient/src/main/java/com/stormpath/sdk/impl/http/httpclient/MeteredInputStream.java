@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.http.httpclient;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Counts the bytes of a response body as they are read, and records them in {@link WireMetrics} once the body has
+ * been fully read or closed, along with the bytes read from the wire when the body is decompressed on the fly.
+ *
+ * @since 2.0.5
+ */
+class MeteredInputStream extends CountingInputStream {
+
+    private final CountingInputStream wire;
+    private final WireMetrics metrics;
+    private final String resourceType;
+    private boolean recorded;
+
+    /**
+     * @param in           the body as consumed by the SDK
+     * @param wire         the body as read from the wire, or {@code null} if {@code in} is not decoded
+     * @param metrics      the metrics to record the body in
+     * @param resourceType the resource type of the body
+     */
+    MeteredInputStream(InputStream in, CountingInputStream wire, WireMetrics metrics, String resourceType) {
+        super(in);
+        this.wire = wire;
+        this.metrics = metrics;
+        this.resourceType = resourceType;
+    }
+
+    @Override
+    protected void onEndOfStream() {
+        if (!recorded) {
+            recorded = true;
+            long logicalBytes = getCount();
+            long wireBytes = wire != null ? wire.getCount() : logicalBytes;
+            metrics.record(WireMetrics.Direction.RESPONSE, resourceType, logicalBytes, wireBytes, wire != null);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        onEndOfStream();
+        super.close();
+    }
+}
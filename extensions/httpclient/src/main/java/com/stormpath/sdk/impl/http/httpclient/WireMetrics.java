@@ -0,0 +1,225 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.http.httpclient;
+
+import com.stormpath.sdk.lang.Assert;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the bytes of the message bodies exchanged by a {@link HttpClientRequestExecutor}, per direction and
+ * resource type, both as sent over the wire (possibly gzip compressed) and as produced or consumed by the SDK
+ * (logical bytes).  Comparing the two shows how much compression saves for each kind of resource, for example:
+ * <pre>
+ * WireMetrics.Counts counts = executor.getWireMetrics().getCounts(WireMetrics.Direction.REQUEST, "customData");
+ * double saved = 1 - (double) counts.getWireBytes() / counts.getLogicalBytes();
+ * </pre>
+ * The resource type of a message is the last collection name in the path of its request, e.g. {@code customData}
+ * for {@code /v1/accounts/a1b2c3/customData}, or {@code users} for {@code /api/v1/users/00u1}.
+ *
+ * @since 2.0.5
+ */
+public class WireMetrics {
+
+    /**
+     * The direction of a message body.
+     */
+    public enum Direction {
+        /**
+         * Request bodies, sent to the server.
+         */
+        REQUEST,
+        /**
+         * Response bodies, received from the server.
+         */
+        RESPONSE
+    }
+
+    /**
+     * The resource type of messages whose request path has no collection name.
+     */
+    public static final String UNKNOWN_RESOURCE_TYPE = "unknown";
+
+    private final Map<Direction, ConcurrentMap<String, Counts>> counts;
+
+    public WireMetrics() {
+        this.counts = new EnumMap<Direction, ConcurrentMap<String, Counts>>(Direction.class);
+        for (Direction direction : Direction.values()) {
+            this.counts.put(direction, new ConcurrentHashMap<String, Counts>());
+        }
+    }
+
+    /**
+     * Records a message body.
+     *
+     * @param direction    the direction of the message
+     * @param resourceType the resource type of the message
+     * @param logicalBytes the size of the body as produced or consumed by the SDK
+     * @param wireBytes    the size of the body as sent over the wire
+     * @param compressed   whether the body was compressed on the wire
+     */
+    public void record(Direction direction, String resourceType, long logicalBytes, long wireBytes,
+                       boolean compressed) {
+        Assert.notNull(direction, "direction cannot be null.");
+        if (resourceType == null) {
+            resourceType = UNKNOWN_RESOURCE_TYPE;
+        }
+        ConcurrentMap<String, Counts> map = counts.get(direction);
+        Counts c = map.get(resourceType);
+        if (c == null) {
+            Counts created = new Counts();
+            c = map.putIfAbsent(resourceType, created);
+            if (c == null) {
+                c = created;
+            }
+        }
+        c.messageCount.incrementAndGet();
+        if (compressed) {
+            c.compressedCount.incrementAndGet();
+        }
+        c.logicalBytes.addAndGet(logicalBytes);
+        c.wireBytes.addAndGet(wireBytes);
+    }
+
+    /**
+     * Returns the counts of a resource type, {@code null} if no message of that type was recorded in that
+     * direction.
+     *
+     * @param direction    the direction of the messages
+     * @param resourceType the resource type of the messages
+     * @return the counts of the resource type, or {@code null} if none was recorded.
+     */
+    public Counts getCounts(Direction direction, String resourceType) {
+        Assert.notNull(direction, "direction cannot be null.");
+        return counts.get(direction).get(resourceType);
+    }
+
+    /**
+     * Returns the counts of all recorded resource types in a direction, sorted by resource type.
+     *
+     * @param direction the direction of the messages
+     * @return the counts of all recorded resource types in that direction.
+     */
+    public Map<String, Counts> getCounts(Direction direction) {
+        Assert.notNull(direction, "direction cannot be null.");
+        return Collections.unmodifiableMap(new TreeMap<String, Counts>(counts.get(direction)));
+    }
+
+    /**
+     * Returns the resource type of the messages exchanged with the specified URI: the last collection name in its
+     * path, skipping the {@code api} and version prefixes.
+     *
+     * @param uri the request URI
+     * @return the resource type of the messages exchanged with the URI.
+     */
+    public static String getResourceType(URI uri) {
+        String path = uri != null ? uri.getPath() : null;
+        if (path == null) {
+            return UNKNOWN_RESOURCE_TYPE;
+        }
+        String[] segments = path.split("/");
+        int start = 0;
+        while (start < segments.length && (segments[start].isEmpty() || isPrefix(segments[start]))) {
+            start++;
+        }
+        //collection names and ids alternate: /accounts/{id}/customData
+        String type = UNKNOWN_RESOURCE_TYPE;
+        for (int i = start; i < segments.length; i += 2) {
+            if (!segments[i].isEmpty()) {
+                type = segments[i];
+            }
+        }
+        return type;
+    }
+
+    private static boolean isPrefix(String segment) {
+        return "api".equals(segment) || segment.matches("v\\d+");
+    }
+
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{\n");
+        Direction[] directions = Direction.values();
+        for (int i = 0; i < directions.length; i++) {
+            sb.append("  \"").append(directions[i].name().toLowerCase()).append("\": {");
+            String separator = "\n";
+            for (Map.Entry<String, Counts> entry : getCounts(directions[i]).entrySet()) {
+                sb.append(separator).append("    \"").append(entry.getKey()).append("\": ").append(entry.getValue());
+                separator = ",\n";
+            }
+            sb.append(separator.length() > 1 ? "\n  }" : "}").append(i < directions.length - 1 ? ",\n" : "\n");
+        }
+        return sb.append("}").toString();
+    }
+
+    /**
+     * The counts of a resource type in one direction.
+     */
+    public static class Counts {
+
+        private final AtomicLong messageCount = new AtomicLong();
+        private final AtomicLong compressedCount = new AtomicLong();
+        private final AtomicLong logicalBytes = new AtomicLong();
+        private final AtomicLong wireBytes = new AtomicLong();
+
+        /**
+         * Returns the number of message bodies recorded.
+         *
+         * @return the number of message bodies recorded.
+         */
+        public long getMessageCount() {
+            return messageCount.get();
+        }
+
+        /**
+         * Returns the number of message bodies that were compressed on the wire.
+         *
+         * @return the number of message bodies that were compressed on the wire.
+         */
+        public long getCompressedCount() {
+            return compressedCount.get();
+        }
+
+        /**
+         * Returns the total size of the message bodies as produced or consumed by the SDK.
+         *
+         * @return the total size of the message bodies as produced or consumed by the SDK.
+         */
+        public long getLogicalBytes() {
+            return logicalBytes.get();
+        }
+
+        /**
+         * Returns the total size of the message bodies as sent over the wire.
+         *
+         * @return the total size of the message bodies as sent over the wire.
+         */
+        public long getWireBytes() {
+            return wireBytes.get();
+        }
+
+        public String toString() {
+            return "{\"messageCount\": " + getMessageCount() + ", \"compressedCount\": " + getCompressedCount() +
+                   ", \"logicalBytes\": " + getLogicalBytes() + ", \"wireBytes\": " + getWireBytes() + "}";
+        }
+    }
+}
@@ -22,10 +22,20 @@ import com.stormpath.sdk.impl.authc.credentials.ApiKeyCredentials
 import org.apache.http.HttpEntity
 import org.apache.http.HttpResponse
 import org.apache.http.StatusLine
+import org.apache.http.client.methods.HttpPost
+import org.apache.http.entity.ByteArrayEntity
+import org.apache.http.entity.ContentType
+import org.apache.http.entity.StringEntity
 import org.testng.annotations.Test
 
+import java.util.zip.GZIPInputStream
+import java.util.zip.GZIPOutputStream
+
 import static org.easymock.EasyMock.*
+import static org.testng.Assert.assertEquals
+import static org.testng.Assert.assertFalse
 import static org.testng.Assert.assertNull
+import static org.testng.Assert.assertTrue
 
 class HttpClientRequestExecutorTest {
 
@@ -63,4 +73,167 @@ class HttpClientRequestExecutorTest {
         verify apiKeyCredentials, httpResponse, statusLine, entity, entityContent
 
     }
+
+    /**
+     * @since 2.0.5
+     */
+    @Test
+    void testToSdkResponseStreaming() {
+
+        def apiKeyCredentials = createStrictMock(ApiKeyCredentials)
+
+        HttpResponse httpResponse = createStrictMock(HttpResponse)
+        StatusLine statusLine = createStrictMock(StatusLine)
+        HttpEntity entity = createStrictMock(HttpEntity)
+        InputStream entityContent = new ByteArrayInputStream('{"href":"x"}'.getBytes('UTF-8'))
+
+        def e = new HttpClientRequestExecutor(apiKeyCredentials, null, AuthenticationScheme.SAUTHC1, null, 20000) {
+            @Override
+            protected byte[] toBytes(HttpEntity he) throws IOException {
+                throw new IllegalStateException("streamed responses should not be buffered")
+            }
+        }
+
+        expect(httpResponse.getStatusLine()).andStubReturn(statusLine)
+        expect(statusLine.getStatusCode()).andStubReturn(200)
+        expect(httpResponse.getAllHeaders()).andStubReturn(null)
+        expect(httpResponse.getEntity()).andStubReturn(entity)
+        expect(entity.getContentEncoding())andStubReturn(null)
+        expect(entity.getContent()).andStubReturn(entityContent)
+        expect(entity.getContentLength()).andStubReturn(12)
+
+        replay apiKeyCredentials, httpResponse, statusLine, entity
+
+        def sdkResponse = e.toSdkResponse(httpResponse, true, 'accounts')
+
+        assertEquals sdkResponse.headers.getContentLength(), 12
+        assertNull e.wireMetrics.getCounts(WireMetrics.Direction.RESPONSE, 'accounts')
+        assertEquals sdkResponse.body.text, '{"href":"x"}'
+
+        def counts = e.wireMetrics.getCounts(WireMetrics.Direction.RESPONSE, 'accounts')
+        assertEquals counts.messageCount, 1
+        assertEquals counts.logicalBytes, 12
+        assertEquals counts.wireBytes, 12
+
+        verify apiKeyCredentials, httpResponse, statusLine, entity
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Test
+    void testToSdkResponseDecompressesBufferedBodyWhenRead() {
+
+        def apiKeyCredentials = createStrictMock(ApiKeyCredentials)
+
+        HttpResponse httpResponse = createStrictMock(HttpResponse)
+        StatusLine statusLine = createStrictMock(StatusLine)
+
+        def json = '{"items":[' + (1..100).collect { '{"name":"value"}' }.join(',') + ']}'
+        def compressed = new ByteArrayOutputStream()
+        new GZIPOutputStream(compressed).withStream { it.write(json.getBytes('UTF-8')) }
+
+        def entity = new ByteArrayEntity(compressed.toByteArray())
+        entity.setContentEncoding('gzip')
+
+        def e = new HttpClientRequestExecutor(apiKeyCredentials, null, AuthenticationScheme.SAUTHC1, null, 20000)
+
+        expect(httpResponse.getStatusLine()).andStubReturn(statusLine)
+        expect(statusLine.getStatusCode()).andStubReturn(200)
+        expect(httpResponse.getAllHeaders()).andStubReturn(null)
+        expect(httpResponse.getEntity()).andStubReturn(entity)
+
+        replay apiKeyCredentials, httpResponse, statusLine
+
+        def sdkResponse = e.toSdkResponse(httpResponse, false, 'groups')
+
+        assertEquals sdkResponse.headers.getContentLength(), -1
+        assertEquals sdkResponse.body.text, json
+
+        def counts = e.wireMetrics.getCounts(WireMetrics.Direction.RESPONSE, 'groups')
+        assertEquals counts.compressedCount, 1
+        assertEquals counts.logicalBytes, json.length()
+        assertEquals counts.wireBytes, compressed.size()
+
+        verify apiKeyCredentials, httpResponse, statusLine
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Test
+    void testToSdkResponseStreamingBuffersErrors() {
+
+        def apiKeyCredentials = createStrictMock(ApiKeyCredentials)
+
+        HttpResponse httpResponse = createStrictMock(HttpResponse)
+        StatusLine statusLine = createStrictMock(StatusLine)
+        HttpEntity entity = createStrictMock(HttpEntity)
+        InputStream entityContent = createStrictMock(InputStream)
+
+        def e = new HttpClientRequestExecutor(apiKeyCredentials, null, AuthenticationScheme.SAUTHC1, null, 20000) {
+            @Override
+            protected byte[] toBytes(HttpEntity he) throws IOException {
+                return '{"status":404}'.getBytes('UTF-8')
+            }
+        }
+
+        expect(httpResponse.getStatusLine()).andStubReturn(statusLine)
+        expect(statusLine.getStatusCode()).andStubReturn(404)
+        expect(httpResponse.getAllHeaders()).andStubReturn(null)
+        expect(httpResponse.getEntity()).andStubReturn(entity)
+        expect(entity.getContentEncoding())andStubReturn(null)
+        expect(entity.getContent()).andStubReturn(entityContent)
+        expect(entity.getContentLength()).andStubReturn(14)
+
+        replay apiKeyCredentials, httpResponse, statusLine, entity, entityContent
+
+        def sdkResponse = e.toSdkResponse(httpResponse, true, 'accounts')
+
+        assertEquals sdkResponse.body.text, '{"status":404}'
+
+        verify apiKeyCredentials, httpResponse, statusLine, entity, entityContent
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Test
+    void testCompressEntity() {
+
+        def apiKeyCredentials = createStrictMock(ApiKeyCredentials)
+
+        def e = new HttpClientRequestExecutor(apiKeyCredentials, null, AuthenticationScheme.SAUTHC1, null, 20000)
+        e.requestCompressionThreshold = 1024
+
+        replay apiKeyCredentials
+
+        def json = '{"items":[' + (1..100).collect { '{"name":"value"}' }.join(',') + ']}'
+
+        def small = new HttpPost('https://api.stormpath.com/v1/accounts/a1/customData')
+        small.entity = new StringEntity('{"name":"value"}', ContentType.APPLICATION_JSON)
+        assertFalse e.compressEntity(small, 'customData')
+        assertNull small.entity.contentEncoding
+
+        def large = new HttpPost('https://api.stormpath.com/v1/accounts/a1/customData')
+        large.entity = new StringEntity(json, ContentType.APPLICATION_JSON)
+        assertTrue e.compressEntity(large, 'customData')
+        assertEquals large.entity.contentEncoding.value, 'gzip'
+        assertEquals large.entity.contentType.value, ContentType.APPLICATION_JSON.toString()
+        assertEquals new GZIPInputStream(large.entity.content).getText('UTF-8'), json
+
+        def counts = e.wireMetrics.getCounts(WireMetrics.Direction.REQUEST, 'customData')
+        assertEquals counts.messageCount, 2
+        assertEquals counts.compressedCount, 1
+        assertEquals counts.logicalBytes, json.length() + 16
+        assertEquals counts.wireBytes, large.entity.contentLength + 16
+
+        //once the host rejected a compressed body, bodies are sent as is:
+        assertTrue e.isCompressionRejected(large, 415)
+        def retry = new HttpPost('https://api.stormpath.com/v1/accounts/a1/customData')
+        retry.entity = new StringEntity(json, ContentType.APPLICATION_JSON)
+        assertFalse e.compressEntity(retry, 'customData')
+
+        verify apiKeyCredentials
+    }
 }
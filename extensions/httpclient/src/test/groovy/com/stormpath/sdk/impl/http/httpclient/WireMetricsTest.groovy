@@ -0,0 +1,54 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.http.httpclient
+
+import org.testng.annotations.Test
+
+import static org.testng.Assert.assertEquals
+import static org.testng.Assert.assertNull
+
+/**
+ * @since 2.0.5
+ */
+class WireMetricsTest {
+
+    @Test
+    void testGetResourceType() {
+        assertEquals WireMetrics.getResourceType(URI.create('https://api.stormpath.com/v1/accounts/a1b2c3')), 'accounts'
+        assertEquals WireMetrics.getResourceType(URI.create('https://api.stormpath.com/v1/accounts/a1b2c3/customData')), 'customData'
+        assertEquals WireMetrics.getResourceType(URI.create('https://dev-123.okta.com/api/v1/users/00u1/groups')), 'groups'
+        assertEquals WireMetrics.getResourceType(URI.create('https://dev-123.okta.com/api/v1/groups')), 'groups'
+        assertEquals WireMetrics.getResourceType(URI.create('https://dev-123.okta.com/')), WireMetrics.UNKNOWN_RESOURCE_TYPE
+    }
+
+    @Test
+    void testRecord() {
+        def metrics = new WireMetrics()
+
+        metrics.record(WireMetrics.Direction.REQUEST, 'customData', 1000, 200, true)
+        metrics.record(WireMetrics.Direction.REQUEST, 'customData', 100, 100, false)
+        metrics.record(WireMetrics.Direction.RESPONSE, null, 10, 10, false)
+
+        def counts = metrics.getCounts(WireMetrics.Direction.REQUEST, 'customData')
+        assertEquals counts.messageCount, 2
+        assertEquals counts.compressedCount, 1
+        assertEquals counts.logicalBytes, 1100
+        assertEquals counts.wireBytes, 300
+
+        assertNull metrics.getCounts(WireMetrics.Direction.RESPONSE, 'customData')
+        assertEquals metrics.getCounts(WireMetrics.Direction.RESPONSE).keySet(), [WireMetrics.UNKNOWN_RESOURCE_TYPE] as Set
+    }
+}
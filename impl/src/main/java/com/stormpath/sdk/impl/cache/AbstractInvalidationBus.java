@@ -0,0 +1,265 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.cache;
+
+import com.stormpath.sdk.cache.CacheInvalidationBus;
+import com.stormpath.sdk.impl.util.DaemonThreadFactory;
+import com.stormpath.sdk.lang.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Base class of {@link CacheInvalidationBus} implementations, batching and coalescing publications.
+ * <p/>
+ * Published keys are collected per region for up to the {@link #getBatchDelayMillis() batch delay}, or until
+ * {@link #getMaxBatchSize() max batch size} distinct keys are pending, and are then {@link #send(Map) sent} as a
+ * single batch by a background thread.  A key published again before its batch is sent is only sent once.  Subclasses
+ * implement the transport and hand the batches received from other nodes to {@link #deliver(Map)}.
+ *
+ * @since 2.0.5
+ */
+public abstract class AbstractInvalidationBus implements CacheInvalidationBus, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(AbstractInvalidationBus.class);
+
+    public static final long DEFAULT_BATCH_DELAY_MILLIS = 10;
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+
+    private final long batchDelayMillis;
+    private final int maxBatchSize;
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+
+    private final ScheduledExecutorService flusher =
+        Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("stormpath-cache-invalidation"));
+
+    /**
+     * The keys waiting to be sent, per region, guarded by {@code this}.
+     */
+    private Map<String, Set<String>> pending = new LinkedHashMap<String, Set<String>>();
+    private int pendingCount;
+    private boolean flushScheduled;
+    private boolean immediateFlushScheduled;
+    private boolean closed;
+
+    private final AtomicLong publishedCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong sentBatchCount = new AtomicLong();
+    private final AtomicLong receivedCount = new AtomicLong();
+
+    protected AbstractInvalidationBus() {
+        this(DEFAULT_BATCH_DELAY_MILLIS, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * @param batchDelayMillis the maximum amount of time a published key waits to be sent with other keys
+     * @param maxBatchSize     the number of pending keys that causes a batch to be sent immediately
+     */
+    protected AbstractInvalidationBus(long batchDelayMillis, int maxBatchSize) {
+        Assert.isTrue(batchDelayMillis >= 0, "batchDelayMillis cannot be negative.");
+        Assert.isTrue(maxBatchSize > 0, "maxBatchSize must be greater than zero.");
+        this.batchDelayMillis = batchDelayMillis;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @Override
+    public void publish(String region, String key) {
+        Assert.hasText(region, "region cannot be null or empty.");
+        Assert.hasText(key, "key cannot be null or empty.");
+        publishedCount.incrementAndGet();
+
+        long delay;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            Set<String> keys = pending.get(region);
+            if (keys == null) {
+                keys = new LinkedHashSet<String>();
+                pending.put(region, keys);
+            }
+            if (!keys.add(key)) {
+                coalescedCount.incrementAndGet();
+                return;
+            }
+            pendingCount++;
+            if (pendingCount >= maxBatchSize) {
+                //only the first key over the limit needs to bring the flush forward:
+                if (immediateFlushScheduled) {
+                    return;
+                }
+                immediateFlushScheduled = true;
+                delay = 0;
+            } else if (!flushScheduled) {
+                delay = batchDelayMillis;
+            } else {
+                return;
+            }
+            flushScheduled = true;
+        }
+        scheduleFlush(delay);
+    }
+
+    private void scheduleFlush(long delayMillis) {
+        try {
+            flusher.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    flush();
+                }
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            //closed: nothing else will be sent
+        }
+    }
+
+    /**
+     * Sends the pending keys now.
+     */
+    public void flush() {
+        Map<String, Set<String>> batch;
+        synchronized (this) {
+            flushScheduled = false;
+            immediateFlushScheduled = false;
+            if (pendingCount == 0) {
+                return;
+            }
+            batch = pending;
+            pending = new LinkedHashMap<String, Set<String>>();
+            pendingCount = 0;
+        }
+        try {
+            send(batch);
+            sentBatchCount.incrementAndGet();
+        } catch (Exception e) {
+            //the other nodes' entries will expire with their TTL:
+            log.warn("Unable to send cache invalidations: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Sends a batch of evictions to the other nodes.
+     *
+     * @param batch the keys to evict, per region
+     * @throws Exception if the batch could not be sent
+     */
+    protected abstract void send(Map<String, Set<String>> batch) throws Exception;
+
+    /**
+     * Notifies the listeners of a batch of evictions published by another node.
+     *
+     * @param batch the keys to evict, per region
+     */
+    protected void deliver(Map<String, ? extends Collection<String>> batch) {
+        for (Map.Entry<String, ? extends Collection<String>> entry : batch.entrySet()) {
+            receivedCount.addAndGet(entry.getValue().size());
+            for (Listener listener : listeners) {
+                try {
+                    listener.onInvalidation(entry.getKey(), entry.getValue());
+                } catch (RuntimeException e) {
+                    log.warn("Cache invalidation listener failed: {}", e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        Assert.notNull(listener, "listener cannot be null.");
+        listeners.add(listener);
+    }
+
+    /**
+     * Sends the pending keys and stops the background thread.  Keys published afterwards are not sent.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        flusher.shutdown();
+        flush();
+    }
+
+    public long getBatchDelayMillis() {
+        return batchDelayMillis;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Returns the number of keys published by this node.
+     *
+     * @return the number of keys published by this node.
+     */
+    public long getPublishedCount() {
+        return publishedCount.get();
+    }
+
+    /**
+     * Returns the number of published keys that were not sent because they were already pending.
+     *
+     * @return the number of published keys that were coalesced with a pending publication.
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * Returns the number of batches sent to the other nodes.
+     *
+     * @return the number of batches sent to the other nodes.
+     */
+    public long getSentBatchCount() {
+        return sentBatchCount.get();
+    }
+
+    /**
+     * Returns the number of keys received from the other nodes.
+     *
+     * @return the number of keys received from the other nodes.
+     */
+    public long getReceivedCount() {
+        return receivedCount.get();
+    }
+
+    public String toString() {
+        return new StringBuilder("{\n")
+                .append("  \"publishedCount\": ").append(getPublishedCount()).append(",\n")
+                .append("  \"coalescedCount\": ").append(getCoalescedCount()).append(",\n")
+                .append("  \"sentBatchCount\": ").append(getSentBatchCount()).append(",\n")
+                .append("  \"receivedCount\": ").append(getReceivedCount()).append("\n")
+                .append("}")
+                .toString();
+    }
+}
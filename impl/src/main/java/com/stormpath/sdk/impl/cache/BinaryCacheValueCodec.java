@@ -0,0 +1,422 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.cache;
+
+import com.stormpath.sdk.cache.CacheValueCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@link CacheValueCodec} writing cached resource data in a compact, tagged binary format.
+ * <p/>
+ * Every value is written as a one byte type tag followed by its content: maps, collections, strings, numbers,
+ * booleans and dates have a dedicated representation and other {@link Serializable} values of a small set of JDK and
+ * Stormpath SDK types fall back to Java serialization.  Sizes are written as variable-length integers and map keys are interned: the first occurrence of a
+ * key is written in full, later occurrences (e.g. the {@code href} of every item of a collection) only as a reference
+ * to the first one.  Maps are decoded as {@link LinkedHashMap}s and collections as {@link ArrayList}s, like the JSON
+ * marshaller does.
+ * <h2>Untrusted input</h2>
+ * Encoded values are read back from shared or persistent stores (e.g. a Hazelcast cluster or a cache snapshot file),
+ * so Java serialization is restricted to an allow-list of classes, checked when values are encoded and again, for
+ * every class in the serialized graph, when they are decoded: values of other types can not be encoded and are
+ * rejected with a {@link NotSerializableException}.  Decoded sizes are checked against the remaining input, so a
+ * corrupt value fails with an {@link IOException} instead of exhausting the heap.
+ * <p/>
+ * This class is thread-safe.
+ *
+ * @since 2.0.5
+ */
+public class BinaryCacheValueCodec implements CacheValueCodec {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INTEGER = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte TRUE = 5;
+    private static final byte FALSE = 6;
+    private static final byte MAP = 7;
+    private static final byte COLLECTION = 8;
+    private static final byte DATE = 9;
+    private static final byte BIG_DECIMAL = 10;
+    private static final byte BIG_INTEGER = 11;
+    private static final byte SERIALIZED = 12;
+    private static final byte KEY = 13;
+    private static final byte KEY_REF = 14;
+
+    /**
+     * The classes that may be written with Java serialization, in addition to primitive types, arrays of allowed
+     * types and the {@link #SERIALIZABLE_PACKAGES}.
+     */
+    private static final Set<String> SERIALIZABLE_CLASSES = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(
+        "java.lang.Boolean", "java.lang.Byte", "java.lang.Character", "java.lang.Short", "java.lang.Integer",
+        "java.lang.Long", "java.lang.Float", "java.lang.Double", "java.lang.Number", "java.lang.String",
+        "java.lang.Enum",
+        "java.util.ArrayList", "java.util.LinkedList", "java.util.Arrays$ArrayList", "java.util.HashMap",
+        "java.util.LinkedHashMap", "java.util.TreeMap", "java.util.HashSet", "java.util.LinkedHashSet",
+        "java.util.TreeSet", "java.util.Date", "java.util.Locale", "java.util.UUID",
+        "java.util.concurrent.ConcurrentHashMap",
+        "java.util.concurrent.ConcurrentHashMap$Segment", "java.util.concurrent.locks.ReentrantLock",
+        "java.util.concurrent.locks.ReentrantLock$Sync", "java.util.concurrent.locks.ReentrantLock$NonfairSync",
+        "java.util.concurrent.locks.AbstractQueuedSynchronizer",
+        "java.util.concurrent.locks.AbstractOwnableSynchronizer"
+    )));
+
+    /**
+     * The packages whose classes may be written with Java serialization.
+     */
+    private static final String[] SERIALIZABLE_PACKAGES = {"java.math.", "java.time.", "com.stormpath.sdk."};
+
+    @Override
+    public byte[] encode(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(FORMAT_VERSION);
+        write(out, value);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public Object decode(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        byte version = in.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported cached value format version: " + version);
+        }
+        return read(in);
+    }
+
+    /**
+     * Writes the specified value to the stream, without a format version.
+     */
+    static void write(DataOutputStream out, Object value) throws IOException {
+        new Writer(out).write(value);
+    }
+
+    /**
+     * Reads a value written by {@link #write(DataOutputStream, Object)}.  The stream must report the number of bytes
+     * remaining in the value's input as {@link DataInputStream#available() available}.
+     */
+    static Object read(DataInputStream in) throws IOException {
+        return new Reader(in).read();
+    }
+
+    private static final class Writer {
+
+        private final DataOutputStream out;
+        private Map<String, Integer> keys;
+
+        private Writer(DataOutputStream out) {
+            this.out = out;
+        }
+
+        private void write(Object value) throws IOException {
+            if (value == null) {
+                out.writeByte(NULL);
+            } else if (value instanceof String) {
+                out.writeByte(STRING);
+                writeString((String) value);
+            } else if (value instanceof Integer) {
+                out.writeByte(INTEGER);
+                out.writeInt((Integer) value);
+            } else if (value instanceof Long) {
+                out.writeByte(LONG);
+                out.writeLong((Long) value);
+            } else if (value instanceof Double) {
+                out.writeByte(DOUBLE);
+                out.writeDouble((Double) value);
+            } else if (value instanceof Boolean) {
+                out.writeByte((Boolean) value ? TRUE : FALSE);
+            } else if (value instanceof Map) {
+                Map<?, ?> map = (Map<?, ?>) value;
+                out.writeByte(MAP);
+                writeVarInt(map.size());
+                for (Map.Entry<?, ?> e : map.entrySet()) {
+                    writeKey(e.getKey());
+                    write(e.getValue());
+                }
+            } else if (value instanceof Collection) {
+                Collection<?> c = (Collection<?>) value;
+                out.writeByte(COLLECTION);
+                writeVarInt(c.size());
+                for (Object o : c) {
+                    write(o);
+                }
+            } else if (value instanceof Date) {
+                out.writeByte(DATE);
+                out.writeLong(((Date) value).getTime());
+            } else if (value instanceof BigDecimal) {
+                out.writeByte(BIG_DECIMAL);
+                writeString(value.toString());
+            } else if (value instanceof BigInteger) {
+                out.writeByte(BIG_INTEGER);
+                writeString(value.toString());
+            } else if (value instanceof Serializable) {
+                out.writeByte(SERIALIZED);
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                ObjectOutputStream oos = new AllowListObjectOutputStream(bytes);
+                oos.writeObject(value);
+                oos.close();
+                writeVarInt(bytes.size());
+                bytes.writeTo(out);
+            } else {
+                throw new NotSerializableException(value.getClass().getName());
+            }
+        }
+
+        private void writeKey(Object key) throws IOException {
+            if (!(key instanceof String)) {
+                write(key);
+                return;
+            }
+            if (keys == null) {
+                keys = new HashMap<String, Integer>();
+            }
+            Integer index = keys.get(key);
+            if (index != null) {
+                out.writeByte(KEY_REF);
+                writeVarInt(index);
+            } else {
+                keys.put((String) key, keys.size());
+                out.writeByte(KEY);
+                writeString((String) key);
+            }
+        }
+
+        private void writeString(String s) throws IOException {
+            byte[] bytes = s.getBytes(UTF_8);
+            writeVarInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private void writeVarInt(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                out.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte(value);
+        }
+    }
+
+    private static final class Reader {
+
+        private final DataInputStream in;
+        private List<String> keys;
+
+        private Reader(DataInputStream in) {
+            this.in = in;
+        }
+
+        private Object read() throws IOException {
+            byte type = in.readByte();
+            switch (type) {
+                case NULL:
+                    return null;
+                case STRING:
+                    return readString();
+                case KEY: {
+                    String key = readString();
+                    if (keys == null) {
+                        keys = new ArrayList<String>();
+                    }
+                    keys.add(key);
+                    return key;
+                }
+                case KEY_REF: {
+                    int index = readVarInt();
+                    if (keys == null || index >= keys.size()) {
+                        throw new IOException("Invalid cached value key reference: " + index);
+                    }
+                    return keys.get(index);
+                }
+                case INTEGER:
+                    return in.readInt();
+                case LONG:
+                    return in.readLong();
+                case DOUBLE:
+                    return in.readDouble();
+                case TRUE:
+                    return Boolean.TRUE;
+                case FALSE:
+                    return Boolean.FALSE;
+                case MAP: {
+                    int size = readLength();
+                    Map<Object, Object> map = new LinkedHashMap<Object, Object>(Math.max(4, (int) (Math.min(size, 1024) / .75f) + 1));
+                    for (int i = 0; i < size; i++) {
+                        Object key = read();
+                        map.put(key, read());
+                    }
+                    return map;
+                }
+                case COLLECTION: {
+                    int size = readLength();
+                    List<Object> list = new ArrayList<Object>(Math.min(size, 1024));
+                    for (int i = 0; i < size; i++) {
+                        list.add(read());
+                    }
+                    return list;
+                }
+                case DATE:
+                    return new Date(in.readLong());
+                case BIG_DECIMAL:
+                    return new BigDecimal(readString());
+                case BIG_INTEGER:
+                    return new BigInteger(readString());
+                case SERIALIZED: {
+                    byte[] bytes = new byte[readLength()];
+                    in.readFully(bytes);
+                    ObjectInputStream ois = new AllowListObjectInputStream(new ByteArrayInputStream(bytes));
+                    try {
+                        return ois.readObject();
+                    } catch (ClassNotFoundException e) {
+                        throw new IOException("Unable to decode cached value: " + e.getMessage(), e);
+                    } finally {
+                        ois.close();
+                    }
+                }
+                default:
+                    throw new IOException("Unknown cached value type: " + type);
+            }
+        }
+
+        private String readString() throws IOException {
+            byte[] bytes = new byte[readLength()];
+            in.readFully(bytes);
+            return new String(bytes, UTF_8);
+        }
+
+        /**
+         * Reads a size, which can not exceed the remaining input: every byte or element takes at least one byte.
+         */
+        private int readLength() throws IOException {
+            int length = readVarInt();
+            if (length < 0 || length > in.available()) {
+                throw new IOException("Invalid cached value length: " + length);
+            }
+            return length;
+        }
+
+        private int readVarInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = in.readUnsignedByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed variable-length integer.");
+        }
+    }
+
+    private static boolean isSerializable(String className) {
+        String name = className;
+        while (name.startsWith("[")) {
+            name = name.substring(1);
+        }
+        if (name.length() == 1) {
+            //primitive array component
+            return className.startsWith("[");
+        }
+        if (name.startsWith("L") && name.endsWith(";")) {
+            name = name.substring(1, name.length() - 1);
+        }
+        if (SERIALIZABLE_CLASSES.contains(name)) {
+            return true;
+        }
+        for (String pkg : SERIALIZABLE_PACKAGES) {
+            if (name.startsWith(pkg)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Refuses to write classes that would be refused when reading them back.
+     */
+    private static final class AllowListObjectOutputStream extends ObjectOutputStream {
+
+        private AllowListObjectOutputStream(OutputStream out) throws IOException {
+            super(out);
+        }
+
+        @Override
+        protected void annotateClass(Class<?> cl) throws IOException {
+            if (!cl.isPrimitive() && !isSerializable(cl.getName())) {
+                throw new NotSerializableException(cl.getName());
+            }
+        }
+
+        @Override
+        protected void annotateProxyClass(Class<?> cl) throws IOException {
+            throw new NotSerializableException(cl.getName());
+        }
+    }
+
+    /**
+     * Only resolves the allowed classes, so untrusted input can not instantiate arbitrary serializable classes.
+     */
+    private static final class AllowListObjectInputStream extends ObjectInputStream {
+
+        private AllowListObjectInputStream(ByteArrayInputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            if (!isSerializable(desc.getName())) {
+                throw new InvalidClassException(desc.getName(), "Class is not allowed in cached values.");
+            }
+            return super.resolveClass(desc);
+        }
+
+        @Override
+        protected Class<?> resolveProxyClass(String[] interfaces) throws IOException, ClassNotFoundException {
+            throw new InvalidClassException("Proxy classes are not allowed in cached values.");
+        }
+    }
+}
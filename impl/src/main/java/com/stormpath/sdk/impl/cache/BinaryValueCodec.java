@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.NotSerializableException;
+
+/**
+ * Encodes {@link DefaultCache.Entry cache entries} into a compact binary form and back, e.g. to move them off-heap or
+ * into a {@link CacheSnapshot}.
+ * <p/>
+ * The entry's timestamps are followed by its value in the {@link BinaryCacheValueCodec} format, which is a fraction of
+ * the size of both the object graph and its Java serialized form.
+ *
+ * @since 2.0.5
+ */
+final class BinaryValueCodec {
+
+    private BinaryValueCodec() {
+    }
+
+    /**
+     * Encodes a {@link DefaultCache.Entry} including its timestamps.
+     *
+     * @throws NotSerializableException if the entry's value (or any nested value) can not be encoded.
+     */
+    static byte[] encode(DefaultCache.Entry<?> entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(entry.getCreationTimeMillis());
+        out.writeLong(entry.getCreationNanos());
+        out.writeLong(entry.getLastAccessNanos());
+        BinaryCacheValueCodec.write(out, entry.getValue());
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes an entry previously encoded with {@link #encode(DefaultCache.Entry)}.
+     */
+    static <V> DefaultCache.Entry<V> decode(byte[] data) throws IOException {
+        return decode(new ByteArrayInputStream(data));
+    }
+
+    /**
+     * Decodes an entry previously encoded with {@link #encode(DefaultCache.Entry)} from the specified stream.
+     */
+    @SuppressWarnings("unchecked")
+    static <V> DefaultCache.Entry<V> decode(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        long creationTimeMillis = in.readLong();
+        long creationNanos = in.readLong();
+        long lastAccessNanos = in.readLong();
+        V value = (V) BinaryCacheValueCodec.read(in);
+        return new DefaultCache.Entry<V>(value, creationTimeMillis, creationNanos, lastAccessNanos);
+    }
+}
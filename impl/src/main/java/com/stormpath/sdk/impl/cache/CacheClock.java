@@ -0,0 +1,46 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.cache;
+
+/**
+ * The source of time used by {@link DefaultCache} instances to expire entries.  Only differences between two values
+ * returned by the same clock are meaningful, like {@link System#nanoTime()}.
+ * <p/>
+ * Expiration is checked on every cache hit, so implementations should be cheap.  {@link CoarseCacheClock} trades
+ * precision for an even cheaper read of a periodically updated value.
+ *
+ * @see CoarseCacheClock
+ * @since 2.0.5
+ */
+public interface CacheClock {
+
+    /**
+     * Clock backed by {@link System#nanoTime()}.
+     */
+    CacheClock SYSTEM = new CacheClock() {
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+    };
+
+    /**
+     * Returns the current value of this clock, in nanoseconds.
+     *
+     * @return the current value of this clock, in nanoseconds.
+     */
+    long nanoTime();
+}
@@ -44,4 +44,40 @@ public interface CacheConfiguration {
      * @return the Time-to-Idle setting to apply for all entries in the associated {@code Cache}.
      */
     Duration getTimeToIdle();
+
+    /**
+     * Returns the amount of time entries in the associated {@code Cache} may still be returned after their
+     * Time-to-Live has elapsed, while they are being refreshed, or {@code null} if there is no such window.
+     *
+     * @return the stale-while-revalidate window to apply for all entries in the associated {@code Cache}.
+     * @since 2.0.5
+     */
+    Duration getStaleWhileRevalidate();
+
+    /**
+     * Returns the maximum number of entries retained by the associated {@code Cache}, or {@code 0} if its size is only
+     * limited by memory constraints.
+     *
+     * @return the maximum number of entries retained by the associated {@code Cache}, or {@code 0} if unbounded.
+     * @since 2.0.5
+     */
+    long getMaximumSize();
+
+    /**
+     * Returns the number of bytes of direct memory the associated {@code Cache} may use to retain entries evicted from
+     * the heap, or {@code 0} if evicted entries are discarded.
+     *
+     * @return the number of bytes of direct memory the associated {@code Cache} may use, or {@code 0} if none.
+     * @since 2.0.5
+     */
+    long getOffHeapSize();
+
+    /**
+     * Returns the fraction of the Time to Live after which read entries of the associated {@code Cache} are refreshed
+     * in the background, or {@code 0} if entries are not refreshed ahead of their expiry.
+     *
+     * @return the refresh-ahead fraction of the associated {@code Cache}, or {@code 0} if refresh-ahead is disabled.
+     * @since 2.0.5
+     */
+    double getRefreshAheadFactor();
 }
@@ -0,0 +1,538 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A read-only, memory-mapped snapshot of cache regions, used to start with warm caches after a restart.
+ * <h2>Loading</h2>
+ * {@link #open(File) Opening} a snapshot maps the file into memory and only reads its small table of regions.  The
+ * index of a region is a table of {@code (key hash, offset, length)} records sorted by key hash, which is
+ * binary-searched directly in the mapped file: entries are only decoded when their key is first looked up, so opening
+ * a snapshot takes the same time regardless of its size and unused entries never reach the heap.
+ * <h2>Expiration</h2>
+ * Entries keep their original creation and last access times: they are rebased on the current {@link CacheClock}
+ * from the wall-clock time that passed since they were created, so a restored entry expires exactly when it would
+ * have expired without the restart.
+ * <h2>Generations</h2>
+ * A mapped file can not be replaced on every platform (Windows refuses to rename over or delete it), so each snapshot
+ * is {@link #write(File, Map) written} to a new generation file named after the configured file, e.g.
+ * {@code caches.snapshot.1490000000000}.  {@link #open(File) Opening} a snapshot maps the newest valid generation;
+ * older generations are deleted as soon as they are no longer mapped.
+ * <h2>File format</h2>
+ * <pre>
+ * header:  int magic, int version, long writtenAtMillis, int regionCount
+ * regions: regionCount * (UTF name, int indexOffset, int entryCount)
+ * indexes: entryCount * (int keyHash, int offset, int length), per region, sorted by keyHash
+ * records: UTF key followed by the {@link BinaryValueCodec} encoded entry
+ * </pre>
+ *
+ * @since 2.0.5
+ */
+final class CacheSnapshot {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheSnapshot.class);
+
+    private static final int MAGIC = 0x53504353; //'SPCS'
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 20;
+    private static final int INDEX_RECORD_SIZE = 12;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final ByteBuffer buffer;
+    private final Map<String, Region> regions;
+
+    private CacheSnapshot(ByteBuffer buffer, Map<String, Region> regions) {
+        this.buffer = buffer;
+        this.regions = regions;
+    }
+
+    /**
+     * Maps the newest valid generation of the specified snapshot file, returning {@code null} if there is none.
+     */
+    static CacheSnapshot open(File file) {
+        for (File generation : getGenerations(file)) {
+            CacheSnapshot snapshot = map(generation);
+            if (snapshot != null) {
+                return snapshot;
+            }
+        }
+        //snapshots written before generations were introduced:
+        return map(file);
+    }
+
+    private static CacheSnapshot map(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            MappedByteBuffer buffer;
+            RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try {
+                //the mapping remains valid after the channel is closed:
+                buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+            } finally {
+                raf.close();
+            }
+            return read(buffer);
+        } catch (Exception e) {
+            log.warn("Unable to open cache snapshot '{}', starting with empty caches: {}", file, e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Returns the generation files of the specified snapshot file, newest first.
+     */
+    static List<File> getGenerations(File file) {
+        File dir = file.getAbsoluteFile().getParentFile();
+        final String prefix = file.getName() + ".";
+        File[] files = dir != null ? dir.listFiles() : null;
+        if (files == null) {
+            return Collections.emptyList();
+        }
+        List<File> generations = new ArrayList<File>();
+        for (File f : files) {
+            if (getGeneration(f, prefix) >= 0) {
+                generations.add(f);
+            }
+        }
+        Collections.sort(generations, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                long ga = getGeneration(a, prefix);
+                long gb = getGeneration(b, prefix);
+                return ga < gb ? 1 : (ga == gb ? 0 : -1);
+            }
+        });
+        return generations;
+    }
+
+    private static long getGeneration(File file, String prefix) {
+        String name = file.getName();
+        if (!name.startsWith(prefix) || name.length() == prefix.length() || name.length() - prefix.length() > 18) {
+            return -1;
+        }
+        for (int i = prefix.length(); i < name.length(); i++) {
+            if (!Character.isDigit(name.charAt(i))) {
+                return -1;
+            }
+        }
+        return Long.parseLong(name.substring(prefix.length()));
+    }
+
+    private static CacheSnapshot read(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a cache snapshot or unsupported snapshot version.");
+        }
+        int regionCount = buffer.getInt(16);
+
+        ByteBuffer table = buffer.duplicate();
+        table.position(HEADER_SIZE);
+        Map<String, Region> regions = new HashMap<String, Region>(regionCount * 2);
+        for (int i = 0; i < regionCount; i++) {
+            String name = readString(table);
+            int indexOffset = table.getInt();
+            int count = table.getInt();
+            regions.put(name, new Region(buffer, indexOffset, count));
+        }
+        return new CacheSnapshot(buffer, regions);
+    }
+
+    /**
+     * Returns the time, in milliseconds since Epoch, at which this snapshot was written.
+     */
+    long getWrittenAtMillis() {
+        return buffer.getLong(8);
+    }
+
+    Set<String> getRegionNames() {
+        return regions.keySet();
+    }
+
+    /**
+     * Returns the snapshot of the specified region, or {@code null} if the snapshot does not contain that region.
+     */
+    Region getRegion(String name) {
+        return regions.get(name);
+    }
+
+    /**
+     * Writes a snapshot of the specified regions to a new generation of the specified file.  The snapshot is first
+     * written to a temporary file and then renamed, so readers never see a partially written snapshot.  Previous
+     * generations are deleted, except the ones that are still mapped on platforms that do not allow it: those are
+     * deleted by a later write.  Only entries with {@code String} keys and values supported by the
+     * {@link BinaryValueCodec} are written.
+     */
+    static synchronized void write(File file, Map<String, ? extends Map<?, ? extends DefaultCache.Entry<?>>> regions) throws IOException {
+
+        List<String> names = new ArrayList<String>();
+        List<List<Record>> indexes = new ArrayList<List<Record>>();
+        for (Map.Entry<String, ? extends Map<?, ? extends DefaultCache.Entry<?>>> region : regions.entrySet()) {
+            List<Record> records = new ArrayList<Record>(region.getValue().size());
+            for (Map.Entry<?, ? extends DefaultCache.Entry<?>> e : region.getValue().entrySet()) {
+                if (!(e.getKey() instanceof String)) {
+                    continue;
+                }
+                try {
+                    records.add(new Record((String) e.getKey(), BinaryValueCodec.encode(e.getValue())));
+                } catch (IOException ex) {
+                    log.debug("Skipping cache entry '{}' that can not be written to a snapshot: {}", e.getKey(), ex.getMessage());
+                }
+            }
+            Collections.sort(records, Record.BY_HASH);
+            names.add(region.getKey());
+            indexes.add(records);
+        }
+
+        //lay the file out up front so the header and indexes can be written in a single pass:
+        long offset = HEADER_SIZE;
+        for (String name : names) {
+            offset += 2 + name.getBytes(UTF_8).length + 8;
+        }
+        int[] indexOffsets = new int[names.size()];
+        for (int i = 0; i < indexes.size(); i++) {
+            indexOffsets[i] = toInt(offset);
+            offset += (long) indexes.get(i).size() * INDEX_RECORD_SIZE;
+        }
+        for (List<Record> records : indexes) {
+            for (Record record : records) {
+                record.offset = toInt(offset);
+                offset += record.length();
+            }
+        }
+        toInt(offset);
+
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Unable to create directory " + dir);
+        }
+        List<File> previous = getGenerations(file);
+        long generation = System.currentTimeMillis();
+        if (!previous.isEmpty()) {
+            generation = Math.max(generation, getGeneration(previous.get(0), file.getName() + ".") + 1);
+        }
+        File target = new File(dir, file.getName() + "." + generation);
+        File tmp = new File(dir, target.getName() + ".tmp");
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 64 * 1024));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(System.currentTimeMillis());
+            out.writeInt(names.size());
+            for (int i = 0; i < names.size(); i++) {
+                byte[] name = names.get(i).getBytes(UTF_8);
+                out.writeShort(name.length);
+                out.write(name);
+                out.writeInt(indexOffsets[i]);
+                out.writeInt(indexes.get(i).size());
+            }
+            for (List<Record> records : indexes) {
+                for (Record record : records) {
+                    out.writeInt(record.key.hashCode());
+                    out.writeInt(record.offset);
+                    out.writeInt(record.length());
+                }
+            }
+            for (List<Record> records : indexes) {
+                for (Record record : records) {
+                    out.writeShort(record.keyBytes.length);
+                    out.write(record.keyBytes);
+                    out.write(record.entry);
+                }
+            }
+        } finally {
+            out.close();
+        }
+
+        try {
+            Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp.toPath(), target.toPath());
+        }
+
+        List<File> obsolete = new ArrayList<File>(previous);
+        obsolete.add(file);
+        for (File f : obsolete) {
+            if (f.exists() && !f.delete()) {
+                log.debug("Unable to delete previous cache snapshot '{}', it will be deleted by a later snapshot.", f);
+            }
+        }
+    }
+
+    private static int toInt(long offset) throws IOException {
+        if (offset > Integer.MAX_VALUE) {
+            throw new IOException("Cache snapshot exceeds the maximum size of 2 GB.");
+        }
+        return (int) offset;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getShort() & 0xFFFF;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    /**
+     * The entries of a single cache region within a snapshot.  Each entry can be {@link #take(String, CacheClock) taken}
+     * at most once: after it has been restored, replaced or removed from the cache, the snapshot copy is obsolete.
+     */
+    static final class Region {
+
+        private final ByteBuffer buffer;
+        private final int indexOffset;
+        private final int count;
+
+        private final Set<String> taken = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        private final AtomicInteger remaining;
+        private volatile boolean discarded;
+
+        private Region(ByteBuffer buffer, int indexOffset, int count) {
+            this.buffer = buffer;
+            this.indexOffset = indexOffset;
+            this.count = count;
+            this.remaining = new AtomicInteger(count);
+        }
+
+        /**
+         * Returns the number of entries that have not been taken yet.
+         */
+        int size() {
+            return discarded ? 0 : Math.max(remaining.get(), 0);
+        }
+
+        /**
+         * Restores the entry of the specified key, or returns {@code null} if the snapshot does not contain it or it
+         * was already taken.
+         */
+        <V> DefaultCache.Entry<V> take(String key, CacheClock clock) {
+            int record = claim(key);
+            if (record < 0) {
+                return null;
+            }
+            try {
+                return restore(this.<V>decode(record), clock);
+            } catch (IOException e) {
+                log.debug("Unable to restore cache entry '{}' from snapshot: {}", key, e.getMessage());
+                return null;
+            }
+        }
+
+        /**
+         * Marks the entry of the specified key as obsolete, e.g. because the cache entry was replaced or removed.
+         */
+        void discard(String key) {
+            claim(key);
+        }
+
+        /**
+         * Marks all entries as obsolete, e.g. because the cache was cleared.
+         */
+        void discardAll() {
+            discarded = true;
+        }
+
+        /**
+         * Returns the entries that have not been taken yet, without taking them.
+         */
+        <V> Map<String, DefaultCache.Entry<V>> getRemainingEntries(CacheClock clock) {
+            Map<String, DefaultCache.Entry<V>> entries = new LinkedHashMap<String, DefaultCache.Entry<V>>();
+            if (discarded) {
+                return entries;
+            }
+            for (int i = 0; i < count; i++) {
+                int record = indexOffset + i * INDEX_RECORD_SIZE;
+                String key = readKey(record);
+                if (key == null || taken.contains(key)) {
+                    continue;
+                }
+                try {
+                    entries.put(key, restore(this.<V>decode(record), clock));
+                } catch (IOException e) {
+                    log.debug("Unable to restore cache entry '{}' from snapshot: {}", key, e.getMessage());
+                }
+            }
+            return entries;
+        }
+
+        /**
+         * Finds the index record of the specified key and marks it as taken, returning its position or {@code -1} if
+         * the key is not in the snapshot or was already taken.
+         */
+        private int claim(String key) {
+            if (discarded) {
+                return -1;
+            }
+            int record = find(key);
+            if (record < 0 || !taken.add(key)) {
+                return -1;
+            }
+            remaining.decrementAndGet();
+            return record;
+        }
+
+        private int find(String key) {
+            int hash = key.hashCode();
+            int low = 0;
+            int high = count - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int midHash = buffer.getInt(indexOffset + mid * INDEX_RECORD_SIZE);
+                if (midHash < hash) {
+                    low = mid + 1;
+                } else if (midHash > hash) {
+                    high = mid - 1;
+                } else {
+                    //walk back to the first record with this hash, then compare the keys of all colliding records:
+                    while (mid > 0 && buffer.getInt(indexOffset + (mid - 1) * INDEX_RECORD_SIZE) == hash) {
+                        mid--;
+                    }
+                    for (; mid < count && buffer.getInt(indexOffset + mid * INDEX_RECORD_SIZE) == hash; mid++) {
+                        int record = indexOffset + mid * INDEX_RECORD_SIZE;
+                        if (key.equals(readKey(record))) {
+                            return record;
+                        }
+                    }
+                    return -1;
+                }
+            }
+            return -1;
+        }
+
+        private String readKey(int record) {
+            ByteBuffer b = buffer.duplicate();
+            b.position(buffer.getInt(record + 4));
+            return readString(b);
+        }
+
+        private <V> DefaultCache.Entry<V> decode(int record) throws IOException {
+            ByteBuffer b = buffer.duplicate();
+            int offset = buffer.getInt(record + 4);
+            int length = buffer.getInt(record + 8);
+            b.position(offset);
+            b.limit(offset + length);
+            b.position(offset + 2 + (b.getShort() & 0xFFFF));
+            return BinaryValueCodec.decode(new BufferInputStream(b));
+        }
+
+        /**
+         * Rebases the clock values of an entry written by another process on the specified clock, keeping its age.
+         */
+        private static <V> DefaultCache.Entry<V> restore(DefaultCache.Entry<V> entry, CacheClock clock) {
+            long ageMillis = Math.max(System.currentTimeMillis() - entry.getCreationTimeMillis(), 0);
+            long idleSinceCreation = entry.getLastAccessNanos() - entry.getCreationNanos();
+            long creationNanos = clock.nanoTime() - TimeUnit.MILLISECONDS.toNanos(ageMillis);
+            return new DefaultCache.Entry<V>(entry.getValue(), entry.getCreationTimeMillis(), creationNanos,
+                creationNanos + idleSinceCreation);
+        }
+    }
+
+    private static final class Record {
+
+        private static final Comparator<Record> BY_HASH = new Comparator<Record>() {
+            @Override
+            public int compare(Record a, Record b) {
+                int x = a.key.hashCode();
+                int y = b.key.hashCode();
+                return x < y ? -1 : (x == y ? 0 : 1);
+            }
+        };
+
+        private final String key;
+        private final byte[] keyBytes;
+        private final byte[] entry;
+        private int offset;
+
+        private Record(String key, byte[] entry) throws IOException {
+            this.key = key;
+            this.keyBytes = key.getBytes(UTF_8);
+            if (keyBytes.length > 0xFFFF) {
+                throw new IOException("Key is too long.");
+            }
+            this.entry = entry;
+        }
+
+        private int length() {
+            return 2 + keyBytes.length + entry.length;
+        }
+    }
+
+    /**
+     * Reads a (mapped) buffer without copying it first.
+     */
+    private static final class BufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            len = Math.min(len, buffer.remaining());
+            buffer.get(b, off, len);
+            return len;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
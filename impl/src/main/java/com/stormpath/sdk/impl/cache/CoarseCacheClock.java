@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.cache;
+
+import com.stormpath.sdk.lang.Assert;
+
+import java.io.Closeable;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link CacheClock} that only reads the system clock once per {@code resolution} in a background thread, so that
+ * reading it is a plain volatile read.  Cache entries may therefore expire up to {@code resolution} later than
+ * configured, which is usually irrelevant for Time to Live and Time to Idle settings expressed in minutes.
+ * <p/>
+ * The background update lasts until the clock is {@link #close() closed}, which a {@link DefaultCacheManager} does
+ * when it is closed itself.  A closed clock reads the system clock on every call.
+ *
+ * @since 2.0.5
+ */
+public class CoarseCacheClock implements CacheClock, Closeable {
+
+    private volatile long nanoTime;
+    private volatile boolean closed;
+    private final ScheduledFuture<?> update;
+
+    /**
+     * Creates a new clock updated every {@code resolution} {@code unit}s.
+     *
+     * @param resolution the interval at which this clock is updated
+     * @param unit       the unit of the {@code resolution}
+     */
+    public CoarseCacheClock(long resolution, TimeUnit unit) {
+        Assert.isTrue(resolution > 0, "resolution must be greater than zero.");
+        Assert.notNull(unit, "unit cannot be null.");
+        this.nanoTime = System.nanoTime();
+        this.update = ExpirySweeper.scheduler().scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                nanoTime = System.nanoTime();
+            }
+        }, resolution, resolution, unit);
+    }
+
+    @Override
+    public long nanoTime() {
+        return closed ? System.nanoTime() : nanoTime;
+    }
+
+    /**
+     * Stops the background update of this clock.  The clock remains usable, reading the system clock on every call.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        update.cancel(false);
+    }
+}
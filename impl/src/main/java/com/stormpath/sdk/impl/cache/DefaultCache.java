@@ -16,18 +16,29 @@
 package com.stormpath.sdk.impl.cache;
 
 import com.stormpath.sdk.cache.Cache;
+import com.stormpath.sdk.impl.util.ConcurrentSoftHashMap;
 import com.stormpath.sdk.impl.util.SoftHashMap;
 import com.stormpath.sdk.lang.Assert;
 import com.stormpath.sdk.lang.Duration;
 
 import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * A <code>DefaultCache</code> is a {@link Cache Cache} implementation that uses a backing {@link Map} instance to store
  * and retrieve cached data.
+ * <h2>Expiration</h2>
+ * Entries are checked against the {@link #getTimeToLive() timeToLive} and {@link #getTimeToIdle() timeToIdle} settings
+ * whenever they are read, using primitive nanosecond values from a {@link CacheClock} so cache hits do not allocate.
+ * As of 2.0.5, entries of caches with either setting are also tracked by a hierarchical {@link TimerWheel timer wheel},
+ * which a background thread advances about once a second to remove expired entries even if they are never read
+ * again.
  * <h2>Thread Safety</h2>
  * This implementation is thread-safe <em>only</em> if the backing map is thread-safe.
  *
@@ -52,6 +63,47 @@ public class DefaultCache<K, V> implements Cache<K, V> {
      */
     private volatile Duration timeToIdle;
 
+    /**
+     * The amount of time an entry may still be returned after its {@link #timeToLive} has elapsed, while it is being
+     * refreshed.
+     *
+     * @since 2.0.5
+     */
+    private volatile Duration staleWhileRevalidate;
+
+    /**
+     * Nanosecond equivalents of {@link #timeToLive}, {@link #timeToIdle} and {@link #staleWhileRevalidate}, checked on
+     * every access.  {@code -1} if not set.
+     *
+     * @since 2.0.5
+     */
+    private volatile long ttlNanos = -1;
+    private volatile long ttiNanos = -1;
+    private volatile long swrNanos = -1;
+
+    /**
+     * The fraction of the {@link #timeToLive} after which read entries should be refreshed, and its nanosecond
+     * equivalent ({@code -1} if refresh-ahead is disabled or there is no timeToLive).
+     *
+     * @since 2.0.5
+     */
+    private volatile double refreshAheadFactor;
+    private volatile long refreshAheadNanos = -1;
+
+    /**
+     * @since 2.0.5
+     */
+    private final CacheClock clock;
+
+    /**
+     * Deadlines of the entries when a timeToLive or timeToIdle is set, guarded by the {@link #expiryLock}.
+     *
+     * @since 2.0.5
+     */
+    private final TimerWheel<K, Entry<V>> timerWheel;
+    private final ReentrantLock expiryLock = new ReentrantLock();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
     /**
      * The name of this cache.
      */
@@ -65,22 +117,22 @@ public class DefaultCache<K, V> implements Cache<K, V> {
      * Creates a new {@code DefaultCache} instance with the specified {@code name}, expected to be unique among all
      * other caches in the parent {@code CacheManager}.
      * <p/>
-     * This constructor uses a {@link SoftHashMap} instance as the cache's backing map, which is thread-safe and
-     * auto-sizes itself based on the application's memory constraints.
+     * This constructor uses a {@link ConcurrentSoftHashMap} instance as the cache's backing map, which is thread-safe
+     * and auto-sizes itself based on the application's memory constraints.
      * <p/>
      * Finally, the {@link #setTimeToIdle(com.stormpath.sdk.lang.Duration) timeToIdle} and
      * {@link #setTimeToLive(com.stormpath.sdk.lang.Duration) timeToLive} settings are both {@code null},
      * indicating that cache entries will live indefinitely (except due to memory constraints as managed by the
-     * {@code SoftHashMap}).
+     * {@code ConcurrentSoftHashMap}).
      *
      * @param name the name to assign to this instance, expected to be unique among all other caches in the parent
      *             {@code CacheManager}.
-     * @see SoftHashMap
+     * @see ConcurrentSoftHashMap
      * @see #setTimeToIdle(com.stormpath.sdk.lang.Duration)
      * @see #setTimeToLive(com.stormpath.sdk.lang.Duration)
      */
     public DefaultCache(String name) {
-        this(name, new SoftHashMap<K, Entry<V>>());
+        this(name, new ConcurrentSoftHashMap<K, Entry<V>>());
     }
 
     /**
@@ -123,17 +175,51 @@ public class DefaultCache<K, V> implements Cache<K, V> {
      * @see #setTimeToLive(com.stormpath.sdk.lang.Duration)
      */
     public DefaultCache(String name, Map<K, Entry<V>> backingMap, Duration timeToLive, Duration timeToIdle) throws IllegalArgumentException {
+        this(name, backingMap, timeToLive, timeToIdle, CacheClock.SYSTEM);
+    }
+
+    /**
+     * Creates a new {@code DefaultCache} instance like
+     * {@link #DefaultCache(String, Map, Duration, Duration) DefaultCache(name, backingMap, timeToLive, timeToIdle)},
+     * using the specified {@code clock} to expire entries.
+     *
+     * @param name       name to assign to this instance, expected to be unique among all other caches in the parent
+     *                   {@code CacheManager}.
+     * @param backingMap the (ideally thread-safe) map instance to store the Cache entries.
+     * @param timeToLive the amount of time cache entries may exist until they should be removed from the cache.
+     * @param timeToIdle the amount of time cache entries may remain idle until they should be removed from the cache.
+     * @param clock      the source of time used to expire entries
+     * @throws IllegalArgumentException if either {@code timeToLive} or {@code timeToIdle} are non-null <em>and</em>
+     *                                  represent a non-positive (zero or negative) value.
+     * @since 2.0.5
+     */
+    @SuppressWarnings("unchecked")
+    public DefaultCache(String name, Map<K, Entry<V>> backingMap, Duration timeToLive, Duration timeToIdle, CacheClock clock) throws IllegalArgumentException {
         Assert.notNull(name, "Cache name cannot be null.");
         Assert.notNull(backingMap, "Backing map cannot be null.");
+        Assert.notNull(clock, "clock cannot be null.");
         assertTtl(timeToLive);
         assertTti(timeToIdle);
         this.name = name;
         this.map = backingMap;
+        this.clock = clock;
+        this.timerWheel = new TimerWheel<K, Entry<V>>(clock.nanoTime());
         this.timeToLive = timeToLive;
         this.timeToIdle = timeToIdle;
+        this.ttlNanos = toNanos(timeToLive);
+        this.ttiNanos = toNanos(timeToIdle);
         this.accessCount = new AtomicLong(0);
         this.hitCount = new AtomicLong(0);
         this.missCount = new AtomicLong(0);
+        if (backingMap instanceof SnapshotMap) {
+            //@since 2.0.5: restored entries expire like any other entry:
+            ((SnapshotMap<K, V>) backingMap).setRestoreListener(new SnapshotMap.RestoreListener<K, V>() {
+                @Override
+                public void onRestore(K key, Entry<V> entry) {
+                    scheduleTimer(key, entry);
+                }
+            });
+        }
     }
 
     protected static void assertTtl(Duration ttl) throws IllegalArgumentException {
@@ -159,39 +245,106 @@ public class DefaultCache<K, V> implements Cache<K, V> {
             return null;
         }
 
-        long nowMillis = System.currentTimeMillis();
+        long nowNanos = clock.nanoTime();
+
+        if (isExpired(entry, nowNanos)) {
+            map.remove(key);
+            cancelTimer(entry);
+            missCount.incrementAndGet(); //count an expired TTL or TTI as a miss
+            return null;
+        }
+
+        entry.lastAccessNanos = nowNanos;
 
-        Duration ttl = this.timeToLive;
-        Duration tti = this.timeToIdle;
+        hitCount.incrementAndGet();
 
-        if (ttl != null) {
-            Duration sinceCreation = new Duration(nowMillis - entry.getCreationTimeMillis(), TimeUnit.MILLISECONDS);
-            if (sinceCreation.isGreaterThan(ttl)) {
-                map.remove(key);
-                missCount.incrementAndGet(); //count an expired TTL as a miss
-                return null;
+        return entry.getValue();
+    }
+
+    /**
+     * Returns {@code true} if the entry is older than the timeToLive (plus the staleWhileRevalidate window, if any) or
+     * has been idle for longer than the timeToIdle.
+     *
+     * @since 2.0.5
+     */
+    private boolean isExpired(Entry<V> entry, long nowNanos) {
+        long ttl = this.ttlNanos;
+        if (ttl >= 0) {
+            long sinceCreation = nowNanos - entry.creationNanos;
+            if (sinceCreation > ttl && sinceCreation - ttl > Math.max(this.swrNanos, 0)) {
+                return true;
             }
         }
+        long tti = this.ttiNanos;
+        return tti >= 0 && nowNanos - entry.lastAccessNanos > tti;
+    }
 
-        if (tti != null) {
-            Duration sinceLastAccess = new Duration(nowMillis - entry.getLastAccessTimeMillis(), TimeUnit.MILLISECONDS);
-            if (sinceLastAccess.isGreaterThan(tti)) {
-                map.remove(key);
-                missCount.incrementAndGet(); //count an expired TTI as a miss
-                return null;
-            }
+    /**
+     * Returns {@code true} if an entry exists for the specified key and it is older than the
+     * {@link #getTimeToLive() timeToLive}, but still within the {@link #getStaleWhileRevalidate() staleWhileRevalidate}
+     * window.  Such an entry is still returned by {@link #get(Object)}, but should be refreshed as soon as possible.
+     *
+     * @param key the key of the entry to check
+     * @return {@code true} if the entry for the specified key is stale but may still be used while being refreshed.
+     * @since 2.0.5
+     */
+    public boolean isStale(K key) {
+        long ttl = this.ttlNanos;
+        long swr = this.swrNanos;
+        if (ttl < 0 || swr < 0) {
+            return false;
+        }
+        Entry<V> entry = map.get(key);
+        if (entry == null) {
+            return false;
         }
+        long sinceCreation = clock.nanoTime() - entry.creationNanos;
+        return sinceCreation > ttl && sinceCreation - ttl <= swr;
+    }
 
-        entry.lastAccessTimeMillis = nowMillis;
+    /**
+     * Returns {@code true} if an entry exists for the specified key and it should be refreshed in the background:
+     * either it is {@link #isStale(Object) stale}, or it is still valid but older than the
+     * {@link #getRefreshAheadFactor() refresh-ahead fraction} of the {@link #getTimeToLive() timeToLive}.  Either way,
+     * the entry is still returned by {@link #get(Object)} until it is replaced.
+     *
+     * @param key the key of the entry to check
+     * @return {@code true} if the entry for the specified key should be refreshed in the background.
+     * @since 2.0.5
+     */
+    public boolean isRefreshDue(K key) {
+        long ttl = this.ttlNanos;
+        long refreshAhead = this.refreshAheadNanos;
+        long swr = this.swrNanos;
+        if (ttl < 0 || (refreshAhead < 0 && swr < 0)) {
+            return false;
+        }
+        Entry<V> entry = map.get(key);
+        if (entry == null) {
+            return false;
+        }
+        long sinceCreation = clock.nanoTime() - entry.creationNanos;
+        if (sinceCreation <= ttl) {
+            return refreshAhead >= 0 && sinceCreation >= refreshAhead;
+        }
+        return swr >= 0 && sinceCreation - ttl <= swr;
+    }
 
-        hitCount.incrementAndGet();
+    private static long toRefreshAheadNanos(long ttlNanos, double factor) {
+        return ttlNanos >= 0 && factor > 0 ? (long) (ttlNanos * factor) : -1;
+    }
 
-        return entry.getValue();
+    private static long toNanos(Duration d) {
+        return d != null ? d.getTimeUnit().toNanos(d.getValue()) : -1;
     }
 
     public V put(K key, V value) {
-        Entry<V> newEntry = new Entry<V>(value);
+        Entry<V> newEntry = new Entry<V>(value, clock.nanoTime());
         Entry<V> previous = map.put(key, newEntry);
+        if (previous != null) {
+            cancelTimer(previous);
+        }
+        scheduleTimer(key, newEntry);
         if (previous != null) {
             return previous.value;
         }
@@ -203,6 +356,7 @@ public class DefaultCache<K, V> implements Cache<K, V> {
         accessCount.incrementAndGet();
         Entry<V> previous = map.remove(key);
         if (previous != null) {
+            cancelTimer(previous);
             hitCount.incrementAndGet();
             return previous.value;
         } else {
@@ -211,6 +365,165 @@ public class DefaultCache<K, V> implements Cache<K, V> {
         }
     }
 
+    /**
+     * Returns a copy of the entries that have not expired yet, e.g. to write them to a {@link CacheSnapshot}.
+     *
+     * @since 2.0.5
+     */
+    Map<K, Entry<V>> getEntries() {
+        long nowNanos = clock.nanoTime();
+        Map<K, Entry<V>> entries = new LinkedHashMap<K, Entry<V>>();
+        for (Map.Entry<K, Entry<V>> e : map.entrySet()) {
+            Entry<V> entry = e.getValue();
+            if (entry != null && !isExpired(entry, nowNanos)) {
+                entries.put(e.getKey(), entry);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Returns the time at which the entry will expire, or {@code Long.MAX_VALUE} if it never expires.
+     *
+     * @since 2.0.5
+     */
+    private long getDeadline(Entry<V> entry) {
+        long deadline = Long.MAX_VALUE;
+        long ttl = this.ttlNanos;
+        if (ttl >= 0) {
+            deadline = saturatedAdd(entry.creationNanos, saturatedAdd(ttl, Math.max(this.swrNanos, 0)));
+        }
+        long tti = this.ttiNanos;
+        if (tti >= 0) {
+            deadline = Math.min(deadline, saturatedAdd(entry.lastAccessNanos, tti));
+        }
+        return deadline;
+    }
+
+    private static long saturatedAdd(long a, long b) {
+        long sum = a + b;
+        return ((a ^ sum) & (b ^ sum)) < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    private void scheduleTimer(K key, Entry<V> entry) {
+        long deadline = getDeadline(entry);
+        if (deadline == Long.MAX_VALUE) {
+            return;
+        }
+        TimerWheel.Timer<K, Entry<V>> timer = new TimerWheel.Timer<K, Entry<V>>(key, entry, deadline);
+        expiryLock.lock();
+        try {
+            entry.timer = timer;
+            timerWheel.schedule(timer);
+        } finally {
+            expiryLock.unlock();
+        }
+        if (sweeping.compareAndSet(false, true)) {
+            ExpirySweeper.register(this);
+        }
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @SuppressWarnings("unchecked")
+    private void cancelTimer(Entry<V> entry) {
+        if (entry.timer == null) {
+            return;
+        }
+        expiryLock.lock();
+        try {
+            //the sweeper might have expired it in the meantime:
+            if (entry.timer != null) {
+                timerWheel.cancel((TimerWheel.Timer<K, Entry<V>>) entry.timer);
+                entry.timer = null;
+            }
+        } finally {
+            expiryLock.unlock();
+        }
+    }
+
+    /**
+     * Removes the entries whose deadline has passed.  Entries that were accessed since their timer was scheduled
+     * (and therefore are not idle) are simply rescheduled at their new deadline.
+     *
+     * @since 2.0.5
+     */
+    void expireEntries() {
+        long nowNanos = clock.nanoTime();
+        expiryLock.lock();
+        try {
+            List<TimerWheel.Timer<K, Entry<V>>> due = timerWheel.advance(nowNanos);
+            for (TimerWheel.Timer<K, Entry<V>> timer : due) {
+                Entry<V> entry = timer.getEntry();
+                if (entry == null || entry.timer != timer) {
+                    //reclaimed, replaced or removed in the meantime
+                    continue;
+                }
+                if (isExpired(entry, nowNanos)) {
+                    entry.timer = null;
+                    remove(map, timer.getKey(), entry);
+                } else {
+                    long deadline = getDeadline(entry);
+                    if (deadline == Long.MAX_VALUE) {
+                        entry.timer = null;
+                    } else {
+                        timer.setDeadline(Math.max(deadline, nowNanos + 1));
+                        timerWheel.schedule(timer);
+                    }
+                }
+            }
+        } finally {
+            expiryLock.unlock();
+        }
+    }
+
+    /**
+     * Removes the entry for the specified key from the specified map only if it is currently mapped to the specified
+     * value, atomically for the maps of this package and concurrent maps.  The entry of these maps is not looked up
+     * with {@link Map#get(Object) get}, which would record an access in a {@link TinyLfuMap}, promote an off-heap entry
+     * of a {@link TieredMap} or restore a snapshot entry of a {@link SnapshotMap}.
+     *
+     * @return {@code true} if the entry was removed, {@code false} otherwise.
+     * @since 2.0.5
+     */
+    @SuppressWarnings("unchecked")
+    static boolean remove(Map<?, ?> map, Object key, Object value) {
+        if (map instanceof ConcurrentMap) {
+            return ((ConcurrentMap<Object, Object>) map).remove(key, value);
+        }
+        if (map instanceof ConcurrentSoftHashMap) {
+            return ((ConcurrentSoftHashMap<?, ?>) map).remove(key, value);
+        }
+        if (map instanceof TinyLfuMap) {
+            return ((TinyLfuMap<?, ?>) map).remove(key, value);
+        }
+        if (map instanceof TieredMap) {
+            return ((TieredMap<?, ?>) map).remove(key, value);
+        }
+        if (map instanceof SnapshotMap) {
+            return ((SnapshotMap<?, ?>) map).remove(key, value);
+        }
+        if (map.get(key) == value) {
+            map.remove(key);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the source of time used to expire the entries of this cache.
+     *
+     * @return the source of time used to expire the entries of this cache.
+     * @since 2.0.5
+     */
+    public CacheClock getClock() {
+        return clock;
+    }
+
     /**
      * Returns the amount of time a cache entry may exist after first being created before it will expire and no
      * longer be available.  If a cache entry ever becomes older than this amount of time (regardless of how often
@@ -234,6 +547,8 @@ public class DefaultCache<K, V> implements Cache<K, V> {
     public void setTimeToLive(Duration timeToLive) {
         assertTtl(timeToLive);
         this.timeToLive = timeToLive;
+        this.ttlNanos = toNanos(timeToLive);
+        this.refreshAheadNanos = toRefreshAheadNanos(this.ttlNanos, this.refreshAheadFactor);
     }
 
     /**
@@ -259,6 +574,60 @@ public class DefaultCache<K, V> implements Cache<K, V> {
     public void setTimeToIdle(Duration timeToIdle) {
         assertTti(timeToIdle);
         this.timeToIdle = timeToIdle;
+        this.ttiNanos = toNanos(timeToIdle);
+    }
+
+    /**
+     * Returns the amount of time a cache entry may still be returned after its {@link #getTimeToLive() timeToLive}
+     * has elapsed, while a fresh value is obtained in the background, or {@code null} if entries are removed as soon
+     * as their {@code timeToLive} has elapsed.
+     *
+     * @return the stale-while-revalidate window of this cache, or {@code null} if there is none.
+     * @since 2.0.5
+     */
+    public Duration getStaleWhileRevalidate() {
+        return staleWhileRevalidate;
+    }
+
+    /**
+     * Sets the amount of time a cache entry may still be returned after its {@link #getTimeToLive() timeToLive}
+     * has elapsed, while a fresh value is obtained in the background.  Callers can detect such entries with
+     * {@link #isStale(Object)}.  A {@code null} value disables the window.
+     *
+     * @param staleWhileRevalidate the stale-while-revalidate window of this cache, or {@code null} to disable it.
+     * @since 2.0.5
+     */
+    public void setStaleWhileRevalidate(Duration staleWhileRevalidate) {
+        if (staleWhileRevalidate != null) {
+            Assert.isTrue(staleWhileRevalidate.getValue() > 0, "staleWhileRevalidate duration must be greater than zero");
+        }
+        this.staleWhileRevalidate = staleWhileRevalidate;
+        this.swrNanos = toNanos(staleWhileRevalidate);
+    }
+
+    /**
+     * Returns the fraction of the {@link #getTimeToLive() timeToLive} after which read entries should be refreshed in
+     * the background, or {@code 0} if entries are not refreshed ahead of their expiry.
+     *
+     * @return the refresh-ahead fraction of this cache, or {@code 0} if refresh-ahead is disabled.
+     * @since 2.0.5
+     */
+    public double getRefreshAheadFactor() {
+        return refreshAheadFactor;
+    }
+
+    /**
+     * Sets the fraction of the {@link #getTimeToLive() timeToLive} after which read entries should be refreshed in
+     * the background.  Callers can detect such entries with {@link #isRefreshDue(Object)}.  A value of {@code 0}
+     * disables refresh-ahead.
+     *
+     * @param refreshAheadFactor the refresh-ahead fraction, greater than or equal to {@code 0} and less than {@code 1}
+     * @since 2.0.5
+     */
+    public void setRefreshAheadFactor(double refreshAheadFactor) {
+        Assert.isTrue(refreshAheadFactor >= 0 && refreshAheadFactor < 1, "refreshAheadFactor must be >= 0 and < 1.");
+        this.refreshAheadFactor = refreshAheadFactor;
+        this.refreshAheadNanos = toRefreshAheadNanos(this.ttlNanos, refreshAheadFactor);
     }
 
     /**
@@ -318,6 +687,12 @@ public class DefaultCache<K, V> implements Cache<K, V> {
      */
     public void clear() {
         map.clear();
+        expiryLock.lock();
+        try {
+            timerWheel.clear();
+        } finally {
+            expiryLock.unlock();
+        }
     }
 
     /**
@@ -363,7 +738,21 @@ public class DefaultCache<K, V> implements Cache<K, V> {
 
         private final V value;
         private final long creationTimeMillis;
-        private volatile long lastAccessTimeMillis;
+
+        /**
+         * Creation and last access times according to the cache's {@link CacheClock}, used for expiration checks.
+         *
+         * @since 2.0.5
+         */
+        private final long creationNanos;
+        private volatile long lastAccessNanos;
+
+        /**
+         * The expiration timer of this entry, scheduled and cancelled under the owning cache's expiry lock.
+         *
+         * @since 2.0.5
+         */
+        private transient volatile TimerWheel.Timer<?, ?> timer;
 
         /**
          * Creates a new Entry instance wrapping the specified {@code value}, defaulting both the
@@ -371,11 +760,70 @@ public class DefaultCache<K, V> implements Cache<K, V> {
          * to the current timestamp (i.e. {@link System#currentTimeMillis()}).
          *
          * @param value the cache entry to store.
+         * @deprecated since 2.0.5: the entry's expiration times are read from {@link CacheClock#SYSTEM}, which does not
+         * match caches using another clock.  Use {@link #Entry(Object, CacheClock)} with the clock of the cache the
+         * entry is stored in.
          */
+        @Deprecated
         public Entry(V value) {
+            this(value, CacheClock.SYSTEM);
+        }
+
+        /**
+         * Creates a new Entry instance wrapping the specified {@code value}, created and last accessed now according
+         * to the specified clock, which must be the {@link DefaultCache#getClock() clock} of the cache the entry is
+         * stored in.
+         *
+         * @param value the cache entry to store.
+         * @param clock the clock of the cache the entry is stored in
+         * @since 2.0.5
+         */
+        public Entry(V value, CacheClock clock) {
+            this(value, clock.nanoTime());
+        }
+
+        /**
+         * @since 2.0.5
+         */
+        Entry(V value, long nowNanos) {
+            this(value, System.currentTimeMillis(), nowNanos, nowNanos);
+        }
+
+        /**
+         * Restores an entry, e.g. one promoted from an off-heap tier.
+         *
+         * @since 2.0.5
+         */
+        Entry(V value, long creationTimeMillis, long creationNanos, long lastAccessNanos) {
             this.value = value;
-            this.creationTimeMillis = System.currentTimeMillis();
-            this.lastAccessTimeMillis = this.creationTimeMillis;
+            this.creationTimeMillis = creationTimeMillis;
+            this.creationNanos = creationNanos;
+            this.lastAccessNanos = lastAccessNanos;
+        }
+
+        /**
+         * Detaches this entry from its pending expiration timer, e.g. when it is moved to an off-heap tier and this
+         * instance is no longer the one in the cache.  The timer is then skipped when it fires and the stored copy
+         * expires when it is next read instead.
+         *
+         * @since 2.0.5
+         */
+        void clearTimer() {
+            this.timer = null;
+        }
+
+        /**
+         * @since 2.0.5
+         */
+        long getCreationNanos() {
+            return creationNanos;
+        }
+
+        /**
+         * @since 2.0.5
+         */
+        long getLastAccessNanos() {
+            return lastAccessNanos;
         }
 
         /**
@@ -406,7 +854,8 @@ public class DefaultCache<K, V> implements Cache<K, V> {
          * @return the time in millis since Epoch when this {@code Entry} instance was last accessed.
          */
         public long getLastAccessTimeMillis() {
-            return lastAccessTimeMillis;
+            //@since 2.0.5: derived from the clock values so that accessing an entry does not read the system time twice
+            return creationTimeMillis + (lastAccessNanos - creationNanos) / 1000000L;
         }
     }
 }
@@ -28,12 +28,49 @@ public class DefaultCacheConfiguration implements CacheConfiguration {
     private final String name;
     private final Duration timeToLive;
     private final Duration timeToIdle;
+    private final Duration staleWhileRevalidate;
+    private final long maximumSize;
+    private final long offHeapSize;
+    private final double refreshAheadFactor;
 
     public DefaultCacheConfiguration(String name, Duration timeToLive, Duration timeToIdle) {
+        this(name, timeToLive, timeToIdle, null);
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    public DefaultCacheConfiguration(String name, Duration timeToLive, Duration timeToIdle, Duration staleWhileRevalidate) {
+        this(name, timeToLive, timeToIdle, staleWhileRevalidate, 0);
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    public DefaultCacheConfiguration(String name, Duration timeToLive, Duration timeToIdle, Duration staleWhileRevalidate, long maximumSize) {
+        this(name, timeToLive, timeToIdle, staleWhileRevalidate, maximumSize, 0);
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    public DefaultCacheConfiguration(String name, Duration timeToLive, Duration timeToIdle, Duration staleWhileRevalidate, long maximumSize, long offHeapSize) {
+        this(name, timeToLive, timeToIdle, staleWhileRevalidate, maximumSize, offHeapSize, 0);
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    public DefaultCacheConfiguration(String name, Duration timeToLive, Duration timeToIdle, Duration staleWhileRevalidate, long maximumSize, long offHeapSize, double refreshAheadFactor) {
         Assert.hasText(name, "Cache Region name cannot be null or empty.");
         this.name = name;
         this.timeToLive = timeToLive;
         this.timeToIdle = timeToIdle;
+        this.staleWhileRevalidate = staleWhileRevalidate;
+        this.maximumSize = Math.max(maximumSize, 0);
+        this.offHeapSize = Math.max(offHeapSize, 0);
+        Assert.isTrue(refreshAheadFactor >= 0 && refreshAheadFactor < 1, "refreshAheadFactor must be >= 0 and < 1.");
+        this.refreshAheadFactor = refreshAheadFactor;
     }
 
     static Duration toDuration(long value, TimeUnit tu) {
@@ -58,12 +95,48 @@ public class DefaultCacheConfiguration implements CacheConfiguration {
         return this.timeToIdle;
     }
 
+    /**
+     * @since 2.0.5
+     */
+    @Override
+    public Duration getStaleWhileRevalidate() {
+        return this.staleWhileRevalidate;
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Override
+    public long getMaximumSize() {
+        return this.maximumSize;
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Override
+    public long getOffHeapSize() {
+        return this.offHeapSize;
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Override
+    public double getRefreshAheadFactor() {
+        return this.refreshAheadFactor;
+    }
+
     @Override
     public String toString() {
         return "DefaultCacheConfiguration{" +
                 "name='" + name + '\'' +
                 ", timeToLive=" + timeToLive +
                 ", timeToIdle=" + timeToIdle +
+                ", staleWhileRevalidate=" + staleWhileRevalidate +
+                ", maximumSize=" + maximumSize +
+                ", offHeapSize=" + offHeapSize +
+                ", refreshAheadFactor=" + refreshAheadFactor +
                 '}';
     }
 }
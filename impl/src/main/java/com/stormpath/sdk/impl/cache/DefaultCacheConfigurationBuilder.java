@@ -22,6 +22,15 @@ import com.stormpath.sdk.lang.Duration;
 import java.util.concurrent.TimeUnit;
 
 /**
+ * The default {@link CacheConfigurationBuilder} implementation.  As of 2.0.5, it also configures options that are not
+ * part of the {@code CacheConfigurationBuilder} interface, such as a region's {@link #withMaximumSize(long) maximum
+ * size}; its methods return this class so these options can be chained with the interface ones:
+ * <pre>
+ * new DefaultCacheConfigurationBuilder(Account.class.getName())
+ *     .withTimeToLive(1, TimeUnit.HOURS)
+ *     .withMaximumSize(10000)
+ * </pre>
+ *
  * @since 0.8
  */
 public class DefaultCacheConfigurationBuilder implements CacheConfigurationBuilder {
@@ -29,6 +38,10 @@ public class DefaultCacheConfigurationBuilder implements CacheConfigurationBuild
     private final String name;
     private Duration timeToLive;
     private Duration timeToIdle;
+    private Duration staleWhileRevalidate;
+    private long maximumSize;
+    private long offHeapSize;
+    private double refreshAheadFactor;
 
     public DefaultCacheConfigurationBuilder(String name) {
         Assert.hasText(name, "Cache Region name cannot be null or empty.");
@@ -36,17 +49,111 @@ public class DefaultCacheConfigurationBuilder implements CacheConfigurationBuild
     }
 
     @Override
-    public CacheConfigurationBuilder withTimeToLive(long ttl, TimeUnit ttlTimeUnit) {
+    public DefaultCacheConfigurationBuilder withTimeToLive(long ttl, TimeUnit ttlTimeUnit) {
         this.timeToLive = DefaultCacheConfiguration.toDuration(ttl, ttlTimeUnit);
         return this;
     }
 
     @Override
-    public CacheConfigurationBuilder withTimeToIdle(long tti, TimeUnit ttiTimeUnit) {
+    public DefaultCacheConfigurationBuilder withTimeToIdle(long tti, TimeUnit ttiTimeUnit) {
         this.timeToIdle = DefaultCacheConfiguration.toDuration(tti, ttiTimeUnit);
         return this;
     }
 
+    /**
+     * Sets the associated {@code Cache} region's stale-while-revalidate window.
+     * <p/>
+     * When a cache entry's Time to Live has elapsed, it is ordinarily removed and the next request for it must wait
+     * for the server.  If a stale-while-revalidate window is configured, the expired entry continues to be returned
+     * for this additional amount of time while a single background request obtains a fresh value.  Frequently
+     * accessed resources therefore never add server round-trip latency once they have been cached.
+     * <p/>
+     * This setting only applies to regions that also have a Time to Live.  If it is not configured, entries are
+     * removed as soon as their Time to Live has elapsed.
+     * <h3>Usage</h3>
+     * <pre>
+     *     ...withTimeToLive(1, TimeUnit.HOURS).withStaleWhileRevalidate(5, TimeUnit.MINUTES)...
+     * </pre>
+     *
+     * @param window         stale-while-revalidate scalar value
+     * @param windowTimeUnit stale-while-revalidate unit of time
+     * @return the associated {@code Cache} region's stale-while-revalidate window.
+     * @since 2.0.5
+     */
+    public DefaultCacheConfigurationBuilder withStaleWhileRevalidate(long window, TimeUnit windowTimeUnit) {
+        this.staleWhileRevalidate = DefaultCacheConfiguration.toDuration(window, windowTimeUnit);
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of entries retained by the associated {@code Cache} region.
+     * <p/>
+     * When a maximum size is configured, the region's memory use is predictable: once it is full, adding an entry
+     * evicts another one, favoring the retention of frequently accessed entries over entries that were only used
+     * once or twice.  If this value is not configured, the region's size is only limited by memory constraints and
+     * entries may be reclaimed by the garbage collector under memory pressure.
+     * <h3>Usage</h3>
+     * <pre>
+     *     ...withMaximumSize(10000)...
+     * </pre>
+     *
+     * @param maximumSize the maximum number of entries to retain in the region
+     * @return the associated {@code Cache} region's maximum number of entries.
+     * @since 2.0.5
+     */
+    public DefaultCacheConfigurationBuilder withMaximumSize(long maximumSize) {
+        this.maximumSize = Math.max(maximumSize, 0);
+        return this;
+    }
+
+    /**
+     * Sets the number of bytes of direct (off-heap) memory the associated {@code Cache} region may use to retain
+     * entries evicted from its {@link #withMaximumSize(long) size-bounded} heap storage.
+     * <p/>
+     * Evicted entries are stored in a compact binary form outside of the Java heap, where they do not add to garbage
+     * collection work, and are moved back to the heap when they are accessed again.  This allows a region to retain
+     * many more entries than its heap budget allows.  This setting only applies to regions with a maximum size.
+     * <h3>Usage</h3>
+     * <pre>
+     *     ...withMaximumSize(10000).withOffHeapSize(64 * 1024 * 1024)...
+     * </pre>
+     *
+     * @param bytes the maximum number of bytes of direct memory used by the region
+     * @return the associated {@code Cache} region's off-heap storage size in bytes.
+     * @since 2.0.5
+     */
+    public DefaultCacheConfigurationBuilder withOffHeapSize(long bytes) {
+        this.offHeapSize = Math.max(bytes, 0);
+        return this;
+    }
+
+    /**
+     * Sets the fraction of the associated {@code Cache} region's Time to Live after which a read entry is refreshed
+     * ahead of its expiry.
+     * <p/>
+     * When an entry is read after this fraction of its Time to Live has elapsed, a single background request obtains a
+     * fresh value while the current one keeps being returned.  Frequently read resources, such as an Application or
+     * its account store mappings and policies, are then refreshed before they expire instead of periodically adding
+     * server round-trip latency to a request.  Entries that are not read during that time simply expire.
+     * <p/>
+     * This setting only applies to regions that also have a Time to Live.  A value of {@code 0} (the default)
+     * disables refresh-ahead.
+     * <h3>Usage</h3>
+     * <pre>
+     *     ...withTimeToLive(1, TimeUnit.HOURS).withRefreshAhead(0.75)...
+     * </pre>
+     *
+     * @param fraction the fraction of the Time to Live after which read entries are refreshed, greater than or equal to
+     *                 {@code 0} and less than {@code 1}
+     * @return the associated {@code Cache} region's refresh-ahead fraction.
+     * @since 2.0.5
+     */
+    public DefaultCacheConfigurationBuilder withRefreshAhead(double fraction) {
+        Assert.isTrue(fraction >= 0 && fraction < 1, "refresh-ahead fraction must be >= 0 and < 1.");
+        this.refreshAheadFactor = fraction;
+        return this;
+    }
+
     public String getName() {
         return name;
     }
@@ -59,7 +166,35 @@ public class DefaultCacheConfigurationBuilder implements CacheConfigurationBuild
         return timeToIdle;
     }
 
+    /**
+     * @since 2.0.5
+     */
+    public Duration getStaleWhileRevalidate() {
+        return staleWhileRevalidate;
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    public long getOffHeapSize() {
+        return offHeapSize;
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    public double getRefreshAheadFactor() {
+        return refreshAheadFactor;
+    }
+
     public CacheConfiguration build() {
-        return new DefaultCacheConfiguration(getName(), getTimeToLive(), getTimeToIdle());
+        return new DefaultCacheConfiguration(getName(), getTimeToLive(), getTimeToIdle(), getStaleWhileRevalidate(), getMaximumSize(), getOffHeapSize(), getRefreshAheadFactor());
     }
 }
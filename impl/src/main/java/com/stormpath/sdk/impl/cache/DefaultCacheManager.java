@@ -15,16 +15,45 @@
  */
 package com.stormpath.sdk.impl.cache;
 
+import com.stormpath.sdk.accountStoreMapping.AccountStoreMapping;
+import com.stormpath.sdk.application.Application;
+import com.stormpath.sdk.application.ApplicationAccountStoreMapping;
 import com.stormpath.sdk.cache.Cache;
 import com.stormpath.sdk.cache.CacheManager;
-import com.stormpath.sdk.impl.util.SoftHashMap;
+import com.stormpath.sdk.cache.CacheInvalidationBus;
+import com.stormpath.sdk.directory.Directory;
+import com.stormpath.sdk.directory.PasswordPolicy;
+import com.stormpath.sdk.group.Group;
+import com.stormpath.sdk.impl.util.ConcurrentSoftHashMap;
+import com.stormpath.sdk.impl.util.DaemonThreadFactory;
 import com.stormpath.sdk.lang.Assert;
 import com.stormpath.sdk.lang.Duration;
+import com.stormpath.sdk.organization.OrganizationAccountStoreMapping;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Very simple default {@code CacheManager} implementation that retains all created {@link Cache Cache} instances in
@@ -63,6 +92,16 @@ import java.util.concurrent.TimeUnit;
  * <p/>
  * The {@link #setDefaultTimeToLive(com.stormpath.sdk.lang.Duration) defaultTimeToLive} setting is only
  * applied to newly created {@code Cache} instances.  It does not affect already existing {@code Cache}s.
+ * <h2>Snapshots</h2>
+ * As of 2.0.5, a {@link #setSnapshotFile(File) snapshot file} may be configured to start with warm caches after a
+ * restart: the entries of the {@link #setSnapshotRegions(Collection) snapshot regions} are written to that file
+ * periodically and when the JVM shuts down, and the next instance restores them lazily, as they are first accessed.
+ * A manager that is discarded before the JVM shuts down should be {@link #close() closed} to write its last snapshot
+ * and stop writing new ones.
+ * <h2>Invalidation</h2>
+ * As of 2.0.5, the caches of several application nodes may be kept coherent with a
+ * {@link #setInvalidationBus(CacheInvalidationBus) cache invalidation bus}: the keys published by other nodes when they
+ * save or delete resources are removed from this manager's caches.
  * <h2>Thread Safety</h2>
  * This implementation and the cache instances it creates are thread-safe and usable in concurrent environments.
  *
@@ -72,7 +111,40 @@ import java.util.concurrent.TimeUnit;
  * @see #setDefaultTimeToLiveSeconds(long)
  * @since 0.8
  */
-public class DefaultCacheManager implements CacheManager {
+public class DefaultCacheManager implements CacheManager, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(DefaultCacheManager.class);
+
+    /**
+     * The regions written to a {@link #setSnapshotFile(File) snapshot} by default: the resources most requests depend
+     * on, that change rarely.
+     *
+     * @since 2.0.5
+     */
+    public static final Set<String> DEFAULT_SNAPSHOT_REGIONS = Collections.unmodifiableSet(new LinkedHashSet<String>(Arrays.asList(
+        Application.class.getName(),
+        Directory.class.getName(),
+        Group.class.getName(),
+        AccountStoreMapping.class.getName(),
+        ApplicationAccountStoreMapping.class.getName(),
+        OrganizationAccountStoreMapping.class.getName(),
+        PasswordPolicy.class.getName()
+    )));
+
+    /**
+     * @since 2.0.5
+     */
+    public static final Duration DEFAULT_SNAPSHOT_INTERVAL = new Duration(5, TimeUnit.MINUTES);
+
+    /**
+     * The managers whose snapshot is written when the JVM shuts down, by a single shutdown hook shared by all of
+     * them.  Managers are forgotten when they are closed or garbage collected.
+     *
+     * @since 2.0.5
+     */
+    private static final Set<DefaultCacheManager> SNAPSHOT_MANAGERS =
+        Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<DefaultCacheManager, Boolean>()));
+    private static final AtomicBoolean SHUTDOWN_HOOK_REGISTERED = new AtomicBoolean();
 
     /**
      * Retains any region-specific configuration that might be used when creating Cache instances.
@@ -86,6 +158,22 @@ public class DefaultCacheManager implements CacheManager {
 
     private volatile Duration defaultTimeToLive;
     private volatile Duration defaultTimeToIdle;
+    private volatile long defaultMaximumSize;
+    private volatile long defaultOffHeapSize;
+    private volatile CacheClock clock = CacheClock.SYSTEM;
+
+    private volatile File snapshotFile;
+    private volatile CacheSnapshot snapshot;
+    private volatile Set<String> snapshotRegions = DEFAULT_SNAPSHOT_REGIONS;
+    private volatile Duration snapshotInterval = DEFAULT_SNAPSHOT_INTERVAL;
+    private final AtomicBoolean snapshotsScheduled = new AtomicBoolean();
+    private volatile ScheduledExecutorService snapshotExecutor;
+    private volatile ScheduledFuture<?> snapshotTask;
+
+    /**
+     * @since 2.0.5
+     */
+    private volatile CacheInvalidationBus invalidationBus;
 
     /**
      * Default no-arg constructor that instantiates an internal name-to-cache {@code ConcurrentMap}.
@@ -167,6 +255,331 @@ public class DefaultCacheManager implements CacheManager {
         setDefaultTimeToIdle(new Duration(seconds, TimeUnit.SECONDS));
     }
 
+    /**
+     * Returns the default maximum number of entries retained by newly created {@link DefaultCache} instances, or
+     * {@code 0} if their size is only limited by memory constraints.  This setting does not affect existing
+     * {@link DefaultCache} instances.
+     *
+     * @return the default maximum number of entries retained by newly created {@link DefaultCache} instances.
+     * @since 2.0.5
+     */
+    public long getDefaultMaximumSize() {
+        return defaultMaximumSize;
+    }
+
+    /**
+     * Sets the default maximum number of entries retained by newly created {@link DefaultCache} instances.  Such
+     * caches are backed by a {@link TinyLfuMap} instead of a {@link ConcurrentSoftHashMap}, so their memory use is
+     * predictable and no longer depends on garbage collector pressure.  A value of {@code 0} (the default) leaves their
+     * size only limited by memory constraints.  This setting does not affect existing {@link DefaultCache} instances.
+     *
+     * @param defaultMaximumSize the default maximum number of entries retained by newly created caches, or {@code 0}
+     *                           for memory-sensitive caches.
+     * @since 2.0.5
+     */
+    public void setDefaultMaximumSize(long defaultMaximumSize) {
+        Assert.isTrue(defaultMaximumSize >= 0, "defaultMaximumSize cannot be negative.");
+        this.defaultMaximumSize = defaultMaximumSize;
+    }
+
+    /**
+     * Returns the default number of bytes of direct memory newly created size-bounded {@link DefaultCache} instances
+     * may use to retain entries evicted from the heap, or {@code 0} if evicted entries are discarded.
+     *
+     * @return the default number of bytes of direct memory used by newly created size-bounded caches.
+     * @since 2.0.5
+     */
+    public long getDefaultOffHeapSize() {
+        return defaultOffHeapSize;
+    }
+
+    /**
+     * Sets the default number of bytes of direct memory newly created {@link DefaultCache} instances may use to
+     * retain entries evicted from the heap.  Such caches are backed by a {@link TieredMap} that moves the entries
+     * evicted from its heap tier off-heap instead of discarding them.  This setting only applies to caches with a
+     * {@link #setDefaultMaximumSize(long) maximum size} and does not affect existing {@link DefaultCache} instances.
+     *
+     * @param defaultOffHeapSize the default number of bytes of direct memory used by newly created size-bounded
+     *                           caches, or {@code 0} to discard evicted entries.
+     * @since 2.0.5
+     */
+    public void setDefaultOffHeapSize(long defaultOffHeapSize) {
+        Assert.isTrue(defaultOffHeapSize >= 0, "defaultOffHeapSize cannot be negative.");
+        this.defaultOffHeapSize = defaultOffHeapSize;
+    }
+
+    /**
+     * Returns the clock used by newly created {@link DefaultCache} instances to expire entries.  Defaults to
+     * {@link CacheClock#SYSTEM}.
+     *
+     * @return the clock used by newly created {@link DefaultCache} instances to expire entries.
+     * @since 2.0.5
+     */
+    public CacheClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Sets the clock used by newly created {@link DefaultCache} instances to expire entries, for example a
+     * {@link CoarseCacheClock} to make expiration checks on cache hits even cheaper.  This setting does not affect
+     * existing {@link DefaultCache} instances.  A {@code CoarseCacheClock} is {@link CoarseCacheClock#close() closed}
+     * when this manager is {@link #close() closed}.
+     *
+     * @param clock the clock used by newly created {@link DefaultCache} instances to expire entries.
+     * @since 2.0.5
+     */
+    public void setClock(CacheClock clock) {
+        Assert.notNull(clock, "clock cannot be null.");
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the bus propagating cache evictions between application nodes, or {@code null} if there is none (the
+     * default).
+     *
+     * @return the bus propagating cache evictions between application nodes, or {@code null} if there is none.
+     * @since 2.0.5
+     */
+    public CacheInvalidationBus getInvalidationBus() {
+        return invalidationBus;
+    }
+
+    /**
+     * Sets the bus propagating cache evictions between application nodes.  The keys published by other nodes are
+     * removed from this manager's caches, and the SDK publishes the keys of the resources it saves or deletes through
+     * this manager's caches.  This method should be called before the manager is used by a client.
+     *
+     * @param invalidationBus the bus propagating cache evictions between application nodes.
+     * @since 2.0.5
+     */
+    public void setInvalidationBus(CacheInvalidationBus invalidationBus) {
+        Assert.notNull(invalidationBus, "invalidationBus cannot be null.");
+        Assert.isNull(this.invalidationBus, "An invalidationBus has already been set.");
+        this.invalidationBus = invalidationBus;
+        invalidationBus.subscribe(new CacheInvalidationBus.Listener() {
+            @Override
+            public void onInvalidation(String region, Collection<String> keys) {
+                //regions that were never used here have nothing to evict:
+                Cache cache = caches.get(region);
+                if (cache != null) {
+                    for (String key : keys) {
+                        cache.remove(key);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the file the {@link #getSnapshotRegions() snapshot regions} are written to, or {@code null} if
+     * snapshots are disabled (the default).
+     *
+     * @return the file the snapshot regions are written to, or {@code null} if snapshots are disabled.
+     * @since 2.0.5
+     */
+    public File getSnapshotFile() {
+        return snapshotFile;
+    }
+
+    /**
+     * Sets the file the {@link #getSnapshotRegions() snapshot regions} are written to, every
+     * {@link #setSnapshotInterval(Duration) snapshot interval} and when the JVM shuts down.
+     * <p/>
+     * Each snapshot is written to a new file named after this one with a generation suffix (e.g.
+     * {@code caches.snapshot.1490000000000}), so the mapped snapshot is never replaced, and the previous generations
+     * are deleted.  If a snapshot already exists, the newest one is memory-mapped and the caches created afterwards
+     * restore its entries lazily, as they are first accessed, honoring the entries' original creation times: this does not read
+     * the snapshot's entries, so it takes the same time regardless of the snapshot size.  This method should therefore
+     * be called before any cache is used.
+     *
+     * @param snapshotFile the file the snapshot regions are written to and restored from.
+     * @since 2.0.5
+     */
+    public void setSnapshotFile(File snapshotFile) {
+        Assert.notNull(snapshotFile, "snapshotFile cannot be null.");
+        this.snapshot = CacheSnapshot.open(snapshotFile);
+        this.snapshotFile = snapshotFile;
+        if (snapshotsScheduled.compareAndSet(false, true)) {
+            scheduleSnapshots();
+        }
+    }
+
+    /**
+     * Returns the names of the cache regions written to the {@link #setSnapshotFile(File) snapshot file}.  Defaults to
+     * {@link #DEFAULT_SNAPSHOT_REGIONS}.
+     *
+     * @return the names of the cache regions written to the snapshot file.
+     * @since 2.0.5
+     */
+    public Set<String> getSnapshotRegions() {
+        return snapshotRegions;
+    }
+
+    /**
+     * Sets the names of the cache regions written to the {@link #setSnapshotFile(File) snapshot file}.
+     *
+     * @param snapshotRegions the names of the cache regions written to the snapshot file.
+     * @since 2.0.5
+     */
+    public void setSnapshotRegions(Collection<String> snapshotRegions) {
+        Assert.notNull(snapshotRegions, "snapshotRegions cannot be null.");
+        this.snapshotRegions = Collections.unmodifiableSet(new LinkedHashSet<String>(snapshotRegions));
+    }
+
+    /**
+     * Returns how often the {@link #setSnapshotFile(File) snapshot file} is written.  Defaults to
+     * {@link #DEFAULT_SNAPSHOT_INTERVAL 5 minutes}.
+     *
+     * @return how often the snapshot file is written.
+     * @since 2.0.5
+     */
+    public Duration getSnapshotInterval() {
+        return snapshotInterval;
+    }
+
+    /**
+     * Sets how often the {@link #setSnapshotFile(File) snapshot file} is written.  The snapshot is always written when
+     * the JVM shuts down as well.
+     *
+     * @param snapshotInterval how often the snapshot file is written.
+     * @since 2.0.5
+     */
+    public void setSnapshotInterval(Duration snapshotInterval) {
+        Assert.notNull(snapshotInterval, "snapshotInterval cannot be null.");
+        Assert.isTrue(snapshotInterval.getValue() > 0, "snapshotInterval must be greater than zero.");
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    /**
+     * Writes the entries of the {@link #getSnapshotRegions() snapshot regions} to the
+     * {@link #setSnapshotFile(File) snapshot file}.  Entries of the previous snapshot that have not been restored yet
+     * are carried over.
+     *
+     * @throws IOException if the snapshot can not be written
+     * @throws IllegalStateException if no snapshot file has been configured
+     * @since 2.0.5
+     */
+    public void writeSnapshot() throws IOException {
+        File file = this.snapshotFile;
+        Assert.state(file != null, "snapshotFile has not been configured.");
+
+        CacheSnapshot previous = this.snapshot;
+        Map<String, Map<?, ? extends DefaultCache.Entry<?>>> regions =
+            new LinkedHashMap<String, Map<?, ? extends DefaultCache.Entry<?>>>();
+        for (String name : this.snapshotRegions) {
+            Cache cache = this.caches.get(name);
+            if (cache instanceof DefaultCache) {
+                regions.put(name, ((DefaultCache<?, ?>) cache).getEntries());
+            } else if (cache == null && previous != null && previous.getRegion(name) != null) {
+                regions.put(name, previous.getRegion(name).getRemainingEntries(this.clock));
+            }
+        }
+        CacheSnapshot.write(file, regions);
+    }
+
+    /**
+     * Stops writing the {@link #setSnapshotFile(File) snapshot file}: the snapshot is written one last time and is no
+     * longer written periodically nor when the JVM shuts down.  Also stops the background update of the
+     * {@link #setClock(CacheClock) clock} if it is a {@link CoarseCacheClock}.
+     *
+     * @since 2.0.5
+     */
+    @Override
+    public void close() {
+        if (snapshotsScheduled.compareAndSet(true, false)) {
+            stopSnapshots();
+        }
+        CacheClock clock = this.clock;
+        if (clock instanceof CoarseCacheClock) {
+            ((CoarseCacheClock) clock).close();
+        }
+    }
+
+    private void stopSnapshots() {
+        SNAPSHOT_MANAGERS.remove(this);
+        ScheduledFuture<?> task = this.snapshotTask;
+        if (task != null) {
+            task.cancel(false);
+        }
+        ScheduledExecutorService executor = this.snapshotExecutor;
+        if (executor != null) {
+            executor.shutdown();
+        }
+        writeSnapshotQuietly();
+    }
+
+    private void scheduleSnapshots() {
+        SNAPSHOT_MANAGERS.add(this);
+        if (SHUTDOWN_HOOK_REGISTERED.compareAndSet(false, true)) {
+            addShutdownHook();
+        }
+
+        //writing a snapshot may be slow, so it does not share the expiry sweeper's thread:
+        ScheduledExecutorService executor =
+            Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("stormpath-cache-snapshot"));
+        this.snapshotExecutor = executor;
+        this.snapshotTask = executor.schedule(new SnapshotTask(this, executor),
+                                              snapshotInterval.getValue(), snapshotInterval.getTimeUnit());
+    }
+
+    /**
+     * Registered from a static method so that the hook does not retain the manager that happened to register it.
+     */
+    private static void addShutdownHook() {
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                List<DefaultCacheManager> managers;
+                synchronized (SNAPSHOT_MANAGERS) {
+                    managers = new ArrayList<DefaultCacheManager>(SNAPSHOT_MANAGERS);
+                }
+                for (DefaultCacheManager manager : managers) {
+                    manager.writeSnapshotQuietly();
+                }
+            }
+        }, "stormpath-cache-snapshot"));
+    }
+
+    /**
+     * Periodically writes the snapshot of a manager.  The manager is only weakly referenced, so a manager that is
+     * discarded without being {@link #close() closed} can still be garbage collected: its executor is then shut down.
+     */
+    private static final class SnapshotTask implements Runnable {
+
+        private final WeakReference<DefaultCacheManager> ref;
+        private final ScheduledExecutorService executor;
+
+        private SnapshotTask(DefaultCacheManager manager, ScheduledExecutorService executor) {
+            this.ref = new WeakReference<DefaultCacheManager>(manager);
+            this.executor = executor;
+        }
+
+        @Override
+        public void run() {
+            DefaultCacheManager manager = ref.get();
+            if (manager == null || !manager.snapshotsScheduled.get()) {
+                executor.shutdown();
+                return;
+            }
+            manager.writeSnapshotQuietly();
+            //reschedule with the interval in effect now:
+            Duration interval = manager.snapshotInterval;
+            try {
+                manager.snapshotTask = executor.schedule(this, interval.getValue(), interval.getTimeUnit());
+            } catch (RejectedExecutionException e) {
+                //closed in the meantime
+            }
+        }
+    }
+
+    private void writeSnapshotQuietly() {
+        try {
+            writeSnapshot();
+        } catch (Exception e) {
+            log.warn("Unable to write cache snapshot to '{}'.", snapshotFile, e);
+        }
+    }
+
     /**
      * Sets cache-specific configuration entries, to be utilized when creating cache instances.
      *
@@ -217,6 +630,10 @@ public class DefaultCacheManager implements CacheManager {
     protected Cache createCache(String name) {
         Duration ttl = this.defaultTimeToLive != null ? this.defaultTimeToLive.clone() : null;
         Duration tti = this.defaultTimeToIdle != null ? this.defaultTimeToIdle.clone() : null;
+        Duration swr = null;
+        double refreshAheadFactor = 0;
+        long maximumSize = this.defaultMaximumSize;
+        long offHeapSize = this.defaultOffHeapSize;
 
         CacheConfiguration config = this.configs.get(name);
         if (config != null) {
@@ -228,9 +645,37 @@ public class DefaultCacheManager implements CacheManager {
             if (d != null) {
                 tti = d;
             }
+            swr = config.getStaleWhileRevalidate();
+            refreshAheadFactor = config.getRefreshAheadFactor();
+            if (config.getMaximumSize() > 0) {
+                maximumSize = config.getMaximumSize();
+            }
+            if (config.getOffHeapSize() > 0) {
+                offHeapSize = config.getOffHeapSize();
+            }
+        }
+
+        //@since 2.0.5: size-bounded regions evict by access frequency instead of relying on soft references:
+        Map backingMap;
+        if (maximumSize > 0) {
+            backingMap = offHeapSize > 0 ? new TieredMap(maximumSize, offHeapSize) : new TinyLfuMap(maximumSize);
+        } else {
+            backingMap = new ConcurrentSoftHashMap();
         }
 
-        return new DefaultCache(name, new SoftHashMap(), ttl, tti);
+        //@since 2.0.5: lazily restore the region's entries from the snapshot, if any:
+        CacheSnapshot snapshot = this.snapshot;
+        if (snapshot != null && this.snapshotRegions.contains(name)) {
+            CacheSnapshot.Region region = snapshot.getRegion(name);
+            if (region != null) {
+                backingMap = new SnapshotMap(backingMap, region, this.clock);
+            }
+        }
+
+        DefaultCache cache = new DefaultCache(name, backingMap, ttl, tti, this.clock);
+        cache.setStaleWhileRevalidate(swr);
+        cache.setRefreshAheadFactor(refreshAheadFactor);
+        return cache;
     }
 
     public String toString() {
@@ -16,40 +16,139 @@
 package com.stormpath.sdk.impl.cache;
 
 import com.stormpath.sdk.cache.CacheConfigurationBuilder;
+import com.stormpath.sdk.cache.CacheInvalidationBus;
 import com.stormpath.sdk.cache.CacheManager;
 import com.stormpath.sdk.cache.CacheManagerBuilder;
 import com.stormpath.sdk.lang.Assert;
 import com.stormpath.sdk.lang.Collections;
 import com.stormpath.sdk.lang.Duration;
 
+import java.io.File;
 import java.util.LinkedHashSet;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 /**
+ * The default {@link CacheManagerBuilder} implementation.  As of 2.0.5, it also configures options that are not part
+ * of the {@code CacheManagerBuilder} interface, such as a {@link #withSnapshotFile(File) snapshot file} or a
+ * {@link #withInvalidationBus(CacheInvalidationBus) cache invalidation bus} connecting the caches of several
+ * application nodes; its methods return this class so these options can be chained with the interface ones:
+ * <pre>
+ * CacheManager cacheManager = new DefaultCacheManagerBuilder()
+ *     .withDefaultTimeToLive(1, TimeUnit.HOURS)
+ *     .withDefaultMaximumSize(10000)
+ *     .build();
+ * </pre>
+ *
  * @since 0.8
  */
 public class DefaultCacheManagerBuilder implements CacheManagerBuilder {
 
     private Duration defaultTimeToLive;
     private Duration defaultTimeToIdle;
+    private long defaultMaximumSize;
+    private long defaultOffHeapSize;
+    private File snapshotFile;
+    private CacheInvalidationBus invalidationBus;
 
     private final Set<CacheConfiguration> configs = new LinkedHashSet<CacheConfiguration>();
 
     @Override
-    public CacheManagerBuilder withDefaultTimeToLive(long ttl, TimeUnit timeUnit) {
+    public DefaultCacheManagerBuilder withDefaultTimeToLive(long ttl, TimeUnit timeUnit) {
         this.defaultTimeToLive = DefaultCacheConfiguration.toDuration(ttl, timeUnit);
         return this;
     }
 
     @Override
-    public CacheManagerBuilder withDefaultTimeToIdle(long tti, TimeUnit timeUnit) {
+    public DefaultCacheManagerBuilder withDefaultTimeToIdle(long tti, TimeUnit timeUnit) {
         this.defaultTimeToIdle = DefaultCacheConfiguration.toDuration(tti, timeUnit);
         return this;
     }
 
+    /**
+     * Sets the default maximum number of entries retained by each cache region managed by the {@link #build() built}
+     * {@code CacheManager}. You may override this default for individual cache regions by using the
+     * {@link #withCache(CacheConfigurationBuilder) withCache} for each region you wish to configure.
+     * <p/>
+     * Once a size-bounded region is full, adding an entry evicts another one, favoring the retention of frequently
+     * accessed entries.  If this value is not configured, regions are only limited by memory constraints and their
+     * entries may be reclaimed by the garbage collector under memory pressure.
+     * <h3>Usage</h3>
+     * <pre>
+     *     ...withDefaultMaximumSize(10000)...
+     * </pre>
+     *
+     * @param maximumSize default maximum number of entries per cache region
+     * @return the builder instance for method chaining.
+     * @since 2.0.5
+     */
+    public DefaultCacheManagerBuilder withDefaultMaximumSize(long maximumSize) {
+        this.defaultMaximumSize = Math.max(maximumSize, 0);
+        return this;
+    }
+
+    /**
+     * Sets the default number of bytes of direct (off-heap) memory each size-bounded cache region managed by the
+     * {@link #build() built} {@code CacheManager} may use to retain entries evicted from the heap. You may override
+     * this default for individual cache regions by using the {@link #withCache(CacheConfigurationBuilder) withCache}
+     * for each region you wish to configure.
+     * <p/>
+     * This setting only applies to regions with a {@link #withDefaultMaximumSize(long) maximum size}.
+     * <h3>Usage</h3>
+     * <pre>
+     *     ...withDefaultMaximumSize(10000).withDefaultOffHeapSize(64 * 1024 * 1024)...
+     * </pre>
+     *
+     * @param bytes default maximum number of bytes of direct memory per cache region
+     * @return the builder instance for method chaining.
+     * @since 2.0.5
+     */
+    public DefaultCacheManagerBuilder withDefaultOffHeapSize(long bytes) {
+        this.defaultOffHeapSize = Math.max(bytes, 0);
+        return this;
+    }
+
+    /**
+     * Sets a local file used to start with warm caches after a restart.  The entries of rarely changing resources
+     * (applications, directories, groups, account store mappings and password policies) are written to this file
+     * periodically and when the JVM shuts down.  When the {@link #build() built} {@code CacheManager} is created, an
+     * existing snapshot is memory-mapped and its entries are restored lazily, as they are first accessed, honoring
+     * their original creation time for Time to Live purposes.
+     * <h3>Usage</h3>
+     * <pre>
+     *     ...withSnapshotFile(new File("/var/cache/myapp/stormpath.snapshot"))...
+     * </pre>
+     *
+     * @param file the file cache snapshots are written to and restored from
+     * @return the builder instance for method chaining.
+     * @since 2.0.5
+     */
+    public DefaultCacheManagerBuilder withSnapshotFile(File file) {
+        this.snapshotFile = file;
+        return this;
+    }
+
+    /**
+     * Sets the bus used to keep the caches of several application nodes coherent.  Keys evicted or overwritten on
+     * this node by a save or delete are published to the other nodes, and the keys published by the other nodes are
+     * removed from the {@link #build() built} {@code CacheManager}'s regions.  This allows longer Time to Live
+     * settings than would otherwise be acceptable without a clustered cache.
+     * <h3>Usage</h3>
+     * <pre>
+     *     ...withInvalidationBus(myInvalidationBus)...
+     * </pre>
+     *
+     * @param bus the bus used to propagate cache evictions between application nodes
+     * @return the builder instance for method chaining.
+     * @since 2.0.5
+     */
+    public DefaultCacheManagerBuilder withInvalidationBus(CacheInvalidationBus bus) {
+        this.invalidationBus = bus;
+        return this;
+    }
+
     @Override
-    public CacheManagerBuilder withCache(CacheConfigurationBuilder builder) {
+    public DefaultCacheManagerBuilder withCache(CacheConfigurationBuilder builder) {
         Assert.isInstanceOf(DefaultCacheConfigurationBuilder.class, builder,
                 "This implementation only accepts " + DefaultCacheConfigurationBuilder.class.getName() + " instances.");
 
@@ -72,10 +171,26 @@ public class DefaultCacheManagerBuilder implements CacheManagerBuilder {
             manager.setDefaultTimeToIdle(this.defaultTimeToIdle);
         }
 
+        if (this.defaultMaximumSize > 0) {
+            manager.setDefaultMaximumSize(this.defaultMaximumSize);
+        }
+
+        if (this.defaultOffHeapSize > 0) {
+            manager.setDefaultOffHeapSize(this.defaultOffHeapSize);
+        }
+
         if (!Collections.isEmpty(configs)) {
             manager.setCacheConfigurations(configs);
         }
 
+        if (this.snapshotFile != null) {
+            manager.setSnapshotFile(this.snapshotFile);
+        }
+
+        if (this.invalidationBus != null) {
+            manager.setInvalidationBus(this.invalidationBus);
+        }
+
         return manager;
     }
 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.cache;
+
+import com.stormpath.sdk.impl.util.DaemonThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically removes expired entries from every {@link DefaultCache} with a Time to Live or Time to Idle, so that
+ * entries of regions that are written but rarely read (e.g. nonces) do not accumulate until they are read again.
+ * <p/>
+ * Caches are only weakly referenced: a cache that is no longer used is simply dropped from the sweep.
+ *
+ * @since 2.0.5
+ */
+final class ExpirySweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpirySweeper.class);
+
+    /**
+     * The sweep interval matches the resolution of the first level of the {@link TimerWheel}.
+     */
+    private static final long SWEEP_INTERVAL_MILLIS = 1000;
+
+    private static final Queue<WeakReference<DefaultCache<?, ?>>> caches =
+        new ConcurrentLinkedQueue<WeakReference<DefaultCache<?, ?>>>();
+
+    private ExpirySweeper() {
+    }
+
+    static ScheduledExecutorService scheduler() {
+        return SchedulerHolder.SCHEDULER;
+    }
+
+    static void register(DefaultCache<?, ?> cache) {
+        caches.add(new WeakReference<DefaultCache<?, ?>>(cache));
+        SchedulerHolder.start();
+    }
+
+    private static void sweep() {
+        Iterator<WeakReference<DefaultCache<?, ?>>> i = caches.iterator();
+        while (i.hasNext()) {
+            DefaultCache<?, ?> cache = i.next().get();
+            if (cache == null) {
+                i.remove();
+                continue;
+            }
+            try {
+                cache.expireEntries();
+            } catch (RuntimeException e) {
+                //never let one cache stop the sweep for all others:
+                log.warn("Unable to expire entries of cache '{}'.", cache.getName(), e);
+            }
+        }
+    }
+
+    private static final class SchedulerHolder {
+
+        private static final ScheduledExecutorService SCHEDULER =
+            Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("stormpath-cache-expiry"));
+
+        static {
+            SCHEDULER.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    sweep();
+                }
+            }, SWEEP_INTERVAL_MILLIS, SWEEP_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+
+        private static void start() {
+            //initializing the holder class schedules the sweep
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.cache;
+
+import com.stormpath.sdk.lang.Assert;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A {@link com.stormpath.sdk.cache.CacheInvalidationBus CacheInvalidationBus} connecting cache managers running in the
+ * same JVM, for example the clients of several tenants, or simulated nodes in tests.
+ * <p/>
+ * A new instance starts a new group; instances created with an existing member join its group.  A batch published by
+ * a member is delivered to every other member of its group, by the publishing member's background thread.
+ *
+ * @since 2.0.5
+ */
+public class LocalInvalidationBus extends AbstractInvalidationBus {
+
+    private final List<LocalInvalidationBus> members;
+
+    /**
+     * Creates the first member of a new group.
+     */
+    public LocalInvalidationBus() {
+        this(DEFAULT_BATCH_DELAY_MILLIS, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * Creates the first member of a new group.
+     *
+     * @param batchDelayMillis the maximum amount of time a published key waits to be sent with other keys
+     * @param maxBatchSize     the number of pending keys that causes a batch to be sent immediately
+     */
+    public LocalInvalidationBus(long batchDelayMillis, int maxBatchSize) {
+        super(batchDelayMillis, maxBatchSize);
+        this.members = new CopyOnWriteArrayList<LocalInvalidationBus>();
+        this.members.add(this);
+    }
+
+    /**
+     * Creates a new member of the specified member's group.
+     *
+     * @param member a member of the group to join
+     */
+    public LocalInvalidationBus(LocalInvalidationBus member) {
+        Assert.notNull(member, "member cannot be null.");
+        this.members = member.members;
+        this.members.add(this);
+    }
+
+    @Override
+    protected void send(Map<String, Set<String>> batch) {
+        for (LocalInvalidationBus member : members) {
+            if (member != this) {
+                member.deliver(batch);
+            }
+        }
+    }
+
+    /**
+     * Leaves the group after sending the pending keys.
+     */
+    @Override
+    public void close() {
+        super.close();
+        members.remove(this);
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.cache;
+
+import com.stormpath.sdk.lang.Assert;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A size-bounded store of byte arrays kept outside of the Java heap, in direct {@link ByteBuffer} slabs.
+ * <p/>
+ * The memory is divided into fixed-size blocks.  A stored value occupies as many (not necessarily contiguous) blocks
+ * as it needs, so space freed by removed or evicted values can always be reused without compaction.  Slabs are only
+ * allocated once their blocks are needed, up to the configured maximum.  When no block is free, the least recently
+ * used values are evicted until the new value fits.
+ * <p/>
+ * Only the keys and the block indexes of each value remain on the heap.  This class is thread-safe.
+ *
+ * @param <K> the type of keys
+ * @since 2.0.5
+ */
+final class OffHeapStore<K> {
+
+    static final int BLOCK_SIZE = 256;
+
+    private static final int MAX_SLAB_SIZE = 16 * 1024 * 1024;
+
+    private final int slabSize;
+    private final int blocksPerSlab;
+    private final int maxBlocks;
+
+    private final List<ByteBuffer> slabs = new ArrayList<ByteBuffer>();
+
+    /**
+     * Indexes of free blocks in the allocated slabs, used as a stack.
+     */
+    private int[] freeBlocks = new int[0];
+    private int freeCount;
+
+    /**
+     * The stored values in least recently used order.
+     */
+    private final LinkedHashMap<K, Slot> slots = new LinkedHashMap<K, Slot>(16, .75f, true);
+
+    private long evictionCount;
+
+    OffHeapStore(long maximumBytes) {
+        Assert.isTrue(maximumBytes >= BLOCK_SIZE, "maximumBytes must be at least " + BLOCK_SIZE + ".");
+        this.slabSize = (int) Math.min(MAX_SLAB_SIZE, maximumBytes - maximumBytes % BLOCK_SIZE);
+        this.blocksPerSlab = slabSize / BLOCK_SIZE;
+        this.maxBlocks = (int) Math.min(maximumBytes / BLOCK_SIZE / blocksPerSlab * blocksPerSlab, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Stores the specified value, evicting the least recently used values if necessary.
+     *
+     * @return {@code false} if the value is too large to ever be stored, {@code true} otherwise.
+     */
+    synchronized boolean put(K key, byte[] value) {
+        release(slots.remove(key));
+
+        int blockCount = Math.max(1, (value.length + BLOCK_SIZE - 1) / BLOCK_SIZE);
+        if (blockCount > maxBlocks) {
+            return false;
+        }
+
+        while (freeCount < blockCount && !allocateSlab()) {
+            evictEldest();
+        }
+
+        int[] blocks = new int[blockCount];
+        for (int i = 0; i < blockCount; i++) {
+            int block = freeBlocks[--freeCount];
+            blocks[i] = block;
+            int offset = i * BLOCK_SIZE;
+            write(block, value, offset, Math.min(BLOCK_SIZE, value.length - offset));
+        }
+
+        slots.put(key, new Slot(blocks, value.length));
+        return true;
+    }
+
+    synchronized byte[] get(K key) {
+        Slot slot = slots.get(key);
+        return slot != null ? read(slot) : null;
+    }
+
+    /**
+     * Removes the value of the specified key and returns it, or {@code null} if none is stored.
+     */
+    synchronized byte[] remove(Object key) {
+        Slot slot = slots.remove(key);
+        if (slot == null) {
+            return null;
+        }
+        byte[] value = read(slot);
+        release(slot);
+        return value;
+    }
+
+    synchronized boolean containsKey(Object key) {
+        return slots.containsKey(key);
+    }
+
+    synchronized List<K> keys() {
+        return new ArrayList<K>(slots.keySet());
+    }
+
+    synchronized int size() {
+        return slots.size();
+    }
+
+    synchronized void clear() {
+        for (Iterator<Slot> i = slots.values().iterator(); i.hasNext(); ) {
+            release(i.next());
+            i.remove();
+        }
+    }
+
+    synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the number of bytes allocated for the slabs so far.
+     */
+    synchronized long getAllocatedBytes() {
+        return (long) slabs.size() * slabSize;
+    }
+
+    private boolean allocateSlab() {
+        int allocated = slabs.size() * blocksPerSlab;
+        if (allocated + blocksPerSlab > maxBlocks) {
+            return false;
+        }
+        slabs.add(ByteBuffer.allocateDirect(slabSize));
+
+        if (freeBlocks.length < allocated + blocksPerSlab) {
+            int[] grown = new int[allocated + blocksPerSlab];
+            System.arraycopy(freeBlocks, 0, grown, 0, freeCount);
+            freeBlocks = grown;
+        }
+        //push in reverse so the lowest blocks are used first:
+        for (int block = allocated + blocksPerSlab - 1; block >= allocated; block--) {
+            freeBlocks[freeCount++] = block;
+        }
+        return true;
+    }
+
+    private void evictEldest() {
+        Iterator<Map.Entry<K, Slot>> i = slots.entrySet().iterator();
+        Slot eldest = i.next().getValue();
+        i.remove();
+        release(eldest);
+        evictionCount++;
+    }
+
+    private void release(Slot slot) {
+        if (slot == null) {
+            return;
+        }
+        for (int block : slot.blocks) {
+            freeBlocks[freeCount++] = block;
+        }
+    }
+
+    private void write(int block, byte[] src, int offset, int length) {
+        ByteBuffer slab = slabs.get(block / blocksPerSlab);
+        slab.position((block % blocksPerSlab) * BLOCK_SIZE);
+        slab.put(src, offset, length);
+    }
+
+    private byte[] read(Slot slot) {
+        byte[] value = new byte[slot.length];
+        for (int i = 0; i < slot.blocks.length; i++) {
+            int block = slot.blocks[i];
+            int offset = i * BLOCK_SIZE;
+            ByteBuffer slab = slabs.get(block / blocksPerSlab);
+            slab.position((block % blocksPerSlab) * BLOCK_SIZE);
+            slab.get(value, offset, Math.min(BLOCK_SIZE, slot.length - offset));
+        }
+        return value;
+    }
+
+    private static final class Slot {
+
+        private final int[] blocks;
+        private final int length;
+
+        private Slot(int[] blocks, int length) {
+            this.blocks = blocks;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.cache;
+
+import com.stormpath.sdk.lang.Assert;
+
+import java.util.AbstractMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A backing map for {@link DefaultCache} regions restored from a {@link CacheSnapshot}.  Entries are looked up in the
+ * wrapped map first; an entry that is not found there is lazily restored from the snapshot region on first access and
+ * moved into the wrapped map.  Writing or removing a key makes its snapshot copy obsolete.
+ * <p/>
+ * Restored entries keep their original age.  The cache is notified of each restored entry through its
+ * {@link RestoreListener}, so the entry is scheduled for expiration like any other entry.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of cached values
+ * @since 2.0.5
+ */
+class SnapshotMap<K, V> extends AbstractMap<K, DefaultCache.Entry<V>> implements Map<K, DefaultCache.Entry<V>> {
+
+    private final Map<K, DefaultCache.Entry<V>> map;
+    private final CacheSnapshot.Region snapshot;
+    private final CacheClock clock;
+    private volatile RestoreListener<K, V> restoreListener;
+
+    SnapshotMap(Map<K, DefaultCache.Entry<V>> map, CacheSnapshot.Region snapshot, CacheClock clock) {
+        Assert.notNull(map, "map cannot be null.");
+        Assert.notNull(snapshot, "snapshot cannot be null.");
+        Assert.notNull(clock, "clock cannot be null.");
+        this.map = map;
+        this.snapshot = snapshot;
+        this.clock = clock;
+    }
+
+    void setRestoreListener(RestoreListener<K, V> restoreListener) {
+        this.restoreListener = restoreListener;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public DefaultCache.Entry<V> get(Object key) {
+        DefaultCache.Entry<V> entry = map.get(key);
+        if (entry != null || !(key instanceof String)) {
+            return entry;
+        }
+        entry = snapshot.take((String) key, clock);
+        if (entry != null) {
+            map.put((K) key, entry);
+            RestoreListener<K, V> listener = this.restoreListener;
+            if (listener != null) {
+                listener.onRestore((K) key, entry);
+            }
+        }
+        return entry;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public DefaultCache.Entry<V> put(K key, DefaultCache.Entry<V> value) {
+        discard(key);
+        return map.put(key, value);
+    }
+
+    @Override
+    public DefaultCache.Entry<V> remove(Object key) {
+        discard(key);
+        return map.remove(key);
+    }
+
+    /**
+     * Removes the entry for the specified key only if it is currently mapped to the specified entry in the wrapped map,
+     * without restoring it from the snapshot.
+     */
+    public boolean remove(Object key, Object value) {
+        return DefaultCache.remove(map, key, value);
+    }
+
+    private void discard(Object key) {
+        if (key instanceof String) {
+            snapshot.discard((String) key);
+        }
+    }
+
+    @Override
+    public void clear() {
+        snapshot.discardAll();
+        map.clear();
+    }
+
+    @Override
+    public int size() {
+        return map.size() + snapshot.size();
+    }
+
+    /**
+     * Returns a snapshot of the entries of the wrapped map and the entries not restored from the snapshot yet.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<Map.Entry<K, DefaultCache.Entry<V>>> entrySet() {
+        Set<Map.Entry<K, DefaultCache.Entry<V>>> entries = new LinkedHashSet<Map.Entry<K, DefaultCache.Entry<V>>>(map.entrySet());
+        for (Map.Entry<String, DefaultCache.Entry<V>> e : snapshot.<V>getRemainingEntries(clock).entrySet()) {
+            entries.add(new SimpleImmutableEntry<K, DefaultCache.Entry<V>>((K) e.getKey(), e.getValue()));
+        }
+        return entries;
+    }
+
+    /**
+     * Notified when an entry is restored from the snapshot into the wrapped map.
+     */
+    interface RestoreListener<K, V> {
+
+        void onRestore(K key, DefaultCache.Entry<V> entry);
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A two-tier backing map for size-bounded {@link DefaultCache} regions.
+ * <p/>
+ * The most valuable entries live on the heap in a {@link TinyLfuMap}.  Entries evicted from it are not discarded but
+ * encoded with the {@link BinaryValueCodec} and moved into an {@link OffHeapStore}, which is bounded by a number of
+ * bytes instead of a number of entries and does not add to garbage collection work.  An entry found off-heap is
+ * decoded and moved back to the heap tier when it is read, so each key lives in exactly one tier.
+ * <p/>
+ * Entries whose values can not be encoded are simply dropped when evicted from the heap, as they would be without an
+ * off-heap tier.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of cached values
+ * @since 2.0.5
+ */
+public class TieredMap<K, V> extends AbstractMap<K, DefaultCache.Entry<V>> implements Map<K, DefaultCache.Entry<V>> {
+
+    private static final Logger log = LoggerFactory.getLogger(TieredMap.class);
+
+    private final TinyLfuMap<K, DefaultCache.Entry<V>> heap;
+    private final OffHeapStore<K> offHeap;
+
+    /**
+     * Creates a new {@code TieredMap} retaining at most {@code maximumSize} entries on the heap and at most
+     * {@code offHeapBytes} bytes of encoded entries off-heap.
+     *
+     * @param maximumSize  the maximum number of entries retained on the heap, must be greater than zero.
+     * @param offHeapBytes the maximum number of bytes of direct memory used by the off-heap tier.
+     */
+    public TieredMap(long maximumSize, long offHeapBytes) {
+        this.offHeap = new OffHeapStore<K>(offHeapBytes);
+        this.heap = new TinyLfuMap<K, DefaultCache.Entry<V>>(maximumSize, new TinyLfuMap.EvictionListener<K, DefaultCache.Entry<V>>() {
+            @Override
+            public void onEviction(K key, DefaultCache.Entry<V> entry) {
+                demote(key, entry);
+            }
+        });
+    }
+
+    private void demote(K key, DefaultCache.Entry<V> entry) {
+        byte[] bytes;
+        try {
+            bytes = BinaryValueCodec.encode(entry);
+        } catch (IOException e) {
+            log.debug("Unable to move cache entry '{}' off-heap, discarding it: {}", key, e.getMessage());
+            return;
+        }
+        entry.clearTimer();
+        offHeap.put(key, bytes);
+    }
+
+    /**
+     * Returns the number of entries currently stored off-heap.
+     *
+     * @return the number of entries currently stored off-heap.
+     */
+    public int getOffHeapSize() {
+        return offHeap.size();
+    }
+
+    /**
+     * Returns the number of entries that have been evicted from the off-heap tier to stay within its byte bound.
+     *
+     * @return the number of entries that have been evicted from the off-heap tier to stay within its byte bound.
+     */
+    public long getOffHeapEvictionCount() {
+        return offHeap.getEvictionCount();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public DefaultCache.Entry<V> get(Object key) {
+        DefaultCache.Entry<V> entry = heap.get(key);
+        if (entry != null || key == null) {
+            return entry;
+        }
+
+        byte[] bytes = offHeap.remove(key);
+        if (bytes == null) {
+            return null;
+        }
+
+        try {
+            entry = BinaryValueCodec.decode(bytes);
+        } catch (IOException e) {
+            log.warn("Unable to read off-heap cache entry '{}', discarding it: {}", key, e.getMessage());
+            return null;
+        }
+
+        //promote it - a concurrent put wins over the stale copy:
+        DefaultCache.Entry<V> current = heap.get(key);
+        if (current != null) {
+            return current;
+        }
+        heap.put((K) key, entry);
+        return entry;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return heap.containsKey(key) || offHeap.containsKey(key);
+    }
+
+    @Override
+    public DefaultCache.Entry<V> put(K key, DefaultCache.Entry<V> value) {
+        byte[] stale = offHeap.remove(key);
+        DefaultCache.Entry<V> previous = heap.put(key, value);
+        if (previous == null && stale != null) {
+            previous = decodeQuietly(stale);
+        }
+        return previous;
+    }
+
+    @Override
+    public DefaultCache.Entry<V> remove(Object key) {
+        DefaultCache.Entry<V> previous = heap.remove(key);
+        byte[] stale = offHeap.remove(key);
+        if (previous == null && stale != null) {
+            previous = decodeQuietly(stale);
+        }
+        return previous;
+    }
+
+    /**
+     * Removes the entry for the specified key only if it is currently mapped to the specified entry on the heap, without
+     * recording an access to it or promoting an off-heap entry.  Off-heap entries have no expiration timer, so they are
+     * never removed by the cache's expiration.
+     *
+     * @param key   the key of the entry to remove
+     * @param value the entry the key must be mapped to
+     * @return {@code true} if the entry was removed, {@code false} otherwise.
+     */
+    public boolean remove(Object key, Object value) {
+        return heap.remove(key, value);
+    }
+
+    @Override
+    public void clear() {
+        heap.clear();
+        offHeap.clear();
+    }
+
+    @Override
+    public int size() {
+        return heap.size() + offHeap.size();
+    }
+
+    /**
+     * Returns a snapshot of the entries of both tiers.  Off-heap entries are decoded but not promoted.
+     */
+    @Override
+    public Set<Map.Entry<K, DefaultCache.Entry<V>>> entrySet() {
+        Set<Map.Entry<K, DefaultCache.Entry<V>>> entries = new LinkedHashSet<Map.Entry<K, DefaultCache.Entry<V>>>(heap.entrySet());
+        for (K key : offHeap.keys()) {
+            byte[] bytes = offHeap.get(key);
+            DefaultCache.Entry<V> entry = bytes != null ? decodeQuietly(bytes) : null;
+            if (entry != null) {
+                entries.add(new SimpleImmutableEntry<K, DefaultCache.Entry<V>>(key, entry));
+            }
+        }
+        return entries;
+    }
+
+    private DefaultCache.Entry<V> decodeQuietly(byte[] bytes) {
+        try {
+            return BinaryValueCodec.decode(bytes);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
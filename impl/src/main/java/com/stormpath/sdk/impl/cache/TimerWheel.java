@@ -0,0 +1,207 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.cache;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A hierarchical timer wheel that tracks the expiration deadlines of cache entries with constant-time scheduling and
+ * cancellation.
+ * <p/>
+ * The wheel has four levels of 64 buckets each.  A bucket of the first level spans 2<sup>30</sup> nanoseconds (about
+ * a second) and each following level's buckets span 64 times more (about 1 minute, 1 hour and 3 days respectively).
+ * A timer is placed in the finest level able to represent its deadline.  When the wheel {@link #advance(long)
+ * advances}, the buckets whose time has passed are emptied: timers that are due are returned to the caller, the others
+ * cascade down to a finer level.
+ * <p/>
+ * This class is not thread-safe: callers are expected to synchronize access.
+ *
+ * @param <K> the type of the keys of the timers' cache entries
+ * @param <V> the type of the timers' cache entries
+ * @since 2.0.5
+ */
+final class TimerWheel<K, V> {
+
+    private static final int[] SHIFTS = {30, 36, 42, 48};
+    private static final int BUCKETS = 64;
+    private static final int BUCKET_MASK = BUCKETS - 1;
+
+    private final Timer<K, V>[][] wheel;
+
+    /**
+     * All times are tracked relative to the creation of the wheel, so they are never negative.
+     */
+    private final long origin;
+
+    private long time;
+
+    @SuppressWarnings("unchecked")
+    TimerWheel(long nowNanos) {
+        this.origin = nowNanos;
+        this.wheel = new Timer[SHIFTS.length][BUCKETS];
+        for (Timer<K, V>[] level : wheel) {
+            for (int i = 0; i < BUCKETS; i++) {
+                level[i] = Timer.sentinel();
+            }
+        }
+    }
+
+    /**
+     * Schedules the specified timer at its {@link Timer#getDeadline() deadline}.
+     */
+    void schedule(Timer<K, V> timer) {
+        long deadline = Math.max(timer.deadline - origin, 0);
+        long delay = deadline - time;
+
+        int level = 0;
+        while (level < SHIFTS.length - 1 && delay >= 1L << SHIFTS[level + 1]) {
+            level++;
+        }
+
+        //never place a timer in a bucket that the wheel has already passed in the current tick:
+        long ticks = Math.max(deadline >>> SHIFTS[level], (time >>> SHIFTS[level]) + 1);
+        Timer<K, V> sentinel = wheel[level][(int) (ticks & BUCKET_MASK)];
+
+        timer.prev = sentinel.prev;
+        timer.next = sentinel;
+        sentinel.prev.next = timer;
+        sentinel.prev = timer;
+    }
+
+    /**
+     * Removes the specified timer from the wheel if it is scheduled.
+     */
+    void cancel(Timer<K, V> timer) {
+        if (timer.next != null) {
+            timer.prev.next = timer.next;
+            timer.next.prev = timer.prev;
+            timer.prev = null;
+            timer.next = null;
+        }
+    }
+
+    /**
+     * Advances the wheel to the specified time and returns the (no longer scheduled) timers whose deadline has passed.
+     */
+    List<Timer<K, V>> advance(long nowNanos) {
+        long now = nowNanos - origin;
+        long previous = this.time;
+        if (now <= previous) {
+            return java.util.Collections.emptyList();
+        }
+        this.time = now;
+
+        List<Timer<K, V>> expired = new ArrayList<Timer<K, V>>();
+        List<Timer<K, V>> cascading = new ArrayList<Timer<K, V>>();
+
+        for (int level = 0; level < SHIFTS.length; level++) {
+            long previousTicks = previous >>> SHIFTS[level];
+            long currentTicks = now >>> SHIFTS[level];
+            if (currentTicks <= previousTicks) {
+                //coarser levels cannot have advanced either
+                break;
+            }
+            long count = Math.min(currentTicks - previousTicks, BUCKETS);
+            for (long ticks = previousTicks + 1; ticks <= previousTicks + count; ticks++) {
+                drain(wheel[level][(int) (ticks & BUCKET_MASK)], cascading);
+            }
+        }
+
+        for (Timer<K, V> timer : cascading) {
+            if (timer.deadline - origin <= now) {
+                expired.add(timer);
+            } else {
+                schedule(timer);
+            }
+        }
+
+        return expired;
+    }
+
+    /**
+     * Cancels all timers.
+     */
+    void clear() {
+        for (Timer<K, V>[] level : wheel) {
+            for (Timer<K, V> sentinel : level) {
+                drain(sentinel, null);
+            }
+        }
+    }
+
+    private void drain(Timer<K, V> sentinel, List<Timer<K, V>> drained) {
+        Timer<K, V> timer = sentinel.next;
+        while (timer != sentinel) {
+            Timer<K, V> next = timer.next;
+            timer.prev = null;
+            timer.next = null;
+            if (drained != null) {
+                drained.add(timer);
+            }
+            timer = next;
+        }
+        sentinel.prev = sentinel;
+        sentinel.next = sentinel;
+    }
+
+    /**
+     * The expiration timer of a single cache entry.  The entry is only weakly referenced, so a timer never keeps an
+     * entry reachable once its cache let go of it (e.g. a soft value reclaimed by the garbage collector or an entry
+     * demoted to an off-heap tier).
+     */
+    static final class Timer<K, V> {
+
+        private final K key;
+        private final WeakReference<V> entry;
+        private long deadline;
+        private Timer<K, V> prev;
+        private Timer<K, V> next;
+
+        Timer(K key, V entry, long deadline) {
+            this.key = key;
+            this.entry = entry != null ? new WeakReference<V>(entry) : null;
+            this.deadline = deadline;
+        }
+
+        private static <K, V> Timer<K, V> sentinel() {
+            Timer<K, V> sentinel = new Timer<K, V>(null, null, 0);
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            return sentinel;
+        }
+
+        K getKey() {
+            return key;
+        }
+
+        /**
+         * Returns the timer's entry, or {@code null} if it is no longer referenced by its cache.
+         */
+        V getEntry() {
+            return entry != null ? entry.get() : null;
+        }
+
+        long getDeadline() {
+            return deadline;
+        }
+
+        void setDeadline(long deadline) {
+            this.deadline = deadline;
+        }
+    }
+}
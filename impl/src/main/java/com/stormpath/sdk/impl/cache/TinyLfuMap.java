@@ -0,0 +1,367 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.cache;
+
+import com.stormpath.sdk.lang.Assert;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A thread-safe {@code Map} that retains at most a {@link #getMaximumSize() maximum number} of entries, evicting
+ * entries based on a Window TinyLFU policy.  It is intended as the backing map of size-bounded
+ * {@link DefaultCache} regions, as an alternative to the {@link com.stormpath.sdk.impl.util.SoftHashMap SoftHashMap}
+ * whose size depends on garbage collector pressure.
+ * <h2>Eviction policy</h2>
+ * New entries are admitted to a small <em>window</em> LRU queue (1% of the maximum size).  Entries evicted from the
+ * window become candidates for the <em>main</em> segmented LRU queue: a candidate is only admitted if it has been
+ * accessed more often than the entry the main queue would evict in its place, as estimated by a compact
+ * {@link FrequencySketch frequency sketch}.  Otherwise the candidate itself is discarded.  Within the main queue,
+ * entries accessed again are promoted from the <em>probation</em> segment to the <em>protected</em> segment (80% of
+ * the main queue).
+ * <p/>
+ * This retains frequently used resources even when bursts of one-off lookups (e.g. a full scan of a large
+ * collection) would otherwise flush them out of a pure LRU cache, while the window still lets recently created
+ * entries build up some frequency before competing for admission.
+ * <h2>Thread Safety</h2>
+ * Every operation, including {@link #get(Object) get}, reorders the queues and is therefore guarded by a single lock.
+ * {@link #entrySet()}, {@link #keySet()} and {@link #values()} return snapshots.  An {@link EvictionListener} is
+ * notified after the lock has been released.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ * @since 2.0.5
+ */
+public class TinyLfuMap<K, V> extends AbstractMap<K, V> implements Map<K, V> {
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private final long maximumSize;
+    private final long maximumWindowSize;
+    private final long maximumProtectedSize;
+
+    private final Map<K, Node<K, V>> data;
+    private final FrequencySketch sketch;
+
+    private final Queue<K, V> window = new Queue<K, V>();
+    private final Queue<K, V> probation = new Queue<K, V>();
+    private final Queue<K, V> protectedQueue = new Queue<K, V>();
+
+    private final EvictionListener<K, V> evictionListener;
+
+    private long evictionCount;
+
+    /**
+     * Creates a new {@code TinyLfuMap} that retains at most {@code maximumSize} entries.
+     *
+     * @param maximumSize the maximum number of entries to retain, must be greater than zero.
+     */
+    public TinyLfuMap(long maximumSize) {
+        this(maximumSize, null);
+    }
+
+    /**
+     * Creates a new {@code TinyLfuMap} that retains at most {@code maximumSize} entries and notifies the specified
+     * listener of every entry evicted to stay within that size.
+     *
+     * @param maximumSize      the maximum number of entries to retain, must be greater than zero.
+     * @param evictionListener the listener to notify of evicted entries, may be {@code null}.
+     */
+    public TinyLfuMap(long maximumSize, EvictionListener<K, V> evictionListener) {
+        Assert.isTrue(maximumSize > 0, "maximumSize must be greater than zero.");
+        this.maximumSize = maximumSize;
+        this.maximumWindowSize = Math.max(1, maximumSize / 100);
+        this.maximumProtectedSize = (long) ((maximumSize - this.maximumWindowSize) * 0.8);
+        this.data = new HashMap<K, Node<K, V>>((int) Math.min(maximumSize, 1 << 16));
+        this.sketch = new FrequencySketch(maximumSize);
+        this.evictionListener = evictionListener;
+    }
+
+    /**
+     * Returns the maximum number of entries retained by this map.
+     *
+     * @return the maximum number of entries retained by this map.
+     */
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Returns the number of entries that have been evicted to keep this map within its maximum size.
+     *
+     * @return the number of entries that have been evicted to keep this map within its maximum size.
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public synchronized V get(Object key) {
+        if (key == null) {
+            return null;
+        }
+        sketch.increment(key);
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            return null;
+        }
+        onAccess(node);
+        return node.value;
+    }
+
+    @Override
+    public synchronized boolean containsKey(Object key) {
+        return key != null && data.containsKey(key);
+    }
+
+    @Override
+    public V put(K key, V value) {
+        Assert.notNull(key, "key cannot be null.");
+
+        List<Node<K, V>> evicted = evictionListener != null ? new ArrayList<Node<K, V>>(1) : null;
+        V previous;
+        synchronized (this) {
+            previous = put(key, value, evicted);
+        }
+
+        if (evicted != null) {
+            for (Node<K, V> node : evicted) {
+                evictionListener.onEviction(node.key, node.value);
+            }
+        }
+        return previous;
+    }
+
+    private V put(K key, V value, List<Node<K, V>> evicted) {
+        sketch.increment(key);
+
+        Node<K, V> node = data.get(key);
+        if (node != null) {
+            V previous = node.value;
+            node.value = value;
+            onAccess(node);
+            return previous;
+        }
+
+        node = new Node<K, V>(key, value);
+        data.put(key, node);
+        window.linkLast(node);
+
+        Node<K, V> candidate = null;
+        if (window.size > maximumWindowSize) {
+            candidate = window.first;
+            window.unlink(candidate);
+            candidate.queue = PROBATION;
+            probation.linkLast(candidate);
+        }
+
+        evict(candidate, evicted);
+        return null;
+    }
+
+    @Override
+    public synchronized V remove(Object key) {
+        if (key == null) {
+            return null;
+        }
+        Node<K, V> node = data.remove(key);
+        if (node == null) {
+            return null;
+        }
+        queueOf(node).unlink(node);
+        return node.value;
+    }
+
+    /**
+     * Removes the entry for the specified key only if it is currently mapped to the specified value, without recording
+     * an access to it.
+     *
+     * @param key   the key of the entry to remove
+     * @param value the value the key must be mapped to
+     * @return {@code true} if the entry was removed, {@code false} otherwise.
+     */
+    public synchronized boolean remove(Object key, Object value) {
+        Node<K, V> node = key != null ? data.get(key) : null;
+        if (node == null || node.value == null || !node.value.equals(value)) {
+            return false;
+        }
+        data.remove(key);
+        queueOf(node).unlink(node);
+        return true;
+    }
+
+    @Override
+    public synchronized void clear() {
+        data.clear();
+        window.clear();
+        probation.clear();
+        protectedQueue.clear();
+    }
+
+    @Override
+    public synchronized int size() {
+        return data.size();
+    }
+
+    @Override
+    public synchronized Set<Map.Entry<K, V>> entrySet() {
+        Set<Map.Entry<K, V>> entries = new LinkedHashSet<Map.Entry<K, V>>(data.size());
+        for (Node<K, V> node : data.values()) {
+            entries.add(new SimpleImmutableEntry<K, V>(node.key, node.value));
+        }
+        return entries;
+    }
+
+    private void onAccess(Node<K, V> node) {
+        switch (node.queue) {
+            case WINDOW:
+                window.moveToLast(node);
+                break;
+            case PROBATION:
+                probation.unlink(node);
+                node.queue = PROTECTED;
+                protectedQueue.linkLast(node);
+                //keep the protected segment within its bounds by demoting its least recently used entries:
+                while (protectedQueue.size > maximumProtectedSize) {
+                    Node<K, V> demoted = protectedQueue.first;
+                    protectedQueue.unlink(demoted);
+                    demoted.queue = PROBATION;
+                    probation.linkLast(demoted);
+                }
+                break;
+            default:
+                protectedQueue.moveToLast(node);
+        }
+    }
+
+    /**
+     * Evicts entries until the map is within its maximum size.  The candidate that just left the window competes with
+     * the main queue's least recently used entry and only the more frequently used one of the two is retained.
+     */
+    private void evict(Node<K, V> candidate, List<Node<K, V>> evicted) {
+        while (data.size() > maximumSize) {
+            Node<K, V> victim = probation.first;
+            if (victim == null) {
+                victim = protectedQueue.first != null ? protectedQueue.first : window.first;
+            } else if (candidate != null && sketch.frequency(candidate.key) <= sketch.frequency(victim.key)) {
+                //the candidate is not more popular than the entry it would replace - reject it instead:
+                victim = candidate;
+            }
+            candidate = null;
+            data.remove(victim.key);
+            queueOf(victim).unlink(victim);
+            evictionCount++;
+            if (evicted != null) {
+                evicted.add(victim);
+            }
+        }
+    }
+
+    private Queue<K, V> queueOf(Node<K, V> node) {
+        switch (node.queue) {
+            case WINDOW:
+                return window;
+            case PROBATION:
+                return probation;
+            default:
+                return protectedQueue;
+        }
+    }
+
+    /**
+     * Listener notified of the entries a {@link TinyLfuMap} evicts to stay within its maximum size.  It is not
+     * notified of entries that are explicitly removed or replaced.
+     *
+     * @param <K> the type of keys
+     * @param <V> the type of values
+     */
+    public interface EvictionListener<K, V> {
+
+        void onEviction(K key, V value);
+    }
+
+    private static final class Node<K, V> {
+
+        private final K key;
+        private V value;
+        private int queue = WINDOW;
+        private Node<K, V> prev;
+        private Node<K, V> next;
+
+        private Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Minimal intrusive doubly-linked list ordered from least to most recently used.
+     */
+    private static final class Queue<K, V> {
+
+        private Node<K, V> first;
+        private Node<K, V> last;
+        private long size;
+
+        private void linkLast(Node<K, V> node) {
+            node.prev = last;
+            node.next = null;
+            if (last == null) {
+                first = node;
+            } else {
+                last.next = node;
+            }
+            last = node;
+            size++;
+        }
+
+        private void unlink(Node<K, V> node) {
+            if (node.prev == null) {
+                first = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                last = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            size--;
+        }
+
+        private void moveToLast(Node<K, V> node) {
+            if (node != last) {
+                unlink(node);
+                linkLast(node);
+            }
+        }
+
+        private void clear() {
+            first = null;
+            last = null;
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.cache;
+
+import com.stormpath.sdk.lang.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A {@link com.stormpath.sdk.cache.CacheInvalidationBus CacheInvalidationBus} exchanging batches of evictions with
+ * other nodes in UDP datagrams.
+ * <p/>
+ * Each node binds the same port and lists its peers: either the address of every other node, or a single multicast
+ * group address (e.g. {@code 239.255.27.1}) that all nodes join.  Batches are split in datagrams of at most
+ * {@link #MAX_PACKET_SIZE} bytes, each carrying a random node id so that a node ignores its own datagrams (e.g.
+ * multicast loopback).  For example:
+ * <pre>
+ * UdpInvalidationBus bus = new UdpInvalidationBus(45588,
+ *     Collections.singletonList(new InetSocketAddress("239.255.27.1", 45588)));
+ * CacheManager cacheManager = new DefaultCacheManagerBuilder().withInvalidationBus(bus).build();
+ * </pre>
+ * Datagrams are neither authenticated nor acknowledged: this bus is meant for trusted networks, and a lost datagram
+ * means the affected entries are only refreshed when their Time to Live elapses.
+ *
+ * @since 2.0.5
+ */
+public class UdpInvalidationBus extends AbstractInvalidationBus {
+
+    private static final Logger log = LoggerFactory.getLogger(UdpInvalidationBus.class);
+
+    /**
+     * The size datagrams are split at, small enough to avoid IP fragmentation on most networks.
+     */
+    public static final int MAX_PACKET_SIZE = 1400;
+
+    private static final int MAGIC = 0x53504956; //'SPIV'
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 1 + 16 + 2;
+    private static final int MAX_DATAGRAM_SIZE = 65507;
+
+    private final UUID nodeId = UUID.randomUUID();
+    private final MulticastSocket socket;
+    private final List<InetSocketAddress> peers = new CopyOnWriteArrayList<InetSocketAddress>();
+    private final Thread receiver;
+
+    /**
+     * @param port  the local port to receive datagrams on, {@code 0} for any free port
+     * @param peers the addresses of the other nodes, or the multicast group they joined
+     * @throws IOException if the socket could not be bound or a multicast group could not be joined
+     */
+    public UdpInvalidationBus(int port, Collection<InetSocketAddress> peers) throws IOException {
+        this(port, peers, DEFAULT_BATCH_DELAY_MILLIS, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * @param port             the local port to receive datagrams on, {@code 0} for any free port
+     * @param peers            the addresses of the other nodes, or the multicast group they joined
+     * @param batchDelayMillis the maximum amount of time a published key waits to be sent with other keys
+     * @param maxBatchSize     the number of pending keys that causes a batch to be sent immediately
+     * @throws IOException if the socket could not be bound or a multicast group could not be joined
+     */
+    public UdpInvalidationBus(int port, Collection<InetSocketAddress> peers, long batchDelayMillis, int maxBatchSize)
+        throws IOException {
+        super(batchDelayMillis, maxBatchSize);
+        Assert.notNull(peers, "peers cannot be null.");
+        this.socket = new MulticastSocket(port);
+        try {
+            for (InetSocketAddress peer : peers) {
+                addPeer(peer);
+            }
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+        this.receiver = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                receive();
+            }
+        }, "stormpath-cache-invalidation-receiver");
+        this.receiver.setDaemon(true);
+        this.receiver.start();
+    }
+
+    /**
+     * Adds a node (or multicast group) to send evictions to.
+     *
+     * @param peer the address of the node, or of a multicast group to join
+     * @throws IOException if the multicast group could not be joined
+     */
+    public void addPeer(InetSocketAddress peer) throws IOException {
+        Assert.notNull(peer, "peer cannot be null.");
+        if (peer.getAddress().isMulticastAddress()) {
+            socket.joinGroup(peer.getAddress());
+        }
+        peers.add(peer);
+    }
+
+    /**
+     * Returns the local port datagrams are received on.
+     *
+     * @return the local port datagrams are received on.
+     */
+    public int getLocalPort() {
+        return socket.getLocalPort();
+    }
+
+    @Override
+    protected void send(Map<String, Set<String>> batch) throws IOException {
+        for (byte[] packet : encode(batch)) {
+            for (InetSocketAddress peer : peers) {
+                socket.send(new DatagramPacket(packet, packet.length, peer));
+            }
+        }
+    }
+
+    /**
+     * Encodes a batch in as few datagrams of at most {@link #MAX_PACKET_SIZE} bytes as possible (a single key longer
+     * than that gets a datagram of its own).
+     */
+    List<byte[]> encode(Map<String, Set<String>> batch) throws IOException {
+        List<byte[]> packets = new ArrayList<byte[]>();
+        Map<String, List<String>> current = new LinkedHashMap<String, List<String>>();
+        int size = HEADER_SIZE;
+        for (Map.Entry<String, Set<String>> entry : batch.entrySet()) {
+            String region = entry.getKey();
+            for (String key : entry.getValue()) {
+                int regionSize = current.containsKey(region) ? 0 : 2 + utfLength(region) + 2;
+                int keySize = 2 + utfLength(key);
+                if (!current.isEmpty() && size + regionSize + keySize > MAX_PACKET_SIZE) {
+                    packets.add(toPacket(current));
+                    current = new LinkedHashMap<String, List<String>>();
+                    size = HEADER_SIZE;
+                    regionSize = 2 + utfLength(region) + 2;
+                }
+                List<String> keys = current.get(region);
+                if (keys == null) {
+                    keys = new ArrayList<String>();
+                    current.put(region, keys);
+                }
+                keys.add(key);
+                size += regionSize + keySize;
+            }
+        }
+        if (!current.isEmpty()) {
+            packets.add(toPacket(current));
+        }
+        return packets;
+    }
+
+    private byte[] toPacket(Map<String, List<String>> regions) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(MAX_PACKET_SIZE);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeLong(nodeId.getMostSignificantBits());
+        out.writeLong(nodeId.getLeastSignificantBits());
+        out.writeShort(regions.size());
+        for (Map.Entry<String, List<String>> entry : regions.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeShort(entry.getValue().size());
+            for (String key : entry.getValue()) {
+                out.writeUTF(key);
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a datagram, returning {@code null} if it was sent by this node.
+     */
+    Map<String, List<String>> decode(byte[] data, int offset, int length) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, offset, length));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a cache invalidation datagram.");
+        }
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported cache invalidation datagram version: " + version);
+        }
+        long mostSigBits = in.readLong();
+        long leastSigBits = in.readLong();
+        if (mostSigBits == nodeId.getMostSignificantBits() && leastSigBits == nodeId.getLeastSignificantBits()) {
+            return null;
+        }
+        int regionCount = in.readUnsignedShort();
+        Map<String, List<String>> regions = new LinkedHashMap<String, List<String>>(regionCount * 2);
+        for (int i = 0; i < regionCount; i++) {
+            String region = in.readUTF();
+            int keyCount = in.readUnsignedShort();
+            List<String> keys = new ArrayList<String>(keyCount);
+            for (int j = 0; j < keyCount; j++) {
+                keys.add(in.readUTF());
+            }
+            regions.put(region, keys);
+        }
+        return regions;
+    }
+
+    private void receive() {
+        byte[] buffer = new byte[MAX_DATAGRAM_SIZE];
+        while (!socket.isClosed()) {
+            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            try {
+                socket.receive(packet);
+            } catch (SocketException e) {
+                //closed
+                break;
+            } catch (IOException e) {
+                log.debug("Unable to receive cache invalidation datagram: {}", e.getMessage(), e);
+                continue;
+            }
+            try {
+                Map<String, List<String>> batch = decode(packet.getData(), packet.getOffset(), packet.getLength());
+                if (batch != null) {
+                    deliver(batch);
+                }
+            } catch (IOException e) {
+                log.debug("Ignoring invalid cache invalidation datagram from {}: {}", packet.getSocketAddress(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Sends the pending keys and closes the socket.
+     */
+    @Override
+    public void close() {
+        super.close();
+        socket.close();
+    }
+
+    /**
+     * Returns the number of bytes {@link DataOutputStream#writeUTF(String)} writes for the string, without the length.
+     */
+    private static int utfLength(String s) {
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 0x0001 && c <= 0x007F) {
+                length++;
+            } else if (c > 0x07FF) {
+                length += 3;
+            } else {
+                length += 2;
+            }
+        }
+        return length;
+    }
+}
@@ -26,6 +26,7 @@ import com.stormpath.sdk.application.CreateApplicationRequest;
 import com.stormpath.sdk.cache.CacheManager;
 import com.stormpath.sdk.client.AuthenticationScheme;
 import com.stormpath.sdk.client.Client;
+import com.stormpath.sdk.client.HttpProtocol;
 import com.stormpath.sdk.impl.api.ApiKeyResolver;
 import com.stormpath.sdk.impl.authc.credentials.ClientCredentials;
 import com.stormpath.sdk.client.Proxy;
@@ -34,11 +35,13 @@ import com.stormpath.sdk.directory.Directory;
 import com.stormpath.sdk.directory.DirectoryCriteria;
 import com.stormpath.sdk.directory.DirectoryList;
 import com.stormpath.sdk.ds.DataStore;
+import com.stormpath.sdk.ds.ResourceResult;
 import com.stormpath.sdk.group.GroupCriteria;
 import com.stormpath.sdk.group.GroupList;
 import com.stormpath.sdk.impl.ds.DefaultDataStore;
 import com.stormpath.sdk.impl.http.RequestExecutor;
 import com.stormpath.sdk.impl.http.authc.RequestAuthenticatorFactory;
+import com.stormpath.sdk.impl.http.support.AdmissionControlRequestExecutor;
 import com.stormpath.sdk.impl.tenant.DefaultTenantResolver;
 import com.stormpath.sdk.impl.tenant.TenantResolver;
 import com.stormpath.sdk.impl.util.BaseUrlResolver;
@@ -52,7 +55,11 @@ import com.stormpath.sdk.saml.*;
 import com.stormpath.sdk.tenant.Tenant;
 import com.stormpath.sdk.tenant.TenantOptions;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.lang.reflect.Constructor;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -66,7 +73,16 @@ import java.util.Map;
  * @see <a href="http://www.stormpath.com/docs/quickstart/connect">Communicating with Stormpath: Get your API Key</a>
  * @since 1.0.alpha
  */
-public class DefaultClient implements Client {
+public class DefaultClient implements Client, Closeable {
+
+    /**
+     * System property that, when {@code true}, selects the non-blocking {@code HttpAsyncClientRequestExecutor} of the
+     * stormpath-sdk-httpclient extension if the optional {@code org.apache.httpcomponents:httpasyncclient} dependency
+     * is on the classpath.  Its resources are released by {@link #close()}.
+     *
+     * @since 2.0.5
+     */
+    public static final String ASYNC_REQUEST_EXECUTOR_ENABLED_PROPERTY_KEY = "com.stormpath.sdk.impl.http.httpclient.HttpAsyncClientRequestExecutor.enabled";
 
     private final DataStore dataStore;
 
@@ -93,7 +109,7 @@ public class DefaultClient implements Client {
         Assert.notNull(apiKeyResolver, "apiKeyResolver argument cannot be null.");
         Assert.notNull(baseUrlResolver, "baseUrlResolver argument cannot be null.");
         Assert.isTrue(connectionTimeout >= 0, "connectionTimeout cannot be a negative number.");
-        RequestExecutor requestExecutor = createRequestExecutor(clientCredentials, proxy, authenticationScheme, requestAuthenticatorFactory, connectionTimeout);
+        RequestExecutor requestExecutor = createRequestExecutor(clientCredentials, proxy, authenticationScheme, requestAuthenticatorFactory, connectionTimeout, null);
         this.dataStore = createDataStore(requestExecutor, baseUrlResolver, clientCredentials, apiKeyResolver, cacheManager);
         this.tenantResolver = new DefaultTenantResolver(dataStore);
     }
@@ -121,11 +137,40 @@ public class DefaultClient implements Client {
         Assert.notNull(baseUrlResolver, "baseUrlResolver argument cannot be null.");
         Assert.isTrue(connectionTimeout >= 0, "connectionTimeout cannot be a negative number.");
         Assert.notNull(tenantResolver, "tenantResolver argument cannot be null.");
-        RequestExecutor requestExecutor = createRequestExecutor(clientCredentials, proxy, authenticationScheme, requestAuthenticatorFactory, connectionTimeout);
+        RequestExecutor requestExecutor = createRequestExecutor(clientCredentials, proxy, authenticationScheme, requestAuthenticatorFactory, connectionTimeout, null);
         this.dataStore = createDataStore(requestExecutor, baseUrlResolver, clientCredentials, apiKeyResolver, cacheManager);
         this.tenantResolver = tenantResolver;
     }
 
+    /**
+     * Instantiates a new Client instance that will communicate with the Stormpath REST API using the specified HTTP
+     * protocol version.  See the class-level JavaDoc for a usage example.
+     *
+     * @param clientCredentials    the Stormpath account credentials that will be used to authenticate the client with
+     *                             Stormpath's API server
+     * @param apiKeyResolver       Stormpath API Key resolver
+     * @param baseUrlResolver      Stormpath base URL resolver
+     * @param proxy                the HTTP proxy to be used when communicating with the Stormpath API server (can be
+     *                             null)
+     * @param cacheManager         the {@link com.stormpath.sdk.cache.CacheManager} that should be used to cache
+     *                             Stormpath REST resources (can be null)
+     * @param authenticationScheme the HTTP authentication scheme to be used when communicating with the Stormpath API
+     *                             server (can be null)
+     * @param tenantResolver       resolver which returns current tenant details (can be null)
+     * @param httpProtocol         the HTTP protocol version to be used when communicating with the Stormpath API
+     *                             server (can be null)
+     * @since 2.0.5
+     */
+    public DefaultClient(ClientCredentials clientCredentials, ApiKeyResolver apiKeyResolver, BaseUrlResolver baseUrlResolver, Proxy proxy, CacheManager cacheManager, AuthenticationScheme authenticationScheme, RequestAuthenticatorFactory requestAuthenticatorFactory, int connectionTimeout, TenantResolver tenantResolver, HttpProtocol httpProtocol) {
+        Assert.notNull(clientCredentials, "clientCredentials argument cannot be null.");
+        Assert.notNull(apiKeyResolver, "apiKeyResolver argument cannot be null.");
+        Assert.notNull(baseUrlResolver, "baseUrlResolver argument cannot be null.");
+        Assert.isTrue(connectionTimeout >= 0, "connectionTimeout cannot be a negative number.");
+        RequestExecutor requestExecutor = createRequestExecutor(clientCredentials, proxy, authenticationScheme, requestAuthenticatorFactory, connectionTimeout, httpProtocol);
+        this.dataStore = createDataStore(requestExecutor, baseUrlResolver, clientCredentials, apiKeyResolver, cacheManager);
+        this.tenantResolver = tenantResolver != null ? tenantResolver : new DefaultTenantResolver(dataStore);
+    }
+
     /**
      * @since 1.2.0
      */
@@ -157,15 +202,49 @@ public class DefaultClient implements Client {
         return this.dataStore;
     }
 
+    /**
+     * Releases the threads and connections held by the underlying {@code DataStore} and its {@code RequestExecutor}.
+     * The client cannot be used afterwards.
+     *
+     * @throws IOException if the request executor could not be closed
+     * @since 2.0.5
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.dataStore instanceof Closeable) {
+            ((Closeable) this.dataStore).close();
+        }
+    }
+
     @SuppressWarnings({"unchecked", "rawtypes"})
-    private RequestExecutor createRequestExecutor(ClientCredentials clientCredentials, Proxy proxy, AuthenticationScheme authenticationScheme, RequestAuthenticatorFactory requestAuthenticatorFactory, int connectionTimeout) {
+    private RequestExecutor createRequestExecutor(ClientCredentials clientCredentials, Proxy proxy, AuthenticationScheme authenticationScheme, RequestAuthenticatorFactory requestAuthenticatorFactory, int connectionTimeout, HttpProtocol httpProtocol) {
 
         String className = "com.stormpath.sdk.impl.http.httpclient.HttpClientRequestExecutor";
 
+        //@since 2.0.5: the non-blocking executor starts its own I/O reactor and connection pool, so it is only used
+        //when explicitly enabled (and the optional Apache HttpAsyncClient is available):
+        String asyncClassName = "com.stormpath.sdk.impl.http.httpclient.HttpAsyncClientRequestExecutor";
+        if (Boolean.getBoolean(ASYNC_REQUEST_EXECUTOR_ENABLED_PROPERTY_KEY) && Classes.isAvailable(asyncClassName) &&
+            Classes.isAvailable("org.apache.http.nio.client.HttpAsyncClient")) {
+            className = asyncClassName;
+        }
+
+        //@since 2.0.5: HTTP/2 is spoken by the java.net.http.HttpClient executor, which is also used when it is the
+        //only implementation available and no protocol has been explicitly configured:
+        String jdkClassName = "com.stormpath.sdk.impl.http.jdk.JdkHttpClientRequestExecutor";
+        if (httpProtocol == HttpProtocol.HTTP_2 || (httpProtocol == null && !Classes.isAvailable(className) && Classes.isAvailable(jdkClassName))) {
+            className = jdkClassName;
+        }
+
         Class requestExecutorClass;
 
         if (Classes.isAvailable(className)) {
             requestExecutorClass = Classes.forName(className);
+        } else if (className.equals(jdkClassName)) {
+            String msg = "Unable to find the '" + className + "' implementation on the classpath.  Please ensure you " +
+                    "have added the stormpath-sdk-httpclient-jdk .jar file to your runtime classpath and are running " +
+                    "on Java 11 or later to use " + HttpProtocol.HTTP_2 + ".";
+            throw new RuntimeException(msg);
         } else {
             //we might be able to check for other implementations in the future, but for now, we only support
             //HTTP calls via the HttpClient.  Throw an exception:
@@ -177,7 +256,14 @@ public class DefaultClient implements Client {
 
         Constructor<RequestExecutor> ctor = Classes.getConstructor(requestExecutorClass, ClientCredentials.class, Proxy.class, AuthenticationScheme.class, RequestAuthenticatorFactory.class, Integer.class);
 
-        return Classes.instantiate(ctor, clientCredentials, proxy, authenticationScheme, requestAuthenticatorFactory, connectionTimeout);
+        RequestExecutor requestExecutor = Classes.instantiate(ctor, clientCredentials, proxy, authenticationScheme, requestAuthenticatorFactory, connectionTimeout);
+
+        //@since 2.0.5: fail fast instead of piling up requests to a slow or failing server:
+        if (Boolean.getBoolean(AdmissionControlRequestExecutor.ENABLED_PROPERTY_KEY)) {
+            requestExecutor = AdmissionControlRequestExecutor.wrap(requestExecutor);
+        }
+
+        return requestExecutor;
     }
 
     // ========================================================================
@@ -227,6 +313,32 @@ public class DefaultClient implements Client {
         return this.dataStore.getResource(href, clazz, options);
     }
 
+    /**
+     * Delegates to the internal {@code dataStore} instance. This is a convenience mechanism to eliminate the constant
+     * need to call {@code client.getDataStore()} every time one needs to look up multiple Resources.
+     *
+     * @since 2.0.5
+     */
+    public <T extends Resource> List<ResourceResult<T>> getResources(Collection<String> hrefs, Class<T> clazz) {
+        return getDefaultDataStore().getResources(hrefs, clazz);
+    }
+
+    /**
+     * Delegates to the internal {@code dataStore} instance. This is a convenience mechanism to eliminate the constant
+     * need to call {@code client.getDataStore()} every time one needs to look up multiple Resources.
+     *
+     * @since 2.0.5
+     */
+    public <T extends Resource> List<ResourceResult<T>> getResources(Collection<String> hrefs, Class<T> clazz, int maxConcurrentRequests) {
+        return getDefaultDataStore().getResources(hrefs, clazz, maxConcurrentRequests);
+    }
+
+    private DefaultDataStore getDefaultDataStore() {
+        Assert.isInstanceOf(DefaultDataStore.class, this.dataStore, "Bulk lookups require a " +
+                DefaultDataStore.class.getName() + " instance.");
+        return (DefaultDataStore) this.dataStore;
+    }
+
     /**
      * {@inheritDoc}
      *
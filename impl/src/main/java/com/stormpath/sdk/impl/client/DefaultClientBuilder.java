@@ -28,6 +28,7 @@ import com.stormpath.sdk.cache.Caches;
 import com.stormpath.sdk.client.AuthenticationScheme;
 import com.stormpath.sdk.client.Client;
 import com.stormpath.sdk.client.ClientBuilder;
+import com.stormpath.sdk.client.HttpProtocol;
 import com.stormpath.sdk.client.Proxy;
 import com.stormpath.sdk.impl.authc.credentials.ApiKeyCredentials;
 import com.stormpath.sdk.impl.http.authc.RequestAuthenticatorFactory;
@@ -185,6 +186,10 @@ public class DefaultClientBuilder implements ClientBuilder {
             clientConfig.setAuthenticationScheme(Enum.valueOf(AuthenticationScheme.class, props.get(DEFAULT_CLIENT_AUTHENTICATION_SCHEME_PROPERTY_NAME)));
         }
 
+        if (props.get(DEFAULT_CLIENT_HTTP_PROTOCOL_PROPERTY_NAME) != null) {
+            clientConfig.setHttpProtocol(Enum.valueOf(HttpProtocol.class, props.get(DEFAULT_CLIENT_HTTP_PROTOCOL_PROPERTY_NAME)));
+        }
+
         if (props.get(DEFAULT_CLIENT_PROXY_PORT_PROPERTY_NAME) != null) {
             clientConfig.setProxyPort(Integer.valueOf(props.get(DEFAULT_CLIENT_PROXY_PORT_PROPERTY_NAME)));
         }
@@ -240,6 +245,33 @@ public class DefaultClientBuilder implements ClientBuilder {
         return this;
     }
 
+    /**
+     * Sets the HTTP protocol version used to communicate with the Stormpath API server.
+     *
+     * <p>Applications issuing many concurrent requests may benefit from {@link HttpProtocol#HTTP_2}: concurrent
+     * requests are multiplexed as streams over a handful of connections instead of each one holding a connection (and
+     * TLS session) of its own.  This requires Java 11 or later and the {@code stormpath-sdk-httpclient-jdk} .jar on the
+     * runtime classpath:</p>
+     * <pre>
+     * Client client = ((DefaultClientBuilder) Clients.builder())
+     *    .setHttpProtocol(HttpProtocol.HTTP_2)
+     *    .build(); //build the Client
+     * </pre>
+     *
+     * <p>This may also be configured with the {@code stormpath.client.httpProtocol} property, which does not require
+     * a reference to this implementation class.</p>
+     *
+     * @param httpProtocol the HTTP protocol version to use, or {@code null} to select it based on the available
+     *                     {@code RequestExecutor} implementations.
+     * @return the ClientBuilder instance for method chaining
+     * @see HttpProtocol
+     * @since 2.0.5
+     */
+    public ClientBuilder setHttpProtocol(HttpProtocol httpProtocol) {
+        this.clientConfig.setHttpProtocol(httpProtocol);
+        return this;
+    }
+
     public ClientBuilder setRequestAuthenticatorFactory(RequestAuthenticatorFactory factory) {
         Assert.notNull(factory, "factory argument cannot be null");
         this.clientConfig.setRequestAuthenticatorFactory(factory);
@@ -343,14 +375,9 @@ public class DefaultClientBuilder implements ClientBuilder {
             baseUrlResolver = new DefaultBaseUrlResolver(this.clientConfig.getBaseUrl());
         }
 
-        if (this.clientConfig.getTenantResolver() != null) {
-            return new DefaultClient(clientCredentials, apiKeyResolver, baseUrlResolver, this.proxy, this.cacheManager,
-                    this.clientConfig.getAuthenticationScheme(), this.clientConfig.getRequestAuthenticatorFactory(), this.clientConfig.getConnectionTimeout(), this.clientConfig.getTenantResolver());
-        }
-
-
         return new DefaultClient(clientCredentials, apiKeyResolver, baseUrlResolver, this.proxy, this.cacheManager,
-                this.clientConfig.getAuthenticationScheme(), this.clientConfig.getRequestAuthenticatorFactory(), this.clientConfig.getConnectionTimeout());
+                this.clientConfig.getAuthenticationScheme(), this.clientConfig.getRequestAuthenticatorFactory(), this.clientConfig.getConnectionTimeout(),
+                this.clientConfig.getTenantResolver(), this.clientConfig.getHttpProtocol());
     }
 
     @Override
@@ -4,6 +4,7 @@ import com.stormpath.sdk.impl.api.ApiKeyResolver;
 import com.stormpath.sdk.impl.http.authc.RequestAuthenticatorFactory;
 import com.stormpath.sdk.cache.CacheConfigurationBuilder;
 import com.stormpath.sdk.client.AuthenticationScheme;
+import com.stormpath.sdk.client.HttpProtocol;
 import com.stormpath.sdk.impl.tenant.TenantResolver;
 import com.stormpath.sdk.impl.util.BaseUrlResolver;
 
@@ -32,6 +33,7 @@ public class ClientConfiguration {
     private String baseUrl;
     private int connectionTimeout;
     private AuthenticationScheme authenticationScheme;
+    private HttpProtocol httpProtocol; //@since 2.0.5
     private RequestAuthenticatorFactory requestAuthenticatorFactory;
     private int proxyPort;
     private String proxyHost;
@@ -86,6 +88,20 @@ public class ClientConfiguration {
         this.authenticationScheme = authenticationScheme;
     }
 
+    /**
+     * @since 2.0.5
+     */
+    public HttpProtocol getHttpProtocol() {
+        return httpProtocol;
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    public void setHttpProtocol(HttpProtocol httpProtocol) {
+        this.httpProtocol = httpProtocol;
+    }
+
     public RequestAuthenticatorFactory getRequestAuthenticatorFactory() {
         return requestAuthenticatorFactory;
     }
@@ -239,6 +255,7 @@ public class ClientConfiguration {
                 ", baseUrl='" + baseUrl + '\'' +
                 ", connectionTimeout=" + connectionTimeout +
                 ", authenticationScheme=" + authenticationScheme +
+                ", httpProtocol=" + httpProtocol +
                 ", proxyPort=" + proxyPort +
                 ", proxyHost='" + proxyHost + '\'' +
                 ", proxyUsername='" + proxyUsername + '\'' +
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.ds;
+
+import com.stormpath.sdk.impl.util.ResultFuture;
+import com.stormpath.sdk.resource.Resource;
+import com.stormpath.sdk.resource.Saveable;
+
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Non-blocking variant of the {@link InternalDataStore} operations.  Every method returns immediately with a
+ * {@link ResultFuture} that will be completed once the resource data is available, either from the cache or from
+ * the server.
+ * <p>
+ * Requests travel through the same filter chain as the blocking API, so caching, API key encryption and the other
+ * data store behaviors are identical.  Operations are only truly non-blocking when the data store is backed by an
+ * {@link com.stormpath.sdk.impl.http.AsyncRequestExecutor AsyncRequestExecutor}; otherwise the HTTP request is
+ * executed on the calling thread and an already-completed future is returned.
+ *
+ * @since 2.0.5
+ */
+public interface AsyncDataStore {
+
+    <T extends Resource> ResultFuture<T> getResourceAsync(String href, Class<T> clazz);
+
+    <T extends Resource> ResultFuture<T> getResourceAsync(String href, Class<T> clazz, Map<String, Object> queryParameters);
+
+    <T extends Resource> ResultFuture<T> createAsync(String parentHref, T resource);
+
+    <T extends Resource, R extends Resource> ResultFuture<R> createAsync(String parentHref, T resource, Class<? extends R> returnType);
+
+    <T extends Resource & Saveable> ResultFuture<T> saveAsync(T resource);
+
+    <T extends Resource & Saveable, R extends Resource> ResultFuture<R> saveAsync(T resource, Class<? extends R> returnType);
+
+    <T extends Resource> ResultFuture<Void> deleteAsync(T resource);
+
+    /**
+     * Returns the bounded pool of daemon threads owned by this data store that runs its background lookups, e.g. bulk
+     * lookups and page prefetches.  Work the pool can not take runs on the calling thread.  The pool is shut down with
+     * the data store.
+     *
+     * @return the executor of this data store's background lookups.
+     */
+    Executor getBackgroundExecutor();
+
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.ds;
+
+import com.stormpath.sdk.impl.util.ResultFuture;
+
+/**
+ * Non-blocking counterpart of {@link Filter}: implementations may short-circuit the chain by returning an already
+ * completed future (e.g. on a cache hit) or transform the result of the future returned by the rest of the chain.
+ *
+ * @since 2.0.5
+ */
+public interface AsyncFilter {
+
+    ResultFuture<ResourceDataResult> filter(ResourceDataRequest request, AsyncFilterChain chain);
+
+}
@@ -0,0 +1,339 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.ds;
+
+import com.stormpath.sdk.impl.util.ResultFuture;
+import com.stormpath.sdk.lang.Assert;
+import com.stormpath.sdk.resource.Resource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds the {@code DataStore} filters compiled into one filter list per (action, resource class) combination.  Each
+ * compiled list only contains the filters that can affect such requests (see {@link ConditionalFilter}), and is
+ * computed once and reused for all subsequent requests.
+ * <p/>
+ * If {@link CompletionHandlers} are specified, each combination is also compiled into a stateless
+ * {@link #getChain(ResourceAction, Class, Class) filter chain} ending with the completion handler of its action, so
+ * that a request does not need a chain instance of its own to track its position.
+ *
+ * @since 2.0.5
+ */
+public class CompiledFilters {
+
+    private final List<Filter> filters;
+
+    private final CompletionHandlers completionHandlers;
+
+    private final Map<ResourceAction, ConcurrentMap<Object, Pipeline>> pipelines;
+
+    public CompiledFilters(List<Filter> filters) {
+        this(filters, null);
+    }
+
+    /**
+     * Creates compiled filters whose chains end with the handlers returned by the specified {@code completionHandlers}.
+     *
+     * @param filters            the filters to compile
+     * @param completionHandlers the source of the handlers ending the compiled chains, or {@code null} if only
+     *                           filter lists are compiled
+     */
+    public CompiledFilters(List<Filter> filters, CompletionHandlers completionHandlers) {
+        Assert.notNull(filters, "filters cannot be null.");
+        for (Filter filter : filters) {
+            //every filter must also support the non-blocking path:
+            Assert.isInstanceOf(AsyncFilter.class, filter, "All DataStore filters must implement " + AsyncFilter.class.getName());
+        }
+        this.filters = new ArrayList<Filter>(filters);
+        this.completionHandlers = completionHandlers;
+        this.pipelines = new EnumMap<ResourceAction, ConcurrentMap<Object, Pipeline>>(ResourceAction.class);
+        for (ResourceAction action : ResourceAction.values()) {
+            this.pipelines.put(action, new ConcurrentHashMap<Object, Pipeline>());
+        }
+    }
+
+    /**
+     * Returns the filters to apply to requests with the specified action and resource class, where the result is
+     * expected to be of the same resource class.
+     *
+     * @param action        the request action
+     * @param resourceClass the request and result resource class
+     * @return the filters to apply, never {@code null}.
+     */
+    public List<Filter> getFilters(ResourceAction action, Class<? extends Resource> resourceClass) {
+        return getPipeline(action, resourceClass, resourceClass).filters;
+    }
+
+    /**
+     * Returns the filters to apply to requests with the specified action and resource classes.
+     *
+     * @param action        the request action
+     * @param resourceClass the request resource class
+     * @param resultClass   the expected result resource class
+     * @return the filters to apply, never {@code null}.
+     */
+    public List<Filter> getFilters(ResourceAction action, Class<? extends Resource> resourceClass, Class<? extends Resource> resultClass) {
+        return getPipeline(action, resourceClass, resultClass).filters;
+    }
+
+    /**
+     * Returns the non-blocking equivalent of {@link #getFilters(ResourceAction, Class)}.
+     *
+     * @param action        the request action
+     * @param resourceClass the request and result resource class
+     * @return the filters to apply, never {@code null}.
+     */
+    public List<AsyncFilter> getAsyncFilters(ResourceAction action, Class<? extends Resource> resourceClass) {
+        return getPipeline(action, resourceClass, resourceClass).asyncFilters;
+    }
+
+    /**
+     * Returns the non-blocking equivalent of {@link #getFilters(ResourceAction, Class, Class)}.
+     *
+     * @param action        the request action
+     * @param resourceClass the request resource class
+     * @param resultClass   the expected result resource class
+     * @return the filters to apply, never {@code null}.
+     */
+    public List<AsyncFilter> getAsyncFilters(ResourceAction action, Class<? extends Resource> resourceClass, Class<? extends Resource> resultClass) {
+        return getPipeline(action, resourceClass, resultClass).asyncFilters;
+    }
+
+    /**
+     * Returns the compiled chain of the filters to apply to requests with the specified action and resource class,
+     * where the result is expected to be of the same resource class.  The chain holds no per-request state and can be
+     * invoked by any number of requests concurrently.
+     *
+     * @param action        the request action
+     * @param resourceClass the request and result resource class
+     * @return the compiled filter chain, never {@code null}.
+     * @throws IllegalStateException if no completion handler is available for the action
+     */
+    public FilterChain getChain(ResourceAction action, Class<? extends Resource> resourceClass) {
+        return getChain(action, resourceClass, resourceClass);
+    }
+
+    /**
+     * Returns the compiled chain of the filters to apply to requests with the specified action and resource classes.
+     * The chain holds no per-request state and can be invoked by any number of requests concurrently.
+     *
+     * @param action        the request action
+     * @param resourceClass the request resource class
+     * @param resultClass   the expected result resource class
+     * @return the compiled filter chain, never {@code null}.
+     * @throws IllegalStateException if no completion handler is available for the action
+     */
+    public FilterChain getChain(ResourceAction action, Class<? extends Resource> resourceClass, Class<? extends Resource> resultClass) {
+        FilterChain chain = getPipeline(action, resourceClass, resultClass).chain;
+        if (chain == null) {
+            throw new IllegalStateException("No completion handler is available for " + action + " requests.");
+        }
+        return chain;
+    }
+
+    /**
+     * Returns the non-blocking equivalent of {@link #getChain(ResourceAction, Class)}.
+     *
+     * @param action        the request action
+     * @param resourceClass the request and result resource class
+     * @return the compiled filter chain, never {@code null}.
+     * @throws IllegalStateException if no completion handler is available for the action
+     */
+    public AsyncFilterChain getAsyncChain(ResourceAction action, Class<? extends Resource> resourceClass) {
+        return getAsyncChain(action, resourceClass, resourceClass);
+    }
+
+    /**
+     * Returns the non-blocking equivalent of {@link #getChain(ResourceAction, Class, Class)}.
+     *
+     * @param action        the request action
+     * @param resourceClass the request resource class
+     * @param resultClass   the expected result resource class
+     * @return the compiled filter chain, never {@code null}.
+     * @throws IllegalStateException if no completion handler is available for the action
+     */
+    public AsyncFilterChain getAsyncChain(ResourceAction action, Class<? extends Resource> resourceClass, Class<? extends Resource> resultClass) {
+        AsyncFilterChain chain = getPipeline(action, resourceClass, resultClass).asyncChain;
+        if (chain == null) {
+            throw new IllegalStateException("No completion handler is available for " + action + " requests.");
+        }
+        return chain;
+    }
+
+    private Pipeline getPipeline(ResourceAction action, Class<? extends Resource> resourceClass, Class<? extends Resource> resultClass) {
+
+        Assert.notNull(action, "action cannot be null.");
+        Assert.notNull(resourceClass, "resourceClass cannot be null.");
+        Assert.notNull(resultClass, "resultClass cannot be null.");
+
+        //the resource class alone is the key for the common case, so reads and deletes do not allocate a key:
+        Object key = resourceClass == resultClass ? resourceClass : new ClassPair(resourceClass, resultClass);
+
+        ConcurrentMap<Object, Pipeline> actionPipelines = this.pipelines.get(action);
+        Pipeline pipeline = actionPipelines.get(key);
+        if (pipeline == null) {
+            pipeline = compile(action, resourceClass, resultClass);
+            Pipeline existing = actionPipelines.putIfAbsent(key, pipeline);
+            if (existing != null) {
+                pipeline = existing;
+            }
+        }
+        return pipeline;
+    }
+
+    private Pipeline compile(ResourceAction action, Class<? extends Resource> resourceClass, Class<? extends Resource> resultClass) {
+
+        List<Filter> applicable = new ArrayList<Filter>(this.filters.size());
+        List<AsyncFilter> asyncApplicable = new ArrayList<AsyncFilter>(this.filters.size());
+
+        for (Filter filter : this.filters) {
+            if (filter instanceof ConditionalFilter &&
+                !((ConditionalFilter) filter).isApplicable(action, resourceClass, resultClass)) {
+                continue;
+            }
+            applicable.add(filter);
+            asyncApplicable.add((AsyncFilter) filter);
+        }
+
+        FilterChain chain = null;
+        AsyncFilterChain asyncChain = null;
+        if (this.completionHandlers != null) {
+            chain = this.completionHandlers.getCompletionHandler(action, resultClass);
+            asyncChain = this.completionHandlers.getAsyncCompletionHandler(action, resultClass);
+            //link the filters from the last one, so each one invokes the rest of the chain:
+            for (int i = applicable.size() - 1; i >= 0; i--) {
+                if (chain != null) {
+                    chain = new Link(applicable.get(i), chain);
+                }
+                if (asyncChain != null) {
+                    asyncChain = new AsyncLink(asyncApplicable.get(i), asyncChain);
+                }
+            }
+        }
+
+        return new Pipeline(Collections.unmodifiableList(applicable), Collections.unmodifiableList(asyncApplicable),
+                            chain, asyncChain);
+    }
+
+    /**
+     * Provides the handlers ending the compiled filter chains, which typically send the request to the server.
+     */
+    public interface CompletionHandlers {
+
+        /**
+         * Returns the handler invoked after the last filter of the chain of requests with the specified action and
+         * result resource class, or {@code null} if there is none.
+         *
+         * @param action      the request action
+         * @param resultClass the expected result resource class
+         * @return the handler ending the chain, or {@code null} if there is none.
+         */
+        FilterChain getCompletionHandler(ResourceAction action, Class<? extends Resource> resultClass);
+
+        /**
+         * Returns the non-blocking equivalent of {@link #getCompletionHandler(ResourceAction, Class)}.
+         *
+         * @param action      the request action
+         * @param resultClass the expected result resource class
+         * @return the handler ending the chain, or {@code null} if there is none.
+         */
+        AsyncFilterChain getAsyncCompletionHandler(ResourceAction action, Class<? extends Resource> resultClass);
+    }
+
+    private static final class Pipeline {
+
+        private final List<Filter> filters;
+        private final List<AsyncFilter> asyncFilters;
+        private final FilterChain chain;
+        private final AsyncFilterChain asyncChain;
+
+        private Pipeline(List<Filter> filters, List<AsyncFilter> asyncFilters, FilterChain chain, AsyncFilterChain asyncChain) {
+            this.filters = filters;
+            this.asyncFilters = asyncFilters;
+            this.chain = chain;
+            this.asyncChain = asyncChain;
+        }
+    }
+
+    /**
+     * Invokes a filter with the rest of the chain.
+     */
+    private static final class Link implements FilterChain {
+
+        private final Filter filter;
+        private final FilterChain next;
+
+        private Link(Filter filter, FilterChain next) {
+            this.filter = filter;
+            this.next = next;
+        }
+
+        @Override
+        public ResourceDataResult filter(ResourceDataRequest request) {
+            return filter.filter(request, next);
+        }
+    }
+
+    private static final class AsyncLink implements AsyncFilterChain {
+
+        private final AsyncFilter filter;
+        private final AsyncFilterChain next;
+
+        private AsyncLink(AsyncFilter filter, AsyncFilterChain next) {
+            this.filter = filter;
+            this.next = next;
+        }
+
+        @Override
+        public ResultFuture<ResourceDataResult> filter(ResourceDataRequest request) {
+            return filter.filter(request, next);
+        }
+    }
+
+    private static final class ClassPair {
+
+        private final Class<?> resourceClass;
+        private final Class<?> resultClass;
+
+        private ClassPair(Class<?> resourceClass, Class<?> resultClass) {
+            this.resourceClass = resourceClass;
+            this.resultClass = resultClass;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ClassPair)) {
+                return false;
+            }
+            ClassPair other = (ClassPair) o;
+            return resourceClass == other.resourceClass && resultClass == other.resultClass;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * resourceClass.hashCode() + resultClass.hashCode();
+        }
+    }
+}
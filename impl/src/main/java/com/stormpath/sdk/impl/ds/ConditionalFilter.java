@@ -0,0 +1,44 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.ds;
+
+import com.stormpath.sdk.resource.Resource;
+
+/**
+ * A {@link Filter} that can tell, based only on the request action and resource types, whether it could possibly
+ * affect a request.  The {@code DataStore} uses this to leave the filter out of the filter chain for requests it
+ * cannot apply to, instead of invoking it (and re-evaluating its type checks) on every request.
+ * <p>
+ * Filters that do not implement this interface are always part of the filter chain.
+ *
+ * @see CompiledFilters
+ * @since 2.0.5
+ */
+public interface ConditionalFilter extends Filter {
+
+    /**
+     * Returns {@code false} if this filter never has any effect on requests with the specified action and resource
+     * types, {@code true} otherwise.
+     *
+     * @param action        the request action
+     * @param resourceClass the resource class of the request
+     * @param resultClass   the resource class of the expected result, which differs from the request's resource
+     *                      class for example when a {@code LoginAttempt} is created and an {@code AuthenticationResult}
+     *                      is returned
+     * @return {@code false} if this filter never has any effect on such requests, {@code true} otherwise.
+     */
+    boolean isApplicable(ResourceAction action, Class<? extends Resource> resourceClass, Class<? extends Resource> resultClass);
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.ds;
+
+import com.stormpath.sdk.impl.http.HttpHeaders;
+import com.stormpath.sdk.lang.Assert;
+
+import java.util.Map;
+
+/**
+ * A read request for a resource whose previously cached representation has expired but may still be current.  The
+ * request carries the {@code If-None-Match} and/or {@code If-Modified-Since} headers identifying that representation,
+ * as well as the representation itself so it can be used as the result if the server responds with
+ * {@code 304 Not Modified}.
+ *
+ * @since 2.0.5
+ */
+public class ConditionalResourceDataRequest extends DefaultResourceDataRequest {
+
+    private final Map<String, Object> cachedData;
+
+    public ConditionalResourceDataRequest(ResourceDataRequest request, Map<String, Object> cachedData, String eTag, long lastModified) {
+        super(request.getAction(), request.getUri(), request.getResourceClass(), request.getData(),
+              createConditionalHeaders(request.getHttpHeaders(), eTag, lastModified));
+        Assert.notEmpty(cachedData, "cachedData cannot be null or empty.");
+        this.cachedData = cachedData;
+    }
+
+    private static HttpHeaders createConditionalHeaders(HttpHeaders original, String eTag, long lastModified) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(original);
+        if (eTag != null) {
+            headers.setIfNoneMatch(eTag);
+        }
+        if (lastModified >= 0) {
+            headers.setIfModifiedSince(lastModified);
+        }
+        return headers;
+    }
+
+    /**
+     * Returns the previously cached representation of the requested resource, to be used as the result of this
+     * request if the server indicates that it has not been modified.
+     *
+     * @return the previously cached representation of the requested resource.
+     */
+    public Map<String, Object> getCachedData() {
+        return cachedData;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.ds;
+
+import com.stormpath.sdk.impl.util.ResultFuture;
+import com.stormpath.sdk.lang.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * @since 2.0.5
+ */
+public class DefaultAsyncFilterChain implements AsyncFilterChain {
+
+    private static final Logger log = LoggerFactory.getLogger(DefaultAsyncFilterChain.class);
+
+    private final List<AsyncFilter> filters;
+    private int index = 0;
+    private final AsyncFilterChain COMPLETION_HANDLER;
+
+    public DefaultAsyncFilterChain(List<AsyncFilter> filters, AsyncFilterChain completionHandler) {
+        this.filters = filters;
+        Assert.notNull(completionHandler, "completionHandler cannot be null.");
+        this.COMPLETION_HANDLER = completionHandler;
+    }
+
+    @Override
+    public ResultFuture<ResourceDataResult> filter(ResourceDataRequest request) {
+        if (this.filters == null || this.filters.size() == this.index) {
+            //we've reached the end of the wrapped chain, so invoke the original one:
+            if (log.isTraceEnabled()) {
+                log.trace("Invoking async completion handler.");
+            }
+
+            return this.COMPLETION_HANDLER.filter(request);
+        } else {
+            if (log.isTraceEnabled()) {
+                log.trace("Invoking wrapped async filter at index [" + this.index + "]");
+            }
+            return this.filters.get(this.index++).filter(request, this);
+        }
+    }
+}
@@ -17,23 +17,30 @@ package com.stormpath.sdk.impl.ds;
 
 import com.stormpath.sdk.api.ApiKey;
 import com.stormpath.sdk.application.Application;
+import com.stormpath.sdk.cache.CacheInvalidationBus;
 import com.stormpath.sdk.cache.CacheManager;
 import com.stormpath.sdk.client.PairedApiKey;
 import com.stormpath.sdk.ds.DataStore;
+import com.stormpath.sdk.ds.ResourceResult;
 import com.stormpath.sdk.http.HttpMethod;
 import com.stormpath.sdk.impl.api.ApiKeyResolver;
 import com.stormpath.sdk.impl.application.OktaApplication;
 import com.stormpath.sdk.impl.authc.credentials.ApiKeyCredentials;
 import com.stormpath.sdk.impl.authc.credentials.ClientCredentials;
+import com.stormpath.sdk.impl.cache.DefaultCacheManager;
 import com.stormpath.sdk.impl.cache.DisabledCacheManager;
 import com.stormpath.sdk.impl.ds.api.ApiKeyQueryFilter;
 import com.stormpath.sdk.impl.ds.api.DecryptApiKeySecretFilter;
+import com.stormpath.sdk.impl.ds.cache.CacheRefresher;
 import com.stormpath.sdk.impl.ds.cache.CacheResolver;
 import com.stormpath.sdk.impl.ds.cache.DefaultCacheResolver;
 import com.stormpath.sdk.impl.ds.cache.ReadCacheFilter;
+import com.stormpath.sdk.impl.ds.cache.NegativeCache;
+import com.stormpath.sdk.impl.ds.cache.RevalidationCache;
 import com.stormpath.sdk.impl.ds.cache.WriteCacheFilter;
 import com.stormpath.sdk.impl.error.DefaultError;
 import com.stormpath.sdk.impl.error.OktaError;
+import com.stormpath.sdk.impl.http.AsyncRequestExecutor;
 import com.stormpath.sdk.impl.http.CanonicalUri;
 import com.stormpath.sdk.impl.http.HttpHeaders;
 import com.stormpath.sdk.impl.http.HttpHeadersHolder;
@@ -53,10 +60,13 @@ import com.stormpath.sdk.impl.query.DefaultOptions;
 import com.stormpath.sdk.impl.resource.AbstractResource;
 import com.stormpath.sdk.impl.resource.ReferenceFactory;
 import com.stormpath.sdk.impl.util.BaseUrlResolver;
+import com.stormpath.sdk.impl.util.DaemonThreadFactory;
 import com.stormpath.sdk.impl.util.DefaultBaseUrlResolver;
+import com.stormpath.sdk.impl.util.ResultFuture;
 import com.stormpath.sdk.impl.util.StringInputStream;
 import com.stormpath.sdk.lang.Assert;
 import com.stormpath.sdk.lang.Collections;
+import com.stormpath.sdk.lang.Function;
 import com.stormpath.sdk.lang.Strings;
 import com.stormpath.sdk.provider.ProviderData;
 import com.stormpath.sdk.query.Criteria;
@@ -69,15 +79,28 @@ import com.stormpath.sdk.resource.VoidResource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
 import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import static com.stormpath.sdk.impl.http.HttpHeaders.STORMPATH_AGENT;
 import static com.stormpath.sdk.impl.http.HttpHeaders.STORMPATH_CLIENT_REQUEST_ID;
@@ -85,7 +108,7 @@ import static com.stormpath.sdk.impl.http.HttpHeaders.STORMPATH_CLIENT_REQUEST_I
 /**
  * @since 0.1
  */
-public class DefaultDataStore implements InternalDataStore {
+public class DefaultDataStore implements InternalDataStore, AsyncDataStore, Closeable {
 
     private static final Logger log = LoggerFactory.getLogger(DefaultDataStore.class);
     private static final Logger requestLog = LoggerFactory.getLogger(DataStore.class.getName() + "-request");
@@ -96,6 +119,13 @@ public class DefaultDataStore implements InternalDataStore {
 
     private static final String APPEND_PARAM_CHAR = "&";
 
+    /**
+     * The maximum number of concurrent requests used by {@link #getResources(Collection, Class)}.
+     *
+     * @since 2.0.5
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 8;
+
     public static final String DEFAULT_CRITERIA_MSG = "The " + DefaultDataStore.class.getName() +
                                                       " implementation only functions with " +
                                                       DefaultCriteria.class.getName() + " instances.";
@@ -110,6 +140,75 @@ public class DefaultDataStore implements InternalDataStore {
 
     private static final boolean COLLECTION_CACHING_ENABLED = false; //EXPERIMENTAL - set to true only while developing.
 
+    /**
+     * System property that specifies for how many milliseconds a {@code 404 Not Found} response (or an api key query
+     * by id that did not match any api key) is remembered when caching is enabled, so that repeated lookups of the
+     * same missing href are answered without a server request.  Defaults to {@code 0} (disabled): while an href is
+     * remembered, a resource created at that href by another client or node is not visible to this data store.
+     *
+     * @since 2.0.5
+     */
+    public static final String NEGATIVE_CACHE_TTL_PROPERTY_KEY = "com.stormpath.sdk.impl.ds.DefaultDataStore.negativeCache.ttl";
+
+    private static final long DEFAULT_NEGATIVE_CACHE_TTL = 0;
+
+    private static long getNegativeCacheTtl() {
+        String ttlString = System.getProperty(NEGATIVE_CACHE_TTL_PROPERTY_KEY);
+        if (ttlString != null) {
+            try {
+                return Long.parseLong(ttlString);
+            } catch (NumberFormatException nfe) {
+                log.warn("Bad negative cache ttl value: {}. Using default: {}.", ttlString, DEFAULT_NEGATIVE_CACHE_TTL, nfe);
+            }
+        }
+        return DEFAULT_NEGATIVE_CACHE_TTL;
+    }
+
+    /**
+     * System properties that specify the maximum number of concurrent background cache refreshes (of stale entries
+     * and entries due for refresh-ahead) and the maximum number of refreshes waiting for a thread.  Refreshes beyond
+     * that are skipped until the entry is read again.
+     *
+     * @since 2.0.5
+     */
+    public static final String CACHE_REFRESH_THREADS_PROPERTY_KEY = "com.stormpath.sdk.impl.ds.DefaultDataStore.cacheRefresh.maxThreads";
+    public static final String CACHE_REFRESH_QUEUE_PROPERTY_KEY = "com.stormpath.sdk.impl.ds.DefaultDataStore.cacheRefresh.queueCapacity";
+
+    static final int CACHE_REFRESH_THREADS = getPositiveInt(CACHE_REFRESH_THREADS_PROPERTY_KEY, CacheRefresher.DEFAULT_MAX_THREADS);
+
+    static final int CACHE_REFRESH_QUEUE_CAPACITY = getPositiveInt(CACHE_REFRESH_QUEUE_PROPERTY_KEY, CacheRefresher.DEFAULT_QUEUE_CAPACITY);
+
+    /**
+     * System properties that specify the maximum number of threads a data store uses for the lookups of
+     * {@link #getResources(Collection, Class, int)} when its {@code RequestExecutor} is blocking, and the maximum number
+     * of lookups waiting for one of them.  These threads are shared by all concurrent bulk lookups; a lookup that finds
+     * them all busy and the queue full runs on the calling thread.
+     *
+     * @since 2.0.5
+     */
+    public static final String BULK_THREADS_PROPERTY_KEY = "com.stormpath.sdk.impl.ds.DefaultDataStore.bulk.maxThreads";
+    public static final String BULK_QUEUE_PROPERTY_KEY = "com.stormpath.sdk.impl.ds.DefaultDataStore.bulk.queueCapacity";
+
+    static final int BULK_THREADS = getPositiveInt(BULK_THREADS_PROPERTY_KEY, DEFAULT_MAX_CONCURRENT_REQUESTS);
+
+    static final int BULK_QUEUE_CAPACITY = getPositiveInt(BULK_QUEUE_PROPERTY_KEY, 4 * DEFAULT_MAX_CONCURRENT_REQUESTS);
+
+    private static int getPositiveInt(String key, int defaultValue) {
+        String value = System.getProperty(key);
+        if (value != null) {
+            try {
+                int i = Integer.parseInt(value);
+                if (i > 0) {
+                    return i;
+                }
+            } catch (NumberFormatException ignored) {
+                //fall through to the warning below
+            }
+            log.warn("Bad {} value: {}. Using default: {}.", key, value, defaultValue);
+        }
+        return defaultValue;
+    }
+
     private static boolean oktaEnabled;
 
     private final RequestExecutor requestExecutor;
@@ -119,9 +218,70 @@ public class DefaultDataStore implements InternalDataStore {
     private final CacheResolver cacheResolver;
     private final ResourceConverter resourceConverter;
     private final QueryStringFactory queryStringFactory;
-    private final List<Filter> filters;
+    private final CompiledFilters filters;
+    private final RequestCoalescingFilter requestCoalescingFilter;
+    private final CacheRefresher cacheRefresher;
     private final ApiKeyResolver apiKeyResolver;
     private final BaseUrlResolver baseUrlResolver;
+    private volatile ExecutorService bulkExecutor;
+
+    /**
+     * Terminates every read filter chain.  It only depends on the request, so a single instance is shared by all
+     * reads instead of being allocated per request.
+     *
+     * @since 2.0.5
+     */
+    private final FilterChain readCompletionHandler = new FilterChain() {
+        @Override
+        public ResourceDataResult filter(final ResourceDataRequest req) {
+            Response getResponse = execute(createGetRequest(req));
+            return toReadResult(req, getResponse);
+        }
+    };
+
+    /**
+     * @since 2.0.5
+     */
+    private final AsyncFilterChain asyncReadCompletionHandler = new AsyncFilterChain() {
+        @Override
+        public ResultFuture<ResourceDataResult> filter(final ResourceDataRequest req) {
+            return executeAsync(createGetRequest(req)).thenApply(new Function<Response, ResourceDataResult>() {
+                @Override
+                public ResourceDataResult apply(Response response) {
+                    return toReadResult(req, response);
+                }
+            });
+        }
+    };
+
+    /**
+     * Terminates every delete filter chain, deleting the resource of the request.
+     *
+     * @since 2.0.5
+     */
+    private final FilterChain deleteCompletionHandler = new FilterChain() {
+        @Override
+        public ResourceDataResult filter(ResourceDataRequest req) {
+            release(execute(createDeleteRequest(req)));
+            return toDeleteResult(req);
+        }
+    };
+
+    /**
+     * @since 2.0.5
+     */
+    private final AsyncFilterChain asyncDeleteCompletionHandler = new AsyncFilterChain() {
+        @Override
+        public ResultFuture<ResourceDataResult> filter(final ResourceDataRequest req) {
+            return executeAsync(createDeleteRequest(req)).thenApply(new Function<Response, ResourceDataResult>() {
+                @Override
+                public ResourceDataResult apply(Response response) {
+                    release(response);
+                    return toDeleteResult(req);
+                }
+            });
+        }
+    };
 
     /**
      * @since 1.0.RC3
@@ -176,24 +336,47 @@ public class DefaultDataStore implements InternalDataStore {
         ReferenceFactory referenceFactory = new ReferenceFactory();
         this.resourceConverter = new DefaultResourceConverter(referenceFactory);
 
-        this.filters = new ArrayList<Filter>();
+        List<Filter> filters = new ArrayList<Filter>();
 
-        this.filters.add(new EnlistmentFilter());
+        filters.add(new EnlistmentFilter());
 
         if(clientCredentials instanceof ApiKeyCredentials) {
-            this.filters.add(new DecryptApiKeySecretFilter((ApiKeyCredentials) clientCredentials));
+            filters.add(new DecryptApiKeySecretFilter((ApiKeyCredentials) clientCredentials));
         }
 
+        //@since 2.0.5: expired cache entries are revalidated with conditional requests instead of being re-fetched:
+        RevalidationCache revalidationCache = isCachingEnabled() ? new RevalidationCache() : null;
+
+        //@since 2.0.5: hrefs found not to exist are remembered for a short while, if enabled:
+        long negativeCacheTtl = getNegativeCacheTtl();
+        NegativeCache negativeCache = isCachingEnabled() && negativeCacheTtl > 0 ? new NegativeCache(negativeCacheTtl) : null;
+
+        //@since 2.0.5: stale entries and entries due for refresh-ahead are refreshed by a bounded pool of threads:
+        this.cacheRefresher = isCachingEnabled() ? new CacheRefresher(CACHE_REFRESH_THREADS, CACHE_REFRESH_QUEUE_CAPACITY) : null;
+
+        if (isCachingEnabled()) {
+            filters.add(new ReadCacheFilter(this.baseUrlResolver, this.cacheResolver, COLLECTION_CACHING_ENABLED, revalidationCache, negativeCache, this.cacheRefresher));
+        }
+
+        //@since 2.0.5: concurrent identical reads that miss the cache share a single server request:
+        this.requestCoalescingFilter = new RequestCoalescingFilter();
+        filters.add(this.requestCoalescingFilter);
+
         if (isCachingEnabled()) {
-            this.filters.add(new ReadCacheFilter(this.baseUrlResolver, this.cacheResolver, COLLECTION_CACHING_ENABLED));
-            this.filters.add(new WriteCacheFilter(this.baseUrlResolver, this.cacheResolver, COLLECTION_CACHING_ENABLED, referenceFactory));
+            //@since 2.0.5: saved and deleted resources are evicted from the caches of other nodes, if configured:
+            CacheInvalidationBus invalidationBus = cacheManager instanceof DefaultCacheManager ?
+                ((DefaultCacheManager) cacheManager).getInvalidationBus() : null;
+            filters.add(new WriteCacheFilter(this.baseUrlResolver, this.cacheResolver, COLLECTION_CACHING_ENABLED, referenceFactory, revalidationCache, negativeCache, invalidationBus));
         }
 
         if(clientCredentials instanceof ApiKeyCredentials) {
-            this.filters.add(new ApiKeyQueryFilter(this.queryStringFactory));
+            filters.add(new ApiKeyQueryFilter(this.queryStringFactory));
         }
 
-        this.filters.add(new ProviderAccountResultFilter());
+        filters.add(new ProviderAccountResultFilter());
+
+        //@since 2.0.5: each request only runs through the filters that can apply to its action and resource type:
+        this.filters = new CompiledFilters(filters, new CompletionHandlers());
     }
 
     @Override
@@ -206,11 +389,66 @@ public class DefaultDataStore implements InternalDataStore {
         return this.apiKeyResolver.getApiKey();
     }
 
+    /**
+     * Returns the filter that coalesces concurrent identical resource reads, exposing how many requests were
+     * coalesced.
+     *
+     * @return the filter that coalesces concurrent identical resource reads.
+     * @since 2.0.5
+     */
+    public RequestCoalescingFilter getRequestCoalescingFilter() {
+        return this.requestCoalescingFilter;
+    }
+
+    /**
+     * Returns the executor of background cache refreshes, exposing how many refreshes were scheduled, completed,
+     * failed or rejected, or {@code null} if caching is disabled.
+     *
+     * @return the executor of background cache refreshes, or {@code null} if caching is disabled.
+     * @since 2.0.5
+     */
+    public CacheRefresher getCacheRefresher() {
+        return this.cacheRefresher;
+    }
+
+    /**
+     * Returns the executor sending the requests of this data store, e.g. to read the state of its
+     * {@link com.stormpath.sdk.impl.http.support.AdmissionControlRequestExecutor admission controllers}.
+     *
+     * @return the executor sending the requests of this data store.
+     * @since 2.0.5
+     */
+    public RequestExecutor getRequestExecutor() {
+        return this.requestExecutor;
+    }
+
     @Override
     public CacheManager getCacheManager() {
         return this.cacheManager;
     }
 
+    /**
+     * Releases the threads and connections of this data store, including its cache refresh threads, closing its
+     * {@code RequestExecutor} if it holds resources.  The data store cannot be used afterwards.
+     *
+     * @throws IOException if the request executor could not be closed
+     * @since 2.0.5
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (this.bulkExecutor != null) {
+                this.bulkExecutor.shutdown();
+            }
+        }
+        if (this.cacheRefresher != null) {
+            this.cacheRefresher.shutdown();
+        }
+        if (this.requestExecutor instanceof Closeable) {
+            ((Closeable) this.requestExecutor).close();
+        }
+    }
+
     /* =====================================================================
        Resource Instantiation
        ===================================================================== */
@@ -333,35 +571,213 @@ public class DefaultDataStore implements InternalDataStore {
         return (T) getResource(href, clazz, (Map) qs);
     }
 
-    @SuppressWarnings("unchecked")
-    private ResourceDataResult getResourceData(String href, Class<? extends Resource> clazz, Map<String,?> queryParameters) {
+    /**
+     * Retrieves the resources at the specified {@code hrefs} and returns them as instances of the specified
+     * {@code clazz}, in the same order as the hrefs were specified. <p/> Resources already present in the cache are
+     * returned from the cache; the remaining resources are retrieved from the server in parallel, using at most
+     * {@link #DEFAULT_MAX_CONCURRENT_REQUESTS} concurrent requests.  Retrieved resources are cached exactly as if they
+     * had been retrieved via {@link #getResource(String, Class)}. <p/> A lookup failure for one href does not fail the
+     * others: each returned {@link ResourceResult} holds either the retrieved resource or the error for that specific
+     * href.
+     * <p/>
+     * This method is not part of the {@link com.stormpath.sdk.ds.DataStore DataStore} interface, so that existing
+     * implementations of that interface keep compiling.
+     *
+     * @param hrefs the URLs of the resources to retrieve
+     * @param clazz the {@link Resource} sub-interface to instantiate
+     * @param <T>   type parameter indicating the returned values are {@link Resource} instances.
+     * @return a result for each specified href, in the same order as the specified hrefs.
+     * @since 2.0.5
+     */
+    public <T extends Resource> List<ResourceResult<T>> getResources(Collection<String> hrefs, Class<T> clazz) {
+        return getResources(hrefs, clazz, DEFAULT_MAX_CONCURRENT_REQUESTS);
+    }
 
-        Assert.hasText(href, "href argument cannot be null or empty.");
+    /**
+     * Retrieves the resources at the specified {@code hrefs} exactly like {@link #getResources(Collection, Class)},
+     * but sends at most {@code maxConcurrentRequests} requests to the server at the same time.
+     * <p/>
+     * Starts one lookup per href, never allowing more than {@code maxConcurrentRequests} lookups to be in flight at
+     * the same time.  Each lookup runs through the regular filter chain, so cache hits are served without a server
+     * request and retrieved resources are written to the cache.  If the configured {@code RequestExecutor} is an
+     * {@link AsyncRequestExecutor}, lookups are dispatched without any additional threads; otherwise they are executed
+     * on a bounded pool of daemon threads owned by this data store (see {@link #BULK_THREADS_PROPERTY_KEY}), or on the
+     * calling thread when that pool is saturated.
+     *
+     * @param hrefs                 the URLs of the resources to retrieve
+     * @param clazz                 the {@link Resource} sub-interface to instantiate
+     * @param maxConcurrentRequests the maximum number of requests that may be executed concurrently, must be
+     *                              greater than zero
+     * @param <T>                   type parameter indicating the returned values are {@link Resource} instances.
+     * @return a result for each specified href, in the same order as the specified hrefs.
+     * @since 2.0.5
+     */
+    public <T extends Resource> List<ResourceResult<T>> getResources(Collection<String> hrefs, Class<T> clazz, int maxConcurrentRequests) {
+
+        Assert.notNull(hrefs, "hrefs argument cannot be null.");
         Assert.notNull(clazz, "Resource class argument cannot be null.");
+        Assert.isTrue(maxConcurrentRequests > 0, "maxConcurrentRequests must be greater than zero.");
 
-        FilterChain chain = new DefaultFilterChain(this.filters, new FilterChain() {
-            @Override
-            public ResourceDataResult filter(final ResourceDataRequest req) {
+        final int size = hrefs.size();
+        final AtomicReferenceArray<ResourceResult<T>> results = new AtomicReferenceArray<ResourceResult<T>>(size);
+        final AtomicReference<Error> fatal = new AtomicReference<Error>();
+        final Semaphore permits = new Semaphore(maxConcurrentRequests);
+        final CountDownLatch remaining = new CountDownLatch(size);
 
-                CanonicalUri uri = req.getUri();
+        try {
+            int i = 0;
+            for (final String href : hrefs) {
+                final int index = i++;
+                permits.acquire();
+                getResourceFuture(href, clazz).whenComplete(new ResultFuture.Listener<T>() {
+                    @Override
+                    public void onSuccess(T resource) {
+                        results.set(index, new DefaultResourceResult<T>(href, resource));
+                        done();
+                    }
 
-                Request getRequest = new DefaultRequest(HttpMethod.GET, uri.getAbsolutePath(), uri.getQuery());
-                Response getResponse = execute(getRequest);
-                Map<String,?> body = getBody(getResponse);
+                    @Override
+                    public void onFailure(Throwable t) {
+                        if (t instanceof Error) {
+                            fatal.compareAndSet(null, (Error) t);
+                        }
+                        RuntimeException e = t instanceof RuntimeException ? (RuntimeException) t :
+                            new IllegalStateException("Unable to retrieve resource " + href + ": " + t.getMessage(), t);
+                        results.set(index, new DefaultResourceResult<T>(href, e));
+                        done();
+                    }
 
-                if (Collections.isEmpty(body)) {
-                    throw new IllegalStateException("Unable to obtain resource data from the API server or from cache.");
-                }
+                    private void done() {
+                        permits.release();
+                        remaining.countDown();
+                    }
+                });
+            }
+            remaining.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for resources.", e);
+        }
+
+        if (fatal.get() != null) {
+            throw fatal.get();
+        }
+
+        List<ResourceResult<T>> list = new ArrayList<ResourceResult<T>>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(results.get(i));
+        }
+        return list;
+    }
+
+    /**
+     * Returns a future for the resource at the specified href.  Any failure, including invalid arguments, is reported
+     * via the returned future so that one bad href does not abort a bulk lookup.
+     *
+     * @since 2.0.5
+     */
+    private <T extends Resource> ResultFuture<T> getResourceFuture(final String href, final Class<T> clazz) {
 
-                return new DefaultResourceDataResult(req.getAction(), uri, req.getResourceClass(), (Map<String,Object>)body);
+        if (this.requestExecutor instanceof AsyncRequestExecutor) {
+            try {
+                return getResourceAsync(href, clazz);
+            } catch (RuntimeException e) {
+                return ResultFuture.failed(e);
+            }
+        }
+
+        final ResultFuture<T> future = new ResultFuture<T>();
+        getBulkExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    future.complete(getResource(href, clazz));
+                } catch (Throwable t) {
+                    future.fail(t);
+                }
             }
         });
+        return future;
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Override
+    public Executor getBackgroundExecutor() {
+        return getBulkExecutor();
+    }
+
+    private ExecutorService getBulkExecutor() {
+        ExecutorService executor = this.bulkExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = this.bulkExecutor;
+                if (executor == null) {
+                    //idle threads are discarded after 60 seconds.  Lookups the pool cannot take run on the calling
+                    //thread, which also keeps a lookup from being dropped after the data store has been closed:
+                    ThreadPoolExecutor pool = new ThreadPoolExecutor(BULK_THREADS, BULK_THREADS, 60, TimeUnit.SECONDS,
+                        new ArrayBlockingQueue<Runnable>(BULK_QUEUE_CAPACITY), new DaemonThreadFactory("stormpath-bulk-fetch"),
+                        new RejectedExecutionHandler() {
+                            @Override
+                            public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+                                r.run();
+                            }
+                        });
+                    pool.allowCoreThreadTimeOut(true);
+                    executor = pool;
+                    this.bulkExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    @SuppressWarnings("unchecked")
+    private ResourceDataResult getResourceData(String href, Class<? extends Resource> clazz, Map<String,?> queryParameters) {
+
+        Assert.hasText(href, "href argument cannot be null or empty.");
+        Assert.notNull(clazz, "Resource class argument cannot be null.");
+
+        FilterChain chain = this.filters.getChain(ResourceAction.READ, clazz);
 
         CanonicalUri uri = canonicalize(href, queryParameters);
         ResourceDataRequest req = new DefaultResourceDataRequest(ResourceAction.READ, uri, clazz, new HashMap<String,Object>());
         return chain.filter(req);
     }
 
+    private Request createGetRequest(ResourceDataRequest req) {
+        CanonicalUri uri = req.getUri();
+        Request request = new DefaultRequest(HttpMethod.GET, uri.getAbsolutePath(), uri.getQuery());
+        //@since 2.0.5: carry the If-None-Match/If-Modified-Since headers of an expired cache entry:
+        if (req instanceof ConditionalResourceDataRequest) {
+            request.getHeaders().putAll(req.getHttpHeaders());
+        }
+        return request;
+    }
+
+    @SuppressWarnings("unchecked")
+    private ResourceDataResult toReadResult(ResourceDataRequest req, Response getResponse) {
+
+        //@since 2.0.5: the expired cache entry is still current - reuse it without reading a response body:
+        if (req instanceof ConditionalResourceDataRequest && getResponse.getHttpStatus() == 304) {
+            release(getResponse);
+            Map<String,Object> cachedData = ((ConditionalResourceDataRequest) req).getCachedData();
+            return new DefaultResourceDataResult(req.getAction(), req.getUri(), req.getResourceClass(), cachedData, getResponse.getHeaders());
+        }
+
+        Map<String,?> body = getBody(getResponse);
+
+        if (Collections.isEmpty(body)) {
+            throw new IllegalStateException("Unable to obtain resource data from the API server or from cache.");
+        }
+
+        //@since 2.0.5: response headers (ETag, Last-Modified) are only needed to revalidate cached data later:
+        HttpHeaders headers = isCachingEnabled() ? getResponse.getHeaders() : null;
+
+        return new DefaultResourceDataResult(req.getAction(), req.getUri(), req.getResourceClass(), (Map<String,Object>)body, headers);
+    }
+
     private ResourceAction getPostAction(ResourceDataRequest request, Response response) {
         int httpStatus = response.getHttpStatus();
         if (httpStatus == 201) {
@@ -441,8 +857,18 @@ public class DefaultDataStore implements InternalDataStore {
         return queryStringFactory.createQueryString(href, defaultOptions);
     }
 
-    @SuppressWarnings("unchecked")
     private <T extends Resource, R extends Resource> R save(String href, final T resource, HttpHeaders requestHeaders, final Class<? extends R> returnType, final QueryString qs, final boolean create) {
+
+        ResourceDataRequest request = createSaveDataRequest(href, resource, requestHeaders, returnType, qs, create);
+
+        FilterChain chain = this.filters.getChain(request.getAction(), request.getResourceClass(), returnType);
+
+        ResourceDataResult result = chain.filter(request);
+
+        return toSavedResource((AbstractResource) resource, returnType, result);
+    }
+
+    private <T extends Resource> ResourceDataRequest createSaveDataRequest(String href, T resource, HttpHeaders requestHeaders, Class<? extends Resource> returnType, QueryString qs, boolean create) {
         Assert.hasText(href, "href argument cannot be null or empty.");
         Assert.notNull(resource, "resource argument cannot be null.");
         Assert.notNull(returnType, "returnType class cannot be null.");
@@ -453,62 +879,62 @@ public class DefaultDataStore implements InternalDataStore {
         final AbstractResource abstractResource = (AbstractResource) resource;
         final Map<String, Object> props = resourceConverter.convert(abstractResource);
 
-        FilterChain chain = new DefaultFilterChain(this.filters, new FilterChain() {
-            @Override
-            public ResourceDataResult filter(final ResourceDataRequest req) {
+        ResourceAction action = create ? ResourceAction.CREATE : ResourceAction.UPDATE;
+        return new DefaultResourceDataRequest(action, uri, abstractResource.getClass(), props, requestHeaders);
+    }
 
-                String bodyString;
-                if (req.getHttpHeaders().getContentType() != null && req.getHttpHeaders().getContentType().equals(MediaType.APPLICATION_FORM_URLENCODED)){
-                    bodyString = buildCanonicalBodyQueryParams(req.getData());
-                } else {
+    private Request createSaveRequest(ResourceDataRequest req, boolean create) {
 
-                    bodyString = mapMarshaller.marshal(req.getData());
-                }
-                StringInputStream body = new StringInputStream(bodyString);
-                long length = body.available();
+        String bodyString;
+        if (req.getHttpHeaders().getContentType() != null && req.getHttpHeaders().getContentType().equals(MediaType.APPLICATION_FORM_URLENCODED)){
+            bodyString = buildCanonicalBodyQueryParams(req.getData());
+        } else {
 
-                CanonicalUri uri = req.getUri();
-                String href = uri.getAbsolutePath();
-                QueryString qs = uri.getQuery();
+            bodyString = mapMarshaller.marshal(req.getData());
+        }
+        StringInputStream body = new StringInputStream(bodyString);
+        long length = body.available();
 
-                HttpHeaders httpHeaders = req.getHttpHeaders();
+        CanonicalUri uri = req.getUri();
+        String href = uri.getAbsolutePath();
+        QueryString qs = uri.getQuery();
 
-                // if this is an Okta CRUD operation, we must use a PUT and not a POST
-                HttpMethod method = HttpMethod.POST;
-                if ((href.matches(".*/api/v1/groups/.*"))
-                        && !create) {
-                    method = HttpMethod.PUT;
-                }
-                Request request = new DefaultRequest(method, href, qs, httpHeaders, body, length);
-
-                Response response = execute(request);
-                Map<String, Object> responseBody = getBody(response);
-
-                if (Collections.isEmpty(responseBody)) {
-                    // Fix for https://github.com/stormpath/stormpath-sdk-java/issues/218
-                    if (response.getHttpStatus() == 202) { //202 means that the request has been accepted for processing, but the processing has not been completed. Therefore we do not have a response body.
-                        responseBody = java.util.Collections.emptyMap();
-                    } else if (response.getHttpStatus() == 200 && OAuthTokenRevoked.class.isAssignableFrom(returnType)) {
-                        responseBody = java.util.Collections.emptyMap();
-                    } else if (response.getHttpStatus() == 204
-                            && (OAuthTokenRevoked.class.isAssignableFrom(returnType)
-                                || VoidResource.class.isAssignableFrom(returnType))) {
-                        responseBody = java.util.Collections.emptyMap();
-                    }else {
-                        throw new IllegalStateException("Unable to obtain resource data from the API server.");
-                    }
-                }
+        HttpHeaders httpHeaders = req.getHttpHeaders();
 
-                ResourceAction responseAction = getPostAction(req, response);
+        // if this is an Okta CRUD operation, we must use a PUT and not a POST
+        HttpMethod method = HttpMethod.POST;
+        if ((href.matches(".*/api/v1/groups/.*"))
+                && !create) {
+            method = HttpMethod.PUT;
+        }
+        return new DefaultRequest(method, href, qs, httpHeaders, body, length);
+    }
 
-                return new DefaultResourceDataResult(responseAction, uri, returnType, responseBody);
+    private ResourceDataResult toSaveResult(ResourceDataRequest req, Response response, Class<? extends Resource> returnType) {
+
+        Map<String, Object> responseBody = getBody(response);
+
+        if (Collections.isEmpty(responseBody)) {
+            // Fix for https://github.com/stormpath/stormpath-sdk-java/issues/218
+            if (response.getHttpStatus() == 202) { //202 means that the request has been accepted for processing, but the processing has not been completed. Therefore we do not have a response body.
+                responseBody = java.util.Collections.emptyMap();
+            } else if (response.getHttpStatus() == 200 && OAuthTokenRevoked.class.isAssignableFrom(returnType)) {
+                responseBody = java.util.Collections.emptyMap();
+            } else if (response.getHttpStatus() == 204
+                    && (OAuthTokenRevoked.class.isAssignableFrom(returnType)
+                        || VoidResource.class.isAssignableFrom(returnType))) {
+                responseBody = java.util.Collections.emptyMap();
+            }else {
+                throw new IllegalStateException("Unable to obtain resource data from the API server.");
             }
-        });
+        }
 
-        ResourceAction action = create ? ResourceAction.CREATE : ResourceAction.UPDATE;
-        ResourceDataRequest request = new DefaultResourceDataRequest(action, uri, abstractResource.getClass(), props, requestHeaders);
+        ResourceAction responseAction = getPostAction(req, response);
 
-        ResourceDataResult result = chain.filter(request);
+        return new DefaultResourceDataResult(responseAction, req.getUri(), returnType, responseBody);
+    }
+
+    private <R extends Resource> R toSavedResource(AbstractResource abstractResource, Class<? extends R> returnType, ResourceDataResult result) {
 
         Map<String,Object> data = result.getData();
 
@@ -560,32 +986,254 @@ public class DefaultDataStore implements InternalDataStore {
 
     private <T extends Resource> void doDelete(T resource, final String possiblyNullPropertyName) {
 
-        Assert.notNull(resource, "resource argument cannot be null.");
-        Assert.isInstanceOf(AbstractResource.class, resource, "Resource argument must be an AbstractResource.");
+        assertDeletable(resource);
+
+        ResourceDataRequest request = createDeleteDataRequest(resource);
 
-        final String resourceHref = resource.getHref();
-        Assert.hasText(resourceHref, "This resource does not have an href value, therefore it cannot be deleted.");
-        final String requestHref;
+        FilterChain chain;
         if (Strings.hasText(possiblyNullPropertyName)) { //delete just that property, not the entire resource:
-            requestHref = resourceHref + "/" + possiblyNullPropertyName;
+            final String requestHref = resource.getHref() + "/" + possiblyNullPropertyName;
+            chain = new DefaultFilterChain(this.filters.getFilters(request.getAction(), request.getResourceClass()), new FilterChain() {
+
+                @Override
+                public ResourceDataResult filter(ResourceDataRequest request) {
+                    Request deleteRequest = new DefaultRequest(HttpMethod.DELETE, requestHref);
+                    release(execute(deleteRequest));
+                    return toDeleteResult(request);
+                }
+            });
         } else {
-            requestHref = resourceHref;
+            chain = this.filters.getChain(request.getAction(), request.getResourceClass());
+        }
+
+        chain.filter(request);
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    private Request createDeleteRequest(ResourceDataRequest req) {
+        CanonicalUri uri = req.getUri();
+        return new DefaultRequest(HttpMethod.DELETE, uri.getAbsolutePath(), uri.getQuery());
+    }
+
+    private <T extends Resource> void assertDeletable(T resource) {
+        Assert.notNull(resource, "resource argument cannot be null.");
+        Assert.isInstanceOf(AbstractResource.class, resource, "Resource argument must be an AbstractResource.");
+        Assert.hasText(resource.getHref(), "This resource does not have an href value, therefore it cannot be deleted.");
+    }
+
+    private <T extends Resource> ResourceDataRequest createDeleteDataRequest(T resource) {
+        final CanonicalUri resourceUri = canonicalize(resource.getHref(), null);
+        return new DefaultResourceDataRequest(ResourceAction.DELETE, resourceUri, resource.getClass(), new HashMap<String, Object>());
+    }
+
+    private ResourceDataResult toDeleteResult(ResourceDataRequest request) {
+        //delete requests have HTTP 204 (no content), so just create an empty body for the result:
+        return new DefaultResourceDataResult(request.getAction(), request.getUri(), request.getResourceClass(), new HashMap<String, Object>());
+    }
+
+    /* =====================================================================
+       Asynchronous Operations
+       ===================================================================== */
+
+    /**
+     * @since 2.0.5
+     */
+    @Override
+    public <T extends Resource> ResultFuture<T> getResourceAsync(String href, Class<T> clazz) {
+        return getResourceAsync(href, clazz, null);
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Override
+    public <T extends Resource> ResultFuture<T> getResourceAsync(String href, final Class<T> clazz, Map<String, Object> queryParameters) {
+
+        if ("local".equalsIgnoreCase(href) && clazz != null && clazz.isAssignableFrom(Application.class)) {
+            return ResultFuture.completed(getResource(href, clazz));
         }
 
-        FilterChain chain = new DefaultFilterChain(this.filters, new FilterChain() {
+        Assert.hasText(href, "href argument cannot be null or empty.");
+        Assert.notNull(clazz, "Resource class argument cannot be null.");
+
+        AsyncFilterChain chain = this.filters.getAsyncChain(ResourceAction.READ, clazz);
+
+        CanonicalUri uri = canonicalize(href, queryParameters);
+        ResourceDataRequest req = new DefaultResourceDataRequest(ResourceAction.READ, uri, clazz, new HashMap<String,Object>());
 
+        return filterAsync(chain, req).thenApply(new Function<ResourceDataResult, T>() {
             @Override
-            public ResourceDataResult filter(ResourceDataRequest request) {
-                Request deleteRequest = new DefaultRequest(HttpMethod.DELETE, requestHref);
-                execute(deleteRequest);
-                //delete requests have HTTP 204 (no content), so just create an empty body for the result:
-                return new DefaultResourceDataResult(request.getAction(), request.getUri(), request.getResourceClass(), new HashMap<String, Object>());
+            public T apply(ResourceDataResult result) {
+                return instantiate(clazz, result.getData(), result.getUri().getQuery());
             }
         });
+    }
 
-        final CanonicalUri resourceUri = canonicalize(resourceHref, null);
-        ResourceDataRequest request = new DefaultResourceDataRequest(ResourceAction.DELETE, resourceUri, resource.getClass(), new HashMap<String, Object>());
-        chain.filter(request);
+    /**
+     * @since 2.0.5
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T extends Resource> ResultFuture<T> createAsync(String parentHref, T resource) {
+        return saveAsync(parentHref, resource, (Class<T>) resource.getClass(), true);
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Override
+    public <T extends Resource, R extends Resource> ResultFuture<R> createAsync(String parentHref, T resource, Class<? extends R> returnType) {
+        return saveAsync(parentHref, resource, returnType, true);
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T extends Resource & Saveable> ResultFuture<T> saveAsync(T resource) {
+        String href = resource.getHref();
+        Assert.hasText(href, HREF_REQD_MSG);
+        return saveAsync(href, resource, (Class<T>) resource.getClass(), false);
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Override
+    public <T extends Resource & Saveable, R extends Resource> ResultFuture<R> saveAsync(T resource, Class<? extends R> returnType) {
+        Assert.hasText(resource.getHref(), HREF_REQD_MSG);
+        return saveAsync(resource.getHref(), resource, returnType, false);
+    }
+
+    private <T extends Resource, R extends Resource> ResultFuture<R> saveAsync(String href, final T resource, final Class<? extends R> returnType, final boolean create) {
+
+        ResourceDataRequest request = createSaveDataRequest(href, resource, null, returnType, null, create);
+
+        AsyncFilterChain chain = this.filters.getAsyncChain(request.getAction(), request.getResourceClass(), returnType);
+
+        return filterAsync(chain, request).thenApply(new Function<ResourceDataResult, R>() {
+            @Override
+            public R apply(ResourceDataResult result) {
+                return toSavedResource((AbstractResource) resource, returnType, result);
+            }
+        });
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Override
+    public <T extends Resource> ResultFuture<Void> deleteAsync(T resource) {
+
+        assertDeletable(resource);
+
+        ResourceDataRequest request = createDeleteDataRequest(resource);
+
+        AsyncFilterChain chain = this.filters.getAsyncChain(request.getAction(), request.getResourceClass());
+
+        return filterAsync(chain, request).thenApply(new Function<ResourceDataResult, Void>() {
+            @Override
+            public Void apply(ResourceDataResult result) {
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Provides the handlers ending the compiled filter chains: a single instance per action, except for saves, whose
+     * result depends on the expected return type and which get one instance per compiled chain.
+     *
+     * @since 2.0.5
+     */
+    private class CompletionHandlers implements CompiledFilters.CompletionHandlers {
+
+        @Override
+        public FilterChain getCompletionHandler(ResourceAction action, Class<? extends Resource> resultClass) {
+            switch (action) {
+                case READ:
+                    return readCompletionHandler;
+                case CREATE:
+                case UPDATE:
+                    return new SaveCompletionHandler(resultClass);
+                case DELETE:
+                    return deleteCompletionHandler;
+                default:
+                    return null;
+            }
+        }
+
+        @Override
+        public AsyncFilterChain getAsyncCompletionHandler(ResourceAction action, Class<? extends Resource> resultClass) {
+            switch (action) {
+                case READ:
+                    return asyncReadCompletionHandler;
+                case CREATE:
+                case UPDATE:
+                    return new AsyncSaveCompletionHandler(resultClass);
+                case DELETE:
+                    return asyncDeleteCompletionHandler;
+                default:
+                    return null;
+            }
+        }
+    }
+
+    /**
+     * Sends the resource of a create or update request and converts the response to the expected return type.
+     *
+     * @since 2.0.5
+     */
+    private class SaveCompletionHandler implements FilterChain {
+
+        private final Class<? extends Resource> returnType;
+
+        private SaveCompletionHandler(Class<? extends Resource> returnType) {
+            this.returnType = returnType;
+        }
+
+        @Override
+        public ResourceDataResult filter(ResourceDataRequest req) {
+            Response response = execute(createSaveRequest(req, req.getAction() == ResourceAction.CREATE));
+            return toSaveResult(req, response, returnType);
+        }
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    private class AsyncSaveCompletionHandler implements AsyncFilterChain {
+
+        private final Class<? extends Resource> returnType;
+
+        private AsyncSaveCompletionHandler(Class<? extends Resource> returnType) {
+            this.returnType = returnType;
+        }
+
+        @Override
+        public ResultFuture<ResourceDataResult> filter(final ResourceDataRequest req) {
+            Request request = createSaveRequest(req, req.getAction() == ResourceAction.CREATE);
+            return executeAsync(request).thenApply(new Function<Response, ResourceDataResult>() {
+                @Override
+                public ResourceDataResult apply(Response response) {
+                    return toSaveResult(req, response, returnType);
+                }
+            });
+        }
+    }
+
+    /**
+     * Runs the async filter chain, ensuring that any exception thrown synchronously by a filter is reported via the
+     * returned future rather than to the caller.
+     */
+    private ResultFuture<ResourceDataResult> filterAsync(AsyncFilterChain chain, ResourceDataRequest request) {
+        try {
+            return chain.filter(request);
+        } catch (RuntimeException e) {
+            return ResultFuture.failed(e);
+        }
     }
 
     /* =====================================================================
@@ -618,6 +1266,42 @@ public class DefaultDataStore implements InternalDataStore {
         Response response = this.requestExecutor.executeRequest(request);
         log.trace("Executed HTTP request.");
 
+        return handleResponse(request, response);
+    }
+
+    /**
+     * Executes the request without blocking the calling thread if the configured {@code RequestExecutor} is an
+     * {@link AsyncRequestExecutor}.  Otherwise the request is executed on the calling thread.
+     *
+     * @since 2.0.5
+     */
+    private ResultFuture<Response> executeAsync(final Request request) {
+
+        applyDefaultRequestHeaders(request);
+
+        ResultFuture<Response> future;
+
+        if (this.requestExecutor instanceof AsyncRequestExecutor) {
+            future = ((AsyncRequestExecutor) this.requestExecutor).executeRequestAsync(request);
+        } else {
+            try {
+                future = ResultFuture.completed(this.requestExecutor.executeRequest(request));
+            } catch (RuntimeException e) {
+                future = ResultFuture.failed(e);
+            }
+        }
+
+        return future.thenApply(new Function<Response, Response>() {
+            @Override
+            public Response apply(Response response) {
+                log.trace("Executed async HTTP request.");
+                return handleResponse(request, response);
+            }
+        });
+    }
+
+    private Response handleResponse(Request request, Response response) throws ResourceException {
+
         if (requestLog.isTraceEnabled()) {
             requestLog.trace("Executing request: method: '{}', url: {}", request.getMethod(), request.getResourceUrl());
         }
@@ -652,13 +1336,34 @@ public class DefaultDataStore implements InternalDataStore {
 
         Map<String, Object> out = null;
 
-        if (response.hasBody()) {
-            out = mapMarshaller.unmarshall(response.getBody());
+        try {
+            if (response.hasBody()) {
+                out = mapMarshaller.unmarshall(response.getBody());
+            }
+        } finally {
+            release(response);
         }
 
         return out;
     }
 
+    /**
+     * Closes the body of the specified response, if any.  A body streamed from a pooled connection holds on to that
+     * connection until it is closed.
+     *
+     * @since 2.0.5
+     */
+    private void release(Response response) {
+        InputStream body = response.getBody();
+        if (body != null) {
+            try {
+                body.close();
+            } catch (IOException e) {
+                log.debug("Unable to close response body: {}", e.getMessage(), e);
+            }
+        }
+    }
+
     protected void applyDefaultRequestHeaders(Request request) {
         request.getHeaders().setAccept(java.util.Collections.singletonList(MediaType.APPLICATION_JSON));
 
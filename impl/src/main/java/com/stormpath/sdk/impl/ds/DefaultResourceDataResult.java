@@ -16,6 +16,7 @@
 package com.stormpath.sdk.impl.ds;
 
 import com.stormpath.sdk.impl.http.CanonicalUri;
+import com.stormpath.sdk.impl.http.HttpHeaders;
 import com.stormpath.sdk.resource.Resource;
 
 import java.util.Map;
@@ -26,4 +27,11 @@ public class DefaultResourceDataResult extends DefaultResourceMessage implements
     public DefaultResourceDataResult(ResourceAction action, CanonicalUri uri, Class<? extends Resource> resourceClass, Map<String, Object> data) {
         super(action, uri, resourceClass, data);
     }
+
+    /**
+     * @since 2.0.5
+     */
+    public DefaultResourceDataResult(ResourceAction action, CanonicalUri uri, Class<? extends Resource> resourceClass, Map<String, Object> data, HttpHeaders httpHeaders) {
+        super(action, uri, resourceClass, data, httpHeaders);
+    }
 }
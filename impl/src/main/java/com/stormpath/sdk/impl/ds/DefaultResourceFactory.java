@@ -19,10 +19,9 @@ import com.stormpath.sdk.lang.Classes;
 import com.stormpath.sdk.resource.Resource;
 
 import java.lang.reflect.Constructor;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * @since 0.1
@@ -36,6 +35,11 @@ public class DefaultResourceFactory implements ResourceFactory {
     private static final String IMPL_PACKAGE_NAME = IMPL_PACKAGE_NAME_FRAGMENT + ".";
     private static final String IMPL_CLASS_PREFIX = "Default";
 
+    //@since 2.0.5: interface-to-implementation mappings and constructors are resolved only once per class:
+    private static final ConcurrentMap<Class<?>, ResourceConstructors<?>> CONSTRUCTORS =
+        new ConcurrentHashMap<Class<?>, ResourceConstructors<?>>();
+    private static final ConcurrentMap<Class<?>, Class<?>> INTERFACE_CLASSES = new ConcurrentHashMap<Class<?>, Class<?>>();
+
     public DefaultResourceFactory(InternalDataStore dataStore) {
         this.dataStore = dataStore;
     }
@@ -47,36 +51,45 @@ public class DefaultResourceFactory implements ResourceFactory {
             throw new NullPointerException("Resource class cannot be null.");
         }
 
-        Class<T> implClass = getImplementationClass(clazz);
-
         Object[] ctorArgs = createConstructorArgs(constructorArgs);
 
-        Constructor<T> ctor;
-
-        if (ctorArgs.length == 1) {
-            ctor = Classes.getConstructor(implClass, InternalDataStore.class);
-        } else if (ctorArgs.length == 2) {
-            ctor = Classes.getConstructor(implClass, InternalDataStore.class, Map.class);
-        } else {
-            //collection resource - we want to retain the query parameters (3rd ctor argument):
-            ctor = Classes.getConstructor(implClass, InternalDataStore.class, Map.class, Map.class);
-        }
+        Constructor<T> ctor = getConstructors(clazz).getConstructor(ctorArgs.length);
 
         return Classes.instantiate(ctor, ctorArgs);
     }
 
+    @SuppressWarnings("unchecked")
+    private static <T extends Resource> ResourceConstructors<T> getConstructors(Class<T> clazz) {
+        ResourceConstructors<T> ctors = (ResourceConstructors<T>) CONSTRUCTORS.get(clazz);
+        if (ctors == null) {
+            Class<T> implClass = clazz.isInterface() ? convertToImplClass(clazz) : clazz;
+            ctors = new ResourceConstructors<T>(implClass);
+            ResourceConstructors<T> existing = (ResourceConstructors<T>) CONSTRUCTORS.putIfAbsent(clazz, ctors);
+            if (existing != null) {
+                ctors = existing;
+            }
+        }
+        return ctors;
+    }
+
     public static <T extends Resource> Class<T> getImplementationClass(Class<T> clazz) {
         if (clazz.isInterface()) {
-            return convertToImplClass(clazz);
+            return getConstructors(clazz).implClass;
         }
         return clazz;
     }
 
+    @SuppressWarnings("unchecked")
     public static <T extends Resource> Class<T> getInterfaceClass(Class<T> clazz) {
         if (clazz.isInterface()) {
             return clazz;
         }
-        return convertToInterfaceClass(clazz);
+        Class<T> ifaceClass = (Class<T>) INTERFACE_CLASSES.get(clazz);
+        if (ifaceClass == null) {
+            ifaceClass = convertToInterfaceClass(clazz);
+            INTERFACE_CLASSES.putIfAbsent(clazz, ifaceClass);
+        }
+        return ifaceClass;
     }
 
     static <T extends Resource> Class<T> convertToInterfaceClass(Class<T> clazz) {
@@ -132,15 +145,59 @@ public class DefaultResourceFactory implements ResourceFactory {
     }
 
     private Object[] createConstructorArgs(Object[] existing) {
-        int argsLength = (existing != null ? existing.length : 0);
-        argsLength += 1; //account for the 'DataStore' instance that is required for every implementation.
+        int existingLength = (existing != null ? existing.length : 0);
 
-        List<Object> args = new ArrayList<Object>(argsLength);
-        args.add(this.dataStore); //always first arg
-        if (existing != null) {
-            Collections.addAll(args, existing);
+        //account for the 'DataStore' instance that is required for every implementation:
+        Object[] args = new Object[existingLength + 1];
+        args[0] = this.dataStore; //always first arg
+        if (existingLength > 0) {
+            System.arraycopy(existing, 0, args, 1, existingLength);
         }
 
-        return args.toArray();
+        return args;
+    }
+
+    /**
+     * The implementation class and constructors for a resource class.  Constructors are resolved lazily since not
+     * every implementation provides all three constructor variants.
+     *
+     * @since 2.0.5
+     */
+    private static final class ResourceConstructors<T extends Resource> {
+
+        private final Class<T> implClass;
+
+        private volatile Constructor<T> dataStoreCtor;
+        private volatile Constructor<T> propertiesCtor;
+        private volatile Constructor<T> queryParamsCtor;
+
+        private ResourceConstructors(Class<T> implClass) {
+            this.implClass = implClass;
+        }
+
+        private Constructor<T> getConstructor(int argCount) {
+            Constructor<T> ctor;
+            if (argCount == 1) {
+                ctor = dataStoreCtor;
+                if (ctor == null) {
+                    ctor = Classes.getConstructor(implClass, InternalDataStore.class);
+                    dataStoreCtor = ctor;
+                }
+            } else if (argCount == 2) {
+                ctor = propertiesCtor;
+                if (ctor == null) {
+                    ctor = Classes.getConstructor(implClass, InternalDataStore.class, Map.class);
+                    propertiesCtor = ctor;
+                }
+            } else {
+                //collection resource - we want to retain the query parameters (3rd ctor argument):
+                ctor = queryParamsCtor;
+                if (ctor == null) {
+                    ctor = Classes.getConstructor(implClass, InternalDataStore.class, Map.class, Map.class);
+                    queryParamsCtor = ctor;
+                }
+            }
+            return ctor;
+        }
     }
 }
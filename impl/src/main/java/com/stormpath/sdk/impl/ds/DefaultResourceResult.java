@@ -0,0 +1,68 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.ds;
+
+import com.stormpath.sdk.ds.ResourceResult;
+import com.stormpath.sdk.resource.Resource;
+
+/**
+ * @since 2.0.5
+ */
+public class DefaultResourceResult<T extends Resource> implements ResourceResult<T> {
+
+    private final String href;
+    private final T resource;
+    private final RuntimeException error;
+
+    public DefaultResourceResult(String href, T resource) {
+        this(href, resource, null);
+    }
+
+    public DefaultResourceResult(String href, RuntimeException error) {
+        this(href, null, error);
+    }
+
+    private DefaultResourceResult(String href, T resource, RuntimeException error) {
+        this.href = href;
+        this.resource = resource;
+        this.error = error;
+    }
+
+    @Override
+    public String getHref() {
+        return href;
+    }
+
+    @Override
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    @Override
+    public T getResource() {
+        return resource;
+    }
+
+    @Override
+    public RuntimeException getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return "ResourceResult{href='" + href + "', success=" + isSuccess() + "}";
+    }
+}
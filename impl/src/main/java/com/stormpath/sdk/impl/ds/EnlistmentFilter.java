@@ -16,8 +16,10 @@
 package com.stormpath.sdk.impl.ds;
 
 import com.stormpath.sdk.impl.resource.AbstractInstanceResource;
-import com.stormpath.sdk.impl.util.SoftHashMap;
+import com.stormpath.sdk.impl.util.ResultFuture;
+import com.stormpath.sdk.impl.util.ConcurrentSoftHashMap;
 import com.stormpath.sdk.lang.Assert;
+import com.stormpath.sdk.lang.Function;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -28,18 +30,33 @@ import java.util.Map;
  *
  * @since 1.0.RC3
  */
-public class EnlistmentFilter implements Filter {
+public class EnlistmentFilter implements Filter, AsyncFilter {
 
     private final Map<String, Enlistment> hrefMapStore;
 
     public EnlistmentFilter() {
-        this.hrefMapStore = new SoftHashMap<String, Enlistment>();
+        this.hrefMapStore = new ConcurrentSoftHashMap<String, Enlistment>();
     }
 
     @Override
     public ResourceDataResult filter(ResourceDataRequest request, FilterChain chain) {
+        return afterFilter(request, chain.filter(request));
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Override
+    public ResultFuture<ResourceDataResult> filter(final ResourceDataRequest request, AsyncFilterChain chain) {
+        return chain.filter(request).thenApply(new Function<ResourceDataResult, ResourceDataResult>() {
+            @Override
+            public ResourceDataResult apply(ResourceDataResult result) {
+                return afterFilter(request, result);
+            }
+        });
+    }
 
-        ResourceDataResult result = chain.filter(request);
+    private ResourceDataResult afterFilter(ResourceDataRequest request, ResourceDataResult result) {
 
         Map<String,Object> data = result.getData();
 
@@ -15,7 +15,10 @@
  */
 package com.stormpath.sdk.impl.ds;
 
+import com.stormpath.sdk.impl.util.ResultFuture;
+import com.stormpath.sdk.lang.Function;
 import com.stormpath.sdk.provider.ProviderAccountResult;
+import com.stormpath.sdk.resource.Resource;
 
 /**
  * Provider's account creation status (whether it is new or not) is represented as a convenience property
@@ -23,12 +26,35 @@ import com.stormpath.sdk.provider.ProviderAccountResult;
  *
  * @since 1.0.beta
  */
-public class ProviderAccountResultFilter implements Filter {
+public class ProviderAccountResultFilter implements ConditionalFilter, AsyncFilter {
 
     @Override
     public ResourceDataResult filter(ResourceDataRequest request, FilterChain chain) {
+        return afterFilter(chain.filter(request));
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Override
+    public ResultFuture<ResourceDataResult> filter(ResourceDataRequest request, AsyncFilterChain chain) {
+        return chain.filter(request).thenApply(new Function<ResourceDataResult, ResourceDataResult>() {
+            @Override
+            public ResourceDataResult apply(ResourceDataResult result) {
+                return afterFilter(result);
+            }
+        });
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Override
+    public boolean isApplicable(ResourceAction action, Class<? extends Resource> resourceClass, Class<? extends Resource> resultClass) {
+        return ProviderAccountResult.class.isAssignableFrom(resultClass);
+    }
 
-        ResourceDataResult result = chain.filter(request);
+    private ResourceDataResult afterFilter(ResourceDataResult result) {
 
         if (ProviderAccountResult.class.isAssignableFrom(result.getResourceClass())) {
             result.getData().put("isNewAccount", result.getAction() == ResourceAction.CREATE);
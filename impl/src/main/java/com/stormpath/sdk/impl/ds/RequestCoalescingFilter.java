@@ -0,0 +1,238 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.ds;
+
+import com.stormpath.sdk.api.ApiKey;
+import com.stormpath.sdk.api.ApiKeyList;
+import com.stormpath.sdk.impl.http.CanonicalUri;
+import com.stormpath.sdk.impl.util.ResultFuture;
+import com.stormpath.sdk.lang.Function;
+import com.stormpath.sdk.resource.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-flight filter that coalesces concurrent, identical resource reads: while a {@code READ} for a given
+ * canonical URI and resource class is in flight, any other request for the same key waits for (and shares) the
+ * in-flight result instead of sending its own request to the server.  This prevents a thundering herd when a popular
+ * resource misses the cache, e.g. after a cache flush or when its TTL expires.
+ * <p>
+ * This filter is positioned after the {@code ReadCacheFilter} (so cache hits are never coalesced) and before the
+ * {@code WriteCacheFilter} (so only the leading request populates the cache).  Each waiter receives its own shallow
+ * copy of the result data map so that downstream filters cannot observe each other's modifications.
+ *
+ * @since 2.0.5
+ */
+public class RequestCoalescingFilter implements ConditionalFilter, AsyncFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(RequestCoalescingFilter.class);
+
+    private final ConcurrentMap<Key, ResultFuture<ResourceDataResult>> inFlight;
+
+    private final AtomicLong requestCount;
+    private final AtomicLong coalescedCount;
+
+    public RequestCoalescingFilter() {
+        this.inFlight = new ConcurrentHashMap<Key, ResultFuture<ResourceDataResult>>();
+        this.requestCount = new AtomicLong(0);
+        this.coalescedCount = new AtomicLong(0);
+    }
+
+    @Override
+    public ResourceDataResult filter(ResourceDataRequest request, FilterChain chain) {
+
+        if (!isCoalescable(request)) {
+            return chain.filter(request);
+        }
+
+        requestCount.incrementAndGet();
+
+        Key key = new Key(request);
+        ResultFuture<ResourceDataResult> future = new ResultFuture<ResourceDataResult>();
+        ResultFuture<ResourceDataResult> existing = inFlight.putIfAbsent(key, future);
+
+        if (existing != null) {
+            coalescedCount.incrementAndGet();
+            log.trace("Coalescing request for {} with in-flight request.", key);
+            return copy(existing.join());
+        }
+
+        try {
+            ResourceDataResult result = chain.filter(request);
+            future.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            future.fail(e);
+            throw e;
+        } catch (Error e) {
+            future.fail(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    @Override
+    public ResultFuture<ResourceDataResult> filter(ResourceDataRequest request, AsyncFilterChain chain) {
+
+        if (!isCoalescable(request)) {
+            return chain.filter(request);
+        }
+
+        requestCount.incrementAndGet();
+
+        final Key key = new Key(request);
+        final ResultFuture<ResourceDataResult> future = new ResultFuture<ResourceDataResult>();
+        ResultFuture<ResourceDataResult> existing = inFlight.putIfAbsent(key, future);
+
+        if (existing != null) {
+            coalescedCount.incrementAndGet();
+            log.trace("Coalescing async request for {} with in-flight request.", key);
+            return existing.thenApply(new Function<ResourceDataResult, ResourceDataResult>() {
+                @Override
+                public ResourceDataResult apply(ResourceDataResult result) {
+                    return copy(result);
+                }
+            });
+        }
+
+        ResultFuture<ResourceDataResult> leader;
+        try {
+            leader = chain.filter(request);
+        } catch (Throwable t) {
+            //requests joining the placeholder must not wait forever, even on an Error:
+            inFlight.remove(key, future);
+            future.fail(t);
+            throw t;
+        }
+
+        return leader.whenComplete(new ResultFuture.Listener<ResourceDataResult>() {
+            @Override
+            public void onSuccess(ResourceDataResult result) {
+                inFlight.remove(key, future);
+                future.complete(result);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                inFlight.remove(key, future);
+                future.fail(t);
+            }
+        });
+    }
+
+    @Override
+    public boolean isApplicable(ResourceAction action, Class<? extends Resource> resourceClass, Class<? extends Resource> resultClass) {
+        return isCoalescable(action, resourceClass);
+    }
+
+    private boolean isCoalescable(ResourceDataRequest request) {
+        return isCoalescable(request.getAction(), request.getResourceClass());
+    }
+
+    private boolean isCoalescable(ResourceAction action, Class<? extends Resource> clazz) {
+
+        if (action != ResourceAction.READ) {
+            return false;
+        }
+
+        //api key requests are individually salted and decrypted, so they must never share a result:
+        return !(ApiKey.class.isAssignableFrom(clazz) || ApiKeyList.class.isAssignableFrom(clazz));
+    }
+
+    private ResourceDataResult copy(ResourceDataResult result) {
+        Map<String, Object> data = result.getData();
+        Map<String, Object> copy = data != null ? new LinkedHashMap<String, Object>(data) : null;
+        return new DefaultResourceDataResult(result.getAction(), result.getUri(), result.getResourceClass(), copy);
+    }
+
+    /**
+     * Returns the total number of requests that were eligible for coalescing.
+     *
+     * @return the total number of requests that were eligible for coalescing.
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Returns the number of requests that did not reach the server because they shared the result of an identical
+     * in-flight request.
+     *
+     * @return the number of requests that shared the result of an identical in-flight request.
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * Returns the number of distinct requests currently in flight.
+     *
+     * @return the number of distinct requests currently in flight.
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    public String toString() {
+        return new StringBuilder("{\n")
+                .append("  \"requestCount\": ").append(getRequestCount()).append(",\n")
+                .append("  \"coalescedCount\": ").append(getCoalescedCount()).append(",\n")
+                .append("  \"inFlightCount\": ").append(getInFlightCount()).append("\n")
+                .append("}")
+                .toString();
+    }
+
+    private static final class Key {
+
+        private final DefaultCacheKey uriKey;
+        private final Class<? extends Resource> resourceClass;
+
+        private Key(ResourceDataRequest request) {
+            CanonicalUri uri = request.getUri();
+            this.uriKey = new DefaultCacheKey(uri.getAbsolutePath(), uri.getQuery());
+            this.resourceClass = request.getResourceClass();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) {
+                return true;
+            }
+            if (o instanceof Key) {
+                Key other = (Key) o;
+                return uriKey.equals(other.uriKey) && resourceClass.equals(other.resourceClass);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * uriKey.hashCode() + resourceClass.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return uriKey + " (" + resourceClass.getName() + ")";
+        }
+    }
+}
@@ -20,8 +20,10 @@ import com.stormpath.sdk.api.ApiKeyList;
 import com.stormpath.sdk.impl.api.ApiKeyParameter;
 import com.stormpath.sdk.impl.api.DefaultApiKeyCriteria;
 import com.stormpath.sdk.impl.api.DefaultApiKeyList;
+import com.stormpath.sdk.impl.ds.AsyncFilter;
+import com.stormpath.sdk.impl.ds.AsyncFilterChain;
+import com.stormpath.sdk.impl.ds.ConditionalFilter;
 import com.stormpath.sdk.impl.ds.DefaultResourceDataRequest;
-import com.stormpath.sdk.impl.ds.Filter;
 import com.stormpath.sdk.impl.ds.FilterChain;
 import com.stormpath.sdk.impl.ds.ResourceAction;
 import com.stormpath.sdk.impl.ds.ResourceDataRequest;
@@ -33,7 +35,10 @@ import com.stormpath.sdk.impl.http.support.DefaultCanonicalUri;
 import com.stormpath.sdk.impl.query.DefaultEqualsExpressionFactory;
 import com.stormpath.sdk.impl.security.DefaultSaltGenerator;
 import com.stormpath.sdk.impl.security.SaltGenerator;
+import com.stormpath.sdk.impl.util.ResultFuture;
 import com.stormpath.sdk.lang.Collections;
+import com.stormpath.sdk.lang.Function;
+import com.stormpath.sdk.resource.Resource;
 
 import java.util.Collection;
 import java.util.LinkedHashMap;
@@ -45,7 +50,7 @@ import static com.stormpath.sdk.impl.api.DefaultApiKeyCriteria.DEFAULT_ENCRYPTIO
 /**
  * @since 1.0.RC
  */
-public class ApiKeyQueryFilter implements Filter {
+public class ApiKeyQueryFilter implements ConditionalFilter, AsyncFilter {
 
     private static String ENCRYPT_SECRET = ApiKeyParameter.ENCRYPT_SECRET.getName();
     private static String ENCRYPTION_KEY_SALT = ApiKeyParameter.ENCRYPTION_KEY_SALT.getName();
@@ -64,76 +69,133 @@ public class ApiKeyQueryFilter implements Filter {
     @Override
     public ResourceDataResult filter(ResourceDataRequest request, FilterChain chain) {
 
-        if (request.getAction() == ResourceAction.DELETE) {
+        if (!isApiKeyRequest(request)) {
             return chain.filter(request);
         }
 
-        Class clazz = request.getResourceClass();
+        boolean addEncryptionMetadata = isEncryptionMetadataRequired(request);
 
-        if (!(ApiKey.class.isAssignableFrom(clazz) || ApiKeyList.class.isAssignableFrom(clazz))) {
+        final ResourceDataRequest req = applyEncryptionCriteria(request);
+
+        ResourceDataResult result = chain.filter(req);
+
+        if (addEncryptionMetadata) {
+            addEncryptionMetadata(req, result);
+        }
+        return result;
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Override
+    public ResultFuture<ResourceDataResult> filter(ResourceDataRequest request, AsyncFilterChain chain) {
+
+        if (!isApiKeyRequest(request)) {
             return chain.filter(request);
         }
 
-        QueryString query = request.getUri().getQuery();
+        final boolean addEncryptionMetadata = isEncryptionMetadataRequired(request);
 
-        boolean isQueryEmpty = Collections.isEmpty(query);
+        final ResourceDataRequest req = applyEncryptionCriteria(request);
+
+        return chain.filter(req).thenApply(new Function<ResourceDataResult, ResourceDataResult>() {
+            @Override
+            public ResourceDataResult apply(ResourceDataResult result) {
+                if (addEncryptionMetadata) {
+                    addEncryptionMetadata(req, result);
+                }
+                return result;
+            }
+        });
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Override
+    public boolean isApplicable(ResourceAction action, Class<? extends Resource> resourceClass, Class<? extends Resource> resultClass) {
+        return isApiKeyRequest(action, resourceClass);
+    }
+
+    private boolean isApiKeyRequest(ResourceDataRequest request) {
+        return isApiKeyRequest(request.getAction(), request.getResourceClass());
+    }
 
-        boolean addEncryptionCriteria = isQueryEmpty || !query.containsKey(ENCRYPT_SECRET);
+    private boolean isApiKeyRequest(ResourceAction action, Class<? extends Resource> clazz) {
 
+        if (action == ResourceAction.DELETE) {
+            return false;
+        }
+
+        return ApiKey.class.isAssignableFrom(clazz) || ApiKeyList.class.isAssignableFrom(clazz);
+    }
+
+    private boolean isEncryptionCriteriaRequired(ResourceDataRequest request) {
+        QueryString query = request.getUri().getQuery();
+        return Collections.isEmpty(query) || !query.containsKey(ENCRYPT_SECRET);
+    }
+
+    private boolean isEncryptionMetadataRequired(ResourceDataRequest request) {
         //If encryptSecret is present, we assume encryptionKeySalt is there as well. If not the request to the server
         //will error.
-        boolean addEncryptionMetadata = addEncryptionCriteria || Boolean.parseBoolean(query.get(ENCRYPT_SECRET));
+        return isEncryptionCriteriaRequired(request) ||
+               Boolean.parseBoolean(request.getUri().getQuery().get(ENCRYPT_SECRET));
+    }
+
+    private ResourceDataRequest applyEncryptionCriteria(ResourceDataRequest request) {
 
-        if (addEncryptionCriteria) {
+        if (!isEncryptionCriteriaRequired(request)) {
+            return request;
+        }
 
-            DefaultApiKeyCriteria criteria = new DefaultApiKeyCriteria();
-            criteria.add(new DefaultEqualsExpressionFactory(ENCRYPT_SECRET).eq(Boolean.TRUE));
-            criteria.add(new DefaultEqualsExpressionFactory(ENCRYPTION_KEY_SIZE).eq(DEFAULT_ENCRYPTION_SIZE));
-            criteria.add(new DefaultEqualsExpressionFactory(ENCRYPTION_KEY_ITERATIONS).eq(DEFAULT_ENCRYPTION_ITERATIONS));
-            criteria.add(new DefaultEqualsExpressionFactory(ENCRYPTION_KEY_SALT).eq(saltGenerator.generate()));
+        QueryString query = request.getUri().getQuery();
 
-            QueryString encryptionQueryParams = queryStringFactory.createQueryString(criteria);
+        DefaultApiKeyCriteria criteria = new DefaultApiKeyCriteria();
+        criteria.add(new DefaultEqualsExpressionFactory(ENCRYPT_SECRET).eq(Boolean.TRUE));
+        criteria.add(new DefaultEqualsExpressionFactory(ENCRYPTION_KEY_SIZE).eq(DEFAULT_ENCRYPTION_SIZE));
+        criteria.add(new DefaultEqualsExpressionFactory(ENCRYPTION_KEY_ITERATIONS).eq(DEFAULT_ENCRYPTION_ITERATIONS));
+        criteria.add(new DefaultEqualsExpressionFactory(ENCRYPTION_KEY_SALT).eq(saltGenerator.generate()));
 
-            if (query == null) {
-                CanonicalUri uri = new DefaultCanonicalUri(request.getUri().getAbsolutePath(), encryptionQueryParams);
-                request = new DefaultResourceDataRequest(request.getAction(), uri, request.getResourceClass(), request.getData());
-            } else {
-                query.putAll(encryptionQueryParams);
-            }
+        QueryString encryptionQueryParams = queryStringFactory.createQueryString(criteria);
+
+        if (query == null) {
+            CanonicalUri uri = new DefaultCanonicalUri(request.getUri().getAbsolutePath(), encryptionQueryParams);
+            return new DefaultResourceDataRequest(request.getAction(), uri, request.getResourceClass(), request.getData());
         }
 
-        ResourceDataResult result = chain.filter(request);
+        query.putAll(encryptionQueryParams);
+        return request;
+    }
 
-        if (addEncryptionMetadata) {
+    private void addEncryptionMetadata(ResourceDataRequest request, ResourceDataResult result) {
 
-            query = request.getUri().getQuery();
+        QueryString query = request.getUri().getQuery();
 
-            Map<String, Object> encryptionMetadata = new LinkedHashMap<String, Object>();
+        Map<String, Object> encryptionMetadata = new LinkedHashMap<String, Object>();
 
-            String salt = query.get(ENCRYPTION_KEY_SALT);
+        String salt = query.get(ENCRYPTION_KEY_SALT);
 
-            Integer size = query.containsKey(ENCRYPTION_KEY_SIZE) ? Integer.valueOf(query.get(ENCRYPTION_KEY_SIZE)) : DEFAULT_ENCRYPTION_SIZE;
+        Integer size = query.containsKey(ENCRYPTION_KEY_SIZE) ? Integer.valueOf(query.get(ENCRYPTION_KEY_SIZE)) : DEFAULT_ENCRYPTION_SIZE;
 
-            Integer iterations = query.containsKey(ENCRYPTION_KEY_ITERATIONS) ? Integer.valueOf(query.get(ENCRYPTION_KEY_ITERATIONS)) : DEFAULT_ENCRYPTION_ITERATIONS;
+        Integer iterations = query.containsKey(ENCRYPTION_KEY_ITERATIONS) ? Integer.valueOf(query.get(ENCRYPTION_KEY_ITERATIONS)) : DEFAULT_ENCRYPTION_ITERATIONS;
 
-            encryptionMetadata.put(ENCRYPTION_KEY_SALT, salt);
-            encryptionMetadata.put(ENCRYPTION_KEY_SIZE, size);
-            encryptionMetadata.put(ENCRYPTION_KEY_ITERATIONS, iterations);
+        encryptionMetadata.put(ENCRYPTION_KEY_SALT, salt);
+        encryptionMetadata.put(ENCRYPTION_KEY_SIZE, size);
+        encryptionMetadata.put(ENCRYPTION_KEY_ITERATIONS, iterations);
 
-            Map<String, Object> data = result.getData();
+        Map<String, Object> data = result.getData();
 
-            if (DefaultApiKeyList.isCollectionResource(data)) {
+        if (DefaultApiKeyList.isCollectionResource(data)) {
 
-                @SuppressWarnings("unchecked")
-                Collection<Map<String, Object>> items = (Collection<Map<String, Object>>) data.get(DefaultApiKeyList.ITEMS_PROPERTY_NAME);
+            @SuppressWarnings("unchecked")
+            Collection<Map<String, Object>> items = (Collection<Map<String, Object>>) data.get(DefaultApiKeyList.ITEMS_PROPERTY_NAME);
 
-                for (Map<String, Object> item : items) {
-                    item.put(ENCRYPTION_METADATA, encryptionMetadata);
-                }
-            } else {
-                data.put(ENCRYPTION_METADATA, encryptionMetadata);
+            for (Map<String, Object> item : items) {
+                item.put(ENCRYPTION_METADATA, encryptionMetadata);
             }
+        } else {
+            data.put(ENCRYPTION_METADATA, encryptionMetadata);
         }
-        return result;
     }
 }
@@ -21,15 +21,19 @@ import com.stormpath.sdk.impl.authc.credentials.ApiKeyCredentials;
 import com.stormpath.sdk.impl.api.ApiKeyParameter;
 import com.stormpath.sdk.impl.api.DefaultApiKey;
 import com.stormpath.sdk.impl.api.DefaultApiKeyList;
+import com.stormpath.sdk.impl.ds.AsyncFilter;
+import com.stormpath.sdk.impl.ds.AsyncFilterChain;
+import com.stormpath.sdk.impl.ds.ConditionalFilter;
 import com.stormpath.sdk.impl.ds.DefaultResourceDataResult;
-import com.stormpath.sdk.impl.ds.Filter;
 import com.stormpath.sdk.impl.ds.FilterChain;
 import com.stormpath.sdk.impl.ds.ResourceAction;
 import com.stormpath.sdk.impl.ds.ResourceDataRequest;
 import com.stormpath.sdk.impl.ds.ResourceDataResult;
 import com.stormpath.sdk.impl.security.ApiKeySecretEncryptionService;
 import com.stormpath.sdk.impl.security.EncryptionService;
+import com.stormpath.sdk.impl.util.ResultFuture;
 import com.stormpath.sdk.lang.Assert;
+import com.stormpath.sdk.lang.Function;
 import com.stormpath.sdk.resource.Resource;
 
 import java.util.ArrayList;
@@ -41,7 +45,7 @@ import java.util.Map;
 /**
  * @since 1.0.RC
  */
-public class DecryptApiKeySecretFilter implements Filter {
+public class DecryptApiKeySecretFilter implements ConditionalFilter, AsyncFilter {
 
     private static String ENCRYPTION_KEY_SALT = ApiKeyParameter.ENCRYPTION_KEY_SALT.getName();
     private static String ENCRYPTION_KEY_SIZE = ApiKeyParameter.ENCRYPTION_KEY_SIZE.getName();
@@ -59,16 +63,40 @@ public class DecryptApiKeySecretFilter implements Filter {
 
     @Override
     public ResourceDataResult filter(ResourceDataRequest request, FilterChain chain) {
+        return afterFilter(request, chain.filter(request));
+    }
 
-        ResourceDataResult result = chain.filter(request);
+    /**
+     * @since 2.0.5
+     */
+    @Override
+    public ResultFuture<ResourceDataResult> filter(final ResourceDataRequest request, AsyncFilterChain chain) {
+        return chain.filter(request).thenApply(new Function<ResourceDataResult, ResourceDataResult>() {
+            @Override
+            public ResourceDataResult apply(ResourceDataResult result) {
+                return afterFilter(request, result);
+            }
+        });
+    }
 
-        if (request.getAction() == ResourceAction.DELETE) {
-            return result;
-        }
+    /**
+     * @since 2.0.5
+     */
+    @Override
+    public boolean isApplicable(ResourceAction action, Class<? extends Resource> resourceClass, Class<? extends Resource> resultClass) {
+        return isDecryptionRequired(action, resultClass);
+    }
+
+    private boolean isDecryptionRequired(ResourceAction action, Class<? extends Resource> clazz) {
+        return action != ResourceAction.DELETE &&
+               (ApiKey.class.isAssignableFrom(clazz) || ApiKeyList.class.isAssignableFrom(clazz));
+    }
+
+    private ResourceDataResult afterFilter(ResourceDataRequest request, ResourceDataResult result) {
 
         Class<? extends Resource> clazz = result.getResourceClass();
 
-        if (!(ApiKey.class.isAssignableFrom(clazz) || ApiKeyList.class.isAssignableFrom(clazz))) {
+        if (!isDecryptionRequired(request.getAction(), clazz)) {
             return result;
         }
 
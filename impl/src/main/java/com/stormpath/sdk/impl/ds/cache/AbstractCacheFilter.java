@@ -15,6 +15,7 @@
  */
 package com.stormpath.sdk.impl.ds.cache;
 
+import com.stormpath.sdk.cache.AsyncCache;
 import com.stormpath.sdk.cache.Cache;
 import com.stormpath.sdk.impl.ds.Filter;
 import com.stormpath.sdk.impl.ds.ResourceDataRequest;
@@ -70,7 +71,33 @@ abstract class AbstractCacheFilter implements Filter {
         return key;
     }
 
+    /**
+     * Returns {@code true} if data cached under the specified key may be used for the specified request:
+     * an expanded request must not be served a non-expanded cached resource.
+     *
+     * @since 2.0.5
+     */
+    protected boolean isCacheKeyApplicable(ResourceDataRequest request, String cacheKey) {
+        CanonicalUri uri = request.getUri();
+        return !(uri.hasQuery() && uri.getQuery().containsKey("expand") ^ (cacheKey != null && cacheKey.contains("expand=")));
+    }
+
     protected <T> Cache<String, Map<String, ?>> getCache(Class<T> clazz) {
         return this.cacheResolver.getCache(clazz);
     }
+
+    /**
+     * Caches the specified value without waiting for the outcome if the cache supports it (e.g. a distributed cache
+     * replicating the value across a cluster), or synchronously otherwise.
+     *
+     * @since 2.0.5
+     */
+    @SuppressWarnings("unchecked")
+    protected void putAsync(Cache cache, String key, Object value) {
+        if (cache instanceof AsyncCache) {
+            ((AsyncCache) cache).putAsync(key, value);
+        } else {
+            cache.put(key, value);
+        }
+    }
 }
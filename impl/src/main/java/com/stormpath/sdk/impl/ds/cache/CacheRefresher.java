@@ -0,0 +1,198 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.ds.cache;
+
+import com.stormpath.sdk.impl.util.DaemonThreadFactory;
+import com.stormpath.sdk.lang.Assert;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the background refreshes of cache entries that are stale or due for refresh-ahead, making sure at most one
+ * refresh is in progress per cache key.
+ * <p/>
+ * Refreshes run on a bounded pool of daemon threads with a bounded queue: when both are full, further refreshes are
+ * rejected and the current entries keep being returned until a later read schedules them again, so a burst of
+ * refreshes can never pile up unbounded work.  Idle threads are released after a minute.
+ *
+ * @since 2.0.5
+ */
+public class CacheRefresher {
+
+    public static final int DEFAULT_MAX_THREADS = 4;
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 100;
+
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Cache keys of the entries currently being refreshed.
+     */
+    private final Set<String> inProgress = java.util.Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private final AtomicLong scheduledCount = new AtomicLong();
+    private final AtomicLong refreshedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    public CacheRefresher() {
+        this(DEFAULT_MAX_THREADS, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param maxThreads    the maximum number of concurrent refreshes
+     * @param queueCapacity the maximum number of refreshes waiting for a thread
+     */
+    public CacheRefresher(int maxThreads, int queueCapacity) {
+        Assert.isTrue(maxThreads > 0, "maxThreads must be greater than zero.");
+        Assert.isTrue(queueCapacity > 0, "queueCapacity must be greater than zero.");
+        this.executor = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<Runnable>(queueCapacity), new DaemonThreadFactory("stormpath-cache-refresh"));
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Claims the refresh of the specified cache key.  Returns {@code false} if a refresh of it is already in progress,
+     * in which case the caller must not refresh it.
+     *
+     * @param cacheKey the cache key of the entry to refresh
+     * @return {@code true} if the caller is now responsible for refreshing the entry, {@code false} otherwise.
+     */
+    public boolean claim(String cacheKey) {
+        return inProgress.add(cacheKey);
+    }
+
+    /**
+     * Schedules the refresh of a {@link #claim(String) claimed} cache key.  The refresh must report its outcome via
+     * {@link #succeeded(String)} or {@link #failed(String)}, unless it is rejected, in which case the claim is
+     * released immediately.
+     *
+     * @param cacheKey the claimed cache key
+     * @param refresh  the refresh to run
+     * @return {@code true} if the refresh was scheduled, {@code false} if it was rejected.
+     */
+    public boolean submit(String cacheKey, Runnable refresh) {
+        try {
+            executor.execute(refresh);
+        } catch (RejectedExecutionException e) {
+            rejectedCount.incrementAndGet();
+            inProgress.remove(cacheKey);
+            return false;
+        }
+        scheduledCount.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Stops accepting refreshes: refreshes that are already scheduled still run, further ones are
+     * {@link #submit(String, Runnable) rejected}.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Releases the claim of a cache key whose refresh completed successfully.
+     *
+     * @param cacheKey the refreshed cache key
+     */
+    public void succeeded(String cacheKey) {
+        refreshedCount.incrementAndGet();
+        inProgress.remove(cacheKey);
+    }
+
+    /**
+     * Releases the claim of a cache key whose refresh failed.
+     *
+     * @param cacheKey the cache key that could not be refreshed
+     */
+    public void failed(String cacheKey) {
+        failedCount.incrementAndGet();
+        inProgress.remove(cacheKey);
+    }
+
+    /**
+     * Returns the total number of refreshes that were scheduled.
+     *
+     * @return the total number of refreshes that were scheduled.
+     */
+    public long getScheduledCount() {
+        return scheduledCount.get();
+    }
+
+    /**
+     * Returns the number of refreshes that completed successfully.
+     *
+     * @return the number of refreshes that completed successfully.
+     */
+    public long getRefreshedCount() {
+        return refreshedCount.get();
+    }
+
+    /**
+     * Returns the number of refreshes that failed.
+     *
+     * @return the number of refreshes that failed.
+     */
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * Returns the number of refreshes that were rejected because all threads were busy and the queue was full.
+     *
+     * @return the number of refreshes that were rejected.
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * Returns the number of refreshes that are currently queued or running.
+     *
+     * @return the number of refreshes that are currently queued or running.
+     */
+    public int getInProgressCount() {
+        return inProgress.size();
+    }
+
+    /**
+     * Returns the number of refreshes waiting for a thread.
+     *
+     * @return the number of refreshes waiting for a thread.
+     */
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    public String toString() {
+        return new StringBuilder("{\n")
+                .append("  \"scheduledCount\": ").append(getScheduledCount()).append(",\n")
+                .append("  \"refreshedCount\": ").append(getRefreshedCount()).append(",\n")
+                .append("  \"failedCount\": ").append(getFailedCount()).append(",\n")
+                .append("  \"rejectedCount\": ").append(getRejectedCount()).append(",\n")
+                .append("  \"inProgressCount\": ").append(getInProgressCount()).append(",\n")
+                .append("  \"queueSize\": ").append(getQueueSize()).append("\n")
+                .append("}")
+                .toString();
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.ds.cache;
+
+import com.stormpath.sdk.error.Error;
+import com.stormpath.sdk.impl.util.ConcurrentSoftHashMap;
+import com.stormpath.sdk.lang.Assert;
+import com.stormpath.sdk.resource.ResourceException;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+/**
+ * Remembers, for a short amount of time, the hrefs for which the server responded with {@code 404 Not Found}, so
+ * that repeated lookups of unknown resources (for example unknown API key ids or deleted accounts referenced by old
+ * tokens) do not each result in a server request.
+ * <p/>
+ * Entries are held in a {@link ConcurrentSoftHashMap} so that a large number of distinct unknown hrefs cannot exhaust memory.
+ *
+ * @since 2.0.5
+ */
+public class NegativeCache {
+
+    private final long timeToLiveMillis;
+
+    private final Map<String, Entry> entries;
+
+    /**
+     * @param timeToLiveMillis how long a {@code 404} response is remembered, in milliseconds
+     */
+    public NegativeCache(long timeToLiveMillis) {
+        Assert.isTrue(timeToLiveMillis > 0, "timeToLiveMillis must be greater than zero.");
+        this.timeToLiveMillis = timeToLiveMillis;
+        this.entries = new ConcurrentSoftHashMap<String, Entry>();
+    }
+
+    public long getTimeToLiveMillis() {
+        return timeToLiveMillis;
+    }
+
+    /**
+     * Remembers that the specified href could not be found, if the specified exception represents a
+     * {@code 404 Not Found} response.  Other exceptions are ignored.
+     *
+     * @param href the href that was requested
+     * @param e    the exception raised for the request
+     * @return {@code true} if the exception was remembered, {@code false} otherwise.
+     */
+    public boolean put(String href, ResourceException e) {
+        Assert.hasText(href, "href cannot be null or empty.");
+        if (e == null || e.getStatus() != 404) {
+            return false;
+        }
+        entries.put(href, new Entry(e.getStormpathError(), System.currentTimeMillis() + timeToLiveMillis));
+        return true;
+    }
+
+    /**
+     * Remembers that the specified key did not yield any resource even though the server did not respond with an
+     * error, e.g. because a query for a specific id returned an empty collection.
+     *
+     * @param key the key identifying the lookup
+     */
+    public void put(String key) {
+        Assert.hasText(key, "key cannot be null or empty.");
+        entries.put(key, new Entry(null, System.currentTimeMillis() + timeToLiveMillis));
+    }
+
+    /**
+     * Returns {@code true} if the specified key or href is currently known not to yield any resource.
+     *
+     * @param key the key or href being requested
+     * @return {@code true} if the specified key or href is currently known not to yield any resource.
+     */
+    public boolean contains(String key) {
+        return getEntry(key) != null;
+    }
+
+    /**
+     * Returns a new {@code ResourceException} equivalent to the one remembered for the specified href, or
+     * {@code null} if no {@code 404} response is currently remembered for the href.
+     *
+     * @param href the href being requested
+     * @return a new {@code ResourceException} for the remembered {@code 404} response, or {@code null}.
+     */
+    public ResourceException get(String href) {
+        Entry entry = getEntry(href);
+        if (entry == null || entry.error == null) {
+            return null;
+        }
+        return new ResourceException(entry.error);
+    }
+
+    private Entry getEntry(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() > entry.expirationTimeMillis) {
+            entries.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Forgets that the specified key or href could not be found, e.g. because a resource has since been saved to it.
+     *
+     * @param key the key or href to forget
+     */
+    public void remove(String key) {
+        if (key != null) {
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * Forgets every key ending with the specified suffix, e.g. all the queries for an id that now exists.
+     *
+     * @param suffix the suffix of the keys to forget
+     */
+    public void removeAllEndingWith(String suffix) {
+        Assert.hasText(suffix, "suffix cannot be null or empty.");
+        for (String key : new ArrayList<String>(entries.keySet())) {
+            if (key.endsWith(suffix)) {
+                entries.remove(key);
+            }
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private static final class Entry {
+
+        private final Error error;
+        private final long expirationTimeMillis;
+
+        private Entry(Error error, long expirationTimeMillis) {
+            this.error = error;
+            this.expirationTimeMillis = expirationTimeMillis;
+        }
+    }
+}
@@ -17,8 +17,14 @@ package com.stormpath.sdk.impl.ds.cache;
 
 import com.stormpath.sdk.api.ApiKey;
 import com.stormpath.sdk.api.ApiKeyList;
+import com.stormpath.sdk.cache.Cache;
 import com.stormpath.sdk.ds.DataStore;
 import com.stormpath.sdk.impl.authc.LoginAttempt;
+import com.stormpath.sdk.impl.cache.DefaultCache;
+import com.stormpath.sdk.impl.ds.AsyncFilter;
+import com.stormpath.sdk.impl.ds.AsyncFilterChain;
+import com.stormpath.sdk.impl.ds.ConditionalResourceDataRequest;
+import com.stormpath.sdk.impl.ds.ConditionalFilter;
 import com.stormpath.sdk.impl.ds.DefaultResourceDataResult;
 import com.stormpath.sdk.impl.ds.FilterChain;
 import com.stormpath.sdk.impl.ds.ResourceAction;
@@ -29,32 +35,74 @@ import com.stormpath.sdk.impl.http.QueryString;
 import com.stormpath.sdk.impl.provider.ProviderAccountAccess;
 import com.stormpath.sdk.impl.resource.CollectionProperties;
 import com.stormpath.sdk.impl.util.BaseUrlResolver;
+import com.stormpath.sdk.impl.util.ResultFuture;
 import com.stormpath.sdk.lang.Assert;
 import com.stormpath.sdk.lang.Collections;
 import com.stormpath.sdk.resource.CollectionResource;
 import com.stormpath.sdk.resource.Resource;
+import com.stormpath.sdk.resource.ResourceException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
 import java.util.Map;
 
 import static com.stormpath.sdk.impl.api.ApiKeyParameter.ID;
+import static com.stormpath.sdk.impl.resource.AbstractCollectionResource.ITEMS_PROPERTY_NAME;
 import static com.stormpath.sdk.impl.resource.AbstractCollectionResource.LIMIT;
 import static com.stormpath.sdk.impl.resource.AbstractCollectionResource.OFFSET;
 
-public class ReadCacheFilter extends AbstractCacheFilter {
+public class ReadCacheFilter extends AbstractCacheFilter implements ConditionalFilter, AsyncFilter {
 
     private static final Logger cacheLog = LoggerFactory.getLogger(DataStore.class.getName() + "-cache");
 
     private BaseUrlResolver baseUrlResolver;
 
+    private final RevalidationCache revalidationCache;
+
+    private final NegativeCache negativeCache;
+
+    /**
+     * Refreshes stale entries and entries due for refresh-ahead in the background, {@code null} if background refreshes
+     * are disabled.
+     *
+     * @since 2.0.5
+     */
+    private final CacheRefresher refresher;
+
     /**
      * @since 1.2.0
      */
     public ReadCacheFilter(BaseUrlResolver baseUrlResolver, CacheResolver cacheResolver, boolean collectionCachingEnabled) {
+        this(baseUrlResolver, cacheResolver, collectionCachingEnabled, null, null);
+    }
+
+    /**
+     * @param revalidationCache the validators of expired cache entries, or {@code null} to always fully re-fetch
+     *                          resources whose cache entry has expired
+     * @param negativeCache     the hrefs recently found not to exist, or {@code null} to always request them again
+     * @since 2.0.5
+     */
+    public ReadCacheFilter(BaseUrlResolver baseUrlResolver, CacheResolver cacheResolver, boolean collectionCachingEnabled,
+                           RevalidationCache revalidationCache, NegativeCache negativeCache) {
+        this(baseUrlResolver, cacheResolver, collectionCachingEnabled, revalidationCache, negativeCache, null);
+    }
+
+    /**
+     * @param refresher the executor of background refreshes of stale entries and entries due for refresh-ahead, or
+     *                  {@code null} to disable background refreshes: stale entries are then re-fetched on read and
+     *                  refresh-ahead does not apply.  The caller owns the refresher and is responsible for
+     *                  {@link CacheRefresher#shutdown() shutting it down}.
+     * @since 2.0.5
+     */
+    public ReadCacheFilter(BaseUrlResolver baseUrlResolver, CacheResolver cacheResolver, boolean collectionCachingEnabled,
+                           RevalidationCache revalidationCache, NegativeCache negativeCache, CacheRefresher refresher) {
         super(cacheResolver, collectionCachingEnabled);
         Assert.notNull(baseUrlResolver, "baseUrlResolver cannot be null.");
         this.baseUrlResolver = baseUrlResolver;
+        this.revalidationCache = revalidationCache;
+        this.negativeCache = negativeCache;
+        this.refresher = refresher;
     }
 
     @Override
@@ -62,15 +110,350 @@ public class ReadCacheFilter extends AbstractCacheFilter {
 
         if (isCacheRetrievalEnabled(request)) {
             ResourceDataResult result = getCachedResourceData(request);
+            if (result != null && !isStaleWithoutRefresher(request)) {
+                refreshIfStale(request, chain);
+                return result;
+            }
+            result = getNotFoundResult(request);
             if (result != null) {
                 return result;
             }
+            //cache miss - let the chain continue:
+            return filterAndRemember(toConditionalRequest(request), chain);
+        }
+
+        return chain.filter(request);
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Override
+    public ResultFuture<ResourceDataResult> filter(ResourceDataRequest request, AsyncFilterChain chain) {
+
+        if (isCacheRetrievalEnabled(request)) {
+            ResourceDataResult result = getCachedResourceData(request);
+            if (result != null && !isStaleWithoutRefresher(request)) {
+                refreshIfStale(request, chain);
+                //cache hit - complete immediately without touching the network:
+                return ResultFuture.completed(result);
+            }
+            try {
+                result = getNotFoundResult(request);
+            } catch (ResourceException e) {
+                return ResultFuture.failed(e);
+            }
+            if (result != null) {
+                return ResultFuture.completed(result);
+            }
+            return filterAndRemember(toConditionalRequest(request), chain);
         }
 
-        //cache miss - let the chain continue:
         return chain.filter(request);
     }
 
+    /**
+     * Answers a request for an href that was recently found not to exist without touching the network: a plain
+     * resource request fails with the remembered {@code 404} error and an api key query by id yields an empty
+     * collection.  Returns {@code null} if the request is not known to be unresolvable.
+     *
+     * @since 2.0.5
+     */
+    private ResourceDataResult getNotFoundResult(ResourceDataRequest request) {
+
+        if (negativeCache == null) {
+            return null;
+        }
+
+        CanonicalUri uri = request.getUri();
+
+        if (isApiKeyCollectionQuery(request)) {
+            if (!negativeCache.contains(getApiKeyQueryKey(request))) {
+                return null;
+            }
+            QueryString query = uri.getQuery();
+            int offset = getValue(query, OFFSET.getName(), 0);
+            int limit = getValue(query, LIMIT.getName(), 25);
+            Map<String, Object> data = new CollectionProperties.Builder().setHref(uri.getAbsolutePath())
+                                                                         .setOffset(offset).setLimit(limit).build();
+            return new DefaultResourceDataResult(request.getAction(), uri, request.getResourceClass(), data);
+        }
+
+        ResourceException e = negativeCache.get(uri.getAbsolutePath());
+        if (e != null) {
+            if (cacheLog.isTraceEnabled()) {
+                cacheLog.trace("Resource recently not found, skipping request: uri: {}", uri.getAbsolutePath());
+            }
+            throw e;
+        }
+
+        return null;
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    private ResourceDataResult filterAndRemember(ResourceDataRequest request, FilterChain chain) {
+
+        if (negativeCache == null) {
+            return chain.filter(request);
+        }
+
+        ResourceDataResult result;
+        try {
+            result = chain.filter(request);
+        } catch (ResourceException e) {
+            rememberIfNotFound(request, e);
+            throw e;
+        }
+        rememberIfEmpty(request, result);
+        return result;
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    private ResultFuture<ResourceDataResult> filterAndRemember(final ResourceDataRequest request, AsyncFilterChain chain) {
+
+        ResultFuture<ResourceDataResult> future = chain.filter(request);
+
+        if (negativeCache != null) {
+            future.whenComplete(new ResultFuture.Listener<ResourceDataResult>() {
+                @Override
+                public void onSuccess(ResourceDataResult result) {
+                    rememberIfEmpty(request, result);
+                }
+
+                @Override
+                public void onFailure(Throwable t) {
+                    rememberIfNotFound(request, t);
+                }
+            });
+        }
+
+        return future;
+    }
+
+    /**
+     * Remembers a {@code 404} response for the requested href and evicts any representation of it that might still
+     * be cached, since that resource no longer exists.
+     *
+     * @since 2.0.5
+     */
+    private void rememberIfNotFound(ResourceDataRequest request, Throwable t) {
+
+        if (!(t instanceof ResourceException) ||
+            !negativeCache.put(request.getUri().getAbsolutePath(), (ResourceException) t)) {
+            return;
+        }
+
+        if (isApiKeyCollectionQuery(request)) {
+            return;
+        }
+
+        String cacheKey = getCacheKey(request);
+        getCache(request.getResourceClass()).remove(cacheKey);
+        if (revalidationCache != null) {
+            revalidationCache.remove(cacheKey);
+        }
+    }
+
+    /**
+     * Remembers api key queries by id that did not match any api key, which is what every request authenticated
+     * with an unknown api key id results in.
+     *
+     * @since 2.0.5
+     */
+    private void rememberIfEmpty(ResourceDataRequest request, ResourceDataResult result) {
+
+        if (result == null || !isApiKeyCollectionQuery(request)) {
+            return;
+        }
+
+        Object items = result.getData() != null ? result.getData().get(ITEMS_PROPERTY_NAME) : null;
+        if (items instanceof Collection && ((Collection) items).isEmpty()) {
+            negativeCache.put(getApiKeyQueryKey(request));
+        }
+    }
+
+    /**
+     * Api key queries are remembered per collection: an api key that is unknown to one application may very well
+     * exist for another one.
+     *
+     * @since 2.0.5
+     */
+    private String getApiKeyQueryKey(ResourceDataRequest request) {
+        return request.getUri().getAbsolutePath() + "?" + ID.getName() + "=" + request.getUri().getQuery().get(ID.getName());
+    }
+
+    /**
+     * If the cached entry that was just returned is stale (within its region's stale-while-revalidate window) or due
+     * for refresh-ahead (past its region's refresh-ahead fraction of the TTL), the remainder of the chain is executed
+     * in the background to obtain a fresh value, which is then cached by the {@link WriteCacheFilter}.  At most one
+     * refresh is in progress per cache key at any time.
+     *
+     * @since 2.0.5
+     */
+    private void refreshIfStale(final ResourceDataRequest request, final FilterChain chain) {
+
+        final String cacheKey = claimRefresh(request);
+        if (cacheKey == null) {
+            return;
+        }
+
+        submitRefresh(cacheKey, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    filterAndRemember(toConditionalRequest(request), chain);
+                } catch (RuntimeException e) {
+                    logRefreshFailure(cacheKey, e);
+                    return;
+                }
+                refresher.succeeded(cacheKey);
+            }
+        });
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    private void refreshIfStale(final ResourceDataRequest request, final AsyncFilterChain chain) {
+
+        final String cacheKey = claimRefresh(request);
+        if (cacheKey == null) {
+            return;
+        }
+
+        submitRefresh(cacheKey, new Runnable() {
+            @Override
+            public void run() {
+                ResultFuture<ResourceDataResult> future;
+                try {
+                    future = filterAndRemember(toConditionalRequest(request), chain);
+                } catch (RuntimeException e) {
+                    future = ResultFuture.failed(e);
+                }
+                future.whenComplete(new ResultFuture.Listener<ResourceDataResult>() {
+                    @Override
+                    public void onSuccess(ResourceDataResult value) {
+                        refresher.succeeded(cacheKey);
+                    }
+
+                    @Override
+                    public void onFailure(Throwable t) {
+                        logRefreshFailure(cacheKey, t);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Returns the cache key of the requested resource if its cached entry is stale or due for refresh-ahead and no
+     * other refresh of it is in progress, in which case the caller is responsible for refreshing it.  Returns
+     * {@code null} otherwise.
+     *
+     * @since 2.0.5
+     */
+    @SuppressWarnings("unchecked")
+    private String claimRefresh(ResourceDataRequest request) {
+
+        if (refresher == null || isApiKeyCollectionQuery(request)) {
+            return null;
+        }
+
+        Cache<String, Map<String, ?>> cache = getCache(request.getResourceClass());
+        if (!(cache instanceof DefaultCache)) {
+            return null;
+        }
+        DefaultCache<String, Map<String, ?>> defaultCache = (DefaultCache<String, Map<String, ?>>) cache;
+        if (defaultCache.getStaleWhileRevalidate() == null && defaultCache.getRefreshAheadFactor() <= 0) {
+            return null;
+        }
+
+        String cacheKey = getCacheKey(request);
+        if (!defaultCache.isRefreshDue(cacheKey) || !refresher.claim(cacheKey)) {
+            return null;
+        }
+
+        return cacheKey;
+    }
+
+    /**
+     * Returns {@code true} if the cached entry of the requested resource is stale and there is no refresher to refresh
+     * it in the background, in which case it must be re-fetched in the foreground instead of being returned.
+     *
+     * @since 2.0.5
+     */
+    private boolean isStaleWithoutRefresher(ResourceDataRequest request) {
+
+        if (refresher != null || isApiKeyCollectionQuery(request)) {
+            return false;
+        }
+
+        Cache<String, Map<String, ?>> cache = getCache(request.getResourceClass());
+        return cache instanceof DefaultCache && ((DefaultCache<String, Map<String, ?>>) cache).isStale(getCacheKey(request));
+    }
+
+    private void submitRefresh(String cacheKey, Runnable refresh) {
+        if (cacheLog.isDebugEnabled()) {
+            cacheLog.debug("Refreshing cache entry in the background: {}", cacheKey);
+        }
+        if (!refresher.submit(cacheKey, refresh) && cacheLog.isDebugEnabled()) {
+            cacheLog.debug("Too many cache refreshes in progress, skipping: {}", cacheKey);
+        }
+    }
+
+    private void logRefreshFailure(String cacheKey, Throwable t) {
+        //the entry remains available until it expires, and the next read will try again:
+        refresher.failed(cacheKey);
+        if (cacheLog.isDebugEnabled()) {
+            cacheLog.debug("Unable to refresh cache entry " + cacheKey, t);
+        }
+    }
+
+    /**
+     * Returns the executor of background cache refreshes, exposing how many refreshes were scheduled, completed,
+     * failed or rejected.
+     *
+     * @return the executor of background cache refreshes, or {@code null} if background refreshes are disabled.
+     * @since 2.0.5
+     */
+    public CacheRefresher getRefresher() {
+        return refresher;
+    }
+
+    /**
+     * Returns a conditional request for the last known representation of the requested resource if its cache entry
+     * has expired but its validators are still known, or the original request otherwise.
+     *
+     * @since 2.0.5
+     */
+    @SuppressWarnings("unchecked")
+    private ResourceDataRequest toConditionalRequest(ResourceDataRequest request) {
+
+        if (revalidationCache == null || isApiKeyCollectionQuery(request)) {
+            return request;
+        }
+
+        String cacheKey = getCacheKey(request);
+        if (!isCacheKeyApplicable(request, cacheKey)) {
+            return request;
+        }
+
+        RevalidationCache.Entry entry = revalidationCache.get(cacheKey);
+        if (entry == null) {
+            return request;
+        }
+
+        if (cacheLog.isTraceEnabled()) {
+            cacheLog.trace("Revalidating expired cache entry: uri: {}, eTag: {}", request.getUri().getAbsolutePath(), entry.getETag());
+        }
+
+        return new ConditionalResourceDataRequest(request, (Map<String, Object>) entry.getData(), entry.getETag(), entry.getLastModified());
+    }
+
     private ResourceDataResult getCachedResourceData(ResourceDataRequest request) {
 
         final CanonicalUri uri = request.getUri();
@@ -96,7 +479,7 @@ public class ReadCacheFilter extends AbstractCacheFilter {
         } else {
             //Prevent an expanded request to obtain a non-expanded resource from the cache
             String cacheKey = getCacheKey(request);
-            if (! (request.getUri().hasQuery() && request.getUri().getQuery().containsKey("expand") ^ (cacheKey != null && cacheKey.contains("expand=")))) {
+            if (isCacheKeyApplicable(request, cacheKey)) {
                 data = getCachedValue(cacheKey, clazz);
             }
         }
@@ -126,14 +509,24 @@ public class ReadCacheFilter extends AbstractCacheFilter {
                request.getUri().hasQuery() && request.getUri().getQuery().containsKey(ID.getName());
     }
 
+    /**
+     * @since 2.0.5
+     */
+    @Override
+    public boolean isApplicable(ResourceAction action, Class<? extends Resource> resourceClass, Class<? extends Resource> resultClass) {
+        return isCacheRetrievalEnabled(action, resourceClass);
+    }
+
     private boolean isCacheRetrievalEnabled(ResourceDataRequest request) {
+        return isCacheRetrievalEnabled(request.getAction(), request.getResourceClass());
+    }
 
-        Class<? extends Resource> clazz = request.getResourceClass();
+    private boolean isCacheRetrievalEnabled(ResourceAction action, Class<? extends Resource> clazz) {
 
         return
 
             //create, update and delete all should bypass cache reads:
-            request.getAction() == ResourceAction.READ &&
+            action == ResourceAction.READ &&
 
             //login attempts must always go to the server:
             !LoginAttempt.class.isAssignableFrom(clazz) &&
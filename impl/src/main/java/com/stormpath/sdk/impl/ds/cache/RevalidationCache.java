@@ -0,0 +1,144 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.ds.cache;
+
+import com.fasterxml.jackson.databind.util.ISO8601DateFormat;
+import com.stormpath.sdk.impl.util.ConcurrentSoftHashMap;
+import com.stormpath.sdk.lang.Assert;
+
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.util.Map;
+
+/**
+ * Retains the last known representation of cached resources together with the validators (the {@code ETag} and
+ * {@code Last-Modified} response headers, or the resource's {@code modifiedAt} property) that were returned with it.
+ * <p/>
+ * When a cache entry expires, the {@link ReadCacheFilter} uses the retained validators to issue a conditional
+ * request. If the server responds with {@code 304 Not Modified}, the retained representation is used as-is and
+ * re-cached, avoiding both the transfer and the parsing of the full response body.
+ * <p/>
+ * Entries are held in a {@link ConcurrentSoftHashMap}: while the resource is still cached they share the cached map instance
+ * and cost little more than the validators themselves; once the cache entry has expired they may be reclaimed by the
+ * garbage collector at any time, in which case the next read simply falls back to an unconditional request.
+ *
+ * @since 2.0.5
+ */
+public class RevalidationCache {
+
+    private static final String MODIFIED_AT_PROP_NAME = "modifiedAt";
+
+    private static final DateFormat dateFormatter = new ISO8601DateFormat();
+
+    private final Map<String, Entry> entries;
+
+    public RevalidationCache() {
+        this.entries = new ConcurrentSoftHashMap<String, Entry>();
+    }
+
+    /**
+     * Retains the specified resource data and its validators under the specified cache key.  If neither an
+     * {@code eTag} nor a {@code lastModified} value is available, the data's {@code modifiedAt} property is used
+     * instead.  If no validator can be determined at all, any previously retained entry for the key is discarded.
+     *
+     * @param key          the key the resource data is cached under
+     * @param data         the cached resource data
+     * @param eTag         the {@code ETag} returned with the data, or {@code null} if there was none
+     * @param lastModified the {@code Last-Modified} time in epoch millis returned with the data, or {@code -1} if
+     *                     there was none
+     */
+    public void put(String key, Map<String, ?> data, String eTag, long lastModified) {
+        Assert.hasText(key, "key cannot be null or empty.");
+        Assert.notNull(data, "data cannot be null.");
+
+        if (lastModified < 0) {
+            lastModified = getModifiedAt(data);
+        }
+
+        if (eTag == null && lastModified < 0) {
+            entries.remove(key);
+            return;
+        }
+
+        entries.put(key, new Entry(data, eTag, lastModified));
+    }
+
+    public Entry get(String key) {
+        return entries.get(key);
+    }
+
+    public void remove(String key) {
+        entries.remove(key);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private static long getModifiedAt(Map<String, ?> data) {
+        Object value = data.get(MODIFIED_AT_PROP_NAME);
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return dateFormatter.parse(String.valueOf(value)).getTime();
+        } catch (ParseException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * The last known representation of a cached resource and the validators that identify it.
+     */
+    public static class Entry {
+
+        private final Map<String, ?> data;
+        private final String eTag;
+        private final long lastModified;
+
+        Entry(Map<String, ?> data, String eTag, long lastModified) {
+            this.data = data;
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+        }
+
+        public Map<String, ?> getData() {
+            return data;
+        }
+
+        /**
+         * Returns the entity tag returned with the data, or {@code null} if there was none.
+         *
+         * @return the entity tag returned with the data, or {@code null} if there was none.
+         */
+        public String getETag() {
+            return eTag;
+        }
+
+        /**
+         * Returns the last modification time of the data in epoch millis, or {@code -1} if unknown.
+         *
+         * @return the last modification time of the data in epoch millis, or {@code -1} if unknown.
+         */
+        public long getLastModified() {
+            return lastModified;
+        }
+    }
+}
@@ -18,9 +18,15 @@ package com.stormpath.sdk.impl.ds.cache;
 import com.stormpath.sdk.account.Account;
 import com.stormpath.sdk.account.EmailVerificationToken;
 import com.stormpath.sdk.account.PasswordResetToken;
+import com.stormpath.sdk.api.ApiKey;
+import com.stormpath.sdk.api.ApiKeyList;
 import com.stormpath.sdk.cache.Cache;
+import com.stormpath.sdk.cache.CacheInvalidationBus;
 import com.stormpath.sdk.directory.CustomData;
 import com.stormpath.sdk.impl.account.DefaultAccount;
+import com.stormpath.sdk.impl.cache.DefaultCache;
+import com.stormpath.sdk.impl.ds.AsyncFilter;
+import com.stormpath.sdk.impl.ds.AsyncFilterChain;
 import com.stormpath.sdk.impl.ds.CacheMapInitializer;
 import com.stormpath.sdk.impl.ds.DefaultCacheMapInitializer;
 import com.stormpath.sdk.impl.ds.DefaultResourceFactory;
@@ -29,6 +35,7 @@ import com.stormpath.sdk.impl.ds.ResourceAction;
 import com.stormpath.sdk.impl.ds.ResourceDataRequest;
 import com.stormpath.sdk.impl.ds.ResourceDataResult;
 import com.stormpath.sdk.impl.ds.SubtypeDispatchingResourceFactory;
+import com.stormpath.sdk.impl.http.HttpHeaders;
 import com.stormpath.sdk.impl.http.QueryString;
 import com.stormpath.sdk.impl.oauth.OAuthTokenRevocationAttempt;
 import com.stormpath.sdk.impl.oauth.OAuthTokenRevoked;
@@ -41,8 +48,10 @@ import com.stormpath.sdk.impl.resource.ReferenceFactory;
 import com.stormpath.sdk.impl.resource.ResourceReference;
 import com.stormpath.sdk.impl.resource.SetProperty;
 import com.stormpath.sdk.impl.util.BaseUrlResolver;
+import com.stormpath.sdk.impl.util.ResultFuture;
 import com.stormpath.sdk.lang.Assert;
 import com.stormpath.sdk.lang.Collections;
+import com.stormpath.sdk.lang.Function;
 import com.stormpath.sdk.lang.Strings;
 import com.stormpath.sdk.oauth.AccessToken;
 import com.stormpath.sdk.oauth.RefreshToken;
@@ -61,33 +70,95 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import static com.stormpath.sdk.impl.api.ApiKeyParameter.ID;
 import static com.stormpath.sdk.impl.resource.AbstractResource.HREF_PROP_NAME;
 
-public class WriteCacheFilter extends AbstractCacheFilter {
+public class WriteCacheFilter extends AbstractCacheFilter implements AsyncFilter {
 
     private final BaseUrlResolver baseUrlResolver;
     private final ReferenceFactory referenceFactory;
     private final CacheMapInitializer cacheMapInitializer;
-
+    private final RevalidationCache revalidationCache;
+    private final NegativeCache negativeCache;
+    private final CacheInvalidationBus invalidationBus;
 
     public WriteCacheFilter(BaseUrlResolver baseUrlResolver, CacheResolver cacheResolver, boolean collectionCachingEnabled, ReferenceFactory referenceFactory) {
+        this(baseUrlResolver, cacheResolver, collectionCachingEnabled, referenceFactory, null, null);
+    }
+
+    /**
+     * @param revalidationCache where the validators of read resources are retained so their cache entries can be
+     *                          revalidated once expired, or {@code null} if expired entries are not revalidated
+     * @param negativeCache     the hrefs recently found not to exist, which are forgotten as soon as a resource is
+     *                          written to them, or {@code null} if not found responses are not remembered
+     * @since 2.0.5
+     */
+    public WriteCacheFilter(BaseUrlResolver baseUrlResolver, CacheResolver cacheResolver, boolean collectionCachingEnabled,
+                            ReferenceFactory referenceFactory, RevalidationCache revalidationCache, NegativeCache negativeCache) {
+        this(baseUrlResolver, cacheResolver, collectionCachingEnabled, referenceFactory, revalidationCache, negativeCache, null);
+    }
+
+    /**
+     * @param invalidationBus the bus the keys of saved and deleted resources are published to, so other application
+     *                        nodes evict them from their local caches, or {@code null} if there is none
+     * @since 2.0.5
+     */
+    public WriteCacheFilter(BaseUrlResolver baseUrlResolver, CacheResolver cacheResolver, boolean collectionCachingEnabled,
+                            ReferenceFactory referenceFactory, RevalidationCache revalidationCache, NegativeCache negativeCache,
+                            CacheInvalidationBus invalidationBus) {
         super(cacheResolver, collectionCachingEnabled);
         Assert.notNull(referenceFactory, "referenceFactory cannot be null.");
         Assert.notNull(baseUrlResolver, "baseUrlResolver cannot be null.");
         this.referenceFactory = referenceFactory;
         this.cacheMapInitializer = new DefaultCacheMapInitializer();
         this.baseUrlResolver = baseUrlResolver;
+        this.revalidationCache = revalidationCache;
+        this.negativeCache = negativeCache;
+        this.invalidationBus = invalidationBus;
     }
 
     @Override
     public ResourceDataResult filter(ResourceDataRequest request, FilterChain chain) {
 
+        beforeFilter(request);
+
+        ResourceDataResult result = chain.filter(request);
+
+        return afterFilter(request, result);
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Override
+    public ResultFuture<ResourceDataResult> filter(final ResourceDataRequest request, AsyncFilterChain chain) {
+
+        beforeFilter(request);
+
+        return chain.filter(request).thenApply(new Function<ResourceDataResult, ResourceDataResult>() {
+            @Override
+            public ResourceDataResult apply(ResourceDataResult result) {
+                return afterFilter(request, result);
+            }
+        });
+    }
+
+    private void beforeFilter(ResourceDataRequest request) {
         if (request.getAction() == ResourceAction.DELETE) {
             String key = getCacheKey(request);
             uncache(key, request.getResourceClass());
+            if (revalidationCache != null) {
+                revalidationCache.remove(key);
+            }
         }
 
-        ResourceDataResult result = chain.filter(request);
+        //@since 2.0.5: a resource written to an href that was recently not found must be visible to subsequent reads
+        if (negativeCache != null && request.getAction() != ResourceAction.READ) {
+            negativeCache.remove(request.getUri().getAbsolutePath());
+        }
+    }
+
+    private ResourceDataResult afterFilter(ResourceDataRequest request, ResourceDataResult result) {
 
         if (result.getAction() == ResourceAction.READ
                 && OAuthTokenRevocationAttempt.class.isAssignableFrom(request.getResourceClass())
@@ -96,8 +167,34 @@ public class WriteCacheFilter extends AbstractCacheFilter {
             uncacheRevokedToken(request.getData());
         }
 
+        //@since 2.0.5: a newly created resource might have been requested before under its href
+        if (negativeCache != null && result.getAction() != ResourceAction.READ && !Collections.isEmpty(result.getData())) {
+            Object href = result.getData().get(HREF_PROP_NAME);
+            if (href instanceof String) {
+                negativeCache.remove((String) href);
+            }
+            //an api key created for an account is looked up by id through the application's api key collection:
+            Object id = result.getData().get(ID.getName());
+            if (id instanceof String && ApiKey.class.isAssignableFrom(result.getResourceClass())) {
+                negativeCache.removeAllEndingWith("?" + ID.getName() + "=" + id);
+            }
+        }
+
+        //@since 2.0.5: other nodes must not keep serving the previous state of a saved resource:
+        if (request.getAction() != ResourceAction.READ && !Collections.isEmpty(result.getData())) {
+            Object href = result.getData().get(HREF_PROP_NAME);
+            if (href instanceof String) {
+                publishInvalidation(getCache(result.getResourceClass()), (String) href);
+            }
+        }
+
         if (isCacheable(request, result)) {
-            cache(result.getResourceClass(), result.getData(),  request.getUri().getAbsolutePath(), result.getUri().getQuery());
+            Map<String, Object> cacheValue = cache(result.getResourceClass(), result.getData(),  request.getUri().getAbsolutePath(), result.getUri().getQuery());
+
+            //@since 2.0.5: retain the validators so that the entry can be revalidated instead of re-fetched once expired
+            if (cacheValue != null && isRevalidatable(request, result)) {
+                retainValidators(request, result, cacheValue);
+            }
         }
 
         //since 0.9.2: custom data quick fix for https://github.com/stormpath/stormpath-sdk-java/issues/30
@@ -132,6 +229,7 @@ public class WriteCacheFilter extends AbstractCacheFilter {
             if (Strings.hasText(accountHref)) {
                 Cache<String, ?> cache = getCache(Account.class);
                 cache.remove(accountHref);
+                publishInvalidation(cache, accountHref);
             }
         }
 
@@ -152,6 +250,42 @@ public class WriteCacheFilter extends AbstractCacheFilter {
             !AccessToken.class.isAssignableFrom(clazz);
     }
 
+    /**
+     * @since 2.0.5
+     */
+    private boolean isRevalidatable(ResourceDataRequest request, ResourceDataResult result) {
+
+        Class<? extends Resource> clazz = request.getResourceClass();
+
+        return revalidationCache != null &&
+
+            //only reads are answered from the cache, so only reads need to be revalidated:
+            request.getAction() == ResourceAction.READ && result.getAction() == ResourceAction.READ &&
+
+            //api key secrets are encrypted per request, so a previously cached representation must not be reused:
+            !ApiKey.class.isAssignableFrom(clazz) && !ApiKeyList.class.isAssignableFrom(clazz) &&
+
+            isCacheKeyApplicable(request, getCacheKey(request));
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    private void retainValidators(ResourceDataRequest request, ResourceDataResult result, Map<String, Object> cacheValue) {
+
+        HttpHeaders headers = result.getHttpHeaders();
+
+        long lastModified;
+        try {
+            lastModified = headers.getLastModified();
+        } catch (IllegalArgumentException e) {
+            //unparseable date, fall back to the resource's modifiedAt property:
+            lastModified = -1;
+        }
+
+        revalidationCache.put(getCacheKey(request), cacheValue, headers.getETag(), lastModified);
+    }
+
     /**
      * Helps fix <a href="https://github.com/stormpath/stormpath-sdk-java/issues/30">Issue #30</a>.
      * <p/>
@@ -201,13 +335,19 @@ public class WriteCacheFilter extends AbstractCacheFilter {
         //the top-most item being cached - we don't want to propagate it for nested resources because the nested
         //resource wasn't acquired w/ that query string.
         cache(CustomData.class, customDataToCache, null, null);
+
+        //@since 2.0.5
+        publishInvalidation(getCache(CustomData.class), customDataHref);
     }
 
     /**
+     * Caches the specified resource data, returning the cached representation of the resource, or {@code null} if the
+     * resource itself could not be cached directly.
+     *
      * @since 0.8
      */
     @SuppressWarnings("unchecked")
-    private void cache(Class<? extends Resource> clazz, Map<String, ?> data, String fallbackHref, QueryString queryString) {
+    private Map<String, Object> cache(Class<? extends Resource> clazz, Map<String, ?> data, String fallbackHref, QueryString queryString) {
 
         Assert.notEmpty(data, "Resource data cannot be null or empty.");
         String href = (String) data.get(AbstractResource.HREF_PROP_NAME);
@@ -228,8 +368,8 @@ public class WriteCacheFilter extends AbstractCacheFilter {
 
         if (CustomData.class.isAssignableFrom(clazz)) {
             Cache cache = getCache(clazz);
-            cache.put(href, cacheValue);
-            return;
+            putAsync(cache, href, cacheValue);
+            return cacheValue;
         }
 
         for (Map.Entry<String, ?> entry : data.entrySet()) {
@@ -318,8 +458,11 @@ public class WriteCacheFilter extends AbstractCacheFilter {
         if (isDirectlyCacheable(clazz, cacheValue)) {
             Cache cache = getCache(clazz);
             String cacheKey = getCacheKey(href, queryString, clazz);
-            cache.put(cacheKey, cacheValue);
+            putAsync(cache, cacheKey, cacheValue);
+            return cacheValue;
         }
+
+        return null;
     }
 
 
@@ -399,6 +542,19 @@ public class WriteCacheFilter extends AbstractCacheFilter {
         Assert.notNull(resourceType, "resourceType cannot be null.");
         Cache<String, Map<String, ?>> cache = getCache(resourceType);
         cache.remove(cacheKey);
+        publishInvalidation(cache, cacheKey);
+    }
+
+    /**
+     * Publishes the eviction of the specified key to the other application nodes if an invalidation bus is configured.
+     * Only local {@link DefaultCache} regions need it: distributed caches are already coherent.
+     *
+     * @since 2.0.5
+     */
+    private void publishInvalidation(Cache cache, String key) {
+        if (invalidationBus != null && cache instanceof DefaultCache) {
+            invalidationBus.publish(((DefaultCache) cache).getName(), key);
+        }
     }
 
     private void uncacheRevokedToken(Map<String, Object> data) {
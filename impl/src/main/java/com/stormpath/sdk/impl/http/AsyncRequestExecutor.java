@@ -0,0 +1,33 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.http;
+
+import com.stormpath.sdk.impl.util.ResultFuture;
+
+/**
+ * A {@link RequestExecutor} that can also execute requests without blocking the calling thread.
+ * <p>
+ * The returned future is completed by the underlying I/O machinery once the response is available, or completed
+ * exceptionally with a {@link RestException} if the request could not be executed.  Implementations must not perform
+ * blocking work on the calling thread.
+ *
+ * @since 2.0.5
+ */
+public interface AsyncRequestExecutor extends RequestExecutor {
+
+    ResultFuture<Response> executeRequestAsync(Request request);
+
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.http.support;
+
+import com.stormpath.sdk.impl.http.AsyncRequestExecutor;
+import com.stormpath.sdk.impl.http.Request;
+import com.stormpath.sdk.impl.http.RequestExecutor;
+import com.stormpath.sdk.impl.http.Response;
+import com.stormpath.sdk.lang.Assert;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * A {@link RequestExecutor} applying {@link AdmissionController}s to the requests of another executor, so that
+ * requests to a slow or failing route are rejected with a {@link RequestRejectedException} instead of waiting for
+ * the server.
+ * <p/>
+ * By default, a {@link CircuitBreaker} and an {@link AimdConcurrencyLimiter} are applied, in that order.  A request
+ * is considered failed if the executor throws an exception, or if the response is a server error or
+ * {@code 429 Too Many Requests}; requests rejected before reaching the server, with a
+ * {@link RequestRejectedException}, are ignored.  The client wraps its executor when the
+ * {@code com.stormpath.sdk.impl.http.support.AdmissionControlRequestExecutor.enabled} system property is
+ * {@code true}; the state of the controllers is available from
+ * {@link com.stormpath.sdk.impl.ds.DefaultDataStore#getRequestExecutor() DefaultDataStore.getRequestExecutor()}.
+ *
+ * @since 2.0.5
+ */
+public class AdmissionControlRequestExecutor implements RequestExecutor, Closeable {
+
+    public static final String ENABLED_PROPERTY_KEY = "com.stormpath.sdk.impl.http.support.AdmissionControlRequestExecutor.enabled";
+
+    private final RequestExecutor delegate;
+
+    private final List<AdmissionController> controllers;
+
+    public AdmissionControlRequestExecutor(RequestExecutor delegate) {
+        this(delegate, new CircuitBreaker(), new AimdConcurrencyLimiter());
+    }
+
+    public AdmissionControlRequestExecutor(RequestExecutor delegate, AdmissionController... controllers) {
+        Assert.notNull(delegate, "delegate cannot be null.");
+        Assert.notEmpty(controllers, "at least one AdmissionController is required.");
+        this.delegate = delegate;
+        this.controllers = Collections.unmodifiableList(Arrays.asList(controllers));
+    }
+
+    /**
+     * Returns an executor applying the default controllers to the specified executor, which is non-blocking if the
+     * specified executor is an {@link AsyncRequestExecutor}.
+     *
+     * @param delegate the executor to apply the controllers to
+     * @return an executor applying the default controllers to the specified executor.
+     */
+    public static AdmissionControlRequestExecutor wrap(RequestExecutor delegate) {
+        if (delegate instanceof AsyncRequestExecutor) {
+            return new AsyncAdmissionControlRequestExecutor((AsyncRequestExecutor) delegate);
+        }
+        return new AdmissionControlRequestExecutor(delegate);
+    }
+
+    public RequestExecutor getDelegate() {
+        return delegate;
+    }
+
+    public List<AdmissionController> getAdmissionControllers() {
+        return controllers;
+    }
+
+    /**
+     * Returns the first controller of the specified type, {@code null} if there is none.
+     *
+     * @param type the type of the controller
+     * @param <T>  the type of the controller
+     * @return the first controller of the specified type, {@code null} if there is none.
+     */
+    public <T extends AdmissionController> T getAdmissionController(Class<T> type) {
+        for (AdmissionController controller : controllers) {
+            if (type.isInstance(controller)) {
+                return type.cast(controller);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Response executeRequest(Request request) {
+        List<AdmissionController.Permit> permits = acquire(request);
+        long start = System.nanoTime();
+        AdmissionController.Outcome outcome = AdmissionController.Outcome.FAILURE;
+        long latencyNanos = -1;
+        try {
+            Response response = delegate.executeRequest(request);
+            outcome = getOutcome(response);
+            latencyNanos = getLatencyNanos(response);
+            return response;
+        } catch (RuntimeException e) {
+            outcome = getOutcome(e);
+            throw e;
+        } finally {
+            release(permits, outcome, latencyNanos >= 0 ? latencyNanos : System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Acquires the permits of all controllers, releasing the acquired ones if a controller rejects the request.
+     */
+    protected List<AdmissionController.Permit> acquire(Request request) throws RequestRejectedException {
+        String route = getRoute(request);
+        List<AdmissionController.Permit> permits = new ArrayList<AdmissionController.Permit>(controllers.size());
+        try {
+            for (AdmissionController controller : controllers) {
+                permits.add(controller.acquire(route));
+            }
+        } catch (RuntimeException e) {
+            release(permits, AdmissionController.Outcome.IGNORED, 0);
+            throw e;
+        }
+        return permits;
+    }
+
+    protected void release(List<AdmissionController.Permit> permits, AdmissionController.Outcome outcome,
+                           long latencyNanos) {
+        for (AdmissionController.Permit permit : permits) {
+            permit.release(outcome, latencyNanos);
+        }
+    }
+
+    protected AdmissionController.Outcome getOutcome(Response response) {
+        int status = response.getHttpStatus();
+        return status >= 500 || status == 429 ? AdmissionController.Outcome.FAILURE : AdmissionController.Outcome.SUCCESS;
+    }
+
+    /**
+     * Returns the outcome of a request that failed with the specified exception: requests rejected before reaching
+     * the server, such as by a {@link RateLimiter} or another executor's controllers, and cancelled requests say
+     * nothing about the health of the route and are {@link AdmissionController.Outcome#IGNORED ignored}.
+     */
+    protected AdmissionController.Outcome getOutcome(Throwable t) {
+        return t instanceof RequestRejectedException || t instanceof CancellationException
+            ? AdmissionController.Outcome.IGNORED : AdmissionController.Outcome.FAILURE;
+    }
+
+    /**
+     * Returns the network latency the executor recorded on the specified response, {@code -1} if it did not, in which
+     * case the time spent in the executor is used.  Rate limiter waits and retry backoffs are excluded from the
+     * recorded latency, so that they are not mistaken for a slow server.
+     */
+    protected long getLatencyNanos(Response response) {
+        return response instanceof DefaultResponse ? ((DefaultResponse) response).getLatencyNanos() : -1;
+    }
+
+    /**
+     * Returns the route of a request: the scheme, host and port of its URL.
+     */
+    protected String getRoute(Request request) {
+        URI uri = request.getResourceUrl();
+        StringBuilder sb = new StringBuilder(uri.getScheme()).append("://").append(uri.getHost());
+        if (uri.getPort() != -1) {
+            sb.append(':').append(uri.getPort());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Closes the wrapped executor, if it holds resources.
+     *
+     * @throws IOException if the wrapped executor could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (delegate instanceof Closeable) {
+            ((Closeable) delegate).close();
+        }
+    }
+
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{\n");
+        for (int i = 0; i < controllers.size(); i++) {
+            AdmissionController controller = controllers.get(i);
+            sb.append("  \"").append(controller.getClass().getSimpleName()).append("\": ")
+              .append(controller.toString().replace("\n", "\n  "))
+              .append(i < controllers.size() - 1 ? ",\n" : "\n");
+        }
+        return sb.append("}").toString();
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.http.support;
+
+/**
+ * Decides whether a request may be sent to a route (a scheme, host and port), so that a slow or failing server makes
+ * requests fail fast instead of piling up threads and pooled connections.  Controllers are applied around a
+ * {@link com.stormpath.sdk.impl.http.RequestExecutor RequestExecutor} by an {@link AdmissionControlRequestExecutor}.
+ *
+ * @see AimdConcurrencyLimiter
+ * @see CircuitBreaker
+ * @since 2.0.5
+ */
+public interface AdmissionController {
+
+    /**
+     * Admits a request to the specified route.
+     *
+     * @param route the route of the request, e.g. {@code https://api.stormpath.com:443}
+     * @return the permit to release once the request has completed
+     * @throws RequestRejectedException if the request is not admitted
+     */
+    Permit acquire(String route) throws RequestRejectedException;
+
+    /**
+     * The outcome of an admitted request.
+     */
+    enum Outcome {
+
+        /**
+         * The server handled the request (including client errors such as {@code 404}).
+         */
+        SUCCESS,
+
+        /**
+         * The server failed to handle the request: an I/O error, a timeout, a server error or a throttling response.
+         */
+        FAILURE,
+
+        /**
+         * The request was not sent, e.g. because another controller rejected it.
+         */
+        IGNORED
+    }
+
+    /**
+     * An admitted request.
+     */
+    interface Permit {
+
+        /**
+         * Reports the outcome of the request.  Only the first invocation has an effect.
+         *
+         * @param outcome      the outcome of the request
+         * @param latencyNanos the time it took for the request to complete, in nanoseconds
+         */
+        void release(Outcome outcome, long latencyNanos);
+    }
+}
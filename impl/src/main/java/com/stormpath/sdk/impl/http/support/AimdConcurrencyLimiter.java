@@ -0,0 +1,275 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.http.support;
+
+import com.stormpath.sdk.lang.Assert;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * An {@link AdmissionController} limiting the number of requests in flight per route with an additive increase,
+ * multiplicative decrease (AIMD) algorithm, the way TCP adapts its congestion window.
+ * <p/>
+ * Each route starts with the {@link #getInitialLimit() initial limit}.  A request completing within the
+ * {@link #getLatencyThresholdMillis() latency threshold} while the route is using at least half of its limit raises
+ * the limit by {@code 1/limit}, so that it slowly grows while the server keeps up; a failed request, or one slower
+ * than the threshold, multiplies it by the {@link #getBackoffRatio() backoff ratio}.  When the server slows
+ * down, the limit quickly drops so that requests above it fail fast with a {@link ConcurrencyLimitExceededException}
+ * instead of waiting for a pooled connection.
+ *
+ * @since 2.0.5
+ */
+public class AimdConcurrencyLimiter implements AdmissionController {
+
+    public static final int DEFAULT_INITIAL_LIMIT = 20;
+    public static final int DEFAULT_MIN_LIMIT = 1;
+    public static final int DEFAULT_MAX_LIMIT = 200;
+    public static final double DEFAULT_BACKOFF_RATIO = 0.9;
+    public static final long DEFAULT_LATENCY_THRESHOLD_MILLIS = 5000;
+
+    private final ConcurrentMap<String, Route> routes = new ConcurrentHashMap<String, Route>();
+
+    private volatile int initialLimit = DEFAULT_INITIAL_LIMIT;
+    private volatile int minLimit = DEFAULT_MIN_LIMIT;
+    private volatile int maxLimit = DEFAULT_MAX_LIMIT;
+    private volatile double backoffRatio = DEFAULT_BACKOFF_RATIO;
+    private volatile long latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_LATENCY_THRESHOLD_MILLIS);
+
+    @Override
+    public Permit acquire(String route) throws RequestRejectedException {
+        final Route r = getRoute(route);
+        final int inFlight;
+        synchronized (r) {
+            int limit = (int) r.limit;
+            if (r.inFlight >= limit) {
+                r.rejectedCount++;
+                throw new ConcurrencyLimitExceededException(route, limit);
+            }
+            inFlight = ++r.inFlight;
+        }
+        return new Permit() {
+            private final AtomicBoolean released = new AtomicBoolean();
+
+            @Override
+            public void release(Outcome outcome, long latencyNanos) {
+                if (released.compareAndSet(false, true)) {
+                    onRelease(r, inFlight, outcome, latencyNanos);
+                }
+            }
+        };
+    }
+
+    private void onRelease(Route r, int inFlight, Outcome outcome, long latencyNanos) {
+        synchronized (r) {
+            r.inFlight--;
+            if (outcome == Outcome.IGNORED) {
+                return;
+            }
+            if (outcome == Outcome.FAILURE || latencyNanos > latencyThresholdNanos) {
+                r.limit = Math.max(minLimit, r.limit * backoffRatio);
+                r.decreaseCount++;
+            } else if (inFlight * 2 >= r.limit) {
+                //only grow when the current limit is actually used:
+                r.limit = Math.min(maxLimit, r.limit + 1 / r.limit);
+            }
+        }
+    }
+
+    private Route getRoute(String route) {
+        Assert.hasText(route, "route cannot be null or empty.");
+        Route r = routes.get(route);
+        if (r == null) {
+            Route created = new Route(initialLimit);
+            r = routes.putIfAbsent(route, created);
+            if (r == null) {
+                r = created;
+            }
+        }
+        return r;
+    }
+
+    /**
+     * Returns the current concurrency limit of a route.
+     *
+     * @param route the route
+     * @return the current concurrency limit of the route.
+     */
+    public int getLimit(String route) {
+        Route r = routes.get(route);
+        if (r == null) {
+            return initialLimit;
+        }
+        synchronized (r) {
+            return (int) r.limit;
+        }
+    }
+
+    /**
+     * Returns the number of requests in flight to a route.
+     *
+     * @param route the route
+     * @return the number of requests in flight to the route.
+     */
+    public int getInFlight(String route) {
+        Route r = routes.get(route);
+        if (r == null) {
+            return 0;
+        }
+        synchronized (r) {
+            return r.inFlight;
+        }
+    }
+
+    /**
+     * Returns the number of requests to a route rejected because its limit was reached.
+     *
+     * @param route the route
+     * @return the number of requests to the route rejected because its limit was reached.
+     */
+    public long getRejectedCount(String route) {
+        Route r = routes.get(route);
+        if (r == null) {
+            return 0;
+        }
+        synchronized (r) {
+            return r.rejectedCount;
+        }
+    }
+
+    /**
+     * Returns the number of times the limit of a route was decreased.
+     *
+     * @param route the route
+     * @return the number of times the limit of the route was decreased.
+     */
+    public long getDecreaseCount(String route) {
+        Route r = routes.get(route);
+        if (r == null) {
+            return 0;
+        }
+        synchronized (r) {
+            return r.decreaseCount;
+        }
+    }
+
+    /**
+     * Returns the routes requests were admitted to or rejected from, sorted.
+     *
+     * @return the routes requests were admitted to or rejected from.
+     */
+    public Set<String> getRoutes() {
+        return Collections.unmodifiableSet(new TreeMap<String, Route>(routes).keySet());
+    }
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    /**
+     * Sets the limit of routes that have not been used yet.
+     *
+     * @param initialLimit the limit of routes that have not been used yet
+     */
+    public void setInitialLimit(int initialLimit) {
+        Assert.isTrue(initialLimit > 0, "initialLimit must be greater than zero.");
+        this.initialLimit = initialLimit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public void setMinLimit(int minLimit) {
+        Assert.isTrue(minLimit > 0, "minLimit must be greater than zero.");
+        this.minLimit = minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public void setMaxLimit(int maxLimit) {
+        Assert.isTrue(maxLimit > 0, "maxLimit must be greater than zero.");
+        this.maxLimit = maxLimit;
+    }
+
+    public double getBackoffRatio() {
+        return backoffRatio;
+    }
+
+    /**
+     * Sets the ratio the limit of a route is multiplied by when a request fails or is too slow.
+     *
+     * @param backoffRatio the ratio the limit is multiplied by, between {@code 0} and {@code 1} (excluded)
+     */
+    public void setBackoffRatio(double backoffRatio) {
+        Assert.isTrue(backoffRatio > 0 && backoffRatio < 1, "backoffRatio must be between 0 and 1.");
+        this.backoffRatio = backoffRatio;
+    }
+
+    public long getLatencyThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(latencyThresholdNanos);
+    }
+
+    /**
+     * Sets the latency above which a request is considered a sign of overload, decreasing the limit of its route.
+     *
+     * @param latencyThresholdMillis the latency threshold in milliseconds
+     */
+    public void setLatencyThresholdMillis(long latencyThresholdMillis) {
+        Assert.isTrue(latencyThresholdMillis > 0, "latencyThresholdMillis must be greater than zero.");
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMillis);
+    }
+
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        String separator = "\n";
+        for (Map.Entry<String, Route> entry : new TreeMap<String, Route>(routes).entrySet()) {
+            Route r = entry.getValue();
+            synchronized (r) {
+                sb.append(separator).append("  \"").append(entry.getKey()).append("\": {")
+                  .append("\"limit\": ").append((int) r.limit)
+                  .append(", \"inFlight\": ").append(r.inFlight)
+                  .append(", \"rejectedCount\": ").append(r.rejectedCount)
+                  .append(", \"decreaseCount\": ").append(r.decreaseCount).append("}");
+            }
+            separator = ",\n";
+        }
+        return sb.append(separator.length() > 1 ? "\n}" : "}").toString();
+    }
+
+    /**
+     * The state of a route, guarded by itself.
+     */
+    private static class Route {
+
+        private double limit;
+        private int inFlight;
+        private long rejectedCount;
+        private long decreaseCount;
+
+        private Route(int limit) {
+            this.limit = limit;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.http.support;
+
+import com.stormpath.sdk.impl.http.AsyncRequestExecutor;
+import com.stormpath.sdk.impl.http.Request;
+import com.stormpath.sdk.impl.http.Response;
+import com.stormpath.sdk.impl.util.ResultFuture;
+
+import java.util.List;
+
+/**
+ * An {@link AdmissionControlRequestExecutor} for an {@link AsyncRequestExecutor}, releasing the permits of a request
+ * when its future completes.
+ *
+ * @since 2.0.5
+ */
+public class AsyncAdmissionControlRequestExecutor extends AdmissionControlRequestExecutor
+    implements AsyncRequestExecutor {
+
+    public AsyncAdmissionControlRequestExecutor(AsyncRequestExecutor delegate) {
+        super(delegate);
+    }
+
+    public AsyncAdmissionControlRequestExecutor(AsyncRequestExecutor delegate, AdmissionController... controllers) {
+        super(delegate, controllers);
+    }
+
+    @Override
+    public ResultFuture<Response> executeRequestAsync(Request request) {
+        final List<AdmissionController.Permit> permits;
+        try {
+            permits = acquire(request);
+        } catch (RequestRejectedException e) {
+            return ResultFuture.failed(e);
+        }
+        final long start = System.nanoTime();
+        ResultFuture<Response> future;
+        try {
+            future = ((AsyncRequestExecutor) getDelegate()).executeRequestAsync(request);
+        } catch (RuntimeException e) {
+            release(permits, getOutcome(e), System.nanoTime() - start);
+            throw e;
+        }
+        return future.whenComplete(new ResultFuture.Listener<Response>() {
+            @Override
+            public void onSuccess(Response response) {
+                long latencyNanos = getLatencyNanos(response);
+                release(permits, getOutcome(response), latencyNanos >= 0 ? latencyNanos : System.nanoTime() - start);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                release(permits, getOutcome(t), System.nanoTime() - start);
+            }
+        });
+    }
+}
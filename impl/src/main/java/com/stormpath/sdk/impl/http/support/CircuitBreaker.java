@@ -0,0 +1,390 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.http.support;
+
+import com.stormpath.sdk.lang.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * An {@link AdmissionController} rejecting the requests to a route whose recent requests mostly failed.
+ * <p/>
+ * The outcomes of the last {@link #getWindowSize() window size} requests of each route are kept.  Once at least
+ * {@link #getMinimumRequests() minimum requests} outcomes are known and the proportion of failures reaches the
+ * {@link #getFailureRateThreshold() failure rate threshold}, the breaker of the route opens: requests immediately
+ * fail with a {@link CircuitBreakerOpenException} for the {@link #getOpenDurationMillis() open duration}.  The breaker
+ * then lets {@link #getHalfOpenRequests() half-open requests} trial requests through: if they all succeed it closes,
+ * if one fails it opens again.
+ *
+ * @since 2.0.5
+ */
+public class CircuitBreaker implements AdmissionController {
+
+    private static final Logger log = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public static final double DEFAULT_FAILURE_RATE_THRESHOLD = 0.5;
+    public static final int DEFAULT_WINDOW_SIZE = 50;
+    public static final int DEFAULT_MINIMUM_REQUESTS = 20;
+    public static final long DEFAULT_OPEN_DURATION_MILLIS = 10000;
+    public static final int DEFAULT_HALF_OPEN_REQUESTS = 3;
+
+    /**
+     * The state of the breaker of a route.
+     */
+    public enum State {
+
+        /**
+         * Requests are admitted and their outcome recorded.
+         */
+        CLOSED,
+
+        /**
+         * Requests are rejected.
+         */
+        OPEN,
+
+        /**
+         * A limited number of trial requests are admitted to decide whether the breaker closes or opens again.
+         */
+        HALF_OPEN
+    }
+
+    private final ConcurrentMap<String, Route> routes = new ConcurrentHashMap<String, Route>();
+
+    private volatile double failureRateThreshold = DEFAULT_FAILURE_RATE_THRESHOLD;
+    private volatile int windowSize = DEFAULT_WINDOW_SIZE;
+    private volatile int minimumRequests = DEFAULT_MINIMUM_REQUESTS;
+    private volatile long openDurationMillis = DEFAULT_OPEN_DURATION_MILLIS;
+    private volatile int halfOpenRequests = DEFAULT_HALF_OPEN_REQUESTS;
+
+    @Override
+    public Permit acquire(String route) throws RequestRejectedException {
+        final Route r = getRoute(route);
+        final boolean trial;
+        synchronized (r) {
+            if (r.state == State.OPEN) {
+                long remaining = r.openedAt + openDurationMillis - currentTimeMillis();
+                if (remaining > 0) {
+                    r.rejectedCount++;
+                    throw new CircuitBreakerOpenException(route, remaining);
+                }
+                r.state = State.HALF_OPEN;
+                r.trialsInFlight = 0;
+                r.trialSuccesses = 0;
+            }
+            trial = r.state == State.HALF_OPEN;
+            if (trial) {
+                if (r.trialsInFlight + r.trialSuccesses >= halfOpenRequests) {
+                    r.rejectedCount++;
+                    throw new CircuitBreakerOpenException(route, 0);
+                }
+                r.trialsInFlight++;
+            }
+        }
+        final String name = route;
+        return new Permit() {
+            private final AtomicBoolean released = new AtomicBoolean();
+
+            @Override
+            public void release(Outcome outcome, long latencyNanos) {
+                if (released.compareAndSet(false, true)) {
+                    onRelease(name, r, trial, outcome);
+                }
+            }
+        };
+    }
+
+    private void onRelease(String route, Route r, boolean trial, Outcome outcome) {
+        synchronized (r) {
+            if (trial) {
+                if (r.state != State.HALF_OPEN) {
+                    return; //opened again by another trial
+                }
+                r.trialsInFlight--;
+                if (outcome == Outcome.FAILURE) {
+                    log.warn("Re-opening the circuit breaker of {} after a failed trial request.", route);
+                    open(r);
+                } else if (outcome == Outcome.SUCCESS && ++r.trialSuccesses >= halfOpenRequests) {
+                    log.info("Closing the circuit breaker of {} after {} successful trial requests.", route,
+                             r.trialSuccesses);
+                    r.state = State.CLOSED;
+                    r.clearWindow();
+                }
+                return;
+            }
+            if (outcome == Outcome.IGNORED || r.state != State.CLOSED) {
+                return;
+            }
+            r.record(outcome == Outcome.FAILURE, windowSize);
+            if (r.count >= minimumRequests && r.getFailureRate() >= failureRateThreshold) {
+                log.warn("Opening the circuit breaker of {} (failure rate: {}), requests will be rejected for {} ms.",
+                         route, r.getFailureRate(), openDurationMillis);
+                open(r);
+            }
+        }
+    }
+
+    private void open(Route r) {
+        r.state = State.OPEN;
+        r.openedAt = currentTimeMillis();
+        r.openCount++;
+        r.clearWindow();
+    }
+
+    /**
+     * Returns the current time in milliseconds, used to time how long breakers stay open.
+     *
+     * @return the current time in milliseconds.
+     */
+    protected long currentTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    private Route getRoute(String route) {
+        Assert.hasText(route, "route cannot be null or empty.");
+        Route r = routes.get(route);
+        if (r == null) {
+            Route created = new Route();
+            r = routes.putIfAbsent(route, created);
+            if (r == null) {
+                r = created;
+            }
+        }
+        return r;
+    }
+
+    /**
+     * Returns the state of the breaker of a route.  An open breaker is only reported half-open once a request was
+     * attempted after its open duration.
+     *
+     * @param route the route
+     * @return the state of the breaker of the route.
+     */
+    public State getState(String route) {
+        Route r = routes.get(route);
+        if (r == null) {
+            return State.CLOSED;
+        }
+        synchronized (r) {
+            return r.state;
+        }
+    }
+
+    /**
+     * Returns the proportion of failures among the recorded outcomes of a closed breaker.
+     *
+     * @param route the route
+     * @return the proportion of failures among the recorded outcomes, {@code 0} if none was recorded.
+     */
+    public double getFailureRate(String route) {
+        Route r = routes.get(route);
+        if (r == null) {
+            return 0;
+        }
+        synchronized (r) {
+            return r.getFailureRate();
+        }
+    }
+
+    /**
+     * Returns the number of requests to a route rejected because its breaker was open.
+     *
+     * @param route the route
+     * @return the number of requests to the route rejected because its breaker was open.
+     */
+    public long getRejectedCount(String route) {
+        Route r = routes.get(route);
+        if (r == null) {
+            return 0;
+        }
+        synchronized (r) {
+            return r.rejectedCount;
+        }
+    }
+
+    /**
+     * Returns the number of times the breaker of a route opened.
+     *
+     * @param route the route
+     * @return the number of times the breaker of the route opened.
+     */
+    public long getOpenCount(String route) {
+        Route r = routes.get(route);
+        if (r == null) {
+            return 0;
+        }
+        synchronized (r) {
+            return r.openCount;
+        }
+    }
+
+    /**
+     * Returns the routes requests were admitted to or rejected from, sorted.
+     *
+     * @return the routes requests were admitted to or rejected from.
+     */
+    public Set<String> getRoutes() {
+        return Collections.unmodifiableSet(new TreeMap<String, Route>(routes).keySet());
+    }
+
+    public double getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    /**
+     * Sets the proportion of failed requests from which the breaker of a route opens.
+     *
+     * @param failureRateThreshold the failure rate threshold, greater than {@code 0} and at most {@code 1}
+     */
+    public void setFailureRateThreshold(double failureRateThreshold) {
+        Assert.isTrue(failureRateThreshold > 0 && failureRateThreshold <= 1,
+                      "failureRateThreshold must be greater than 0 and at most 1.");
+        this.failureRateThreshold = failureRateThreshold;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    /**
+     * Sets the number of most recent outcomes the failure rate is computed on.
+     *
+     * @param windowSize the number of most recent outcomes kept per route
+     */
+    public void setWindowSize(int windowSize) {
+        Assert.isTrue(windowSize > 0, "windowSize must be greater than zero.");
+        this.windowSize = windowSize;
+    }
+
+    public int getMinimumRequests() {
+        return minimumRequests;
+    }
+
+    /**
+     * Sets the number of outcomes that must be recorded before the breaker of a route can open.
+     *
+     * @param minimumRequests the number of outcomes required to compute the failure rate
+     */
+    public void setMinimumRequests(int minimumRequests) {
+        Assert.isTrue(minimumRequests > 0, "minimumRequests must be greater than zero.");
+        this.minimumRequests = minimumRequests;
+    }
+
+    public long getOpenDurationMillis() {
+        return openDurationMillis;
+    }
+
+    /**
+     * Sets how long an open breaker rejects requests before letting trial requests through.
+     *
+     * @param openDurationMillis the open duration in milliseconds
+     */
+    public void setOpenDurationMillis(long openDurationMillis) {
+        Assert.isTrue(openDurationMillis >= 0, "openDurationMillis cannot be negative.");
+        this.openDurationMillis = openDurationMillis;
+    }
+
+    public int getHalfOpenRequests() {
+        return halfOpenRequests;
+    }
+
+    /**
+     * Sets the number of trial requests that must succeed for a half-open breaker to close.
+     *
+     * @param halfOpenRequests the number of trial requests
+     */
+    public void setHalfOpenRequests(int halfOpenRequests) {
+        Assert.isTrue(halfOpenRequests > 0, "halfOpenRequests must be greater than zero.");
+        this.halfOpenRequests = halfOpenRequests;
+    }
+
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        String separator = "\n";
+        for (Map.Entry<String, Route> entry : new TreeMap<String, Route>(routes).entrySet()) {
+            Route r = entry.getValue();
+            synchronized (r) {
+                sb.append(separator).append("  \"").append(entry.getKey()).append("\": {")
+                  .append("\"state\": \"").append(r.state).append("\"")
+                  .append(", \"failureRate\": ").append(r.getFailureRate())
+                  .append(", \"rejectedCount\": ").append(r.rejectedCount)
+                  .append(", \"openCount\": ").append(r.openCount).append("}");
+            }
+            separator = ",\n";
+        }
+        return sb.append(separator.length() > 1 ? "\n}" : "}").toString();
+    }
+
+    /**
+     * The state of a route, guarded by itself.
+     */
+    private static class Route {
+
+        private State state = State.CLOSED;
+
+        /**
+         * The most recent outcomes ({@code true} for a failure), a ring buffer of {@code count} entries ending
+         * before {@code next}.
+         */
+        private boolean[] window = new boolean[0];
+        private int next;
+        private int count;
+        private int failures;
+
+        private long openedAt;
+        private int trialsInFlight;
+        private int trialSuccesses;
+
+        private long rejectedCount;
+        private long openCount;
+
+        private void record(boolean failure, int windowSize) {
+            if (window.length != windowSize) {
+                window = new boolean[windowSize];
+                next = count = failures = 0;
+            }
+            if (count == window.length) {
+                if (window[next]) {
+                    failures--;
+                }
+            } else {
+                count++;
+            }
+            window[next] = failure;
+            if (failure) {
+                failures++;
+            }
+            next = (next + 1) % window.length;
+        }
+
+        private void clearWindow() {
+            next = count = failures = 0;
+        }
+
+        private double getFailureRate() {
+            return count == 0 ? 0 : (double) failures / count;
+        }
+    }
+}
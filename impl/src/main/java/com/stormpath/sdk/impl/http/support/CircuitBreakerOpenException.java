@@ -0,0 +1,41 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.http.support;
+
+/**
+ * Thrown when a request is rejected because the {@link CircuitBreaker} of its route is open.
+ *
+ * @since 2.0.5
+ */
+public class CircuitBreakerOpenException extends RequestRejectedException {
+
+    private final long retryAfterMillis;
+
+    public CircuitBreakerOpenException(String route, long retryAfterMillis) {
+        super(route, "The circuit breaker of " + route + " is open after too many failed requests, requests are " +
+                     "rejected for the next " + retryAfterMillis + " ms.");
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * Returns the number of milliseconds until the circuit breaker lets a trial request through.
+     *
+     * @return the number of milliseconds until the circuit breaker lets a trial request through.
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.http.support;
+
+/**
+ * Thrown when a request is rejected because its route already has as many requests in flight as its
+ * {@link AimdConcurrencyLimiter concurrency limit}.
+ *
+ * @since 2.0.5
+ */
+public class ConcurrencyLimitExceededException extends RequestRejectedException {
+
+    private final int limit;
+
+    public ConcurrencyLimitExceededException(String route, int limit) {
+        super(route, "The concurrency limit of " + route + " (" + limit + " requests in flight) has been reached.");
+        this.limit = limit;
+    }
+
+    /**
+     * Returns the concurrency limit of the route when the request was rejected.
+     *
+     * @return the concurrency limit of the route when the request was rejected.
+     */
+    public int getLimit() {
+        return limit;
+    }
+}
@@ -29,6 +29,7 @@ public class DefaultResponse extends AbstractHttpMessage implements Response {
     private final int httpStatus;
     private final HttpHeaders headers;
     private final InputStream body;
+    private volatile long latencyNanos = -1; //@since 2.0.5
 
     public DefaultResponse(int httpStatus, MediaType contentType, InputStream body, long contentLength) {
         this.httpStatus = httpStatus;
@@ -75,4 +76,25 @@ public class DefaultResponse extends AbstractHttpMessage implements Response {
     public InputStream getBody() {
         return this.body;
     }
+
+    /**
+     * Returns the time the server took to answer the request of this response, excluding the time the request spent
+     * waiting for a rate limiter or between retries, in nanoseconds, or {@code -1} if it is unknown.
+     *
+     * @return the network latency of this response in nanoseconds, or {@code -1} if it is unknown.
+     * @since 2.0.5
+     */
+    public long getLatencyNanos() {
+        return latencyNanos;
+    }
+
+    /**
+     * Sets the time the server took to answer the request of this response, in nanoseconds.
+     *
+     * @param latencyNanos the network latency of this response in nanoseconds
+     * @since 2.0.5
+     */
+    public void setLatencyNanos(long latencyNanos) {
+        this.latencyNanos = latencyNanos;
+    }
 }
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.http.support;
+
+/**
+ * Thrown when a request is rejected by a {@link RateLimiter} because its endpoint family has no request left in the
+ * current rate limit window, or it would have to wait longer than the limiter allows.
+ *
+ * @since 2.0.5
+ */
+public class RateLimitExceededException extends RequestRejectedException {
+
+    private final long retryAfterMillis;
+
+    public RateLimitExceededException(String endpointFamily, long retryAfterMillis) {
+        super(endpointFamily, "The rate limit of " + endpointFamily + " has been reached, the next request can be " +
+                              "sent in " + retryAfterMillis + " ms.");
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * Returns the number of milliseconds until a request to the endpoint family can be sent.
+     *
+     * @return the number of milliseconds until a request to the endpoint family can be sent.
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
@@ -0,0 +1,360 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.http.support;
+
+import com.stormpath.sdk.impl.http.HttpHeaders;
+import com.stormpath.sdk.lang.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Paces the requests sent to each endpoint family according to the {@code X-Rate-Limit-Limit},
+ * {@code X-Rate-Limit-Remaining} and {@code X-Rate-Limit-Reset} headers of its responses, so that requests wait (or
+ * are rejected) on the client instead of being answered with {@code 429 Too Many Requests}.
+ * <p/>
+ * Each endpoint family has a token bucket.  Once a response reported how many requests remain until the rate limit
+ * window resets, the bucket is refilled at the rate spreading these requests over the rest of the window, and holds
+ * at most a {@link #getBurstRatio() burst ratio} of the limit, so that a traffic spike does not use the whole window
+ * budget at once.  A request finding no token either waits for one (the {@link Policy#QUEUE QUEUE} policy, for up to
+ * {@link #getMaxWaitMillis() max wait}) or is rejected with a {@link RateLimitExceededException}.  Families without
+ * rate limit headers, or whose window has reset since their last response, are not limited.
+ * <p/>
+ * The endpoint family of a request is its scheme, host and port, and the path up to the first collection name, e.g.
+ * {@code https://dev-123.okta.com/api/v1/users} for {@code /api/v1/users/00u1/groups}.
+ *
+ * @since 2.0.5
+ */
+public class RateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimiter.class);
+
+    public static final String LIMIT_HEADER = "X-Rate-Limit-Limit";
+    public static final String REMAINING_HEADER = "X-Rate-Limit-Remaining";
+    public static final String RESET_HEADER = "X-Rate-Limit-Reset";
+
+    public static final long DEFAULT_MAX_WAIT_MILLIS = 10000;
+    public static final double DEFAULT_BURST_RATIO = 0.1;
+
+    /**
+     * What happens to a request finding no token in the bucket of its endpoint family.
+     */
+    public enum Policy {
+
+        /**
+         * The request waits for a token, unless it would wait longer than the max wait.
+         */
+        QUEUE,
+
+        /**
+         * The request is rejected.
+         */
+        REJECT
+    }
+
+    private final Policy policy;
+
+    private final ConcurrentMap<String, Bucket> buckets = new ConcurrentHashMap<String, Bucket>();
+
+    private volatile long maxWaitMillis = DEFAULT_MAX_WAIT_MILLIS;
+    private volatile double burstRatio = DEFAULT_BURST_RATIO;
+
+    public RateLimiter() {
+        this(Policy.QUEUE);
+    }
+
+    public RateLimiter(Policy policy) {
+        Assert.notNull(policy, "policy cannot be null.");
+        this.policy = policy;
+    }
+
+    /**
+     * Takes a token from the bucket of the endpoint family of the specified request URI, returning how long the
+     * request must wait before being sent.
+     *
+     * @param uri the request URI
+     * @return the number of milliseconds to wait before sending the request, {@code 0} to send it immediately.
+     * @throws RateLimitExceededException if the request is rejected
+     */
+    public long acquire(URI uri) throws RateLimitExceededException {
+        String family = getEndpointFamily(uri);
+        Bucket b = buckets.get(family);
+        if (b == null) {
+            return 0;
+        }
+        long now = currentTimeMillis();
+        synchronized (b) {
+            if (now >= b.resetAt) {
+                return 0; //the window has reset since the last response: its budget is unknown
+            }
+            b.refill(now);
+            if (b.tokens >= 1) {
+                b.tokens--;
+                return 0;
+            }
+            long wait = b.rate > 0 ? (long) Math.ceil((1 - b.tokens) / b.rate) : b.resetAt - now;
+            if (policy == Policy.REJECT || wait > maxWaitMillis) {
+                b.rejectedCount++;
+                throw new RateLimitExceededException(family, wait);
+            }
+            //reserve the token: the next requests wait behind this one
+            b.tokens--;
+            b.queuedCount++;
+            return wait;
+        }
+    }
+
+    /**
+     * Updates the bucket of the endpoint family of the specified request URI with the rate limit headers of its
+     * response, if any.
+     *
+     * @param uri     the request URI
+     * @param headers the response headers
+     */
+    public void update(URI uri, HttpHeaders headers) {
+        String limitValue = headers.getFirst(LIMIT_HEADER);
+        String remainingValue = headers.getFirst(REMAINING_HEADER);
+        String resetValue = headers.getFirst(RESET_HEADER);
+        if (limitValue == null || remainingValue == null || resetValue == null) {
+            return;
+        }
+        long limit;
+        long remaining;
+        long reset;
+        try {
+            limit = Long.parseLong(limitValue.trim());
+            remaining = Long.parseLong(remainingValue.trim());
+            reset = Long.parseLong(resetValue.trim());
+        } catch (NumberFormatException e) {
+            log.debug("Ignoring invalid rate limit headers: {}/{}/{}", limitValue, remainingValue, resetValue);
+            return;
+        }
+
+        long now = currentTimeMillis();
+        //the reset time is an epoch second of the server clock, compare it to the server's Date if possible:
+        long serverNow;
+        try {
+            serverNow = headers.getDate();
+        } catch (IllegalArgumentException e) {
+            serverNow = -1;
+        }
+        long resetAt = now + Math.max(reset * 1000 - (serverNow > 0 ? serverNow : now), 0);
+
+        String family = getEndpointFamily(uri);
+        Bucket b = buckets.get(family);
+        if (b == null) {
+            Bucket created = new Bucket();
+            b = buckets.putIfAbsent(family, created);
+            if (b == null) {
+                b = created;
+            }
+        }
+        synchronized (b) {
+            if (now >= b.resetAt) {
+                b.tokens = Integer.MAX_VALUE; //new window: capped below
+            } else {
+                b.refill(now);
+            }
+            b.limit = limit;
+            b.remaining = remaining;
+            b.resetAt = resetAt;
+            b.lastRefill = now;
+            b.capacity = Math.max(1, limit * burstRatio);
+            b.rate = resetAt > now ? (double) remaining / (resetAt - now) : 0;
+            //the server's count is authoritative, the bucket cannot hold more than what remains:
+            b.tokens = Math.min(b.tokens, Math.min(b.capacity, remaining));
+        }
+    }
+
+    /**
+     * Returns the current time in milliseconds.
+     *
+     * @return the current time in milliseconds.
+     */
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Returns the endpoint family of a request URI: its scheme, host and port, and its path up to the first
+     * collection name, skipping the {@code api} and version prefixes.
+     *
+     * @param uri the request URI
+     * @return the endpoint family of the request URI.
+     */
+    public static String getEndpointFamily(URI uri) {
+        StringBuilder sb = new StringBuilder(String.valueOf(uri.getScheme())).append("://").append(uri.getHost());
+        if (uri.getPort() != -1) {
+            sb.append(':').append(uri.getPort());
+        }
+        String path = uri.getPath();
+        if (path != null) {
+            for (String segment : path.split("/")) {
+                if (segment.isEmpty()) {
+                    continue;
+                }
+                sb.append('/').append(segment);
+                if (!"api".equals(segment) && !segment.matches("v\\d+")) {
+                    break;
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    /**
+     * Sets the maximum amount of time a request waits for a token with the {@link Policy#QUEUE QUEUE} policy; a
+     * request that would wait longer is rejected.
+     *
+     * @param maxWaitMillis the maximum wait in milliseconds
+     */
+    public void setMaxWaitMillis(long maxWaitMillis) {
+        Assert.isTrue(maxWaitMillis >= 0, "maxWaitMillis cannot be negative.");
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    public double getBurstRatio() {
+        return burstRatio;
+    }
+
+    /**
+     * Sets the proportion of the rate limit of an endpoint family that can be sent at once, when the bucket is full.
+     *
+     * @param burstRatio the burst ratio, greater than {@code 0} and at most {@code 1}
+     */
+    public void setBurstRatio(double burstRatio) {
+        Assert.isTrue(burstRatio > 0 && burstRatio <= 1, "burstRatio must be greater than 0 and at most 1.");
+        this.burstRatio = burstRatio;
+    }
+
+    /**
+     * Returns the endpoint families whose responses had rate limit headers, sorted.
+     *
+     * @return the endpoint families whose responses had rate limit headers.
+     */
+    public Set<String> getEndpointFamilies() {
+        return Collections.unmodifiableSet(new TreeMap<String, Bucket>(buckets).keySet());
+    }
+
+    /**
+     * Returns the number of requests remaining in the current window of an endpoint family, as reported by its last
+     * response, or {@code -1} if unknown.
+     *
+     * @param endpointFamily the endpoint family
+     * @return the number of requests remaining in the current window, or {@code -1} if unknown.
+     */
+    public long getRemaining(String endpointFamily) {
+        Bucket b = buckets.get(endpointFamily);
+        if (b == null) {
+            return -1;
+        }
+        synchronized (b) {
+            return b.remaining;
+        }
+    }
+
+    /**
+     * Returns the number of requests to an endpoint family that had to wait for a token.
+     *
+     * @param endpointFamily the endpoint family
+     * @return the number of requests to the endpoint family that had to wait for a token.
+     */
+    public long getQueuedCount(String endpointFamily) {
+        Bucket b = buckets.get(endpointFamily);
+        if (b == null) {
+            return 0;
+        }
+        synchronized (b) {
+            return b.queuedCount;
+        }
+    }
+
+    /**
+     * Returns the number of requests to an endpoint family that were rejected.
+     *
+     * @param endpointFamily the endpoint family
+     * @return the number of requests to the endpoint family that were rejected.
+     */
+    public long getRejectedCount(String endpointFamily) {
+        Bucket b = buckets.get(endpointFamily);
+        if (b == null) {
+            return 0;
+        }
+        synchronized (b) {
+            return b.rejectedCount;
+        }
+    }
+
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        String separator = "\n";
+        for (Map.Entry<String, Bucket> entry : new TreeMap<String, Bucket>(buckets).entrySet()) {
+            Bucket b = entry.getValue();
+            synchronized (b) {
+                sb.append(separator).append("  \"").append(entry.getKey()).append("\": {")
+                  .append("\"limit\": ").append(b.limit)
+                  .append(", \"remaining\": ").append(b.remaining)
+                  .append(", \"queuedCount\": ").append(b.queuedCount)
+                  .append(", \"rejectedCount\": ").append(b.rejectedCount).append("}");
+            }
+            separator = ",\n";
+        }
+        return sb.append(separator.length() > 1 ? "\n}" : "}").toString();
+    }
+
+    /**
+     * The token bucket of an endpoint family, guarded by itself.
+     */
+    private static class Bucket {
+
+        private long limit;
+        private long remaining;
+        private long resetAt;
+
+        private double capacity;
+        private double tokens;
+        /**
+         * Tokens per millisecond.
+         */
+        private double rate;
+        private long lastRefill;
+
+        private long queuedCount;
+        private long rejectedCount;
+
+        private void refill(long now) {
+            if (now > lastRefill) {
+                tokens = Math.min(capacity, tokens + (now - lastRefill) * rate);
+                lastRefill = now;
+            }
+        }
+    }
+}
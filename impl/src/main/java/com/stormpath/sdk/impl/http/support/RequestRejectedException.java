@@ -0,0 +1,42 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.http.support;
+
+import com.stormpath.sdk.impl.http.RestException;
+
+/**
+ * Thrown when an {@link AdmissionController} does not admit a request, which is then not sent.
+ *
+ * @since 2.0.5
+ */
+public class RequestRejectedException extends RestException {
+
+    private final String route;
+
+    public RequestRejectedException(String route, String message) {
+        super(message);
+        this.route = route;
+    }
+
+    /**
+     * Returns the route of the rejected request.
+     *
+     * @return the route of the rejected request.
+     */
+    public String getRoute() {
+        return route;
+    }
+}
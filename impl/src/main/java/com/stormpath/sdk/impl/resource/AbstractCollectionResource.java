@@ -15,12 +15,22 @@
  */
 package com.stormpath.sdk.impl.resource;
 
+import com.stormpath.sdk.impl.ds.AsyncDataStore;
 import com.stormpath.sdk.impl.ds.InternalDataStore;
+import com.stormpath.sdk.impl.util.ResultFuture;
+import com.stormpath.sdk.lang.Assert;
 import com.stormpath.sdk.lang.Classes;
+import com.stormpath.sdk.lang.Consumer;
+import com.stormpath.sdk.lang.Function;
 import com.stormpath.sdk.resource.CollectionResource;
 import com.stormpath.sdk.resource.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Constructor;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -29,6 +39,10 @@ import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -41,10 +55,78 @@ public abstract class AbstractCollectionResource<T extends Resource> extends Abs
     public static final IntegerProperty SIZE = new IntegerProperty("size");
     public static final String ITEMS_PROPERTY_NAME = "items";
 
+    private static final Logger log = LoggerFactory.getLogger(AbstractCollectionResource.class);
+
+    /**
+     * System property that enables read-ahead page prefetching during iteration.  The value is the share of the
+     * current page (between {@code 0.0} and {@code 1.0}) that must be consumed before the following page(s) are
+     * requested in the background.  Prefetching is disabled if the property is not set.
+     *
+     * @since 2.0.5
+     */
+    public static final String PREFETCH_THRESHOLD_PROPERTY_KEY = "com.stormpath.sdk.impl.resource.AbstractCollectionResource.prefetch.threshold";
+
+    /**
+     * System property that specifies the maximum number of pages that may be prefetched ahead of the current page.
+     * Defaults to {@code 1}.
+     *
+     * @since 2.0.5
+     */
+    public static final String PREFETCH_MAX_PAGES_PROPERTY_KEY = "com.stormpath.sdk.impl.resource.AbstractCollectionResource.prefetch.maxPages";
+
+    /**
+     * The default maximum number of pages retrieved concurrently by {@link #forEachParallel(Consumer)} and
+     * {@link #mapParallel(Function)}.
+     *
+     * @since 2.0.5
+     */
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    private static final double PREFETCH_DISABLED = -1;
+    private static final int DEFAULT_PREFETCH_MAX_PAGES = 1;
+
+    static final double PREFETCH_THRESHOLD;
+    static final int PREFETCH_MAX_PAGES;
+
+    static {
+        double threshold = PREFETCH_DISABLED;
+        String thresholdString = System.getProperty(PREFETCH_THRESHOLD_PROPERTY_KEY);
+        if (thresholdString != null) {
+            try {
+                threshold = Double.parseDouble(thresholdString);
+            } catch (NumberFormatException nfe) {
+                log.warn("Bad prefetch threshold value: {}. Prefetching will be disabled.", thresholdString, nfe);
+            }
+            if (threshold > 1) {
+                log.warn("Bad prefetch threshold value: {}. Prefetching will be disabled.", thresholdString);
+                threshold = PREFETCH_DISABLED;
+            }
+        }
+        PREFETCH_THRESHOLD = threshold;
+
+        int maxPages = DEFAULT_PREFETCH_MAX_PAGES;
+        String maxPagesString = System.getProperty(PREFETCH_MAX_PAGES_PROPERTY_KEY);
+        if (maxPagesString != null) {
+            try {
+                maxPages = Integer.parseInt(maxPagesString);
+            } catch (NumberFormatException nfe) {
+                log.warn("Bad prefetch max pages value: {}. Using default: {}.", maxPagesString, DEFAULT_PREFETCH_MAX_PAGES, nfe);
+            }
+            if (maxPages < 1) {
+                log.warn("Bad prefetch max pages value: {}. Using default: {}.", maxPagesString, DEFAULT_PREFETCH_MAX_PAGES);
+                maxPages = DEFAULT_PREFETCH_MAX_PAGES;
+            }
+        }
+        PREFETCH_MAX_PAGES = maxPages;
+    }
+
     private final Map<String, Object> queryParams;
 
     private AtomicBoolean firstPageQueryRequired = new AtomicBoolean();
 
+    private volatile double prefetchThreshold = PREFETCH_THRESHOLD;
+    private volatile int prefetchMaxPages = PREFETCH_MAX_PAGES;
+
     protected AbstractCollectionResource(InternalDataStore dataStore) {
         super(dataStore);
         this.queryParams = Collections.emptyMap();
@@ -108,6 +190,48 @@ public abstract class AbstractCollectionResource<T extends Resource> extends Abs
 
     protected abstract Class<T> getItemType();
 
+    /**
+     * Enables read-ahead page prefetching for iterators subsequently obtained from this collection, overriding the
+     * {@link #PREFETCH_THRESHOLD_PROPERTY_KEY system property} defaults.  Once {@code threshold} (a share between
+     * {@code 0.0} and {@code 1.0}) of the current page has been consumed, up to {@code maxPages} following pages are
+     * requested in the background.  At most {@code maxPages} pages are ever held ahead of the current page, so memory
+     * use stays flat regardless of the collection size.
+     * <p/>
+     * Pages are prefetched on the data store's bounded {@link AsyncDataStore#getBackgroundExecutor() background pool},
+     * and not at all if the data store has none.  Iterators are {@link Closeable}: closing an iterator that is
+     * abandoned before its end cancels its pending prefetches, and the pending prefetches of an iterator that is
+     * garbage collected are skipped.
+     *
+     * @param threshold the share of the current page that must be consumed before prefetching starts
+     * @param maxPages  the maximum number of pages to prefetch ahead of the current page
+     * @since 2.0.5
+     */
+    public void setPrefetch(double threshold, int maxPages) {
+        Assert.isTrue(threshold >= 0 && threshold <= 1, "threshold must be between 0.0 and 1.0.");
+        Assert.isTrue(maxPages > 0, "maxPages must be greater than zero.");
+        this.prefetchThreshold = threshold;
+        this.prefetchMaxPages = maxPages;
+    }
+
+    /**
+     * Disables read-ahead page prefetching for iterators subsequently obtained from this collection.
+     *
+     * @since 2.0.5
+     */
+    public void disablePrefetch() {
+        this.prefetchThreshold = PREFETCH_DISABLED;
+    }
+
+    /**
+     * Returns {@code true} if iterators obtained from this collection prefetch pages in the background.
+     *
+     * @return {@code true} if iterators obtained from this collection prefetch pages in the background.
+     * @since 2.0.5
+     */
+    public boolean isPrefetchEnabled() {
+        return this.prefetchThreshold >= 0;
+    }
+
     @SuppressWarnings("unchecked")
     public Page<T> getCurrentPage() {
 
@@ -153,6 +277,92 @@ public abstract class AbstractCollectionResource<T extends Resource> extends Abs
         return new PaginatedIterator<T>(this, firstPageQueryRequired.getAndSet(true));
     }
 
+    /**
+     * Performs the specified action for every item in the entire collection, retrieving pages in parallel using at
+     * most {@link #DEFAULT_PARALLELISM} concurrent requests.
+     *
+     * @param action the action to perform for each item
+     * @see #forEachParallel(Consumer, int)
+     * @since 2.0.5
+     */
+    public void forEachParallel(Consumer<? super T> action) {
+        forEachParallel(action, DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * Performs the specified action for every item in the entire collection, retrieving pages in parallel.  The
+     * collection's {@link #getSize() size} is used to split the collection on {@code offset}/{@code limit} page
+     * boundaries, and the resulting pages are retrieved and processed by a fork-join pool of at most
+     * {@code parallelism} threads.  The action may therefore be invoked concurrently and in no particular order.
+     *
+     * @param action      the action to perform for each item, must be thread-safe
+     * @param parallelism the maximum number of pages to retrieve and process concurrently
+     * @since 2.0.5
+     */
+    public void forEachParallel(final Consumer<? super T> action, int parallelism) {
+        Assert.notNull(action, "action cannot be null.");
+        traverseParallel(new Function<T, Object>() {
+            @Override
+            public Object apply(T item) {
+                action.accept(item);
+                return null;
+            }
+        }, parallelism, false);
+    }
+
+    /**
+     * Applies the specified function to every item in the entire collection, retrieving pages in parallel using at
+     * most {@link #DEFAULT_PARALLELISM} concurrent requests.
+     *
+     * @param fn  the function to apply to each item
+     * @param <R> the function's return type
+     * @return the function results, in collection order.
+     * @see #mapParallel(Function, int)
+     * @since 2.0.5
+     */
+    public <R> List<R> mapParallel(Function<? super T, ? extends R> fn) {
+        return mapParallel(fn, DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * Applies the specified function to every item in the entire collection, retrieving pages in parallel exactly
+     * like {@link #forEachParallel(Consumer, int)}, and returns the results in collection order.
+     *
+     * @param fn          the function to apply to each item, must be thread-safe
+     * @param parallelism the maximum number of pages to retrieve and process concurrently
+     * @param <R>         the function's return type
+     * @return the function results, in collection order.
+     * @since 2.0.5
+     */
+    public <R> List<R> mapParallel(Function<? super T, ? extends R> fn, int parallelism) {
+        Assert.notNull(fn, "function cannot be null.");
+        return traverseParallel(fn, parallelism, true);
+    }
+
+    private <R> List<R> traverseParallel(Function<? super T, ? extends R> fn, int parallelism, boolean collect) {
+
+        Assert.isTrue(parallelism > 0, "parallelism must be greater than zero.");
+
+        Page<T> firstPage = getCurrentPage();
+        int from = firstPage.getOffset();
+        //without a valid limit there is no way to compute page boundaries, so only the current page is processed:
+        int to = firstPage.getLimit() > 0 ? Math.max(getSize(), from + 1) : from + 1;
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.invoke(new PageRangeTask<R>(firstPage, from, to, fn, collect));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private AbstractCollectionResource fetchPage(AbstractCollectionResource<?> resource, int offset, int pageLimit) {
+        Map<String, Object> queryParams = new LinkedHashMap<String, Object>(resource.queryParams);
+        queryParams.put(OFFSET.getName(), offset);
+        queryParams.put(LIMIT.getName(), pageLimit);
+        return getDataStore().getResource(resource.getHref(), resource.getClass(), queryParams);
+    }
+
     private Collection<T> toResourceList(Collection vals, Class<T> itemType) {
 
         List<T> list = new ArrayList<T>(vals.size());
@@ -170,7 +380,17 @@ public abstract class AbstractCollectionResource<T extends Resource> extends Abs
         return getDataStore().instantiate(resourceClass, properties);
     }
 
-    private class PaginatedIterator<T extends Resource> implements Iterator<T> {
+    /**
+     * Returns the executor of background lookups of the data store, or {@code null} if it has none.
+     *
+     * @since 2.0.5
+     */
+    private Executor getBackgroundExecutor() {
+        InternalDataStore dataStore = getDataStore();
+        return dataStore instanceof AsyncDataStore ? ((AsyncDataStore) dataStore).getBackgroundExecutor() : null;
+    }
+
+    private class PaginatedIterator<T extends Resource> implements Iterator<T>, Closeable {
 
         private AbstractCollectionResource<T> resource;
 
@@ -178,6 +398,13 @@ public abstract class AbstractCollectionResource<T extends Resource> extends Abs
         private Iterator<T> currentPageIterator;
         private int currentItemIndex;
 
+        //@since 2.0.5: read-ahead state, only used when prefetching is enabled:
+        private final double prefetchThreshold = AbstractCollectionResource.this.prefetchThreshold;
+        private final int prefetchMaxPages = AbstractCollectionResource.this.prefetchMaxPages;
+        private final Executor prefetchExecutor = prefetchThreshold >= 0 ? getBackgroundExecutor() : null;
+        private final Queue<ResultFuture<AbstractCollectionResource>> prefetchedPages = new ArrayDeque<ResultFuture<AbstractCollectionResource>>();
+        private int nextPrefetchOffset = -1;
+
         private PaginatedIterator(AbstractCollectionResource<T> resource, boolean firstPageQueryRequired) {
 
             if (firstPageQueryRequired) {
@@ -217,12 +444,7 @@ public abstract class AbstractCollectionResource<T extends Resource> extends Abs
                     //query for the next page (move the offset up):
                     int offset = currentPage.getOffset() + pageLimit;
 
-                    Map<String, Object> queryParams = new LinkedHashMap<String, Object>(resource.queryParams);
-                    queryParams.put(OFFSET.getName(), offset);
-                    queryParams.put(LIMIT.getName(), pageLimit);
-
-                    AbstractCollectionResource nextResource =
-                            getDataStore().getResource(resource.getHref(), resource.getClass(), queryParams);
+                    AbstractCollectionResource nextResource = nextPage(offset, pageLimit);
                     Page<T> nextPage = nextResource.getCurrentPage();
                     Iterator<T> nextIterator = nextPage.getItems().iterator();
 
@@ -244,15 +466,175 @@ public abstract class AbstractCollectionResource<T extends Resource> extends Abs
         public T next() {
             T item = currentPageIterator.next();
             currentItemIndex++;
+            if (prefetchExecutor != null) {
+                prefetch();
+            }
             return item;
         }
 
+        /**
+         * Returns the page at the specified offset, either from the prefetched pages or by querying the server.
+         */
+        private AbstractCollectionResource nextPage(int offset, int pageLimit) {
+            ResultFuture<AbstractCollectionResource> prefetched = prefetchedPages.poll();
+            if (prefetched != null) {
+                return prefetched.join();
+            }
+            return fetchPage(resource, offset, pageLimit);
+        }
+
+        /**
+         * Requests the following pages in the background once the configured share of the current page has been
+         * consumed, keeping at most {@code prefetchMaxPages} pages ahead of the current one.
+         */
+        private void prefetch() {
+
+            final int pageLimit = currentPage.getLimit();
+
+            if (pageLimit <= 0 || currentItemIndex < Math.ceil(pageLimit * prefetchThreshold)) {
+                return;
+            }
+
+            if (nextPrefetchOffset < 0) {
+                nextPrefetchOffset = currentPage.getOffset() + pageLimit;
+            }
+
+            while (prefetchedPages.size() < prefetchMaxPages && nextPrefetchOffset < getSize()) {
+                ResultFuture<AbstractCollectionResource> future = new ResultFuture<AbstractCollectionResource>();
+                prefetchedPages.add(future);
+                prefetchExecutor.execute(new PrefetchTask(this, resource, nextPrefetchOffset, pageLimit, future));
+                nextPrefetchOffset += pageLimit;
+            }
+        }
+
+        /**
+         * Cancels the pending prefetches of an iterator that is abandoned before its end.
+         */
+        @Override
+        public void close() {
+            ResultFuture<AbstractCollectionResource> future;
+            while ((future = prefetchedPages.poll()) != null) {
+                future.cancel(false);
+            }
+            nextPrefetchOffset = -1;
+        }
+
         @Override
         public void remove() {
             throw new UnsupportedOperationException("Remove is not supported.");
         }
     }
 
+    /**
+     * Processes the pages in the offset range {@code [from, to)}, splitting the range in half on page boundaries
+     * until a single page remains.
+     *
+     * @since 2.0.5
+     */
+    private class PageRangeTask<R> extends RecursiveTask<List<R>> {
+
+        private final Page<T> firstPage;
+        private final int from;
+        private final int to;
+        private final Function<? super T, ? extends R> fn;
+        private final boolean collect;
+
+        private PageRangeTask(Page<T> firstPage, int from, int to, Function<? super T, ? extends R> fn, boolean collect) {
+            this.firstPage = firstPage;
+            this.from = from;
+            this.to = to;
+            this.fn = fn;
+            this.collect = collect;
+        }
+
+        @Override
+        protected List<R> compute() {
+
+            int limit = firstPage.getLimit();
+            int pages = limit > 0 ? (to - from + limit - 1) / limit : 1;
+
+            if (pages <= 1) {
+                return processPage();
+            }
+
+            int mid = from + (pages / 2) * limit;
+            PageRangeTask<R> left = new PageRangeTask<R>(firstPage, from, mid, fn, collect);
+            PageRangeTask<R> right = new PageRangeTask<R>(firstPage, mid, to, fn, collect);
+
+            left.fork();
+            List<R> rightResults = right.compute();
+            List<R> results = left.join();
+
+            if (!collect) {
+                return results;
+            }
+            List<R> combined = new ArrayList<R>(results.size() + rightResults.size());
+            combined.addAll(results);
+            combined.addAll(rightResults);
+            return combined;
+        }
+
+        @SuppressWarnings("unchecked")
+        private List<R> processPage() {
+
+            Page<T> page = firstPage;
+            if (from != firstPage.getOffset()) {
+                AbstractCollectionResource<T> resource = fetchPage(AbstractCollectionResource.this, from, firstPage.getLimit());
+                page = resource.getCurrentPage();
+            }
+
+            if (!collect) {
+                for (T item : page.getItems()) {
+                    fn.apply(item);
+                }
+                return Collections.emptyList();
+            }
+
+            List<R> results = new ArrayList<R>(page.getItems().size());
+            for (T item : page.getItems()) {
+                results.add(fn.apply(item));
+            }
+            return results;
+        }
+    }
+
+    /**
+     * Fetches a page ahead of an iterator.  The iterator is only weakly referenced, so the fetch is skipped if the
+     * iterator has been garbage collected or its prefetches have been cancelled by the time the task runs.
+     *
+     * @since 2.0.5
+     */
+    private static final class PrefetchTask implements Runnable {
+
+        private final WeakReference<Iterator<?>> iterator;
+        private final AbstractCollectionResource<?> resource;
+        private final int offset;
+        private final int pageLimit;
+        private final ResultFuture<AbstractCollectionResource> future;
+
+        private PrefetchTask(Iterator<?> iterator, AbstractCollectionResource<?> resource, int offset, int pageLimit,
+                             ResultFuture<AbstractCollectionResource> future) {
+            this.iterator = new WeakReference<Iterator<?>>(iterator);
+            this.resource = resource;
+            this.offset = offset;
+            this.pageLimit = pageLimit;
+            this.future = future;
+        }
+
+        @Override
+        public void run() {
+            if (future.isDone() || iterator.get() == null) {
+                future.cancel(false);
+                return;
+            }
+            try {
+                future.complete(resource.fetchPage(resource, offset, pageLimit));
+            } catch (Throwable t) {
+                future.fail(t);
+            }
+        }
+    }
+
     private static class DefaultPage<T> implements Page<T> {
 
         private final int offset;
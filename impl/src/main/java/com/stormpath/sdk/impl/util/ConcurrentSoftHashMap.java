@@ -0,0 +1,277 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.util;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A memory-constrained map that stores its <em>values</em> in {@link SoftReference SoftReference}s, just like the
+ * {@link SoftHashMap}, but without any lock on the read path.
+ * <p/>
+ * Like the {@code SoftHashMap}, it strongly references (retains) approximately the {@code retentionSize} most
+ * recently accessed values so they can not be eagerly garbage collected.  Instead of a single queue guarded by a
+ * global lock, these strong references are recorded in a number of fixed-size ring buffers (stripes).  Each thread
+ * records into its own stripe by overwriting the oldest slot, so recording a value is a single atomic increment on
+ * a counter that is rarely shared with other threads and trimming never needs to happen.
+ * <p/>
+ * Entries whose values have been reclaimed by the garbage collector are removed from the backing map in bounded
+ * batches by the thread that happens to write to the map, rather than by every reader.
+ * <p/>
+ * This implementation is thread-safe and usable in highly concurrent environments.  As with the
+ * {@code SoftHashMap}, the number of retained strong references is a best-effort low water mark.
+ *
+ * @since 2.0.5
+ * @see SoftHashMap
+ */
+public class ConcurrentSoftHashMap<K, V> implements Map<K, V> {
+
+    private static final int DEFAULT_RETENTION_SIZE = 100;
+
+    private static final int MAX_STRIPES = 64;
+
+    /**
+     * The maximum number of reclaimed entries removed per drain, bounding the latency added to any single write.
+     */
+    private static final int DRAIN_BATCH_SIZE = 64;
+
+    private final ConcurrentMap<K, SoftValue<V, K>> map;
+
+    private final ReferenceQueue<V> queue;
+
+    private final Stripe[] stripes;
+
+    private final int stripeMask;
+
+    /**
+     * Creates a new ConcurrentSoftHashMap with a default retention size of 100 entries.
+     */
+    public ConcurrentSoftHashMap() {
+        this(DEFAULT_RETENTION_SIZE);
+    }
+
+    /**
+     * Creates a new ConcurrentSoftHashMap that retains approximately the {@code retentionSize} most recently accessed
+     * values, preventing them from being eagerly garbage collected.
+     *
+     * @param retentionSize the total number of most recent values in the map that will be strongly referenced
+     *                      (retained), preventing them from being eagerly garbage collected by the JVM.
+     */
+    public ConcurrentSoftHashMap(int retentionSize) {
+        this.map = new ConcurrentHashMap<K, SoftValue<V, K>>();
+        this.queue = new ReferenceQueue<V>();
+
+        retentionSize = Math.max(0, retentionSize);
+
+        int stripeCount = 1;
+        int target = Math.min(MAX_STRIPES, Runtime.getRuntime().availableProcessors() * 4);
+        while (stripeCount < target && stripeCount * 2 <= retentionSize) {
+            stripeCount <<= 1;
+        }
+
+        this.stripes = new Stripe[retentionSize > 0 ? stripeCount : 0];
+        this.stripeMask = stripeCount - 1;
+        int stripeSize = (retentionSize + stripeCount - 1) / stripeCount;
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new Stripe(stripeSize);
+        }
+    }
+
+    @Override
+    public V get(Object key) {
+        SoftValue<V, K> value = map.get(key);
+        if (value == null) {
+            return null;
+        }
+
+        V result = value.get();
+        if (result == null) {
+            //the wrapped value was garbage collected, so remove this entry from the backing map:
+            map.remove(key, value);
+        } else {
+            retain(result);
+        }
+        return result;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        drainQueue();
+        SoftValue<V, K> previous = map.put(key, new SoftValue<V, K>(value, key, queue));
+        retain(value);
+        return previous != null ? previous.get() : null;
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        for (Map.Entry<? extends K, ? extends V> entry : m.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public V remove(Object key) {
+        drainQueue();
+        SoftValue<V, K> previous = map.remove(key);
+        return previous != null ? previous.get() : null;
+    }
+
+    /**
+     * Removes the entry for the specified key only if it is currently mapped to the specified value, without retaining
+     * the value as recently accessed.
+     *
+     * @param key   the key of the entry to remove
+     * @param value the value the key must be mapped to
+     * @return {@code true} if the entry was removed, {@code false} otherwise.
+     */
+    public boolean remove(Object key, Object value) {
+        SoftValue<V, K> current = map.get(key);
+        V v = current != null ? current.get() : null;
+        return v != null && v.equals(value) && map.remove(key, current);
+    }
+
+    @Override
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            stripe.clear();
+        }
+        drainQueue();
+        map.clear();
+    }
+
+    @Override
+    public int size() {
+        drainQueue();
+        return map.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        drainQueue();
+        return map.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        drainQueue();
+        return map.containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        return values().contains(value);
+    }
+
+    @Override
+    public Set<K> keySet() {
+        drainQueue();
+        return map.keySet();
+    }
+
+    @Override
+    public Collection<V> values() {
+        drainQueue();
+        Collection<V> values = new ArrayList<V>(map.size());
+        for (SoftValue<V, K> sv : map.values()) {
+            V v = sv.get();
+            if (v != null) {
+                values.add(v);
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        drainQueue();
+        if (map.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Map<K, V> kvPairs = new HashMap<K, V>(map.size());
+        for (Map.Entry<K, SoftValue<V, K>> entry : map.entrySet()) {
+            V v = entry.getValue().get();
+            if (v != null) {
+                kvPairs.put(entry.getKey(), v);
+            }
+        }
+        return kvPairs.entrySet();
+    }
+
+    private void retain(V value) {
+        if (stripes.length > 0) {
+            stripes[(int) Thread.currentThread().getId() & stripeMask].add(value);
+        }
+    }
+
+    /**
+     * Removes a bounded batch of entries whose values were garbage collected.  Concurrent callers simply share the
+     * work, as each reclaimed reference is only returned by the queue once.
+     */
+    @SuppressWarnings("unchecked")
+    private void drainQueue() {
+        Reference<? extends V> ref;
+        for (int i = 0; i < DRAIN_BATCH_SIZE && (ref = queue.poll()) != null; i++) {
+            SoftValue<V, K> sv = (SoftValue<V, K>) ref;
+            //only remove the entry if it was not replaced in the meantime:
+            map.remove(sv.key, sv);
+        }
+    }
+
+    /**
+     * A fixed-size ring buffer of strong references; adding a value overwrites the oldest one.
+     */
+    private static final class Stripe {
+
+        private final AtomicReferenceArray<Object> slots;
+        private final AtomicInteger index = new AtomicInteger();
+
+        private Stripe(int size) {
+            this.slots = new AtomicReferenceArray<Object>(size);
+        }
+
+        private void add(Object value) {
+            int i = (index.getAndIncrement() & Integer.MAX_VALUE) % slots.length();
+            slots.lazySet(i, value);
+        }
+
+        private void clear() {
+            for (int i = 0; i < slots.length(); i++) {
+                slots.set(i, null);
+            }
+        }
+    }
+
+    private static final class SoftValue<V, K> extends SoftReference<V> {
+
+        private final K key;
+
+        private SoftValue(V value, K key, ReferenceQueue<? super V> queue) {
+            super(value, queue);
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,318 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.util;
+
+import com.stormpath.sdk.lang.Assert;
+import com.stormpath.sdk.lang.Function;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A {@link Future} that may be explicitly completed and that notifies registered {@link Listener Listener}s upon
+ * completion.
+ * <p>
+ * This is mostly for internal development needs to allow for the JDK 8
+ * <a href="https://docs.oracle.com/javase/8/docs/api/java/util/concurrent/CompletableFuture.html">CompletableFuture</a>
+ * functionality used by the SDK's asynchronous code paths in a JDK 7 environment.  Listeners and transformation
+ * functions are executed by whichever thread completes the future, or immediately by the registering thread if the
+ * future is already complete.
+ *
+ * @param <V> the type of the result value
+ * @since 2.0.5
+ */
+public class ResultFuture<V> implements Future<V> {
+
+    private final CountDownLatch latch = new CountDownLatch(1);
+
+    private final List<Listener<? super V>> listeners = new ArrayList<Listener<? super V>>();
+
+    private volatile boolean done;
+    private volatile boolean cancelled;
+    private V value;
+    private Throwable failure;
+
+    /**
+     * Returns a new future that is already completed with the specified value.
+     *
+     * @param value the result value
+     * @param <V>   the type of the result value
+     * @return a new future that is already completed with the specified value.
+     */
+    public static <V> ResultFuture<V> completed(V value) {
+        ResultFuture<V> future = new ResultFuture<V>();
+        future.complete(value);
+        return future;
+    }
+
+    /**
+     * Returns a new future that is already completed exceptionally with the specified failure.
+     *
+     * @param t   the failure cause
+     * @param <V> the type of the result value
+     * @return a new future that is already completed exceptionally with the specified failure.
+     */
+    public static <V> ResultFuture<V> failed(Throwable t) {
+        ResultFuture<V> future = new ResultFuture<V>();
+        future.fail(t);
+        return future;
+    }
+
+    /**
+     * Completes this future with the specified value if it is not already complete.
+     *
+     * @param value the result value
+     * @return {@code true} if this invocation transitioned the future to a completed state, {@code false} otherwise.
+     */
+    public boolean complete(V value) {
+        return set(value, null, false);
+    }
+
+    /**
+     * Completes this future exceptionally with the specified failure if it is not already complete.
+     *
+     * @param t the failure cause
+     * @return {@code true} if this invocation transitioned the future to a completed state, {@code false} otherwise.
+     */
+    public boolean fail(Throwable t) {
+        Assert.notNull(t, "Throwable argument cannot be null.");
+        return set(null, t, false);
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        return set(null, new CancellationException(), true);
+    }
+
+    private boolean set(V value, Throwable failure, boolean cancelled) {
+        List<Listener<? super V>> toNotify;
+        synchronized (this) {
+            if (this.done) {
+                return false;
+            }
+            this.value = value;
+            this.failure = failure;
+            this.cancelled = cancelled;
+            this.done = true;
+            toNotify = new ArrayList<Listener<? super V>>(this.listeners);
+            this.listeners.clear();
+        }
+        this.latch.countDown();
+        for (Listener<? super V> listener : toNotify) {
+            notify(listener);
+        }
+        return true;
+    }
+
+    private void notify(Listener<? super V> listener) {
+        if (this.failure != null) {
+            listener.onFailure(this.failure);
+        } else {
+            listener.onSuccess(this.value);
+        }
+    }
+
+    /**
+     * Registers a listener to be notified when this future completes.  If the future is already complete, the
+     * listener is notified immediately by the calling thread.
+     *
+     * @param listener the listener to notify upon completion
+     * @return this future for method chaining.
+     */
+    public ResultFuture<V> whenComplete(Listener<? super V> listener) {
+        Assert.notNull(listener, "listener cannot be null.");
+        synchronized (this) {
+            if (!this.done) {
+                this.listeners.add(listener);
+                return this;
+            }
+        }
+        notify(listener);
+        return this;
+    }
+
+    /**
+     * Returns a new future that is completed with the result of applying the specified function to this future's
+     * value.  If this future completes exceptionally, or the function throws an exception, the returned future is
+     * completed exceptionally with the same cause.
+     *
+     * @param fn  the function used to compute the value of the returned future
+     * @param <R> the function's return type
+     * @return the new future
+     */
+    public <R> ResultFuture<R> thenApply(final Function<? super V, ? extends R> fn) {
+        Assert.notNull(fn, "function cannot be null.");
+        final ResultFuture<R> next = new ResultFuture<R>();
+        whenComplete(new Listener<V>() {
+            @Override
+            public void onSuccess(V value) {
+                R result;
+                try {
+                    result = fn.apply(value);
+                } catch (Throwable t) {
+                    next.fail(t);
+                    return;
+                }
+                next.complete(result);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                next.fail(t);
+            }
+        });
+        return next;
+    }
+
+    /**
+     * Returns a new future that is completed with the same result as the future returned by the specified function
+     * when applied to this future's value.  If the function returns {@code null}, the returned future is completed
+     * exceptionally with an {@link IllegalStateException}.
+     *
+     * @param fn  the function returning another future
+     * @param <R> the type of the returned future's value
+     * @return the new future
+     */
+    public <R> ResultFuture<R> thenCompose(final Function<? super V, ResultFuture<R>> fn) {
+        Assert.notNull(fn, "function cannot be null.");
+        final ResultFuture<R> next = new ResultFuture<R>();
+        whenComplete(new Listener<V>() {
+            @Override
+            public void onSuccess(V value) {
+                ResultFuture<R> other;
+                try {
+                    other = fn.apply(value);
+                } catch (Throwable t) {
+                    next.fail(t);
+                    return;
+                }
+                if (other == null) {
+                    next.fail(new IllegalStateException("thenCompose function returned null instead of a ResultFuture."));
+                    return;
+                }
+                other.whenComplete(new Listener<R>() {
+                    @Override
+                    public void onSuccess(R result) {
+                        next.complete(result);
+                    }
+
+                    @Override
+                    public void onFailure(Throwable t) {
+                        next.fail(t);
+                    }
+                });
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                next.fail(t);
+            }
+        });
+        return next;
+    }
+
+    /**
+     * Waits if necessary for this future to complete and returns its value.  Unlike {@link #get()}, a failure cause
+     * that is a {@link RuntimeException} or {@link Error} is rethrown as-is, which allows synchronous callers to see
+     * the exact same exceptions (e.g. {@code ResourceException}) they would see when using the blocking API.
+     *
+     * @return the result value
+     */
+    public V join() {
+        try {
+            this.latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the result.", e);
+        }
+        return report();
+    }
+
+    private V report() {
+        Throwable t = this.failure;
+        if (t == null) {
+            return this.value;
+        }
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        throw new IllegalStateException(t.getMessage(), t);
+    }
+
+    @Override
+    public V get() throws InterruptedException, ExecutionException {
+        this.latch.await();
+        return getNow();
+    }
+
+    @Override
+    public V get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        if (!this.latch.await(timeout, unit)) {
+            throw new TimeoutException();
+        }
+        return getNow();
+    }
+
+    private V getNow() throws ExecutionException {
+        if (this.cancelled) {
+            throw (CancellationException) this.failure;
+        }
+        if (this.failure != null) {
+            throw new ExecutionException(this.failure);
+        }
+        return this.value;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    @Override
+    public boolean isDone() {
+        return this.done;
+    }
+
+    /**
+     * Returns {@code true} if this future completed exceptionally (including cancellation), {@code false} otherwise.
+     *
+     * @return {@code true} if this future completed exceptionally (including cancellation), {@code false} otherwise.
+     */
+    public boolean isFailed() {
+        return this.done && this.failure != null;
+    }
+
+    /**
+     * Callback notified when a {@link ResultFuture} completes.
+     *
+     * @param <V> the type of the result value
+     */
+    public interface Listener<V> {
+
+        void onSuccess(V value);
+
+        void onFailure(Throwable t);
+    }
+}
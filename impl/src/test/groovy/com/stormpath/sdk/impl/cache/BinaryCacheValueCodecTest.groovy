@@ -0,0 +1,146 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.cache
+
+import com.stormpath.sdk.cache.Caches
+import org.testng.annotations.Test
+
+import java.text.SimpleDateFormat
+
+import static org.testng.Assert.*
+
+/**
+ * @since 2.0.5
+ */
+class BinaryCacheValueCodecTest {
+
+    private static Map account(int i) {
+        def href = 'https://api.stormpath.com/v1/accounts/' + i
+        [href: href, username: 'jsmith' + i, email: "j$i@example.com".toString(), givenName: 'Jöhn', middleName: null,
+         status: 'ENABLED', loginCount: i, lastLogin: 1490208881624L, score: 0.5d, verified: true, locked: false,
+         createdAt: new Date(1490208881624L), balance: new BigDecimal('12.34'), big: new BigInteger('123456789012345678901234567890'),
+         customData: [href: href + '/customData'], directory: [href: 'https://api.stormpath.com/v1/directories/abc'],
+         tags: ['a', 'b', ['c']]]
+    }
+
+    @Test
+    void testRoundTrip() {
+        def codec = new BinaryCacheValueCodec()
+        def value = [href: 'https://api.stormpath.com/v1/directories/abc/accounts', offset: 0, limit: 25,
+                     items: (0..<25).collect { account(it) }, id: UUID.randomUUID()]
+
+        def decoded = codec.decode(codec.encode(value))
+
+        assertEquals decoded, value
+        assertTrue decoded instanceof LinkedHashMap
+        assertEquals decoded.keySet() as List, value.keySet() as List
+        assertTrue decoded.items instanceof ArrayList
+    }
+
+    @Test
+    void testScalarsAndNull() {
+        def codec = new BinaryCacheValueCodec()
+
+        assertNull codec.decode(codec.encode(null))
+        assertEquals codec.decode(codec.encode('foo')), 'foo'
+        assertEquals codec.decode(codec.encode(42)), 42
+        assertEquals codec.decode(codec.encode(Long.MAX_VALUE)), Long.MAX_VALUE
+    }
+
+    @Test
+    void testSmallerThanJavaSerialization() {
+        def value = [items: (0..<25).collect { account(it) }]
+
+        def bytes = new ByteArrayOutputStream()
+        def out = new ObjectOutputStream(bytes)
+        out.writeObject(value)
+        out.close()
+
+        assertTrue new BinaryCacheValueCodec().encode(value).length < bytes.size() * 2 / 3
+    }
+
+    @Test(expectedExceptions = NotSerializableException)
+    void testNotSerializable() {
+        new BinaryCacheValueCodec().encode([foo: new Object()])
+    }
+
+    @Test(expectedExceptions = NotSerializableException)
+    void testSerializableTypeNotAllowed() {
+        new BinaryCacheValueCodec().encode([foo: new SimpleDateFormat()])
+    }
+
+    @Test
+    void testAllowedSerializableTypes() {
+        def codec = new BinaryCacheValueCodec()
+        def value = [id: UUID.randomUUID(), locale: Locale.CANADA_FRENCH, ratio: 1.5f, floats: [1.5f] as float[]]
+
+        def decoded = codec.decode(codec.encode(value))
+
+        assertEquals decoded.id, value.id
+        assertEquals decoded.locale, value.locale
+        assertEquals decoded.ratio, value.ratio
+        assertEquals decoded.floats as List, [1.5f]
+    }
+
+    @Test(expectedExceptions = InvalidClassException)
+    void testSerializedTypeNotAllowedOnDecode() {
+        //e.g. written to the cluster by a tampered or outdated node:
+        def serialized = new ByteArrayOutputStream()
+        def oos = new ObjectOutputStream(serialized)
+        oos.writeObject(new SimpleDateFormat())
+        oos.close()
+
+        def bytes = new ByteArrayOutputStream()
+        def out = new DataOutputStream(bytes)
+        out.writeByte(1) //format version
+        out.writeByte(12) //serialized
+        int length = serialized.size()
+        while ((length & ~0x7F) != 0) {
+            out.writeByte((length & 0x7F) | 0x80)
+            length >>>= 7
+        }
+        out.writeByte(length)
+        serialized.writeTo(out)
+
+        new BinaryCacheValueCodec().decode(bytes.toByteArray())
+    }
+
+    @Test
+    void testCorruptLengthRejected() {
+        def codec = new BinaryCacheValueCodec()
+        //string, map, collection and serialized value claiming 2^31 - 1 bytes or elements:
+        for (byte type : [1, 7, 8, 12]) {
+            try {
+                codec.decode([1, type, 0xFF, 0xFF, 0xFF, 0xFF, 0x07] as byte[])
+                fail()
+            } catch (IOException expected) {
+                assertTrue expected.message.startsWith('Invalid cached value length')
+            }
+        }
+    }
+
+    @Test(expectedExceptions = IOException)
+    void testUnsupportedFormatVersion() {
+        def bytes = new BinaryCacheValueCodec().encode('foo')
+        bytes[0] = 99
+        new BinaryCacheValueCodec().decode(bytes)
+    }
+
+    @Test
+    void testCachesFactoryMethod() {
+        assertTrue Caches.newBinaryValueCodec() instanceof BinaryCacheValueCodec
+    }
+}
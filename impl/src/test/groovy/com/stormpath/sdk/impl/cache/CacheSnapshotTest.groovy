@@ -0,0 +1,198 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.cache
+
+import com.stormpath.sdk.application.Application
+import com.stormpath.sdk.lang.Duration
+import org.testng.annotations.AfterMethod
+import org.testng.annotations.BeforeMethod
+import org.testng.annotations.Test
+
+import java.util.concurrent.TimeUnit
+
+import static org.testng.Assert.*
+
+/**
+ * @since 2.0.5
+ */
+class CacheSnapshotTest {
+
+    private static final String REGION = Application.name
+
+    File file
+
+    @BeforeMethod
+    void setUp() {
+        file = File.createTempFile('stormpath-cache', '.snapshot')
+        file.delete()
+    }
+
+    @AfterMethod
+    void tearDown() {
+        file.delete()
+        CacheSnapshot.getGenerations(file)*.delete()
+    }
+
+    private DefaultCacheManager newManager(Duration ttl = null) {
+        def mgr = new DefaultCacheManager()
+        if (ttl) {
+            mgr.setDefaultTimeToLive(ttl)
+        }
+        mgr.setSnapshotFile(file)
+        return mgr
+    }
+
+    @Test
+    void testEntriesRestoredLazily() {
+        def mgr = newManager()
+        def cache = mgr.getCache(REGION)
+        for (int i = 0; i < 100; i++) {
+            cache.put('https://api.stormpath.com/v1/applications/' + i, [href: 'https://api.stormpath.com/v1/applications/' + i, name: 'App ' + i])
+        }
+        mgr.getCache('notSnapshotted').put('foo', [bar: 'baz'])
+        mgr.writeSnapshot()
+
+        def restored = newManager()
+        DefaultCache<String, Map> restoredCache = restored.getCache(REGION)
+
+        assertEquals restoredCache.size(), 100
+        assertEquals restoredCache.get('https://api.stormpath.com/v1/applications/42'), [href: 'https://api.stormpath.com/v1/applications/42', name: 'App 42']
+        assertNull restoredCache.get('https://api.stormpath.com/v1/applications/100')
+        assertNull restored.getCache('notSnapshotted').get('foo')
+    }
+
+    @Test
+    void testRemovedAndReplacedEntriesNotRestored() {
+        def mgr = newManager()
+        mgr.getCache(REGION).put('a', [name: 'a'])
+        mgr.getCache(REGION).put('b', [name: 'b'])
+        mgr.writeSnapshot()
+
+        def restored = newManager()
+        def cache = restored.getCache(REGION)
+        cache.remove('a')
+        cache.put('b', [name: 'b2'])
+
+        assertNull cache.get('a')
+        assertEquals cache.get('b'), [name: 'b2']
+
+        //written again, the snapshot reflects the changes:
+        restored.writeSnapshot()
+        cache = newManager().getCache(REGION)
+        assertNull cache.get('a')
+        assertEquals cache.get('b'), [name: 'b2']
+    }
+
+    @Test
+    void testRestoredEntriesKeepTheirAge() {
+        def mgr = newManager()
+        mgr.getCache(REGION).put('a', [name: 'a'])
+        mgr.writeSnapshot()
+
+        Thread.sleep(50)
+
+        assertNull newManager(new Duration(20, TimeUnit.MILLISECONDS)).getCache(REGION).get('a')
+        assertEquals newManager(new Duration(1, TimeUnit.HOURS)).getCache(REGION).get('a'), [name: 'a']
+    }
+
+    @Test
+    void testUnusedRegionsCarriedOver() {
+        def mgr = newManager()
+        mgr.getCache(REGION).put('a', [name: 'a'])
+        mgr.writeSnapshot()
+
+        //a restart that does not use the region before writing its own snapshot:
+        newManager().writeSnapshot()
+
+        assertEquals newManager().getCache(REGION).get('a'), [name: 'a']
+    }
+
+    @Test
+    void testInvalidSnapshotIgnored() {
+        file.bytes = [1, 2, 3] as byte[]
+
+        DefaultCache cache = newManager().getCache(REGION)
+
+        assertEquals cache.size(), 0
+    }
+
+    @Test
+    void testEachSnapshotWrittenToNewGeneration() {
+        def mgr = newManager()
+        mgr.getCache(REGION).put('a', [name: 'a'])
+        mgr.writeSnapshot()
+        File first = CacheSnapshot.getGenerations(file)[0]
+
+        //the mapped generation is never written over:
+        def restored = newManager()
+        restored.getCache(REGION).put('b', [name: 'b'])
+        restored.writeSnapshot()
+
+        def generations = CacheSnapshot.getGenerations(file)
+        assertEquals generations.size(), 1
+        assertNotEquals generations[0], first
+        assertFalse file.exists()
+        assertEquals newManager().getCache(REGION).get('b'), [name: 'b']
+    }
+
+    @Test
+    void testRestoredEntriesScheduledForExpiration() {
+        def mgr = newManager()
+        mgr.getCache(REGION).put('a', [name: 'a'])
+        mgr.writeSnapshot()
+
+        long now = 0
+        def restored = new DefaultCacheManager()
+        restored.setClock([nanoTime: { now }] as CacheClock)
+        restored.setDefaultTimeToLive(new Duration(10, TimeUnit.SECONDS))
+        restored.setSnapshotFile(file)
+
+        DefaultCache cache = restored.getCache(REGION)
+        assertEquals cache.get('a'), [name: 'a']
+        assertEquals cache.size(), 1
+
+        //swept without being read again:
+        now = TimeUnit.SECONDS.toNanos(15)
+        cache.expireEntries()
+        assertEquals cache.size(), 0
+    }
+
+    @Test
+    void testCloseWritesLastSnapshot() {
+        def mgr = newManager()
+        mgr.getCache(REGION).put('a', [name: 'a'])
+        mgr.close()
+
+        assertEquals newManager().getCache(REGION).get('a'), [name: 'a']
+
+        //closing again does nothing:
+        mgr.getCache(REGION).put('b', [name: 'b'])
+        mgr.close()
+        assertNull newManager().getCache(REGION).get('b')
+    }
+
+    @Test
+    void testUnclosedManagerCanBeCollected() {
+        def ref = new java.lang.ref.WeakReference(newManager())
+
+        for (int i = 0; i < 50 && ref.get() != null; i++) {
+            System.gc()
+            Thread.sleep(10)
+        }
+
+        assertNull ref.get()
+    }
+}
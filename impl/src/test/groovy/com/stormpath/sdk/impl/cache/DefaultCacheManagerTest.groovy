@@ -99,6 +99,74 @@ class DefaultCacheManagerTest {
         assertEquals new Duration(30, TimeUnit.SECONDS), mgr.defaultTimeToIdle
     }
 
+    /**
+     * @since 2.0.5
+     */
+    @Test
+    void testDefaultMaximumSize() {
+        mgr = new DefaultCacheManager()
+        mgr.setDefaultMaximumSize(100)
+        mgr.setCacheConfigurations([new DefaultCacheConfiguration('bar', null, null, null, 10)])
+
+        def foo = mgr.getCache('foo')
+        def bar = mgr.getCache('bar')
+        for (int i = 0; i < 1000; i++) {
+            foo.put('key' + i, i)
+            bar.put('key' + i, i)
+        }
+
+        assertEquals foo.size(), 100
+        assertEquals bar.size(), 10
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Test
+    void testCloseStopsCoarseClock() {
+        def clock = new CoarseCacheClock(1, TimeUnit.HOURS)
+        mgr = new DefaultCacheManager()
+        mgr.setClock(clock)
+
+        long start = clock.nanoTime()
+        Thread.sleep(2)
+        assertEquals clock.nanoTime(), start //not updated before an hour
+
+        mgr.close()
+        Thread.sleep(2)
+        assertTrue clock.nanoTime() > start //reads the system clock once closed
+    }
+
+    @Test
+    void testDefaultOffHeapSize() {
+        mgr = new DefaultCacheManager()
+        mgr.setDefaultMaximumSize(10)
+        mgr.setDefaultOffHeapSize(1024 * 1024)
+
+        def foo = mgr.getCache('foo')
+        for (int i = 0; i < 100; i++) {
+            foo.put('key' + i, i)
+        }
+
+        //entries evicted from the heap are retained off-heap:
+        assertEquals foo.size(), 100
+        assertEquals foo.get('key0'), 0
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Test
+    void testRefreshAheadConfiguration() {
+        mgr = new DefaultCacheManager()
+        mgr.setCacheConfigurations([
+                new DefaultCacheConfigurationBuilder('foo').withTimeToLive(1, TimeUnit.HOURS).withRefreshAhead(0.75d).build()
+        ])
+
+        assertEquals mgr.getCache('foo').refreshAheadFactor, 0.75d
+        assertEquals mgr.getCache('bar').refreshAheadFactor, 0d
+    }
+
     @Test
     void testToString() {
 
@@ -263,4 +263,223 @@ class DefaultCacheTest {
         assertNull found
         assertEquals 0, cache.size()
     }
+
+    /**
+     * @since 2.0.5
+     */
+    @Test
+    void testStaleWhileRevalidate() {
+
+        def cache = new DefaultCache('foo', [:], new Duration(20, TimeUnit.MILLISECONDS), null)
+        cache.setStaleWhileRevalidate(new Duration(200, TimeUnit.MILLISECONDS))
+
+        cache.put('key', 'value')
+        assertFalse cache.isStale('key')
+        assertFalse cache.isStale('missing')
+
+        Thread.sleep(40)
+
+        //expired, but still served within the window:
+        assertTrue cache.isStale('key')
+        assertEquals cache.get('key'), 'value'
+
+        //a refreshed value is fresh again:
+        cache.put('key', 'value2')
+        assertFalse cache.isStale('key')
+
+        Thread.sleep(300)
+
+        //past the window, the entry is removed as usual:
+        assertFalse cache.isStale('key')
+        assertNull cache.get('key')
+        assertEquals cache.size(), 0
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Test(expectedExceptions = IllegalArgumentException)
+    void testSetZeroStaleWhileRevalidate() {
+        new DefaultCache('foo').setStaleWhileRevalidate(new Duration(0, TimeUnit.MILLISECONDS))
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Test
+    void testEntryCreatedWithCacheClock() {
+        long now = TimeUnit.SECONDS.toNanos(1)
+        def clock = [nanoTime: { now }] as CacheClock
+
+        def map = [:]
+        def cache = new DefaultCache('foo', map, new Duration(10, TimeUnit.SECONDS), null, clock)
+        assertSame cache.clock, clock
+
+        map.put('key', new DefaultCache.Entry('value', cache.clock))
+        assertEquals cache.get('key'), 'value'
+
+        now += TimeUnit.SECONDS.toNanos(11)
+        assertNull cache.get('key')
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Test
+    void testRefreshAhead() {
+        long now = 0
+        def clock = [nanoTime: { now }] as CacheClock
+
+        def cache = new DefaultCache('foo', [:], new Duration(10, TimeUnit.SECONDS), null, clock)
+        cache.put('key', 'value')
+        assertFalse cache.isRefreshDue('key')
+
+        cache.setRefreshAheadFactor(0.8d)
+        now = TimeUnit.SECONDS.toNanos(7)
+        assertFalse cache.isRefreshDue('key')
+        assertFalse cache.isRefreshDue('missing')
+
+        //past 80% of the TTL, the entry is due for refresh but still returned:
+        now = TimeUnit.SECONDS.toNanos(9)
+        assertTrue cache.isRefreshDue('key')
+        assertFalse cache.isStale('key')
+        assertEquals cache.get('key'), 'value'
+
+        //a refreshed value is fresh again:
+        cache.put('key', 'value2')
+        assertFalse cache.isRefreshDue('key')
+
+        //an expired entry (without stale-while-revalidate window) is not refreshed, it is removed:
+        now += TimeUnit.SECONDS.toNanos(11)
+        assertFalse cache.isRefreshDue('key')
+        assertNull cache.get('key')
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Test
+    void testRefreshAheadFollowsTimeToLive() {
+        long now = 0
+        def clock = [nanoTime: { now }] as CacheClock
+
+        def cache = new DefaultCache('foo', [:], null, null, clock)
+        cache.setRefreshAheadFactor(0.5d)
+        cache.put('key', 'value')
+        now = TimeUnit.SECONDS.toNanos(6)
+        assertFalse cache.isRefreshDue('key')
+
+        cache.setTimeToLive(new Duration(10, TimeUnit.SECONDS))
+        assertTrue cache.isRefreshDue('key')
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Test(expectedExceptions = IllegalArgumentException)
+    void testSetInvalidRefreshAheadFactor() {
+        new DefaultCache('foo').setRefreshAheadFactor(1d)
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Test
+    void testExpiredEntriesRemovedWithoutBeingRead() {
+        long now = 0
+        def clock = [nanoTime: { now }] as CacheClock
+
+        def cache = new DefaultCache('foo', [:], new Duration(10, TimeUnit.SECONDS), null, clock)
+        for (int i = 0; i < 100; i++) {
+            cache.put('key' + i, 'value' + i)
+        }
+
+        now = TimeUnit.SECONDS.toNanos(5)
+        cache.expireEntries()
+        assertEquals cache.size(), 100
+
+        now = TimeUnit.SECONDS.toNanos(15)
+        cache.expireEntries()
+        assertEquals cache.size(), 0
+        assertEquals cache.accessCount, 0
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Test
+    void testAccessedEntryNotRemovedBeforeIdle() {
+        long now = 0
+        def clock = [nanoTime: { now }] as CacheClock
+
+        def cache = new DefaultCache('foo', [:], null, new Duration(5, TimeUnit.SECONDS), clock)
+        cache.put('key', 'value')
+
+        now = TimeUnit.SECONDS.toNanos(3)
+        assertEquals cache.get('key'), 'value'
+
+        now = TimeUnit.SECONDS.toNanos(7)
+        cache.expireEntries()
+        assertEquals cache.size(), 1
+
+        now = TimeUnit.SECONDS.toNanos(20)
+        cache.expireEntries()
+        assertEquals cache.size(), 0
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Test
+    void testRemovedAndReplacedEntriesNotExpiredTwice() {
+        long now = 0
+        def clock = [nanoTime: { now }] as CacheClock
+
+        def cache = new DefaultCache('foo', [:], new Duration(5, TimeUnit.SECONDS), null, clock)
+        cache.put('a', '1')
+        cache.put('b', '1')
+        cache.remove('a')
+
+        now = TimeUnit.SECONDS.toNanos(4)
+        cache.put('b', '2') //replaced - expires 5 seconds from now
+
+        now = TimeUnit.SECONDS.toNanos(7)
+        cache.expireEntries()
+        assertEquals cache.get('b'), '2'
+
+        cache.clear()
+        now = TimeUnit.SECONDS.toNanos(30)
+        cache.expireEntries()
+        assertEquals cache.size(), 0
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Test
+    void testExpirationDoesNotReadTheBackingMap() {
+        long now = 0
+        def clock = [nanoTime: { now }] as CacheClock
+        int reads = 0
+        def map = new TinyLfuMap<String, DefaultCache.Entry<String>>(10) {
+            @Override
+            synchronized DefaultCache.Entry<String> get(Object key) {
+                reads++
+                return super.get(key)
+            }
+        }
+
+        def cache = new DefaultCache('foo', map, new Duration(5, TimeUnit.SECONDS), null, clock)
+        cache.put('a', '1')
+        cache.put('b', '1')
+
+        now = TimeUnit.SECONDS.toNanos(4)
+        cache.put('b', '2') //replaced - expires 5 seconds from now
+
+        now = TimeUnit.SECONDS.toNanos(7)
+        cache.expireEntries()
+        assertEquals reads, 0 //expiration must not count as an access
+        assertEquals map.size(), 1
+        assertEquals cache.get('b'), '2'
+    }
 }
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.cache
+
+import com.stormpath.sdk.cache.CacheInvalidationBus
+import org.testng.annotations.Test
+
+import static org.testng.Assert.*
+
+/**
+ * @since 2.0.5
+ */
+class InvalidationBusTest {
+
+    @Test
+    void testLocalBusDeliversToOtherMembers() {
+        def a = new LocalInvalidationBus()
+        def b = new LocalInvalidationBus(a)
+
+        def mgrA = new DefaultCacheManager()
+        mgrA.setInvalidationBus(a)
+        def mgrB = new DefaultCacheManager()
+        mgrB.setInvalidationBus(b)
+
+        def cacheA = mgrA.getCache('accounts')
+        def cacheB = mgrB.getCache('accounts')
+        cacheA.put('href1', 'a')
+        cacheB.put('href1', 'b')
+        cacheB.put('href2', 'b')
+
+        a.publish('accounts', 'href1')
+        a.flush()
+
+        //the publisher's own cache is left alone, the write path already updated it:
+        assertEquals cacheA.get('href1'), 'a'
+        assertNull cacheB.get('href1')
+        assertEquals cacheB.get('href2'), 'b'
+        assertEquals b.receivedCount, 1
+        assertEquals a.receivedCount, 0
+
+        b.close()
+        a.publish('accounts', 'href2')
+        a.flush()
+        assertEquals cacheB.get('href2'), 'b'
+        a.close()
+    }
+
+    @Test
+    void testCoalescing() {
+        def a = new LocalInvalidationBus()
+        def b = new LocalInvalidationBus(a)
+        def received = []
+        b.subscribe(new CacheInvalidationBus.Listener() {
+            @Override
+            void onInvalidation(String region, Collection<String> keys) {
+                received << [region, new ArrayList(keys)]
+            }
+        })
+
+        a.publish('accounts', 'href1')
+        a.publish('accounts', 'href1')
+        a.publish('groups', 'href2')
+        a.publish('accounts', 'href3')
+        a.flush()
+
+        assertEquals received, [['accounts', ['href1', 'href3']], ['groups', ['href2']]]
+        assertEquals a.publishedCount, 4
+        assertEquals a.coalescedCount, 1
+        assertEquals a.sentBatchCount, 1
+
+        a.close()
+        b.close()
+    }
+
+    @Test
+    void testMaxBatchSizeSendsImmediately() {
+        def a = new LocalInvalidationBus(60000, 2)
+        def b = new LocalInvalidationBus(a)
+
+        a.publish('accounts', 'href1')
+        assertEquals b.receivedCount, 0
+        a.publish('accounts', 'href2')
+
+        long deadline = System.currentTimeMillis() + 5000
+        while (b.receivedCount < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10)
+        }
+        assertEquals b.receivedCount, 2
+        assertEquals a.sentBatchCount, 1
+
+        a.close()
+        b.close()
+    }
+
+    @Test
+    void testPublishAfterCloseIsDropped() {
+        def a = new LocalInvalidationBus(60000, 2)
+        def b = new LocalInvalidationBus(a)
+
+        a.publish('accounts', 'href1')
+        a.close()
+        assertEquals b.receivedCount, 1
+
+        a.publish('accounts', 'href2')
+        a.publish('accounts', 'href3')
+        a.publish('accounts', 'href4')
+        a.flush()
+        assertEquals b.receivedCount, 1
+        assertEquals a.sentBatchCount, 1
+
+        b.close()
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException)
+    void testInvalidMaxBatchSize() {
+        new LocalInvalidationBus(10, 0)
+    }
+
+    @Test
+    void testUdpEncodeSplitsLargeBatches() {
+        def bus = new UdpInvalidationBus(0, [])
+        def other = new UdpInvalidationBus(0, [])
+        try {
+            def keys = new LinkedHashSet<String>()
+            for (int i = 0; i < 200; i++) {
+                keys << "https://api.stormpath.com/v1/accounts/${UUID.randomUUID()}".toString()
+            }
+            def packets = bus.encode([accounts: keys, groups: ['href'] as LinkedHashSet])
+
+            assertTrue packets.size() > 1
+            def decoded = [:]
+            for (byte[] packet : packets) {
+                assertTrue packet.length <= UdpInvalidationBus.MAX_PACKET_SIZE
+                //a node ignores its own datagrams:
+                assertNull bus.decode(packet, 0, packet.length)
+                other.decode(packet, 0, packet.length).each { region, regionKeys ->
+                    decoded.get(region, []).addAll(regionKeys)
+                }
+            }
+            assertEquals decoded.accounts, new ArrayList(keys)
+            assertEquals decoded.groups, ['href']
+        } finally {
+            bus.close()
+            other.close()
+        }
+    }
+
+    @Test
+    void testUdpLoopback() {
+        def a = new UdpInvalidationBus(0, [])
+        def b = new UdpInvalidationBus(0, [])
+        try {
+            def loopback = InetAddress.getLoopbackAddress()
+            a.addPeer(new InetSocketAddress(loopback, b.localPort))
+            b.addPeer(new InetSocketAddress(loopback, a.localPort))
+
+            def mgr = new DefaultCacheManager()
+            mgr.setInvalidationBus(b)
+            def cache = mgr.getCache('accounts')
+            cache.put('href1', 'value')
+            cache.put('href2', 'value')
+
+            a.publish('accounts', 'href1')
+            a.flush()
+
+            long deadline = System.currentTimeMillis() + 5000
+            while (cache.get('href1') != null && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10)
+            }
+            assertNull cache.get('href1')
+            assertEquals cache.get('href2'), 'value'
+        } finally {
+            a.close()
+            b.close()
+        }
+    }
+}
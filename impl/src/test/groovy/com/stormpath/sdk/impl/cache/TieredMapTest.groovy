@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.cache
+
+import org.testng.annotations.Test
+
+import static org.testng.Assert.*
+
+/**
+ * @since 2.0.5
+ */
+class TieredMapTest {
+
+    private static DefaultCache.Entry<Map> entry(int i) {
+        new DefaultCache.Entry<Map>([href: 'https://api.stormpath.com/v1/accounts/' + i, index: i, tags: ['a', 'b'], enabled: true], CacheClock.SYSTEM)
+    }
+
+    @Test
+    void testEvictedEntriesMovedOffHeap() {
+        def map = new TieredMap<String, Map>(10, 1024 * 1024)
+
+        for (int i = 0; i < 100; i++) {
+            map.put('key' + i, entry(i))
+        }
+
+        assertEquals map.size(), 100
+        assertEquals map.getOffHeapSize(), 90
+        assertEquals map.entrySet().size(), 100
+
+        //every entry is still available, promoted back to the heap with the same data and timestamps:
+        for (int i = 0; i < 100; i++) {
+            def original = entry(i)
+            def found = map.get('key' + i)
+            assertNotNull found
+            assertEquals found.value, original.value
+        }
+        assertEquals map.size(), 100
+    }
+
+    @Test
+    void testOffHeapTierBounded() {
+        def map = new TieredMap<String, Map>(1, OffHeapStore.BLOCK_SIZE * 4)
+
+        for (int i = 0; i < 10; i++) {
+            map.put('key' + i, entry(i))
+        }
+
+        assertEquals map.size(), 5
+        assertEquals map.getOffHeapEvictionCount(), 5
+        //the least recently used entries were evicted:
+        assertNull map.get('key0')
+        assertNotNull map.get('key8')
+    }
+
+    @Test
+    void testPutAndRemoveClearBothTiers() {
+        def map = new TieredMap<String, Map>(1, 1024 * 1024)
+
+        map.put('a', entry(1))
+        map.put('b', entry(2)) //moves 'a' off-heap
+        assertEquals map.getOffHeapSize(), 1
+
+        def previous = map.put('a', entry(3))
+        assertEquals previous.value.index, 1
+        assertEquals map.get('a').value.index, 3
+
+        assertNotNull map.remove('b')
+        assertNull map.get('b')
+
+        map.clear()
+        assertEquals map.size(), 0
+        assertEquals map.getOffHeapSize(), 0
+    }
+
+    @Test
+    void testUnencodableEntriesDiscarded() {
+        def map = new TieredMap<String, Object>(1, 1024 * 1024)
+
+        map.put('a', new DefaultCache.Entry<Object>(new Object(), CacheClock.SYSTEM))
+        map.put('b', new DefaultCache.Entry<Object>('b', CacheClock.SYSTEM))
+
+        assertEquals map.size(), 1
+        assertNull map.get('a')
+        assertEquals map.get('b').value, 'b'
+    }
+
+    @Test
+    void testCodecRoundTrip() {
+        def date = new Date()
+        def value = [string: 'x', integer: 1, long: Long.MAX_VALUE, double: 1.5d, bool: false, nil: null, date: date,
+                     decimal: new BigDecimal('1.25'), bigint: new BigInteger('123456789012345678901234567890'),
+                     nested: [list: [1, 'two', [three: 3]]]]
+        def original = new DefaultCache.Entry<Map>(value, CacheClock.SYSTEM)
+
+        DefaultCache.Entry<Map> decoded = BinaryValueCodec.decode(BinaryValueCodec.encode(original))
+
+        assertEquals decoded.value, value
+        assertEquals decoded.creationTimeMillis, original.creationTimeMillis
+        assertEquals decoded.creationNanos, original.creationNanos
+        assertEquals decoded.lastAccessNanos, original.lastAccessNanos
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.cache
+
+import org.testng.annotations.Test
+
+import java.util.concurrent.TimeUnit
+
+import static org.testng.Assert.*
+
+/**
+ * @since 2.0.5
+ */
+class TimerWheelTest {
+
+    private static long nanos(long value, TimeUnit unit) {
+        return unit.toNanos(value)
+    }
+
+    @Test
+    void testAdvanceAcrossLevels() {
+        long origin = 1000
+        def wheel = new TimerWheel<String, String>(origin)
+
+        def seconds = new TimerWheel.Timer<String, String>('seconds', 'a', origin + nanos(2, TimeUnit.SECONDS))
+        def minutes = new TimerWheel.Timer<String, String>('minutes', 'b', origin + nanos(2, TimeUnit.MINUTES))
+        def hours = new TimerWheel.Timer<String, String>('hours', 'c', origin + nanos(2, TimeUnit.HOURS))
+        wheel.schedule(seconds)
+        wheel.schedule(minutes)
+        wheel.schedule(hours)
+
+        assertTrue wheel.advance(origin + nanos(1, TimeUnit.SECONDS)).isEmpty()
+
+        def due = []
+        for (int i = 2; i <= 5; i++) {
+            due.addAll(wheel.advance(origin + nanos(i, TimeUnit.SECONDS)))
+        }
+        assertEquals due*.key, ['seconds']
+
+        due = []
+        for (int i = 1; i <= 180; i++) {
+            due.addAll(wheel.advance(origin + nanos(i, TimeUnit.MINUTES)))
+        }
+        assertEquals due*.key, ['minutes', 'hours']
+    }
+
+    @Test
+    void testCancel() {
+        def wheel = new TimerWheel<String, String>(0)
+        def timer = new TimerWheel.Timer<String, String>('key', 'value', nanos(2, TimeUnit.SECONDS))
+        wheel.schedule(timer)
+        wheel.cancel(timer)
+        //cancelling twice is a no-op:
+        wheel.cancel(timer)
+
+        assertTrue wheel.advance(nanos(1, TimeUnit.MINUTES)).isEmpty()
+    }
+}
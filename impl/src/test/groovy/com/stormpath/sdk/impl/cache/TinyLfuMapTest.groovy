@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.cache
+
+import org.testng.annotations.Test
+
+import static org.testng.Assert.*
+
+/**
+ * @since 2.0.5
+ */
+class TinyLfuMapTest {
+
+    @Test(expectedExceptions = IllegalArgumentException)
+    void testZeroMaximumSize() {
+        new TinyLfuMap(0)
+    }
+
+    @Test
+    void testSizeBounded() {
+        def map = new TinyLfuMap<String, Integer>(100)
+
+        for (int i = 0; i < 1000; i++) {
+            map.put('key' + i, i)
+        }
+
+        assertEquals map.size(), 100
+        assertEquals map.getEvictionCount(), 900
+        assertEquals map.entrySet().size(), 100
+    }
+
+    @Test
+    void testFrequentlyUsedEntriesSurviveScan() {
+        def map = new TinyLfuMap<String, Integer>(100)
+
+        for (int i = 0; i < 50; i++) {
+            map.put('hot' + i, i)
+        }
+        //make the 'hot' entries popular:
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 50; i++) {
+                assertEquals map.get('hot' + i), i
+            }
+        }
+
+        //a one-off scan over many more keys than the map can hold:
+        for (int i = 0; i < 10000; i++) {
+            map.put('scan' + i, i)
+        }
+
+        int retained = 0
+        for (int i = 0; i < 50; i++) {
+            if (map.get('hot' + i) == i) {
+                retained++
+            }
+        }
+        //a pure LRU policy would not have retained any of them:
+        assertTrue retained >= 45
+        assertEquals map.size(), 100
+    }
+
+    @Test
+    void testReplaceRemoveAndClear() {
+        def map = new TinyLfuMap<String, String>(10)
+
+        assertNull map.put('a', '1')
+        assertEquals map.put('a', '2'), '1'
+        assertEquals map.get('a'), '2'
+        assertTrue map.containsKey('a')
+        assertEquals map.size(), 1
+
+        assertFalse map.remove('a', '1')
+        assertEquals map.size(), 1
+        assertTrue map.remove('a', '2')
+        map.put('a', '2')
+
+        assertEquals map.remove('a'), '2'
+        assertNull map.remove('a')
+        assertNull map.get('a')
+        assertEquals map.size(), 0
+
+        map.put('b', '1')
+        map.put('c', '2')
+        map.clear()
+        assertEquals map.size(), 0
+        assertNull map.get('b')
+
+        //the queues must still be usable after being cleared:
+        for (int i = 0; i < 100; i++) {
+            map.put('key' + i, 'value' + i)
+        }
+        assertEquals map.size(), 10
+    }
+}
@@ -2,6 +2,7 @@ package com.stormpath.sdk.impl.client
 
 import com.stormpath.sdk.cache.CacheManager
 import com.stormpath.sdk.client.AuthenticationScheme
+import com.stormpath.sdk.client.HttpProtocol
 import com.stormpath.sdk.impl.api.ApiKeyResolver
 import com.stormpath.sdk.impl.authc.credentials.ApiKeyCredentials
 import com.stormpath.sdk.impl.http.authc.RequestAuthenticatorFactory
@@ -36,7 +37,8 @@ class DefaultClientTest extends PowerMockTestCase {
         def className = "com.stormpath.sdk.impl.http.httpclient.HttpClientRequestExecutor"
 
         mockStatic(Classes)
-        expect(Classes.isAvailable(className)).andReturn(false)
+        expect(Classes.isAvailable(className)).andReturn(false).times(2)
+        expect(Classes.isAvailable("com.stormpath.sdk.impl.http.jdk.JdkHttpClientRequestExecutor")).andReturn(false)
 
         replayAll()
 
@@ -49,4 +51,34 @@ class DefaultClientTest extends PowerMockTestCase {
                 "have added the stormpath-sdk-httpclient .jar file to your runtime classpath."
         }
     }
+
+    /**
+     * @since 2.0.5
+     */
+    @Test
+    void testCreateHttp2RequestExecutorNotAvailable() {
+
+        def apiKeyCredentials = createStrictMock(ApiKeyCredentials)
+        def apiKeyResolver = createStrictMock(ApiKeyResolver)
+        def cacheManager = createStrictMock(CacheManager)
+        def requestAuthenticatorFactory = createStrictMock(RequestAuthenticatorFactory)
+        def baseUrlResolver = createStrictMock(BaseUrlResolver)
+
+        def className = "com.stormpath.sdk.impl.http.jdk.JdkHttpClientRequestExecutor"
+
+        mockStatic(Classes)
+        expect(Classes.isAvailable(className)).andReturn(false)
+
+        replayAll()
+
+        try {
+            new DefaultClient(apiKeyCredentials, apiKeyResolver, baseUrlResolver, null, cacheManager, AuthenticationScheme.BASIC, requestAuthenticatorFactory, 3600, null, HttpProtocol.HTTP_2)
+            fail("shouldn't be here")
+        } catch (Exception e) {
+            assertEquals e.getMessage(), "Unable to find the '" + className +
+                "' implementation on the classpath.  Please ensure you " +
+                "have added the stormpath-sdk-httpclient-jdk .jar file to your runtime classpath and are running " +
+                "on Java 11 or later to use HTTP_2."
+        }
+    }
 }
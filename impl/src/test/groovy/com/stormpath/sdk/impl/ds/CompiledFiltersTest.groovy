@@ -0,0 +1,156 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.ds
+
+import com.stormpath.sdk.account.Account
+import com.stormpath.sdk.api.ApiKeyList
+import com.stormpath.sdk.authc.AuthenticationResult
+import com.stormpath.sdk.impl.authc.LoginAttempt
+import com.stormpath.sdk.impl.ds.api.ApiKeyQueryFilter
+import com.stormpath.sdk.impl.http.QueryStringFactory
+import com.stormpath.sdk.impl.http.support.DefaultCanonicalUri
+import com.stormpath.sdk.impl.provider.ProviderAccountAccess
+import com.stormpath.sdk.impl.util.ResultFuture
+import com.stormpath.sdk.provider.ProviderAccountResult
+import org.testng.annotations.BeforeMethod
+import org.testng.annotations.Test
+
+import static org.testng.Assert.*
+
+/**
+ * @since 2.0.5
+ */
+class CompiledFiltersTest {
+
+    EnlistmentFilter enlistmentFilter
+    RequestCoalescingFilter coalescingFilter
+    ApiKeyQueryFilter apiKeyQueryFilter
+    ProviderAccountResultFilter providerAccountResultFilter
+    CompiledFilters compiledFilters
+
+    @BeforeMethod
+    void setUp() {
+        enlistmentFilter = new EnlistmentFilter()
+        coalescingFilter = new RequestCoalescingFilter()
+        apiKeyQueryFilter = new ApiKeyQueryFilter(new QueryStringFactory())
+        providerAccountResultFilter = new ProviderAccountResultFilter()
+        compiledFilters = new CompiledFilters([enlistmentFilter, coalescingFilter, apiKeyQueryFilter, providerAccountResultFilter])
+    }
+
+    @Test
+    void testInapplicableFiltersAreSkipped() {
+
+        assertEquals compiledFilters.getFilters(ResourceAction.READ, Account), [enlistmentFilter, coalescingFilter]
+        assertEquals compiledFilters.getFilters(ResourceAction.READ, ApiKeyList), [enlistmentFilter, apiKeyQueryFilter]
+        assertEquals compiledFilters.getFilters(ResourceAction.DELETE, Account), [enlistmentFilter]
+        assertEquals compiledFilters.getFilters(ResourceAction.CREATE, LoginAttempt, AuthenticationResult), [enlistmentFilter]
+        assertEquals compiledFilters.getFilters(ResourceAction.CREATE, ProviderAccountAccess, ProviderAccountResult),
+                [enlistmentFilter, providerAccountResultFilter]
+    }
+
+    @Test
+    void testCompiledOnce() {
+
+        def filters = compiledFilters.getFilters(ResourceAction.READ, Account)
+        assertSame compiledFilters.getFilters(ResourceAction.READ, Account), filters
+
+        filters = compiledFilters.getFilters(ResourceAction.CREATE, LoginAttempt, AuthenticationResult)
+        assertSame compiledFilters.getFilters(ResourceAction.CREATE, LoginAttempt, AuthenticationResult), filters
+    }
+
+    @Test
+    void testAsyncFiltersMatchFilters() {
+        assertEquals compiledFilters.getAsyncFilters(ResourceAction.READ, Account), [enlistmentFilter, coalescingFilter]
+        assertEquals compiledFilters.getAsyncFilters(ResourceAction.CREATE, ProviderAccountAccess, ProviderAccountResult),
+                [enlistmentFilter, providerAccountResultFilter]
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException)
+    void testCompiledFiltersAreUnmodifiable() {
+        compiledFilters.getFilters(ResourceAction.READ, Account).add(enlistmentFilter)
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException)
+    void testSyncOnlyFilterRejected() {
+        def filter = new Filter() {
+            @Override
+            ResourceDataResult filter(ResourceDataRequest request, FilterChain chain) {
+                return chain.filter(request)
+            }
+        }
+        new CompiledFilters([filter])
+    }
+
+    @Test
+    void testCompiledChainsAreReusable() {
+        def calls = []
+        def uri = new DefaultCanonicalUri('https://api.stormpath.com/v1/accounts/a1', null)
+        def request = new DefaultResourceDataRequest(ResourceAction.READ, uri, Account, [:])
+        def result = new DefaultResourceDataResult(ResourceAction.READ, uri, Account, [:])
+        def handlers = [
+            getCompletionHandler     : { ResourceAction action, Class resultClass ->
+                if (action == ResourceAction.DELETE) {
+                    return null
+                }
+                return { ResourceDataRequest r -> calls << 'handler'; result } as FilterChain
+            },
+            getAsyncCompletionHandler: { ResourceAction action, Class resultClass ->
+                return { ResourceDataRequest r -> calls << 'async handler'; ResultFuture.completed(result) } as AsyncFilterChain
+            }
+        ] as CompiledFilters.CompletionHandlers
+        def compiled = new CompiledFilters([new RecordingFilter('first', calls), new RecordingFilter('second', calls)], handlers)
+
+        def chain = compiled.getChain(ResourceAction.READ, Account)
+        assertSame compiled.getChain(ResourceAction.READ, Account), chain
+
+        assertSame chain.filter(request), result
+        assertSame chain.filter(request), result
+        assertEquals calls, ['first', 'second', 'handler', 'first', 'second', 'handler']
+
+        calls.clear()
+        assertSame compiled.getAsyncChain(ResourceAction.READ, Account).filter(request).join(), result
+        assertEquals calls, ['first', 'second', 'async handler']
+
+        try {
+            compiled.getChain(ResourceAction.DELETE, Account)
+            fail()
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    static class RecordingFilter implements Filter, AsyncFilter {
+
+        final String name
+        final List calls
+
+        RecordingFilter(String name, List calls) {
+            this.name = name
+            this.calls = calls
+        }
+
+        @Override
+        ResourceDataResult filter(ResourceDataRequest request, FilterChain chain) {
+            calls << name
+            return chain.filter(request)
+        }
+
+        @Override
+        ResultFuture<ResourceDataResult> filter(ResourceDataRequest request, AsyncFilterChain chain) {
+            calls << name
+            return chain.filter(request)
+        }
+    }
+}
@@ -15,19 +15,29 @@
  */
 package com.stormpath.sdk.impl.ds
 
+import com.stormpath.sdk.account.Account
 import com.stormpath.sdk.api.ApiKey
 import com.stormpath.sdk.cache.Caches
+import com.stormpath.sdk.http.HttpMethod
 import com.stormpath.sdk.impl.api.ApiKeyResolver
 import com.stormpath.sdk.impl.api.DefaultApiKeyResolver
 import com.stormpath.sdk.impl.application.DefaultApplication
 import com.stormpath.sdk.impl.authc.credentials.ApiKeyCredentials
+import com.stormpath.sdk.impl.http.AsyncRequestExecutor
+import com.stormpath.sdk.impl.http.HttpHeaders
+import com.stormpath.sdk.impl.http.MediaType
+import com.stormpath.sdk.impl.http.Request
 import com.stormpath.sdk.impl.http.RequestExecutor
 import com.stormpath.sdk.impl.http.Response
+import com.stormpath.sdk.impl.http.RestException
 import com.stormpath.sdk.impl.http.support.DefaultRequest
+import com.stormpath.sdk.impl.http.support.DefaultResponse
 import com.stormpath.sdk.impl.provider.DefaultGoogleProviderData
 import com.stormpath.sdk.impl.provider.IdentityProviderType
 import com.stormpath.sdk.impl.query.DefaultOptions
 import com.stormpath.sdk.impl.util.BaseUrlResolver
+import com.stormpath.sdk.impl.util.DefaultBaseUrlResolver
+import com.stormpath.sdk.impl.util.ResultFuture
 import com.stormpath.sdk.provider.FacebookProvider
 import com.stormpath.sdk.provider.GithubProvider
 import com.stormpath.sdk.provider.GoogleProviderData
@@ -36,9 +46,11 @@ import com.stormpath.sdk.provider.ProviderData
 import com.stormpath.sdk.provider.Providers
 import com.stormpath.sdk.query.Options
 import com.stormpath.sdk.resource.Resource
+import com.stormpath.sdk.resource.ResourceException
 import org.testng.annotations.Test
 
 import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
 
 import static org.easymock.EasyMock.*
 import static org.testng.Assert.*
@@ -386,6 +398,7 @@ class DefaultDataStoreTest {
         expect(response.isError()).andReturn(false)
         expect(response.hasBody()).andReturn(true)
         expect(response.getBody()).andReturn(providerResponseIS)
+        expect(response.getHeaders()).andReturn(new HttpHeaders())
         expect(requestExecutor.executeRequest(anyObject(DefaultRequest))).andReturn(response)
         expect(response.isError()).andReturn(false)
         expect(response.hasBody()).andReturn(true)
@@ -505,4 +518,411 @@ class DefaultDataStoreTest {
         assertEquals(defaultDataStore.getApiKey(), apiKeyForResolver)
 
     }
+
+    /**
+     * @since 2.0.5
+     */
+    @Test
+    void testGetResourceAsyncDoesNotBlockOnAsyncRequestExecutor() {
+        def requestExecutor = createStrictMock(AsyncRequestExecutor)
+        def response = createStrictMock(Response)
+        def apiKeyCredentials = createStrictMock(ApiKeyCredentials)
+        def apiKeyResolver = createStrictMock(ApiKeyResolver)
+        def responseMap = [href: "https://api.stormpath.com/v1/directories/5fgF3o89Ph5nbJzY6EVSct/provider",
+                           providerId: "facebook"
+        ]
+        InputStream is = new ByteArrayInputStream(new JacksonMapMarshaller().marshal(responseMap).getBytes())
+
+        def responseFuture = new ResultFuture<Response>()
+
+        expect(requestExecutor.executeRequestAsync(anyObject(DefaultRequest))).andReturn(responseFuture)
+        expect(response.isError()).andReturn(false)
+        expect(response.hasBody()).andReturn(true)
+        expect(response.getBody()).andReturn(is)
+
+        replay(requestExecutor, response)
+
+        def defaultDataStore = new DefaultDataStore(requestExecutor, "https://api.stormpath.com/v1", apiKeyCredentials, apiKeyResolver)
+        def future = defaultDataStore.getResourceAsync(responseMap.href, FacebookProvider)
+
+        assertFalse future.isDone()
+
+        responseFuture.complete(response)
+
+        assertTrue future.isDone()
+        assertEquals future.join().getHref(), responseMap.href
+
+        verify(requestExecutor, response)
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Test
+    void testGetResourceAsyncPropagatesFailure() {
+        def requestExecutor = createStrictMock(AsyncRequestExecutor)
+        def apiKeyCredentials = createStrictMock(ApiKeyCredentials)
+        def apiKeyResolver = createStrictMock(ApiKeyResolver)
+
+        def exception = new RestException("Unable to execute HTTP request")
+
+        expect(requestExecutor.executeRequestAsync(anyObject(DefaultRequest))).andReturn(ResultFuture.failed(exception))
+
+        replay(requestExecutor)
+
+        def defaultDataStore = new DefaultDataStore(requestExecutor, "https://api.stormpath.com/v1", apiKeyCredentials, apiKeyResolver)
+        def future = defaultDataStore.getResourceAsync("https://api.stormpath.com/v1/directories/5fgF3o89Ph5nbJzY6EVSct/provider", FacebookProvider)
+
+        assertTrue future.isFailed()
+        try {
+            future.join()
+            fail("should have thrown")
+        } catch (RestException e) {
+            assertSame e, exception
+        }
+
+        verify(requestExecutor)
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Test
+    void testGetResourceAsyncFallsBackToBlockingRequestExecutor() {
+        def requestExecutor = createStrictMock(RequestExecutor)
+        def response = createStrictMock(Response)
+        def apiKeyCredentials = createStrictMock(ApiKeyCredentials)
+        def apiKeyResolver = createStrictMock(ApiKeyResolver)
+        def responseMap = [href: "https://api.stormpath.com/v1/directories/5fgF3o89Ph5nbJzY6EVSct/provider",
+                           providerId: "facebook"
+        ]
+        InputStream is = new ByteArrayInputStream(new JacksonMapMarshaller().marshal(responseMap).getBytes())
+
+        expect(requestExecutor.executeRequest(anyObject(DefaultRequest))).andReturn(response)
+        expect(response.isError()).andReturn(false)
+        expect(response.hasBody()).andReturn(true)
+        expect(response.getBody()).andReturn(is)
+
+        replay(requestExecutor, response)
+
+        def defaultDataStore = new DefaultDataStore(requestExecutor, "https://api.stormpath.com/v1", apiKeyCredentials, apiKeyResolver)
+        def future = defaultDataStore.getResourceAsync(responseMap.href, FacebookProvider)
+
+        assertTrue future.isDone()
+        assertEquals future.join().getHref(), responseMap.href
+
+        verify(requestExecutor, response)
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Test
+    void testGetResourcesBoundsConcurrencyAndReportsPerItemErrors() {
+        def apiKeyCredentials = createStrictMock(ApiKeyCredentials)
+        def apiKeyResolver = createStrictMock(ApiKeyResolver)
+
+        def active = new AtomicInteger()
+        def maxActive = new AtomicInteger()
+        def requestCount = new AtomicInteger()
+
+        def requestExecutor = [
+            executeRequest: { Request request ->
+                requestCount.incrementAndGet()
+                int current = active.incrementAndGet()
+                maxActive.set(Math.max(maxActive.get(), current))
+                try {
+                    Thread.sleep(20)
+                    def href = request.resourceUrl.toString()
+                    if (href.endsWith('/missing')) {
+                        throw new RestException("Unable to execute HTTP request")
+                    }
+                    def body = new JacksonMapMarshaller().marshal([href: href, username: href.substring(href.lastIndexOf('/') + 1)])
+                    return new DefaultResponse(200, MediaType.APPLICATION_JSON, new ByteArrayInputStream(body.getBytes()), body.length())
+                } finally {
+                    active.decrementAndGet()
+                }
+            }
+        ] as RequestExecutor
+
+        def cacheManager = Caches.newCacheManager()
+                .withDefaultTimeToIdle(1, TimeUnit.HOURS)
+                .withDefaultTimeToLive(1, TimeUnit.HOURS)
+                .build()
+
+        def defaultDataStore = new DefaultDataStore(requestExecutor, new DefaultBaseUrlResolver("https://api.stormpath.com/v1"), apiKeyCredentials, apiKeyResolver, cacheManager)
+
+        def hrefs = (1..6).collect { "https://api.stormpath.com/v1/accounts/a$it".toString() }
+        hrefs.add(3, "https://api.stormpath.com/v1/accounts/missing")
+
+        def results = defaultDataStore.getResources(hrefs, Account, 2)
+
+        assertEquals results.size(), hrefs.size()
+        results.eachWithIndex { result, i ->
+            assertEquals result.href, hrefs[i]
+        }
+        assertFalse results[3].success
+        assertTrue results[3].error instanceof RestException
+        assertNull results[3].resource
+        assertTrue results[0].success
+        assertEquals results[0].resource.username, "a1"
+        assertEquals results[6].resource.username, "a6"
+        assertTrue maxActive.get() <= 2
+        assertEquals requestCount.get(), 7
+
+        //second lookup must be served from the cache, except for the href that failed:
+        results = defaultDataStore.getResources(hrefs, Account)
+
+        assertEquals requestCount.get(), 8
+        assertEquals results.findAll { it.success }.size(), 6
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Test
+    void testConcurrentGetResourcesShareBoundedPool() {
+        def apiKeyCredentials = createStrictMock(ApiKeyCredentials)
+        def apiKeyResolver = createStrictMock(ApiKeyResolver)
+
+        def poolThreads = Collections.synchronizedSet(new HashSet<String>())
+
+        def requestExecutor = [
+            executeRequest: { Request request ->
+                if (Thread.currentThread().name.startsWith("stormpath-bulk-fetch")) {
+                    poolThreads << Thread.currentThread().name
+                }
+                Thread.sleep(5)
+                def href = request.resourceUrl.toString()
+                def body = new JacksonMapMarshaller().marshal([href: href, username: 'jsmith'])
+                return new DefaultResponse(200, MediaType.APPLICATION_JSON, new ByteArrayInputStream(body.getBytes()), body.length())
+            }
+        ] as RequestExecutor
+
+        def defaultDataStore = new DefaultDataStore(requestExecutor, "https://api.stormpath.com/v1", apiKeyCredentials, apiKeyResolver)
+
+        def hrefs = (1..20).collect { "https://api.stormpath.com/v1/accounts/a$it".toString() }
+        def successCounts = Collections.synchronizedList([])
+        def callers = (1..6).collect {
+            Thread.start { successCounts << defaultDataStore.getResources(hrefs, Account, 8).findAll { it.success }.size() }
+        }
+        callers*.join(10000)
+
+        assertEquals successCounts, [20] * 6
+        assertTrue poolThreads.size() <= DefaultDataStore.BULK_THREADS
+
+        //once closed, lookups run on the calling thread instead of being dropped:
+        defaultDataStore.close()
+        assertEquals defaultDataStore.getResources(hrefs.take(3), Account).findAll { it.success }.size(), 3
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Test
+    void testGetResourcesWithAsyncRequestExecutor() {
+        def apiKeyCredentials = createStrictMock(ApiKeyCredentials)
+        def apiKeyResolver = createStrictMock(ApiKeyResolver)
+
+        def requestExecutor = [
+            executeRequestAsync: { Request request ->
+                def href = request.resourceUrl.toString()
+                def body = new JacksonMapMarshaller().marshal([href: href, username: 'jsmith'])
+                return ResultFuture.completed(new DefaultResponse(200, MediaType.APPLICATION_JSON, new ByteArrayInputStream(body.getBytes()), body.length()))
+            },
+            executeRequest: { Request request -> throw new UnsupportedOperationException() }
+        ] as AsyncRequestExecutor
+
+        def defaultDataStore = new DefaultDataStore(requestExecutor, "https://api.stormpath.com/v1", apiKeyCredentials, apiKeyResolver)
+
+        def hrefs = ["https://api.stormpath.com/v1/accounts/a1", "", "https://api.stormpath.com/v1/accounts/a2"]
+        def results = defaultDataStore.getResources(hrefs, Account)
+
+        assertEquals results*.href, hrefs
+        assertTrue results[0].success
+        assertFalse results[1].success
+        assertTrue results[1].error instanceof IllegalArgumentException
+        assertEquals results[2].resource.href, hrefs[2]
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Test
+    void testExpiredCacheEntryRevalidatedWithConditionalRequest() {
+        def apiKeyCredentials = createStrictMock(ApiKeyCredentials)
+        def apiKeyResolver = createStrictMock(ApiKeyResolver)
+
+        def href = "https://api.stormpath.com/v1/accounts/a1"
+        def requests = []
+
+        def requestExecutor = [
+            executeRequest: { Request request ->
+                requests << request
+                if (requests.size() == 1) {
+                    def body = new JacksonMapMarshaller().marshal([href: href, username: 'jsmith', modifiedAt: '2017-05-01T10:00:00.000Z'])
+                    def response = new DefaultResponse(200, MediaType.APPLICATION_JSON, new ByteArrayInputStream(body.getBytes()), body.length())
+                    response.headers.set("ETag", '"v1"')
+                    return response
+                }
+                def response = new DefaultResponse(304, null, null, 0)
+                response.headers.set("ETag", '"v1"')
+                return response
+            }
+        ] as RequestExecutor
+
+        def cacheManager = Caches.newCacheManager()
+                .withDefaultTimeToLive(200, TimeUnit.MILLISECONDS)
+                .build()
+
+        def defaultDataStore = new DefaultDataStore(requestExecutor, new DefaultBaseUrlResolver("https://api.stormpath.com/v1"), apiKeyCredentials, apiKeyResolver, cacheManager)
+
+        assertEquals defaultDataStore.getResource(href, Account).username, "jsmith"
+        assertNull requests[0].headers.getFirst("If-None-Match")
+
+        Thread.sleep(300) //let the cache entry expire
+
+        def account = defaultDataStore.getResource(href, Account)
+
+        assertEquals requests.size(), 2
+        assertEquals requests[1].headers.getFirst("If-None-Match"), '"v1"'
+        assertTrue requests[1].headers.getIfNotModifiedSince() > 0
+        assertEquals account.username, "jsmith"
+
+        //the 304 response renewed the cache entry:
+        assertEquals cacheManager.getCache(Account.name).get(href).username, "jsmith"
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Test
+    void testStaleCacheEntryServedWhileRefreshedInBackground() {
+        def apiKeyCredentials = createStrictMock(ApiKeyCredentials)
+        def apiKeyResolver = createStrictMock(ApiKeyResolver)
+
+        def href = "https://api.stormpath.com/v1/accounts/a1"
+        def requestCount = new AtomicInteger()
+
+        def requestExecutor = [
+            executeRequest: { Request request ->
+                def body = new JacksonMapMarshaller().marshal([href: href, username: "v" + requestCount.incrementAndGet()])
+                return new DefaultResponse(200, MediaType.APPLICATION_JSON, new ByteArrayInputStream(body.getBytes()), body.length())
+            }
+        ] as RequestExecutor
+
+        def cacheManager = Caches.newCacheManager()
+                .withCache(Caches.forResource(Account)
+                    .withTimeToLive(100, TimeUnit.MILLISECONDS)
+                    .withStaleWhileRevalidate(10, TimeUnit.SECONDS))
+                .build()
+
+        def defaultDataStore = new DefaultDataStore(requestExecutor, new DefaultBaseUrlResolver("https://api.stormpath.com/v1"), apiKeyCredentials, apiKeyResolver, cacheManager)
+
+        assertEquals defaultDataStore.getResource(href, Account).username, "v1"
+
+        Thread.sleep(150) //let the cache entry become stale
+
+        //the stale value is returned immediately:
+        assertEquals defaultDataStore.getResource(href, Account).username, "v1"
+
+        //while a single refresh updates the cache in the background:
+        long deadline = System.currentTimeMillis() + 5000
+        while (cacheManager.getCache(Account.name).get(href).username != "v2" && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10)
+        }
+
+        assertEquals defaultDataStore.getResource(href, Account).username, "v2"
+        assertEquals requestCount.get(), 2
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Test
+    void testNotFoundResponseRememberedUntilResourceSaved() {
+        def apiKeyCredentials = createStrictMock(ApiKeyCredentials)
+        def apiKeyResolver = createStrictMock(ApiKeyResolver)
+
+        def href = "https://api.stormpath.com/v1/accounts/a1"
+        def requestCount = new AtomicInteger()
+        def found = false
+
+        def requestExecutor = [
+            executeRequest: { Request request ->
+                requestCount.incrementAndGet()
+                if (request.method == HttpMethod.POST) {
+                    found = true
+                }
+                def status = found ? 200 : 404
+                def body = new JacksonMapMarshaller().marshal(found ? [href: href, username: "jdoe"] :
+                        [status: 404, code: 404, message: "The requested resource does not exist.", developerMessage: "The requested resource does not exist.", moreInfo: "https://docs.stormpath.com/errors/404"])
+                return new DefaultResponse(status, MediaType.APPLICATION_JSON, new ByteArrayInputStream(body.getBytes()), body.length())
+            }
+        ] as RequestExecutor
+
+        def cacheManager = Caches.newCacheManager().build()
+
+        //negative caching is opt-in:
+        System.setProperty(DefaultDataStore.NEGATIVE_CACHE_TTL_PROPERTY_KEY, "5000")
+        def defaultDataStore
+        try {
+            defaultDataStore = new DefaultDataStore(requestExecutor, new DefaultBaseUrlResolver("https://api.stormpath.com/v1"), apiKeyCredentials, apiKeyResolver, cacheManager)
+        } finally {
+            System.clearProperty(DefaultDataStore.NEGATIVE_CACHE_TTL_PROPERTY_KEY)
+        }
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                defaultDataStore.getResource(href, Account)
+                fail("should have thrown")
+            } catch (ResourceException e) {
+                assertEquals e.status, 404
+            }
+        }
+
+        //the second lookup was answered from the negative cache:
+        assertEquals requestCount.get(), 1
+
+        def account = defaultDataStore.instantiate(Account, [href: href] as Map<String, Object>)
+        account.setUsername("jdoe")
+        account.save()
+
+        //the href is no longer known to be missing, so a read that misses the cache reaches the server again:
+        cacheManager.getCache(Account.name).remove(href)
+        assertEquals defaultDataStore.getResource(href, Account).username, "jdoe"
+        assertEquals requestCount.get(), 3
+    }
+
+    /**
+     * @since 2.0.5
+     */
+    @Test
+    void testNotFoundResponseNotRememberedByDefault() {
+        def apiKeyCredentials = createStrictMock(ApiKeyCredentials)
+        def apiKeyResolver = createStrictMock(ApiKeyResolver)
+
+        def requestCount = new AtomicInteger()
+
+        def requestExecutor = [
+            executeRequest: { Request request ->
+                requestCount.incrementAndGet()
+                def body = new JacksonMapMarshaller().marshal([status: 404, code: 404, message: "The requested resource does not exist.", developerMessage: "The requested resource does not exist.", moreInfo: "https://docs.stormpath.com/errors/404"])
+                return new DefaultResponse(404, MediaType.APPLICATION_JSON, new ByteArrayInputStream(body.getBytes()), body.length())
+            }
+        ] as RequestExecutor
+
+        def defaultDataStore = new DefaultDataStore(requestExecutor, new DefaultBaseUrlResolver("https://api.stormpath.com/v1"), apiKeyCredentials, apiKeyResolver, Caches.newCacheManager().build())
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                defaultDataStore.getResource("https://api.stormpath.com/v1/accounts/a1", Account)
+                fail("should have thrown")
+            } catch (ResourceException e) {
+                assertEquals e.status, 404
+            }
+        }
+
+        assertEquals requestCount.get(), 2
+    }
 }
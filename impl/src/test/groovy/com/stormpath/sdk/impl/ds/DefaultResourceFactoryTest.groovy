@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.ds
+
+import com.stormpath.sdk.account.Account
+import com.stormpath.sdk.account.AccountList
+import com.stormpath.sdk.impl.account.DefaultAccount
+import com.stormpath.sdk.impl.account.DefaultAccountList
+import org.testng.annotations.Test
+
+import static org.easymock.EasyMock.createStrictMock
+import static org.testng.Assert.*
+
+/**
+ * @since 2.0.5
+ */
+class DefaultResourceFactoryTest {
+
+    @Test
+    void testInstantiateUsesAllConstructorVariants() {
+
+        def dataStore = createStrictMock(InternalDataStore)
+        def factory = new DefaultResourceFactory(dataStore)
+
+        def account = factory.instantiate(Account)
+        assertTrue account instanceof DefaultAccount
+        assertSame account.dataStore, dataStore
+
+        account = factory.instantiate(Account, [href: "https://api.stormpath.com/v1/accounts/foo"])
+        assertTrue account instanceof DefaultAccount
+        assertEquals account.href, "https://api.stormpath.com/v1/accounts/foo"
+
+        def list = factory.instantiate(AccountList, [href: "https://api.stormpath.com/v1/accounts"], [q: "foo"])
+        assertTrue list instanceof DefaultAccountList
+
+        //implementation classes are instantiated directly:
+        assertTrue factory.instantiate(DefaultAccount, [:]) instanceof DefaultAccount
+    }
+
+    @Test
+    void testClassMappingsAreStable() {
+        assertSame DefaultResourceFactory.getImplementationClass(Account), DefaultAccount
+        assertSame DefaultResourceFactory.getImplementationClass(Account), DefaultAccount
+        assertSame DefaultResourceFactory.getImplementationClass(DefaultAccount), DefaultAccount
+        assertSame DefaultResourceFactory.getInterfaceClass(DefaultAccount), Account
+        assertSame DefaultResourceFactory.getInterfaceClass(DefaultAccount), Account
+        assertSame DefaultResourceFactory.getInterfaceClass(Account), Account
+    }
+
+    @Test(expectedExceptions = NullPointerException)
+    void testInstantiateNullClass() {
+        new DefaultResourceFactory(createStrictMock(InternalDataStore)).instantiate(null)
+    }
+}
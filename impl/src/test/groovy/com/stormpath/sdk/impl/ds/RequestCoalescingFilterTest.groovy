@@ -0,0 +1,192 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.ds
+
+import com.stormpath.sdk.account.Account
+import com.stormpath.sdk.api.ApiKey
+import com.stormpath.sdk.impl.http.support.DefaultCanonicalUri
+import com.stormpath.sdk.impl.util.ResultFuture
+import org.testng.annotations.Test
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+import static org.testng.Assert.*
+
+/**
+ * @since 2.0.5
+ */
+class RequestCoalescingFilterTest {
+
+    static final String HREF = 'https://api.stormpath.com/v1/accounts/foo'
+
+    static ResourceDataRequest request(ResourceAction action = ResourceAction.READ, Class clazz = Account) {
+        new DefaultResourceDataRequest(action, DefaultCanonicalUri.create(HREF, null), clazz, [:])
+    }
+
+    static ResourceDataResult result(ResourceDataRequest req) {
+        new DefaultResourceDataResult(req.action, req.uri, req.resourceClass, [href: HREF, username: 'jsmith'])
+    }
+
+    @Test
+    void testConcurrentReadsShareSingleRequest() {
+
+        def filter = new RequestCoalescingFilter()
+        def invocations = new AtomicInteger()
+        def entered = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+
+        def chain = new FilterChain() {
+            @Override
+            ResourceDataResult filter(ResourceDataRequest req) {
+                invocations.incrementAndGet()
+                entered.countDown()
+                release.await(5, TimeUnit.SECONDS)
+                return result(req)
+            }
+        }
+
+        def results = Collections.synchronizedList([])
+        def leader = Thread.start { results << filter.filter(request(), chain) }
+        assertTrue entered.await(5, TimeUnit.SECONDS)
+
+        def waiter = Thread.start { results << filter.filter(request(), chain) }
+
+        //wait until the second request has joined the in-flight one:
+        long deadline = System.currentTimeMillis() + 5000
+        while (filter.coalescedCount == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5)
+        }
+
+        release.countDown()
+        leader.join(5000)
+        waiter.join(5000)
+
+        assertEquals invocations.get(), 1
+        assertEquals filter.requestCount, 2
+        assertEquals filter.coalescedCount, 1
+        assertEquals filter.inFlightCount, 0
+        assertEquals results.size(), 2
+        assertEquals results[0].data, results[1].data
+        assertNotSame results[0].data, results[1].data
+    }
+
+    @Test
+    void testAsyncReadsShareSingleRequest() {
+
+        def filter = new RequestCoalescingFilter()
+        def invocations = new AtomicInteger()
+        def pending = new ResultFuture<ResourceDataResult>()
+
+        def chain = new AsyncFilterChain() {
+            @Override
+            ResultFuture<ResourceDataResult> filter(ResourceDataRequest req) {
+                invocations.incrementAndGet()
+                return pending
+            }
+        }
+
+        def first = filter.filter(request(), chain)
+        def second = filter.filter(request(), chain)
+
+        assertFalse first.isDone()
+        assertFalse second.isDone()
+        assertEquals filter.inFlightCount, 1
+
+        pending.complete(result(request()))
+
+        assertEquals first.join().data.username, 'jsmith'
+        assertEquals second.join().data.username, 'jsmith'
+        assertEquals invocations.get(), 1
+        assertEquals filter.coalescedCount, 1
+        assertEquals filter.inFlightCount, 0
+    }
+
+    @Test
+    void testFailureIsSharedAndKeyReleased() {
+
+        def filter = new RequestCoalescingFilter()
+        def pending = new ResultFuture<ResourceDataResult>()
+
+        def chain = new AsyncFilterChain() {
+            @Override
+            ResultFuture<ResourceDataResult> filter(ResourceDataRequest req) {
+                return pending
+            }
+        }
+
+        def first = filter.filter(request(), chain)
+        def second = filter.filter(request(), chain)
+
+        pending.fail(new IllegalStateException('boom'))
+
+        assertTrue first.isFailed()
+        assertTrue second.isFailed()
+        assertEquals filter.inFlightCount, 0
+    }
+
+    @Test
+    void testAsyncChainErrorReleasesKey() {
+
+        def filter = new RequestCoalescingFilter()
+        def throwError = true
+
+        def chain = new AsyncFilterChain() {
+            @Override
+            ResultFuture<ResourceDataResult> filter(ResourceDataRequest req) {
+                if (throwError) {
+                    throw new StackOverflowError()
+                }
+                return ResultFuture.completed(result(req))
+            }
+        }
+
+        try {
+            filter.filter(request(), chain)
+            fail()
+        } catch (StackOverflowError expected) {
+        }
+        assertEquals filter.inFlightCount, 0
+
+        throwError = false
+        def next = filter.filter(request(), chain)
+        assertTrue next.isDone()
+        assertEquals next.join().data.username, 'jsmith'
+    }
+
+    @Test
+    void testNonReadRequestsAreNotCoalesced() {
+
+        def filter = new RequestCoalescingFilter()
+        def invocations = new AtomicInteger()
+
+        def chain = new FilterChain() {
+            @Override
+            ResourceDataResult filter(ResourceDataRequest req) {
+                invocations.incrementAndGet()
+                return result(req)
+            }
+        }
+
+        filter.filter(request(ResourceAction.UPDATE), chain)
+        filter.filter(request(ResourceAction.READ, ApiKey), chain)
+
+        assertEquals invocations.get(), 2
+        assertEquals filter.requestCount, 0
+        assertEquals filter.coalescedCount, 0
+    }
+}
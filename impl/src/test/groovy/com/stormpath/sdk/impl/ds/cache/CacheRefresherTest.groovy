@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.ds.cache
+
+import org.testng.annotations.Test
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+import static org.testng.Assert.*
+
+/**
+ * @since 2.0.5
+ */
+class CacheRefresherTest {
+
+    @Test
+    void testSingleRefreshPerKey() {
+        def refresher = new CacheRefresher()
+
+        assertTrue refresher.claim('key')
+        assertFalse refresher.claim('key')
+        assertEquals refresher.inProgressCount, 1
+
+        def done = new CountDownLatch(1)
+        assertTrue refresher.submit('key', {
+            refresher.succeeded('key')
+            done.countDown()
+        } as Runnable)
+        assertTrue done.await(5, TimeUnit.SECONDS)
+
+        assertEquals refresher.scheduledCount, 1
+        assertEquals refresher.refreshedCount, 1
+        assertEquals refresher.inProgressCount, 0
+        assertTrue refresher.claim('key')
+
+        refresher.failed('key')
+        assertEquals refresher.failedCount, 1
+        assertEquals refresher.inProgressCount, 0
+    }
+
+    @Test
+    void testRejectedWhenSaturated() {
+        def refresher = new CacheRefresher(1, 1)
+        def release = new CountDownLatch(1)
+        def blocking = {
+            release.await()
+        } as Runnable
+
+        ['a', 'b', 'c'].each { assertTrue refresher.claim(it) }
+
+        //one running, one queued, the third one is rejected and its claim released:
+        assertTrue refresher.submit('a', blocking)
+        assertTrue refresher.submit('b', blocking)
+        assertFalse refresher.submit('c', blocking)
+
+        assertEquals refresher.rejectedCount, 1
+        assertEquals refresher.scheduledCount, 2
+        assertEquals refresher.inProgressCount, 2
+        assertTrue refresher.claim('c')
+
+        release.countDown()
+    }
+
+    @Test
+    void testRejectedAfterShutdown() {
+        def refresher = new CacheRefresher()
+        refresher.shutdown()
+
+        assertTrue refresher.claim('a')
+        assertFalse refresher.submit('a', {} as Runnable)
+        assertEquals refresher.rejectedCount, 1
+        assertEquals refresher.inProgressCount, 0
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException)
+    void testInvalidMaxThreads() {
+        new CacheRefresher(0, 1)
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.ds.cache
+
+import org.testng.annotations.Test
+
+import static org.testng.Assert.*
+
+/**
+ * @since 2.0.5
+ */
+class NegativeCacheTest {
+
+    @Test
+    void testRemoveApiKeyQueriesForId() {
+        def negativeCache = new NegativeCache(60000)
+
+        negativeCache.put('https://api.stormpath.com/v1/applications/app1/apiKeys?id=KEY1')
+        negativeCache.put('https://api.stormpath.com/v1/applications/app2/apiKeys?id=KEY1')
+        negativeCache.put('https://api.stormpath.com/v1/applications/app1/apiKeys?id=XKEY1')
+
+        negativeCache.removeAllEndingWith('?id=KEY1')
+
+        assertFalse negativeCache.contains('https://api.stormpath.com/v1/applications/app1/apiKeys?id=KEY1')
+        assertFalse negativeCache.contains('https://api.stormpath.com/v1/applications/app2/apiKeys?id=KEY1')
+        assertTrue negativeCache.contains('https://api.stormpath.com/v1/applications/app1/apiKeys?id=XKEY1')
+        assertEquals negativeCache.size(), 1
+    }
+}
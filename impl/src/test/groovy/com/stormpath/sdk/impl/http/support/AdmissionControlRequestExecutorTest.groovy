@@ -0,0 +1,189 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.http.support
+
+import com.stormpath.sdk.http.HttpMethod
+import com.stormpath.sdk.impl.http.AsyncRequestExecutor
+import com.stormpath.sdk.impl.http.HttpHeaders
+import com.stormpath.sdk.impl.http.Request
+import com.stormpath.sdk.impl.http.RequestExecutor
+import com.stormpath.sdk.impl.http.Response
+import com.stormpath.sdk.impl.http.RestException
+import com.stormpath.sdk.impl.util.ResultFuture
+import org.testng.annotations.Test
+
+import java.util.concurrent.TimeUnit
+
+import static org.testng.Assert.*
+
+/**
+ * @since 2.0.5
+ */
+class AdmissionControlRequestExecutorTest {
+
+    static final String ROUTE = 'https://api.stormpath.com'
+
+    static Request newRequest() {
+        new DefaultRequest(HttpMethod.GET, 'https://api.stormpath.com/v1/tenants/current')
+    }
+
+    @Test
+    void testCircuitBreakerFailsFast() {
+        int status = 503
+        int executed = 0
+        def delegate = { Request request ->
+            executed++
+            if (status < 0) {
+                throw new RestException('Unable to execute HTTP request: Connection refused')
+            }
+            return new DefaultResponse(status, null, null, 0)
+        } as RequestExecutor
+
+        def breaker = new CircuitBreaker(minimumRequests: 4, openDurationMillis: 60000)
+        def executor = new AdmissionControlRequestExecutor(delegate, breaker, new AimdConcurrencyLimiter())
+
+        assertEquals executor.executeRequest(newRequest()).httpStatus, 503
+        status = 404 //client errors are successes
+        executor.executeRequest(newRequest())
+        status = -1
+        2.times {
+            try {
+                executor.executeRequest(newRequest())
+                fail()
+            } catch (RestException expected) {
+            }
+        }
+        assertEquals breaker.getState(ROUTE), CircuitBreaker.State.OPEN //3 failures out of 4
+
+        try {
+            executor.executeRequest(newRequest())
+            fail()
+        } catch (CircuitBreakerOpenException e) {
+            assertEquals e.route, ROUTE
+        }
+        assertEquals executed, 4
+
+        //the limiter permits are released, including when the breaker rejects the request:
+        def limiter = executor.getAdmissionController(AimdConcurrencyLimiter)
+        assertEquals limiter.getInFlight(ROUTE), 0
+    }
+
+    @Test
+    void testLimiterRejectionReleasesBreakerPermit() {
+        def breaker = new CircuitBreaker(halfOpenRequests: 1, openDurationMillis: 0, minimumRequests: 1)
+        def limiter = new AimdConcurrencyLimiter(initialLimit: 1)
+        def executor = new AdmissionControlRequestExecutor({ Request r -> null } as RequestExecutor, breaker, limiter)
+
+        def held = limiter.acquire(ROUTE)
+        try {
+            executor.executeRequest(newRequest())
+            fail()
+        } catch (ConcurrencyLimitExceededException expected) {
+        }
+        assertEquals breaker.getFailureRate(ROUTE), 0d
+        assertEquals breaker.getState(ROUTE), CircuitBreaker.State.CLOSED
+        held.release(AdmissionController.Outcome.SUCCESS, 0)
+    }
+
+    static HttpHeaders rateLimitHeaders(int remaining) {
+        def headers = new HttpHeaders()
+        long serverNow = System.currentTimeMillis()
+        headers.setDate(serverNow)
+        headers.set(RateLimiter.LIMIT_HEADER, '10')
+        headers.set(RateLimiter.REMAINING_HEADER, String.valueOf(remaining))
+        headers.set(RateLimiter.RESET_HEADER, String.valueOf((long) (serverNow / 1000) + 10))
+        return headers
+    }
+
+    @Test
+    void testRateLimiterWaitsAndRejectionsAreNotFailures() {
+        def rateLimiter = new RateLimiter(RateLimiter.Policy.QUEUE)
+        def request = newRequest()
+        //100 requests left in the next 10 seconds: one every 100 ms, in bursts of one
+        rateLimiter.update(request.resourceUrl, rateLimitHeaders(100))
+
+        //paces the requests and records the network latency of the responses like the HTTP client executors:
+        int sent = 0
+        def delegate = { Request r ->
+            long wait = rateLimiter.acquire(r.resourceUrl)
+            if (wait > 0) {
+                Thread.sleep(wait)
+            }
+            sent++
+            def response = new DefaultResponse(200, null, null, 0)
+            response.latencyNanos = TimeUnit.MILLISECONDS.toNanos(1)
+            return response
+        } as RequestExecutor
+
+        def breaker = new CircuitBreaker(minimumRequests: 1, openDurationMillis: 60000)
+        def limiter = new AimdConcurrencyLimiter(latencyThresholdMillis: 20)
+        def executor = new AdmissionControlRequestExecutor(delegate, breaker, limiter)
+
+        long start = System.nanoTime()
+        2.times { assertEquals executor.executeRequest(request).httpStatus, 200 }
+        assertTrue System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20) //the second request waited
+
+        //the budget is exhausted until the end of the window:
+        rateLimiter.maxWaitMillis = 1000
+        rateLimiter.update(request.resourceUrl, rateLimitHeaders(0))
+        3.times {
+            try {
+                executor.executeRequest(request)
+                fail()
+            } catch (RateLimitExceededException expected) {
+            }
+        }
+        assertEquals sent, 2
+
+        //neither the wait nor the rejections are held against the route:
+        assertEquals breaker.getState(ROUTE), CircuitBreaker.State.CLOSED
+        assertEquals breaker.getFailureRate(ROUTE), 0d
+        assertEquals limiter.getDecreaseCount(ROUTE), 0
+        assertEquals limiter.getInFlight(ROUTE), 0
+    }
+
+    @Test
+    void testAsync() {
+        def futures = []
+        def delegate = [
+            executeRequest     : { Request r -> throw new UnsupportedOperationException() },
+            executeRequestAsync: { Request r -> def f = new ResultFuture<Response>(); futures << f; f }
+        ] as AsyncRequestExecutor
+
+        def executor = AdmissionControlRequestExecutor.wrap(delegate)
+        assertTrue executor instanceof AsyncRequestExecutor
+        def limiter = executor.getAdmissionController(AimdConcurrencyLimiter)
+        limiter.initialLimit = 2
+
+        def f1 = executor.executeRequestAsync(newRequest())
+        executor.executeRequestAsync(newRequest())
+        def rejected = executor.executeRequestAsync(newRequest())
+        assertTrue rejected.failed
+        assertEquals limiter.getInFlight(ROUTE), 2
+
+        futures[0].complete(new DefaultResponse(200, null, null, 0))
+        assertEquals f1.join().httpStatus, 200
+        futures[1].fail(new RestException('Unable to execute HTTP request: timeout'))
+        assertEquals limiter.getInFlight(ROUTE), 0
+        assertEquals executor.getAdmissionController(CircuitBreaker).getFailureRate(ROUTE), 0.5d
+
+        //a request rejected by the delegate's rate limiter is ignored:
+        executor.executeRequestAsync(newRequest())
+        futures[2].fail(new RateLimitExceededException('https://api.stormpath.com/v1/tenants', 1000))
+        assertEquals limiter.getInFlight(ROUTE), 0
+        assertEquals executor.getAdmissionController(CircuitBreaker).getFailureRate(ROUTE), 0.5d
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.http.support
+
+import com.stormpath.sdk.impl.http.support.AdmissionController.Outcome
+import org.testng.annotations.Test
+
+import java.util.concurrent.TimeUnit
+
+import static org.testng.Assert.*
+
+/**
+ * @since 2.0.5
+ */
+class AdmissionControllerTest {
+
+    static final String ROUTE = 'https://api.stormpath.com'
+
+    @Test
+    void testLimiterRejectsAboveLimit() {
+        def limiter = new AimdConcurrencyLimiter(initialLimit: 2)
+
+        def p1 = limiter.acquire(ROUTE)
+        def p2 = limiter.acquire(ROUTE)
+        try {
+            limiter.acquire(ROUTE)
+            fail()
+        } catch (ConcurrencyLimitExceededException e) {
+            assertEquals e.limit, 2
+            assertEquals e.route, ROUTE
+        }
+        assertEquals limiter.getInFlight(ROUTE), 2
+        assertEquals limiter.getRejectedCount(ROUTE), 1
+
+        p1.release(Outcome.IGNORED, 0)
+        p1.release(Outcome.IGNORED, 0) //only the first release counts
+        assertEquals limiter.getInFlight(ROUTE), 1
+        assertNotNull limiter.acquire('https://other.stormpath.com') //routes are independent
+        assertNotNull limiter.acquire(ROUTE)
+        p2.release(Outcome.SUCCESS, 0)
+    }
+
+    @Test
+    void testLimiterAdditiveIncreaseMultiplicativeDecrease() {
+        def limiter = new AimdConcurrencyLimiter(initialLimit: 10, latencyThresholdMillis: 100)
+
+        //fully used limit, fast responses: additive increase
+        for (int round = 0; round < 5; round++) {
+            def permits = (1..limiter.getLimit(ROUTE)).collect { limiter.acquire(ROUTE) }
+            permits.each { it.release(Outcome.SUCCESS, TimeUnit.MILLISECONDS.toNanos(10)) }
+        }
+        assertEquals limiter.getLimit(ROUTE), 12 //12.58
+
+        //slow responses and failures: multiplicative decrease
+        limiter.acquire(ROUTE).release(Outcome.SUCCESS, TimeUnit.MILLISECONDS.toNanos(500))
+        limiter.acquire(ROUTE).release(Outcome.FAILURE, 0)
+        assertEquals limiter.getLimit(ROUTE), 10 //12.58 * 0.9 * 0.9
+        assertEquals limiter.getDecreaseCount(ROUTE), 2
+
+        //an under-used limit does not grow:
+        10.times { limiter.acquire(ROUTE).release(Outcome.SUCCESS, 0) }
+        assertEquals limiter.getLimit(ROUTE), 10
+
+        50.times { limiter.acquire(ROUTE).release(Outcome.FAILURE, 0) }
+        assertEquals limiter.getLimit(ROUTE), limiter.minLimit
+    }
+
+    @Test
+    void testCircuitBreaker() {
+        long now = 0
+        def breaker = new CircuitBreaker() {
+            @Override
+            protected long currentTimeMillis() {
+                return now
+            }
+        }
+        breaker.windowSize = 10
+        breaker.minimumRequests = 4
+        breaker.halfOpenRequests = 2
+        breaker.openDurationMillis = 1000
+
+        3.times { breaker.acquire(ROUTE).release(Outcome.FAILURE, 0) } //not enough requests yet
+        assertEquals breaker.getState(ROUTE), CircuitBreaker.State.CLOSED
+        breaker.acquire(ROUTE).release(Outcome.IGNORED, 0)
+        assertEquals breaker.getState(ROUTE), CircuitBreaker.State.CLOSED
+        breaker.acquire(ROUTE).release(Outcome.FAILURE, 0)
+        assertEquals breaker.getState(ROUTE), CircuitBreaker.State.OPEN
+        assertEquals breaker.getOpenCount(ROUTE), 1
+
+        now = 400
+        try {
+            breaker.acquire(ROUTE)
+            fail()
+        } catch (CircuitBreakerOpenException e) {
+            assertEquals e.retryAfterMillis, 600
+        }
+        assertEquals breaker.getRejectedCount(ROUTE), 1
+
+        //half-open: a failed trial opens the breaker again
+        now = 1000
+        breaker.acquire(ROUTE).release(Outcome.FAILURE, 0)
+        assertEquals breaker.getState(ROUTE), CircuitBreaker.State.OPEN
+
+        //half-open: only the trial requests are admitted, and close the breaker when they succeed
+        now = 2000
+        def t1 = breaker.acquire(ROUTE)
+        def t2 = breaker.acquire(ROUTE)
+        assertEquals breaker.getState(ROUTE), CircuitBreaker.State.HALF_OPEN
+        try {
+            breaker.acquire(ROUTE)
+            fail()
+        } catch (CircuitBreakerOpenException expected) {
+        }
+        t1.release(Outcome.SUCCESS, 0)
+        t2.release(Outcome.SUCCESS, 0)
+        assertEquals breaker.getState(ROUTE), CircuitBreaker.State.CLOSED
+        assertEquals breaker.getFailureRate(ROUTE), 0d
+
+        //the failure rate is computed on the most recent outcomes only:
+        breaker.windowSize = 4
+        3.times { breaker.acquire(ROUTE).release(Outcome.SUCCESS, 0) }
+        breaker.acquire(ROUTE).release(Outcome.FAILURE, 0)
+        2.times { breaker.acquire(ROUTE).release(Outcome.SUCCESS, 0) }
+        assertEquals breaker.getFailureRate(ROUTE), 0.25d
+    }
+}
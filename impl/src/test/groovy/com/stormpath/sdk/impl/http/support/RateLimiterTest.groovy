@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.http.support
+
+import com.stormpath.sdk.impl.http.HttpHeaders
+import org.testng.annotations.Test
+
+import static org.testng.Assert.*
+
+/**
+ * @since 2.0.5
+ */
+class RateLimiterTest {
+
+    static final URI USERS = URI.create('https://dev-123.okta.com/api/v1/users/00u1')
+    static final String USERS_FAMILY = 'https://dev-123.okta.com/api/v1/users'
+
+    long now = 1500000000000L
+
+    RateLimiter newRateLimiter(RateLimiter.Policy policy) {
+        return new RateLimiter(policy) {
+            @Override
+            protected long currentTimeMillis() {
+                return now
+            }
+        }
+    }
+
+    HttpHeaders rateLimitHeaders(long limit, long remaining, long resetInSeconds) {
+        def headers = new HttpHeaders()
+        headers.set('X-Rate-Limit-Limit', String.valueOf(limit))
+        headers.set('X-Rate-Limit-Remaining', String.valueOf(remaining))
+        //the server clock is one hour ahead, only the reset delay matters:
+        headers.setDate(now + 3600000)
+        headers.set('X-Rate-Limit-Reset', String.valueOf((long) ((now + 3600000) / 1000) + resetInSeconds))
+        return headers
+    }
+
+    @Test
+    void testGetEndpointFamily() {
+        assertEquals RateLimiter.getEndpointFamily(USERS), USERS_FAMILY
+        assertEquals RateLimiter.getEndpointFamily(URI.create('https://dev-123.okta.com/api/v1/users')), USERS_FAMILY
+        assertEquals RateLimiter.getEndpointFamily(URI.create('https://dev-123.okta.com/oauth2/v1/token')), 'https://dev-123.okta.com/oauth2'
+        assertEquals RateLimiter.getEndpointFamily(URI.create('http://localhost:8080/v1/accounts/a1/customData')), 'http://localhost:8080/v1/accounts'
+    }
+
+    @Test
+    void testPacing() {
+        def limiter = newRateLimiter(RateLimiter.Policy.QUEUE)
+        limiter.maxWaitMillis = 60000
+
+        assertEquals limiter.acquire(USERS), 0 //unknown limit
+
+        //600 requests per minute left: bursts of 60, then one every 100 ms
+        limiter.update(USERS, rateLimitHeaders(600, 600, 60))
+        assertEquals limiter.getRemaining(USERS_FAMILY), 600
+        60.times { assertEquals limiter.acquire(USERS), 0 }
+        assertEquals limiter.acquire(USERS), 100
+        assertEquals limiter.acquire(USERS), 200
+        assertEquals limiter.getQueuedCount(USERS_FAMILY), 2
+
+        //other families are not limited:
+        assertEquals limiter.acquire(URI.create('https://dev-123.okta.com/api/v1/groups')), 0
+
+        now += 1000 //10 more tokens, 2 of which were reserved
+        8.times { assertEquals limiter.acquire(USERS), 0 }
+        assertEquals limiter.acquire(USERS), 100
+
+        //the server's count is authoritative:
+        now += 1000
+        limiter.update(USERS, rateLimitHeaders(600, 1, 30))
+        assertEquals limiter.acquire(USERS), 0
+        assertEquals limiter.acquire(USERS), 30000
+
+        //the window has reset:
+        now += 31000
+        assertEquals limiter.acquire(USERS), 0
+    }
+
+    @Test
+    void testRejection() {
+        def limiter = newRateLimiter(RateLimiter.Policy.QUEUE)
+        limiter.maxWaitMillis = 5000
+
+        limiter.update(USERS, rateLimitHeaders(600, 0, 20))
+        try {
+            limiter.acquire(USERS)
+            fail()
+        } catch (RateLimitExceededException e) {
+            assertEquals e.route, USERS_FAMILY
+            assertEquals e.retryAfterMillis, 20000
+        }
+
+        limiter = newRateLimiter(RateLimiter.Policy.REJECT)
+        limiter.update(USERS, rateLimitHeaders(100, 100, 60))
+        10.times { limiter.acquire(USERS) }
+        try {
+            limiter.acquire(USERS)
+            fail()
+        } catch (RateLimitExceededException e) {
+            assertEquals e.retryAfterMillis, 600
+        }
+        assertEquals limiter.getRejectedCount(USERS_FAMILY), 1
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.resource
+
+import com.stormpath.sdk.account.Account
+import com.stormpath.sdk.impl.account.DefaultAccount
+import com.stormpath.sdk.impl.account.DefaultAccountList
+import com.stormpath.sdk.impl.ds.AsyncDataStore
+import com.stormpath.sdk.impl.ds.InternalDataStore
+import com.stormpath.sdk.impl.util.DaemonThreadFactory
+import com.stormpath.sdk.lang.Consumer
+import com.stormpath.sdk.lang.Function
+import org.testng.annotations.Test
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
+
+import static org.testng.Assert.*
+
+/**
+ * @since 2.0.5
+ */
+class AbstractCollectionResourceTest {
+
+    static final String HREF = "https://api.stormpath.com/v1/directories/foo/accounts"
+    static final int SIZE = 10
+    static final int LIMIT = 3
+
+    static final Executor PREFETCH_EXECUTOR = Executors.newFixedThreadPool(2, new DaemonThreadFactory("stormpath-page-prefetch"))
+
+    static Map<String, Object> page(int offset) {
+        def items = (offset..<Math.min(offset + LIMIT, SIZE)).collect { [href: "https://api.stormpath.com/v1/accounts/$it".toString()] }
+        return [href: HREF, offset: offset, limit: LIMIT, size: SIZE, items: items]
+    }
+
+    /**
+     * Returns a data store that serves pages of a {@code SIZE}-account collection and records the thread that fetched
+     * each page offset.  Background lookups run on the specified executor, if any.
+     */
+    static InternalDataStore dataStore(Map<Integer, String> fetches, Executor executor = PREFETCH_EXECUTOR) {
+        InternalDataStore ds
+        def methods = [
+            getResource: { String href, Class clazz, Map queryParams ->
+                int offset = queryParams.offset as int
+                fetches.put(offset, Thread.currentThread().getName())
+                return new DefaultAccountList(ds, page(offset), queryParams)
+            },
+            instantiate: { Class clazz, Map properties ->
+                return new DefaultAccount(ds, properties)
+            },
+            getBaseUrl: { ->
+                return 'https://api.stormpath.com/v1'
+            },
+            getBackgroundExecutor: { ->
+                return executor
+            }
+        ]
+        ds = executor != null ? methods as BackgroundDataStore : methods as InternalDataStore
+        return ds
+    }
+
+    static List<String> iterate(DefaultAccountList list) {
+        def hrefs = []
+        for (Account account : list) {
+            hrefs << account.href
+        }
+        return hrefs
+    }
+
+    @Test
+    void testPrefetchDisabledByDefault() {
+
+        def fetches = new ConcurrentHashMap<Integer, String>()
+        def ds = dataStore(fetches)
+        def list = new DefaultAccountList(ds, page(0), [:])
+
+        assertFalse list.isPrefetchEnabled()
+        assertEquals iterate(list), (0..<SIZE).collect { "https://api.stormpath.com/v1/accounts/$it".toString() }
+        assertEquals fetches.keySet(), [3, 6, 9] as Set
+        fetches.values().each { assertEquals it, Thread.currentThread().getName() }
+    }
+
+    @Test
+    void testPrefetchFetchesNextPagesInBackground() {
+
+        def fetches = new ConcurrentHashMap<Integer, String>()
+        def ds = dataStore(fetches)
+        def list = new DefaultAccountList(ds, page(0), [:])
+        list.setPrefetch(0.5d, 2)
+
+        assertTrue list.isPrefetchEnabled()
+        assertEquals iterate(list), (0..<SIZE).collect { "https://api.stormpath.com/v1/accounts/$it".toString() }
+        assertEquals fetches.keySet(), [3, 6, 9] as Set
+        fetches.values().each { assertTrue it.startsWith("stormpath-page-prefetch") }
+    }
+
+    @Test
+    void testNoPrefetchWithoutBackgroundExecutor() {
+
+        def fetches = new ConcurrentHashMap<Integer, String>()
+        def list = new DefaultAccountList(dataStore(fetches, null), page(0), [:])
+        list.setPrefetch(0.5d, 2)
+
+        assertEquals iterate(list).size(), SIZE
+        fetches.values().each { assertEquals it, Thread.currentThread().getName() }
+    }
+
+    @Test
+    void testCloseCancelsPendingPrefetches() {
+
+        def fetches = new ConcurrentHashMap<Integer, String>()
+        def pending = []
+        def list = new DefaultAccountList(dataStore(fetches, { Runnable r -> pending << r } as Executor), page(0), [:])
+        list.setPrefetch(0d, 2)
+
+        def iterator = list.iterator()
+        iterator.next()
+        assertEquals pending.size(), 2
+
+        ((Closeable) iterator).close()
+        pending*.run()
+        assertTrue fetches.isEmpty()
+
+        //the iterator still works after being closed, fetching the remaining pages itself:
+        pending.clear()
+        int count = 1
+        while (iterator.hasNext()) {
+            iterator.next()
+            pending*.run()
+            pending.clear()
+            count++
+        }
+        assertEquals count, SIZE
+    }
+
+    @Test
+    void testPrefetchDoesNotRequestBeyondSize() {
+
+        def fetches = new ConcurrentHashMap<Integer, String>()
+        def ds = dataStore(fetches)
+        def list = new DefaultAccountList(ds, page(0), [:])
+        list.setPrefetch(0d, 10)
+
+        assertEquals iterate(list).size(), SIZE
+        assertEquals fetches.keySet(), [3, 6, 9] as Set
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException)
+    void testSetPrefetchInvalidThreshold() {
+        new DefaultAccountList(dataStore([:]), page(0), [:]).setPrefetch(1.5d, 1)
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException)
+    void testSetPrefetchInvalidMaxPages() {
+        new DefaultAccountList(dataStore([:]), page(0), [:]).setPrefetch(0.5d, 0)
+    }
+
+    @Test
+    void testMapParallelReturnsResultsInOrder() {
+
+        def fetches = new ConcurrentHashMap<Integer, String>()
+        def list = new DefaultAccountList(dataStore(fetches), page(0), [:])
+
+        def hrefs = list.mapParallel(new Function<Account, String>() {
+            @Override
+            String apply(Account account) {
+                return account.href
+            }
+        }, 3)
+
+        assertEquals hrefs, (0..<SIZE).collect { "https://api.stormpath.com/v1/accounts/$it".toString() }
+        //the first page is already materialized and must not be requested again:
+        assertEquals fetches.keySet(), [3, 6, 9] as Set
+    }
+
+    @Test
+    void testForEachParallelVisitsEveryItem() {
+
+        def fetches = new ConcurrentHashMap<Integer, String>()
+        def list = new DefaultAccountList(dataStore(fetches), page(0), [:])
+        def visited = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>())
+
+        list.forEachParallel(new Consumer<Account>() {
+            @Override
+            void accept(Account account) {
+                visited.add(account.href)
+            }
+        })
+
+        assertEquals visited, (0..<SIZE).collect { "https://api.stormpath.com/v1/accounts/$it".toString() } as Set
+        assertEquals fetches.keySet(), [3, 6, 9] as Set
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException)
+    void testMapParallelInvalidParallelism() {
+        new DefaultAccountList(dataStore([:]), page(0), [:]).mapParallel(new Function<Account, String>() {
+            @Override
+            String apply(Account account) {
+                return account.href
+            }
+        }, 0)
+    }
+}
+
+interface BackgroundDataStore extends InternalDataStore, AsyncDataStore {
+}
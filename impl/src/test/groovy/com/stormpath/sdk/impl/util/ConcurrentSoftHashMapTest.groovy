@@ -0,0 +1,94 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.util
+
+import org.testng.annotations.Test
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+import static org.testng.Assert.*
+
+/**
+ * @since 2.0.5
+ */
+class ConcurrentSoftHashMapTest {
+
+    @Test
+    void testMapContract() {
+        def map = new ConcurrentSoftHashMap<String, String>()
+
+        assertTrue map.isEmpty()
+        assertNull map.put('a', '1')
+        assertEquals map.put('a', '2'), '1'
+        map.putAll([b: '3', c: '4'])
+
+        assertEquals map.size(), 3
+        assertEquals map.get('a'), '2'
+        assertTrue map.containsKey('b')
+        assertTrue map.containsValue('4')
+        assertEquals map.keySet(), ['a', 'b', 'c'] as Set
+        assertEquals map.values() as Set, ['2', '3', '4'] as Set
+        assertEquals map.entrySet().size(), 3
+
+        assertEquals map.remove('b'), '3'
+        assertNull map.remove('b')
+        assertEquals map.size(), 2
+
+        map.clear()
+        assertTrue map.isEmpty()
+        assertNull map.get('a')
+    }
+
+    @Test
+    void testZeroRetentionSize() {
+        def map = new ConcurrentSoftHashMap<String, String>(0)
+        map.put('a', '1')
+        assertEquals map.get('a'), '1'
+    }
+
+    @Test
+    void testConcurrentAccess() {
+        def map = new ConcurrentSoftHashMap<Integer, Integer>(10)
+        def executor = Executors.newFixedThreadPool(8)
+        def latch = new CountDownLatch(8)
+        def failures = java.util.Collections.synchronizedList([])
+
+        8.times { t ->
+            executor.execute {
+                try {
+                    for (int i = 0; i < 10000; i++) {
+                        int key = i % 100
+                        map.put(key, key)
+                        def value = map.get(key)
+                        if (value != null && value != key) {
+                            failures.add(value)
+                        }
+                    }
+                } finally {
+                    latch.countDown()
+                }
+            }
+        }
+
+        assertTrue latch.await(30, TimeUnit.SECONDS)
+        executor.shutdown()
+
+        assertTrue failures.isEmpty()
+        assertEquals map.size(), 100
+    }
+}
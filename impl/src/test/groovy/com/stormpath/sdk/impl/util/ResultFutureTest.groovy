@@ -0,0 +1,171 @@
+/*
+ * Copyright 2017 Stormpath, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stormpath.sdk.impl.util
+
+import com.stormpath.sdk.lang.Function
+import org.testng.annotations.Test
+
+import java.util.concurrent.CancellationException
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.TimeoutException
+
+import static org.testng.Assert.*
+
+/**
+ * @since 2.0.5
+ */
+class ResultFutureTest {
+
+    @Test
+    void testCompleted() {
+        def future = ResultFuture.completed('foo')
+        assertTrue future.isDone()
+        assertFalse future.isFailed()
+        assertEquals future.get(), 'foo'
+        assertEquals future.join(), 'foo'
+    }
+
+    @Test
+    void testCompleteOnlyOnce() {
+        def future = new ResultFuture<String>()
+        assertTrue future.complete('foo')
+        assertFalse future.complete('bar')
+        assertFalse future.fail(new IllegalStateException())
+        assertEquals future.join(), 'foo'
+    }
+
+    @Test
+    void testJoinRethrowsRuntimeException() {
+        def e = new IllegalStateException('boom')
+        def future = ResultFuture.failed(e)
+        assertTrue future.isFailed()
+        try {
+            future.join()
+            fail()
+        } catch (IllegalStateException expected) {
+            assertSame expected, e
+        }
+    }
+
+    @Test
+    void testGetWrapsFailureInExecutionException() {
+        def e = new IllegalStateException('boom')
+        def future = ResultFuture.failed(e)
+        try {
+            future.get()
+            fail()
+        } catch (ExecutionException expected) {
+            assertSame expected.cause, e
+        }
+    }
+
+    @Test(expectedExceptions = TimeoutException)
+    void testGetTimeout() {
+        new ResultFuture<String>().get(1, TimeUnit.MILLISECONDS)
+    }
+
+    @Test(expectedExceptions = CancellationException)
+    void testCancel() {
+        def future = new ResultFuture<String>()
+        assertTrue future.cancel(false)
+        assertTrue future.isCancelled()
+        future.get()
+    }
+
+    @Test
+    void testListenerNotifiedOnCompletion() {
+        def future = new ResultFuture<String>()
+        def values = []
+        future.whenComplete(new ResultFuture.Listener<String>() {
+            @Override
+            void onSuccess(String value) {
+                values << value
+            }
+
+            @Override
+            void onFailure(Throwable t) {
+                fail()
+            }
+        })
+        assertTrue values.isEmpty()
+        future.complete('foo')
+        assertEquals values, ['foo']
+    }
+
+    @Test
+    void testThenApply() {
+        def future = new ResultFuture<String>()
+        def next = future.thenApply(new Function<String, Integer>() {
+            @Override
+            Integer apply(String s) {
+                return s.length()
+            }
+        })
+        assertFalse next.isDone()
+        future.complete('foo')
+        assertEquals next.join(), 3
+    }
+
+    @Test
+    void testThenApplyFunctionFailure() {
+        def e = new IllegalArgumentException('bad')
+        def next = ResultFuture.completed('foo').thenApply(new Function<String, Integer>() {
+            @Override
+            Integer apply(String s) {
+                throw e
+            }
+        })
+        assertTrue next.isFailed()
+        try {
+            next.join()
+            fail()
+        } catch (IllegalArgumentException expected) {
+            assertSame expected, e
+        }
+    }
+
+    @Test
+    void testThenCompose() {
+        def inner = new ResultFuture<Integer>()
+        def next = ResultFuture.completed('foo').thenCompose(new Function<String, ResultFuture<Integer>>() {
+            @Override
+            ResultFuture<Integer> apply(String s) {
+                return inner
+            }
+        })
+        assertFalse next.isDone()
+        inner.complete(42)
+        assertEquals next.join(), 42
+    }
+
+    @Test
+    void testThenComposeFunctionReturnsNull() {
+        def next = ResultFuture.completed('foo').thenCompose(new Function<String, ResultFuture<Integer>>() {
+            @Override
+            ResultFuture<Integer> apply(String s) {
+                return null
+            }
+        })
+        assertTrue next.isDone()
+        try {
+            next.join()
+            fail()
+        } catch (IllegalStateException expected) {
+            assertTrue expected.message.contains('returned null')
+        }
+    }
+}